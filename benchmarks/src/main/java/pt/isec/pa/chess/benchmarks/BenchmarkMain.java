@@ -0,0 +1,23 @@
+package pt.isec.pa.chess.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs JMH with the results written as JSON (jmh-result.json) unless
+ * another format or file is given. Any other JMH option can be passed,
+ * for example a benchmark name filter.
+ */
+public final class BenchmarkMain {
+    private BenchmarkMain() {}
+
+    public static void main(String[] args) throws Exception {
+        List<String> options = new ArrayList<>(Arrays.asList(args));
+        if (!options.contains("-rf"))
+            options.addAll(List.of("-rf", "json"));
+        if (!options.contains("-rff"))
+            options.addAll(List.of("-rff", "jmh-result.json"));
+        org.openjdk.jmh.Main.main(options.toArray(new String[0]));
+    }
+}
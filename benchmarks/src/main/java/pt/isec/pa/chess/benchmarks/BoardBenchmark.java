@@ -0,0 +1,44 @@
+package pt.isec.pa.chess.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import pt.isec.pa.chess.model.data.Board;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Square lookups on the board, by index and by column/row.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+    @Param({"opening", "middlegame", "endgame"})
+    public String phase;
+
+    private Board board;
+
+    @Setup
+    public void setUp() {
+        board = Positions.load(phase).getBoard();
+    }
+
+    @Benchmark
+    public void getPieceBySquare(Blackhole bh) {
+        for (int square = 0; square < 64; square++) {
+            bh.consume(board.getPiece(square));
+        }
+    }
+
+    @Benchmark
+    public void getPieceByColumnRow(Blackhole bh) {
+        for (char col = 'a'; col <= 'h'; col++) {
+            for (int row = 1; row <= 8; row++) {
+                bh.consume(board.getPiece(col, row));
+            }
+        }
+    }
+}
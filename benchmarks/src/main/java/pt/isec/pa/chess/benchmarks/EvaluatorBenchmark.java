@@ -0,0 +1,60 @@
+package pt.isec.pa.chess.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.data.Board;
+import pt.isec.pa.chess.model.data.PieceSquareTables;
+import pt.isec.pa.chess.model.engine.Evaluator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluations per second. scanMaterialAndTables adds up the material and
+ * piece-square values square by square, which is what the board saves by
+ * keeping those sums up to date on every move.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluatorBenchmark {
+    @Param({"opening", "middlegame", "endgame"})
+    public String phase;
+
+    private ChessGame game;
+
+    @Setup
+    public void setUp() {
+        game = Positions.load(phase);
+    }
+
+    @Benchmark
+    public int evaluate() {
+        return Evaluator.evaluate(game);
+    }
+
+    @Benchmark
+    public int incrementalMaterialAndTables() {
+        Board board = game.getBoard();
+        return board.getMidgameScore() + board.getEndgameScore() + board.getPhase();
+    }
+
+    @Benchmark
+    public int scanMaterialAndTables() {
+        Board board = game.getBoard();
+        int midgame = 0;
+        int endgame = 0;
+        int phase = 0;
+        for (int square = 0; square < 64; square++) {
+            int code = board.getPieceCode(square);
+            if (code == Board.EMPTY)
+                continue;
+            midgame += PieceSquareTables.midgame(code, square);
+            endgame += PieceSquareTables.endgame(code, square);
+            phase += PieceSquareTables.phase(code);
+        }
+        return midgame + endgame + phase;
+    }
+}
@@ -0,0 +1,85 @@
+package pt.isec.pa.chess.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.ModelLog;
+import pt.isec.pa.chess.model.command.MoveCommand;
+import pt.isec.pa.chess.model.data.Move;
+import pt.isec.pa.chess.model.data.MoveList;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ChessGame operations used by every move in the UI: attack queries,
+ * game state updates, move commands and the text import/export.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+    @Param({"opening", "middlegame", "endgame"})
+    public String phase;
+
+    private ChessGame game;
+    private ChessGame target;
+    private String exported;
+    private int moveFrom;
+    private int moveTo;
+    private int commands;
+
+    @Setup
+    public void setUp() {
+        game = Positions.load(phase);
+        target = new ChessGame();
+        exported = game.exportGame();
+        MoveList moves = new MoveList();
+        game.generateLegalMoves(moves);
+        moveFrom = Move.from(moves.get(0));
+        moveTo = Move.to(moves.get(0));
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearLog() {
+        ModelLog.getInstance().clear();
+    }
+
+    @Benchmark
+    public int isUnderAttack() {
+        int attacked = 0;
+        for (int square = 0; square < 64; square++) {
+            if (game.isUnderAttack(square, true)) attacked++;
+            if (game.isUnderAttack(square, false)) attacked++;
+        }
+        return attacked;
+    }
+
+    @Benchmark
+    public Object updateGameState() {
+        game.updateGameState();
+        return game.getGameState();
+    }
+
+    @Benchmark
+    public boolean moveCommandExecuteUndo() {
+        // cada jogada escreve no ModelLog, que é limpo de vez em quando para não crescer sem limite
+        if ((++commands & 1023) == 0)
+            ModelLog.getInstance().clear();
+        MoveCommand command = new MoveCommand(game, moveFrom, moveTo);
+        return command.execute() & command.undo();
+    }
+
+    @Benchmark
+    public String exportGame() {
+        return game.exportGame();
+    }
+
+    @Benchmark
+    public void importGame(Blackhole bh) {
+        target.importGame(exported);
+        bh.consume(target);
+    }
+}
@@ -0,0 +1,68 @@
+package pt.isec.pa.chess.benchmarks;
+
+import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.engine.Search;
+import pt.isec.pa.chess.model.engine.SearchInfo;
+import pt.isec.pa.chess.model.engine.SearchLimits;
+import pt.isec.pa.chess.model.engine.SearchOptions;
+import pt.isec.pa.chess.model.engine.TranspositionTable;
+
+/**
+ * Nodes the search needs to reach a fixed depth on the benchmark
+ * positions, as the move ordering techniques are turned on one by one.
+ * Every run starts with an empty transposition table; the table move is
+ * always tried first, so the first line is the ordering without any of
+ * the techniques in SearchOptions. The quiescence search is on in every line.
+ *
+ * java -cp target/benchmarks.jar pt.isec.pa.chess.benchmarks.MoveOrderingReport [depth]
+ */
+public final class MoveOrderingReport {
+    private static final String[] PHASES = {"opening", "middlegame", "endgame"};
+
+    private MoveOrderingReport() {}
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+        String[] names = {"tabela", "+ MVV-LVA", "+ SEE", "+ killers", "+ histórico", "+ contra-jogadas"};
+        SearchOptions[] configs = {
+                withoutOrdering(),
+                withoutOrdering().setCaptureOrdering(true),
+                withoutOrdering().setCaptureOrdering(true).setSee(true),
+                withoutOrdering().setCaptureOrdering(true).setSee(true).setKillers(true),
+                withoutOrdering().setCaptureOrdering(true).setSee(true).setKillers(true).setHistory(true),
+                new SearchOptions(true)
+        };
+
+        System.out.printf("Profundidade %d%n", depth);
+        System.out.printf("%-18s", "ordenação");
+        for (String phase : PHASES) {
+            System.out.printf(" %12s", phase);
+        }
+        System.out.printf(" %12s %8s%n", "total", "redução");
+        long baseline = 0;
+        for (int i = 0; i < configs.length; i++) {
+            System.out.printf("%-18s", names[i]);
+            long total = 0;
+            for (String phase : PHASES) {
+                long nodes = run(phase, depth, configs[i]);
+                total += nodes;
+                System.out.printf(" %12d", nodes);
+            }
+            if (i == 0)
+                baseline = total;
+            System.out.printf(" %12d %7.1f%%%n", total, 100.0 * (baseline - total) / baseline);
+        }
+    }
+
+    private static SearchOptions withoutOrdering() {
+        return new SearchOptions(false).setQuiescence(true);
+    }
+
+    private static long run(String phase, int depth, SearchOptions options) {
+        ChessGame game = Positions.load(phase);
+        Search search = new Search(game, new TranspositionTable(16), 0);
+        search.setOptions(options);
+        SearchInfo info = search.search(SearchLimits.depth(depth), null);
+        return info.getNodes();
+    }
+}
@@ -0,0 +1,53 @@
+package pt.isec.pa.chess.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.data.Board;
+import pt.isec.pa.chess.model.data.Piece;
+import pt.isec.pa.chess.model.data.PieceType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Piece.getPossibleMoves for every piece of one type (both colours)
+ * in each position. Types absent from a position measure nothing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PieceBenchmark {
+    @Param({"opening", "middlegame", "endgame"})
+    public String phase;
+
+    @Param({"KING", "QUEEN", "BISHOP", "ROOK", "PAWN", "KNIGHT"})
+    public PieceType type;
+
+    private ChessGame game;
+    private Piece[] pieces;
+
+    @Setup
+    public void setUp() {
+        game = Positions.load(phase);
+        Board board = game.getBoard();
+        List<Piece> list = new ArrayList<>();
+        for (int square = 0; square < 64; square++) {
+            Piece piece = board.getPiece(square);
+            if (piece != null && piece.getType() == type)
+                list.add(piece);
+        }
+        pieces = list.toArray(new Piece[0]);
+    }
+
+    @Benchmark
+    public void getPossibleMoves(Blackhole bh) {
+        for (Piece piece : pieces) {
+            bh.consume(piece.getPossibleMoves(game));
+        }
+    }
+}
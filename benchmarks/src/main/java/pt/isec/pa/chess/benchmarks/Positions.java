@@ -0,0 +1,32 @@
+package pt.isec.pa.chess.benchmarks;
+
+import pt.isec.pa.chess.model.ChessGame;
+
+/**
+ * Fixed set of positions used by every benchmark, so results can be
+ * compared between versions. Benchmarks take the phase name as a
+ * parameter ("opening", "middlegame" or "endgame").
+ */
+public final class Positions {
+    public static final String OPENING = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    public static final String MIDDLEGAME = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    public static final String ENDGAME = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+
+    private Positions() {}
+
+    public static String fen(String phase) {
+        return switch (phase) {
+            case "opening" -> OPENING;
+            case "middlegame" -> MIDDLEGAME;
+            case "endgame" -> ENDGAME;
+            default -> throw new IllegalArgumentException("Fase desconhecida: " + phase);
+        };
+    }
+
+    public static ChessGame load(String phase) {
+        ChessGame game = new ChessGame();
+        if (!game.importFen(fen(phase)))
+            throw new IllegalStateException("FEN inválido: " + fen(phase));
+        return game;
+    }
+}
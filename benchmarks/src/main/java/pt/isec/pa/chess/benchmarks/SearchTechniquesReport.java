@@ -0,0 +1,75 @@
+package pt.isec.pa.chess.benchmarks;
+
+import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.data.Move;
+import pt.isec.pa.chess.model.engine.Search;
+import pt.isec.pa.chess.model.engine.SearchInfo;
+import pt.isec.pa.chess.model.engine.SearchLimits;
+import pt.isec.pa.chess.model.engine.SearchOptions;
+import pt.isec.pa.chess.model.engine.TranspositionTable;
+
+/**
+ * Time and nodes the search needs to reach a fixed depth on the benchmark
+ * positions, and how many of the Tactics positions it solves in a fixed
+ * time, with every search technique on, with each of the pruning,
+ * reduction and extension techniques turned off, and with all of them off.
+ * Move ordering and the quiescence search are on in every line; the
+ * searches run once at a lower depth before the measured runs.
+ *
+ * java -cp target/benchmarks.jar pt.isec.pa.chess.benchmarks.SearchTechniquesReport [depth] [millis]
+ */
+public final class SearchTechniquesReport {
+    private static final String[] PHASES = {"opening", "middlegame", "endgame"};
+
+    private SearchTechniquesReport() {}
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        long millis = args.length > 1 ? Long.parseLong(args[1]) : 500;
+        String[] names = {"todas", "sem jogada nula", "sem LMR", "sem futilidade inv.", "sem futilidade",
+                "sem extensões", "nenhuma"};
+        SearchOptions[] configs = {
+                new SearchOptions(),
+                new SearchOptions().setNullMove(false),
+                new SearchOptions().setLateMoveReductions(false),
+                new SearchOptions().setReverseFutility(false),
+                new SearchOptions().setFutility(false),
+                new SearchOptions().setCheckExtensions(false),
+                new SearchOptions().setNullMove(false).setLateMoveReductions(false).setReverseFutility(false)
+                        .setFutility(false).setCheckExtensions(false)
+        };
+
+        // aquecimento, para a compilação JIT não contar no tempo da primeira linha
+        for (String phase : PHASES) {
+            search(Positions.load(phase), SearchLimits.depth(depth), configs[0]);
+        }
+
+        System.out.printf("Profundidade %d, %d ms por posição tática%n", depth, millis);
+        System.out.printf("%-20s %12s %10s %10s%n", "técnicas", "nós", "tempo (ms)", "táticas");
+        for (int i = 0; i < configs.length; i++) {
+            long nodes = 0;
+            long time = 0;
+            for (String phase : PHASES) {
+                long start = System.nanoTime();
+                nodes += search(Positions.load(phase), SearchLimits.depth(depth), configs[i]).getNodes();
+                time += (System.nanoTime() - start) / 1_000_000;
+            }
+            int solved = 0;
+            for (int t = 0; t < Tactics.size(); t++) {
+                ChessGame game = new ChessGame();
+                if (!game.importFen(Tactics.fen(t)))
+                    throw new IllegalStateException("FEN inválido: " + Tactics.fen(t));
+                SearchInfo info = search(game, SearchLimits.time(millis), configs[i]);
+                if (Move.toString(info.getBestMove()).startsWith(Tactics.solution(t)))
+                    solved++;
+            }
+            System.out.printf("%-20s %12d %10d %7d/%d%n", names[i], nodes, time, solved, Tactics.size());
+        }
+    }
+
+    private static SearchInfo search(ChessGame game, SearchLimits limits, SearchOptions options) {
+        Search search = new Search(game, new TranspositionTable(16), 0);
+        search.setOptions(options);
+        return search.search(limits, null);
+    }
+}
@@ -0,0 +1,46 @@
+package pt.isec.pa.chess.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.ChessGameSerialization;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saving and loading a game with ChessGameSerialization, through a
+ * temporary file.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+    @Param({"opening", "middlegame", "endgame"})
+    public String phase;
+
+    private ChessGame game;
+    private String fileName;
+
+    @Setup
+    public void setUp() throws IOException {
+        game = Positions.load(phase);
+        File file = File.createTempFile("chess-bench", ".dat");
+        file.deleteOnExit();
+        fileName = file.getPath();
+        ChessGameSerialization.save(fileName, game);
+    }
+
+    @Benchmark
+    public void save() {
+        ChessGameSerialization.save(fileName, game);
+    }
+
+    @Benchmark
+    public ChessGame load() {
+        return ChessGameSerialization.load(fileName);
+    }
+}
@@ -0,0 +1,67 @@
+package pt.isec.pa.chess.benchmarks;
+
+import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.engine.ParallelSearch;
+import pt.isec.pa.chess.model.engine.SearchInfo;
+import pt.isec.pa.chess.model.engine.SearchLimits;
+import pt.isec.pa.chess.model.engine.TranspositionTable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Time-to-depth of the parallel search for an increasing number of
+ * threads, over the benchmark positions. Each search starts with an
+ * empty transposition table. The speedup is the time with one thread
+ * divided by the time with N threads.
+ *
+ * java -cp target/benchmarks.jar pt.isec.pa.chess.benchmarks.SmpSpeedup [depth] [max threads]
+ */
+public final class SmpSpeedup {
+    private static final String[] PHASES = {"opening", "middlegame", "endgame"};
+
+    private SmpSpeedup() {}
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        ExecutorService pool = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r);
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int threads = 1; threads < maxThreads; threads *= 2) {
+            threadCounts.add(threads);
+        }
+        threadCounts.add(maxThreads);
+
+        run(pool, depth - 2, 1); // aquecimento do JIT
+        System.out.printf("Profundidade %d, posições: %s%n", depth, String.join(", ", PHASES));
+        System.out.printf("%8s %12s %14s %12s %8s%n", "threads", "tempo (ms)", "nós", "nós/s", "speedup");
+        double baseline = 0;
+        for (int threads : threadCounts) {
+            long start = System.nanoTime();
+            long nodes = run(pool, depth, threads);
+            double millis = (System.nanoTime() - start) / 1e6;
+            if (threads == 1)
+                baseline = millis;
+            System.out.printf("%8d %12.0f %14d %12.0f %8.2f%n", threads, millis, nodes,
+                    nodes * 1000 / Math.max(1, millis), baseline / millis);
+        }
+    }
+
+    private static long run(ExecutorService pool, int depth, int threads) {
+        long nodes = 0;
+        for (String phase : PHASES) {
+            ChessGame game = Positions.load(phase);
+            ParallelSearch search = new ParallelSearch(game, new TranspositionTable(16), threads, pool);
+            SearchInfo info = search.search(SearchLimits.depth(depth), null);
+            nodes += info.getNodes();
+        }
+        return nodes;
+    }
+}
@@ -1,12 +1,125 @@
 package pt.isec.pa.chess;
 
 import javafx.application.Application;
+import pt.isec.pa.chess.model.Perft;
+import pt.isec.pa.chess.model.engine.OpeningBookWriter;
+import pt.isec.pa.chess.model.pgn.PgnReader;
+import pt.isec.pa.chess.model.tablebase.TablebaseGenerator;
 import pt.isec.pa.chess.ui.gui.MainJFX;
+import pt.isec.pa.chess.ui.uci.UciEngine;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Scanner;
+import java.util.concurrent.atomic.LongAdder;
 
 public class ChessMain {
     public static void main(String[] args) {
+        // modo sem interface: --perft <ficheiro.epd> [profundidade máxima] [threads]
+        if (args.length >= 2 && args[0].equals("--perft")) {
+            System.exit(runPerft(args));
+        }
+        // modo sem interface: protocolo UCI em stdin/stdout, sem carregar nenhuma classe do JavaFX
+        if (args.length >= 1 && args[0].equals("--uci")) {
+            System.exit(runUci());
+        }
+        // modo sem interface: --make-book <linhas.txt> <livro.bin>, uma linha de jogadas por linha do ficheiro
+        if (args.length >= 3 && args[0].equals("--make-book")) {
+            System.exit(runMakeBook(args));
+        }
+        // modo sem interface: --tablebases <pasta> [peças] [threads], gera as tabelas de finais que faltam
+        if (args.length >= 2 && args[0].equals("--tablebases")) {
+            System.exit(runTablebases(args));
+        }
+        // modo sem interface: --read-pgn <ficheiro.pgn> [threads], lê todos os jogos e mostra a velocidade
+        if (args.length >= 2 && args[0].equals("--read-pgn")) {
+            System.exit(runReadPgn(args));
+        }
+        launchGui(args);
+    }
+
+    // num método à parte, para o JavaFX só ser carregado quando a interface gráfica arranca
+    private static void launchGui(String[] args) {
        Application.launch(MainJFX.class, args);
     }
-}
\ No newline at end of file
+
+    private static int runUci() {
+        try {
+            return new UciEngine(System.in, System.out).run();
+        } catch (IOException e) {
+            System.err.println("Erro ao ler os comandos UCI: " + e.getMessage());
+            return 2;
+        }
+    }
+
+    private static int runMakeBook(String[] args) {
+        try {
+            OpeningBookWriter writer = new OpeningBookWriter();
+            for (String line : Files.readAllLines(Path.of(args[1]))) {
+                if (!line.isBlank() && !line.startsWith("#"))
+                    writer.addLine(line);
+            }
+            int entries = writer.write(Path.of(args[2]));
+            System.out.println(args[2] + ": " + entries + " jogadas de " + writer.size() + " lidas");
+            return 0;
+        } catch (IOException e) {
+            System.err.println("Erro ao criar o livro: " + e.getMessage());
+            return 2;
+        }
+    }
+
+    private static int runTablebases(String[] args) {
+        try {
+            int pieces = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+            int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+            long start = System.currentTimeMillis();
+            new TablebaseGenerator(Path.of(args[1]), threads).generate(pieces, System.out::println);
+            System.out.println("Tabelas prontas em " + (System.currentTimeMillis() - start) + " ms");
+            return 0;
+        } catch (NumberFormatException e) {
+            System.err.println("Uso: --tablebases <pasta> [peças] [threads]");
+        } catch (IOException e) {
+            System.err.println("Erro ao gerar as tabelas: " + e.getMessage());
+        }
+        return 2;
+    }
+
+    private static int runReadPgn(String[] args) {
+        try {
+            int threads = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+            LongAdder plies = new LongAdder();
+            LongAdder errors = new LongAdder();
+            long start = System.nanoTime();
+            long games = PgnReader.readAll(Path.of(args[1]), threads, pgn -> {
+                plies.add(pgn.getPlies());
+                if (pgn.getError() != null) {
+                    errors.increment();
+                    System.err.println(pgn);
+                }
+            });
+            double seconds = Math.max(1e-9, (System.nanoTime() - start) / 1e9);
+            System.out.printf("%d jogos, %d meias-jogadas, %d com erros em %.2f s (%.0f jogos/minuto)%n",
+                    games, plies.sum(), errors.sum(), seconds, games / seconds * 60);
+            return errors.sum() == 0 ? 0 : 1;
+        } catch (NumberFormatException e) {
+            System.err.println("Uso: --read-pgn <ficheiro.pgn> [threads]");
+        } catch (IOException e) {
+            System.err.println("Erro ao ler " + args[1] + ": " + e.getMessage());
+        }
+        return 2;
+    }
+
+    private static int runPerft(String[] args) {
+        try {
+            int maxDepth = args.length > 2 ? Integer.parseInt(args[2]) : Integer.MAX_VALUE;
+            int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+            return Perft.runSuite(Path.of(args[1]), maxDepth, threads, System.out) ? 0 : 1;
+        } catch (NumberFormatException e) {
+            System.err.println("Uso: --perft <ficheiro.epd> [profundidade máxima] [threads]");
+        } catch (IOException e) {
+            System.err.println("Erro ao ler " + args[1] + ": " + e.getMessage());
+        }
+        return 2;
+    }
+}
@@ -0,0 +1,99 @@
+package pt.isec.pa.chess;
+
+import pt.isec.pa.chess.model.selfplay.GameFormat;
+import pt.isec.pa.chess.model.selfplay.SelfPlay;
+import pt.isec.pa.chess.model.selfplay.SelfPlayStats;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Plays games between two players without the user interface (see
+ * SelfPlay) and writes them as PGN or CSV, followed by the totals:
+ * <pre>
+ * SelfPlayMain --white search:depth=3 --black greedy --games 200 --threads 4 --format csv --out games.csv
+ * </pre>
+ * Players: random, greedy, search, search:depth=N, search:nodes=N, search:time=MS.
+ * Other options: --max-plies N, --random-plies N, --seed N, --alternate.
+ * Without --out the games go to the standard output and the totals to the
+ * standard error.
+ */
+public class SelfPlayMain {
+    private static final String USAGE = "Uso: SelfPlayMain [--white jogador] [--black jogador] [--games N] [--threads N]"
+            + " [--format pgn|csv] [--out ficheiro] [--max-plies N] [--random-plies N] [--seed N] [--alternate]";
+
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    private static int run(String[] args) {
+        String white = "random";
+        String black = "random";
+        GameFormat format = GameFormat.PGN;
+        Path out = null;
+        SelfPlay selfPlay;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--white" -> white = args[++i];
+                    case "--black" -> black = args[++i];
+                    case "--format" -> format = GameFormat.valueOf(args[++i].toUpperCase());
+                    case "--out" -> out = Path.of(args[++i]);
+                    default -> { }
+                }
+            }
+            selfPlay = new SelfPlay(white, black);
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--games" -> selfPlay.setGames(Integer.parseInt(args[++i]));
+                    case "--threads" -> selfPlay.setThreads(Integer.parseInt(args[++i]));
+                    case "--max-plies" -> selfPlay.setMaxPlies(Integer.parseInt(args[++i]));
+                    case "--random-plies" -> selfPlay.setRandomPlies(Integer.parseInt(args[++i]));
+                    case "--seed" -> selfPlay.setSeed(Long.parseLong(args[++i]));
+                    case "--alternate" -> selfPlay.setAlternateColours(true);
+                    case "--white", "--black", "--format", "--out" -> i++;
+                    default -> throw new IllegalArgumentException("Opção desconhecida: " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            System.err.println(e instanceof ArrayIndexOutOfBoundsException ? "Falta um valor" : e.getMessage());
+            System.err.println(USAGE);
+            return 2;
+        }
+
+        PrintStream report = out == null ? System.err : System.out;
+        GameFormat chosen = format;
+        try (Writer writer = out == null
+                ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                : Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            writer.write(chosen.header());
+            SelfPlayStats stats = selfPlay.run(record -> {
+                // formatado na thread do jogo; só a escrita é feita uma de cada vez
+                String text = chosen.format(record);
+                synchronized (writer) {
+                    try {
+                        writer.write(text);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+            writer.flush();
+            report.print(stats);
+            return 0;
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Erro ao escrever os jogos: " + e.getMessage());
+            return 2;
+        } catch (IllegalStateException e) {
+            System.err.println(e.getMessage());
+            return 1;
+        }
+    }
+}
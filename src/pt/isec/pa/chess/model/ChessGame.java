@@ -1,13 +1,25 @@
 package pt.isec.pa.chess.model;
+import pt.isec.pa.chess.model.data.Attacks;
 import pt.isec.pa.chess.model.data.Board;
+import pt.isec.pa.chess.model.data.Move;
+import pt.isec.pa.chess.model.data.MoveList;
 import pt.isec.pa.chess.model.data.Piece;
 import pt.isec.pa.chess.model.data.PieceFactory;
 import pt.isec.pa.chess.model.data.PieceType;
+import pt.isec.pa.chess.model.data.Square;
+import pt.isec.pa.chess.model.data.Zobrist;
 import pt.isec.pa.chess.model.data.pieces.King;
-import pt.isec.pa.chess.model.data.pieces.Pawn;
-
+import pt.isec.pa.chess.model.engine.Evaluator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serial;
 import java.io.Serializable;
+import java.util.Arrays;
 
 /**
 * Represents the logic of a chess game,
@@ -21,15 +33,52 @@ public class ChessGame implements Serializable {
     @Serial
     static final long serialVersionUID = 100L;
 
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+
+    // direitos de roque que se mantêm quando uma peça sai de (ou chega a) cada casa
+    private static final int[] CASTLING_MASK = new int[64];
+    static {
+        Arrays.fill(CASTLING_MASK, 0xF);
+        CASTLING_MASK[Square.of('a', 1)] &= ~WHITE_QUEENSIDE;
+        CASTLING_MASK[Square.of('e', 1)] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASK[Square.of('h', 1)] &= ~WHITE_KINGSIDE;
+        CASTLING_MASK[Square.of('a', 8)] &= ~BLACK_QUEENSIDE;
+        CASTLING_MASK[Square.of('e', 8)] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_MASK[Square.of('h', 8)] &= ~BLACK_KINGSIDE;
+    }
+
+    // estado guardado na pilha de jogadas: roque (4 bits), en passant + 1 (7 bits),
+    // hasMoved da peça movida e da torre do roque, e o relógio das 50 jogadas
+    private static final int STATE_EP_SHIFT = 4;
+    private static final int STATE_MOVED_BIT = 1 << 11;
+    private static final int STATE_ROOK_MOVED_BIT = 1 << 12;
+    private static final int STATE_CLOCK_SHIFT = 13;
+    private static final int INITIAL_HISTORY = 256;
+
     private GameState gameState;
     private Board board;
     private boolean whiteToMove;
     private Winner winner; // "WHITE", "BLACK" ou "NONE"
     private String whitePlayerName;
     private String blackPlayerName;
-    private String enPassantTarget;
-    private String promotionPosition;
+    private int enPassantSquare;
+    private int promotionSquare;
     private boolean waitingForPromotion;
+    private int castlingRights;
+    private int halfmoveClock;
+    private int startPly;               // meias-jogadas antes da posição inicial (importada por FEN)
+    private boolean silent;             // não escreve no ModelLog (jogos sem interface)
+    private transient MoveList moveBuffer;
+
+    private int historySize;
+    private int[] historyMoves;
+    private int[] historyStates;
+    private long[] historyKeys;         // chave da posição antes de cada jogada
+    private Piece[] historyPieces;      // peça movida (necessária para desfazer promoções)
+    private Piece[] historyCaptured;    // peça capturada ou null
 
 
     /**
@@ -46,14 +95,49 @@ public class ChessGame implements Serializable {
      * @param blackPlayerName Name of the black player.
      */
     public ChessGame(String whitePlayerName, String blackPlayerName) {
+        this(whitePlayerName, blackPlayerName, true);
+    }
+
+    /**
+     * Initializes a new game that may not write to the ModelLog, for games
+     * played without the user interface (many of them at the same time).
+     *
+     * @param whitePlayerName Name of the white player.
+     * @param blackPlayerName Name of the black player.
+     * @param logging False to never write to the ModelLog, not even this new game.
+     */
+    public ChessGame(String whitePlayerName, String blackPlayerName, boolean logging) {
+        this.silent = !logging;
         this.whitePlayerName = whitePlayerName;
         this.blackPlayerName = blackPlayerName;
         this.board = new Board();
         this.whiteToMove = true;
         this.gameState = GameState.ONGOING;
         this.winner = Winner.NONE;
-        this.enPassantTarget = null;
-        ModelLog.getInstance().add("Novo Jogo iniciado: " + whitePlayerName + " (Brancas) VS " +blackPlayerName+ " (Pretas)");
+        this.enPassantSquare = Square.NONE;
+        this.promotionSquare = Square.NONE;
+        this.castlingRights = WHITE_KINGSIDE | WHITE_QUEENSIDE | BLACK_KINGSIDE | BLACK_QUEENSIDE;
+        this.halfmoveClock = 0;
+        initHistory();
+        log("Novo Jogo iniciado: " + whitePlayerName + " (Brancas) VS " +blackPlayerName+ " (Pretas)");
+    }
+
+    private void log(String message) {
+        if (!silent)
+            ModelLog.getInstance().add(message);
+    }
+
+    /**
+     * Chooses whether this game writes its moves and state changes to the ModelLog.
+     *
+     * @param logging False to keep the game out of the log.
+     */
+    public void setLogging(boolean logging) {
+        silent = !logging;
+    }
+
+    public boolean isLogging() {
+        return !silent;
     }
 
     /**
@@ -73,148 +157,370 @@ public class ChessGame implements Serializable {
      * @return True if the move is valid and executed.
      */
     public boolean move(String from, String to) {
-        if (from.length() != 2 || to.length() != 2)
+        int fromSquare = Square.fromString(from);
+        int toSquare = Square.fromString(to);
+        if (fromSquare == Square.NONE || toSquare == Square.NONE)
             return false;
+        return move(fromSquare, toSquare);
+    }
 
-        char colFrom = from.charAt(0);
-        int rowFrom = Character.getNumericValue(from.charAt(1));
-        char colTo = to.charAt(0);
-        int rowTo = Character.getNumericValue(to.charAt(1));
-
-        Piece piece = board.getPiece(colFrom, rowFrom);
+    /**
+     * Executes a move between two squares (0 = a1 .. 63 = h8), including
+     * special moves like castling and en passant.
+     *
+     * @param from The origin square.
+     * @param to The destination square.
+     * @return True if the move is valid and executed.
+     */
+    public boolean move(int from, int to) {
+        Piece piece = board.getPiece(from);
         if (piece == null || piece.getIsWhite() != whiteToMove)
             return false;
 
-        String destino = "" + colTo + rowTo;
-        String[] movimentosValidos = piece.getPossibleMoves(this);
-        boolean podeMover = false;
+        MoveList moves = getMoveBuffer();
+        moves.clear();
+        generateLegalMoves(moves);
+        int move = moves.find(from, to);
+        if (move == Move.NONE) {
+            logInvalidMove(piece, from, to);
+            return false;
+        }
+        return play(move);
+    }
 
-        for (String mov : movimentosValidos) {
-            if (mov.equals(destino)) {
-                podeMover = true;
-                break;
-            }
+    private void logInvalidMove(Piece piece, int from, int to) {
+        MoveList moves = getMoveBuffer();
+        moves.clear();
+        piece.generateMoves(this, moves);
+        if (moves.find(from, to) != Move.NONE) {
+            log("Movimento inválido de " + Square.toString(from) + " para " + Square.toString(to) + " pois o seu rei ficaria em check.");
+        } else {
+            log("Movimento inválido de " + Square.toString(from) + " para " + Square.toString(to) + ".");
         }
+    }
 
-        if (!podeMover) {
-            ModelLog.getInstance().add("Movimento inválido de " + from+ " para " + to + ".");
+    /**
+     * Plays a packed move (see Move) generated for the current position,
+     * for example to redo a move that was undone.
+     *
+     * @param move The packed move.
+     * @return True if the move is valid and executed.
+     */
+    public boolean playMove(int move) {
+        MoveList moves = getMoveBuffer();
+        moves.clear();
+        generateLegalMoves(moves);
+        if (!moves.contains(move)) {
+            log("Movimento inválido: " + Move.toString(move) + ".");
             return false;
         }
-/// ******************
-        // Simular jogada e verificar se o rei continuaria em check (verificar se o rei continua em check antes de executar o movimento)
-        Piece destinoAnterior = board.getPiece(colTo, rowTo); //guarda a peça que está na posicao de destino, caso haja
-        board.removePiece(colFrom, rowFrom);
-        board.setPiece(piece, colTo, rowTo);
-
-        boolean aindaEmCheck = isInCheck(whiteToMove);
-
-        // Reverter jogada
-        board.removePiece(colTo, rowTo);
-        board.setPiece(piece, colFrom, rowFrom);
-        if (destinoAnterior != null) {
-            board.setPiece(destinoAnterior, colTo, rowTo);
+        return play(move);
+    }
+
+    private boolean play(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        char symbol = board.getPiece(from).getSymbol();
+
+        makeMove(move);
+
+        if (Move.isCastle(move)) {
+            log((Square.file(to) == 6 ? "Roque pequeno" : "Roque longo") + " realizado pelo rei em " + Square.toString(from));
+        }
+        if (Move.isEnPassant(move)) {
+            log("Captura en passant realizada em " + Square.toString(Square.of(Square.file(to), Square.rank(from))));
         }
+        log("Peça movida de " + Square.toString(from) + " para " + Square.toString(to) + ": " + symbol);
 
-        if (aindaEmCheck) {
-            ModelLog.getInstance().add("Movimento inválido de " + from+ " para " + to + " pois o seu rei ficaria em check.");
-            return false; // Movimento inválido pois deixaria o rei em check
+        // a promoção é feita para dama e trocada quando o jogador escolher a peça
+        if (Move.isPromotion(move)) {
+            waitingForPromotion = true;
+            promotionSquare = to;
         }
-/// ******************
-
-        // Roque: se for o rei e mover duas colunas
-        if (piece instanceof King && Math.abs(colTo - colFrom) == 2) {
-            if (colTo == 'g') {
-                board.movePiece('h', rowFrom, 'f', rowFrom); // Roque pequeno
-                ModelLog.getInstance().add("Roque pequeno realizado pelo rei em " + from);
-            } else if (colTo == 'c') {
-                board.movePiece('a', rowFrom, 'd', rowFrom); // Roque grande
-                ModelLog.getInstance().add("Roque longo realizado pelo rei em " + from);
+
+        updateGameState();
+        return true;
+    }
+
+    /**
+     * Applies a packed move to the position without checking it, recording
+     * what is needed to take it back with unmakeMove. The move must come
+     * from the move generator of the current position.
+     *
+     * @param move The packed move.
+     */
+    public void makeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        Piece piece = board.getPiece(from);
+
+        if (historySize == historyMoves.length)
+            growHistory();
+        int state = castlingRights
+                | ((enPassantSquare + 1) << STATE_EP_SHIFT)
+                | (halfmoveClock << STATE_CLOCK_SHIFT);
+        if (piece.getHasMoved())
+            state |= STATE_MOVED_BIT;
+        long key = getPositionKey();
+
+        Piece captured;
+        if (Move.isEnPassant(move)) {
+            int capturedSquare = Square.of(Square.file(to), Square.rank(from));
+            captured = board.getPiece(capturedSquare);
+            board.removePiece(capturedSquare);
+        } else {
+            captured = board.getPiece(to);
+        }
+
+        board.movePiece(from, to);
+
+        if (Move.isCastle(move)) {
+            int rank = Square.rank(from);
+            Piece rook;
+            if (Square.file(to) == 6) {
+                rook = board.getPiece(Square.of(7, rank));
+                board.movePiece(Square.of(7, rank), Square.of(5, rank)); // Roque pequeno
+            } else {
+                rook = board.getPiece(Square.of(0, rank));
+                board.movePiece(Square.of(0, rank), Square.of(3, rank)); // Roque grande
             }
+            if (rook != null && rook.getHasMoved())
+                state |= STATE_ROOK_MOVED_BIT;
         }
 
-        if (piece instanceof Pawn && enPassantTarget != null && destino.equals(enPassantTarget)) {
-            board.removePiece(colTo, rowFrom);
-            ModelLog.getInstance().add("Captura en passant realizada em " + colTo + rowFrom);
+        PieceType promotion = Move.promotion(move);
+        if (promotion != null) {
+            board.addPiece(PieceFactory.create(promotion, Square.column(to), Square.row(to), piece.getIsWhite(), true));
         }
 
-        board.movePiece(colFrom, rowFrom, colTo, rowTo);
-        ModelLog.getInstance().add("Peça movida de "+from+" para " + to + ": " + piece.getSymbol());
-        Piece movedPiece = board.getPiece(colTo, rowTo);
-        if (movedPiece instanceof Pawn) {
-            if ((movedPiece.getIsWhite() && rowTo == 8) || (!movedPiece.getIsWhite() && rowTo == 1)) {
-                waitingForPromotion = true;
-                promotionPosition = "" + colTo + rowTo;
-               updateGameState();
-               return true;
-            }
+        historyMoves[historySize] = move;
+        historyStates[historySize] = state;
+        historyKeys[historySize] = key;
+        historyPieces[historySize] = piece;
+        historyCaptured[historySize] = captured;
+        historySize++;
+
+        castlingRights &= CASTLING_MASK[from] & CASTLING_MASK[to];
+        enPassantSquare = Move.isDoublePush(move) ? (from + to) / 2 : Square.NONE;
+        halfmoveClock = (piece.getType() == PieceType.PAWN || captured != null) ? 0 : halfmoveClock + 1;
+        whiteToMove = !whiteToMove;
+    }
+
+    /**
+     * Passes the turn to the other side without moving (a null move), as
+     * the search does to test if a position is still good after giving the
+     * opponent a free move. It is taken back with unmakeMove. The en passant
+     * square is cleared and repetitions are not looked for across it.
+     * It must not be played when the side to move is in check.
+     */
+    public void makeNullMove() {
+        if (historySize == historyMoves.length)
+            growHistory();
+        historyMoves[historySize] = Move.NONE;
+        historyStates[historySize] = castlingRights
+                | ((enPassantSquare + 1) << STATE_EP_SHIFT)
+                | (halfmoveClock << STATE_CLOCK_SHIFT);
+        historyKeys[historySize] = getPositionKey();
+        historySize++;
+
+        enPassantSquare = Square.NONE;
+        halfmoveClock = 0;
+        whiteToMove = !whiteToMove;
+    }
+
+    /**
+     * Takes back the last move applied with makeMove (or makeNullMove),
+     * restoring the exact previous position, castling rights, en passant
+     * square and clock.
+     *
+     * @return True if there was a move to take back.
+     */
+    public boolean unmakeMove() {
+        if (historySize == 0)
+            return false;
+        historySize--;
+        int move = historyMoves[historySize];
+        int state = historyStates[historySize];
+        if (move == Move.NONE) { // jogada nula: só muda o estado
+            enPassantSquare = ((state >>> STATE_EP_SHIFT) & 0x7F) - 1;
+            halfmoveClock = state >>> STATE_CLOCK_SHIFT;
+            whiteToMove = !whiteToMove;
+            return true;
+        }
+        Piece piece = historyPieces[historySize];
+        Piece captured = historyCaptured[historySize];
+        historyPieces[historySize] = null;
+        historyCaptured[historySize] = null;
+
+        int from = Move.from(move);
+        int to = Move.to(move);
+
+        board.removePiece(to);
+        board.setPiece(piece, from);
+        piece.setHasMoved((state & STATE_MOVED_BIT) != 0);
+
+        if (Move.isCastle(move)) {
+            int rank = Square.rank(from);
+            int rookFrom = Square.file(to) == 6 ? Square.of(7, rank) : Square.of(0, rank);
+            int rookTo = Square.file(to) == 6 ? Square.of(5, rank) : Square.of(3, rank);
+            Piece rook = board.getPiece(rookTo);
+            board.removePiece(rookTo);
+            board.setPiece(rook, rookFrom);
+            if (rook != null)
+                rook.setHasMoved((state & STATE_ROOK_MOVED_BIT) != 0);
         }
 
-        if (movedPiece instanceof Pawn && Math.abs(rowFrom - rowTo) == 2) {
-            int enPassantRow = whiteToMove ? rowTo - 1 : rowTo + 1;
-            enPassantTarget = "" + colTo + enPassantRow;
-        } else {
-            enPassantTarget = null;
+        if (captured != null) {
+            board.setPiece(captured, Move.isEnPassant(move) ? Square.of(Square.file(to), Square.rank(from)) : to);
         }
 
+        castlingRights = state & 0xF;
+        enPassantSquare = ((state >>> STATE_EP_SHIFT) & 0x7F) - 1;
+        halfmoveClock = state >>> STATE_CLOCK_SHIFT;
         whiteToMove = !whiteToMove;
-        updateGameState();
         return true;
     }
 
+    /**
+     * Gets the last move applied with makeMove.
+     *
+     * @return The packed move or Move.NONE.
+     */
+    public int getLastMove() {
+        return historySize == 0 ? Move.NONE : historyMoves[historySize - 1];
+    }
+
+    /**
+     * Gets the number of moves applied since the start position (the new
+     * game, or the imported position), null moves included.
+     */
+    public int getMoveCount() {
+        return historySize;
+    }
+
+    /**
+     * Gets a move applied since the start position.
+     *
+     * @param index From 0 (the first move) to getMoveCount() - 1.
+     * @return The packed move, or Move.NONE for a null move.
+     */
+    public int getMove(int index) {
+        if (index < 0 || index >= historySize)
+            throw new IndexOutOfBoundsException(index);
+        return historyMoves[index];
+    }
+
+    /**
+     * Gets the Zobrist key of the current position: pieces, side to move,
+     * castling rights and en passant. The en passant file only counts when
+     * a pawn of the side to move can actually capture there, so positions
+     * that only differ by an unusable en passant square get the same key.
+     *
+     * @return The 64-bit key of the position.
+     */
+    public long getPositionKey() {
+        long key = board.getKey() ^ Zobrist.castling(castlingRights);
+        if (!whiteToMove)
+            key ^= Zobrist.side();
+        if (enPassantSquare != Square.NONE
+                && (Attacks.pawn(!whiteToMove, enPassantSquare) & board.getBitboard(PieceType.PAWN, whiteToMove)) != 0)
+            key ^= Zobrist.enPassant(Square.file(enPassantSquare));
+        return key;
+    }
+
+    /**
+     * Checks if the current position already happened in this game since
+     * the last capture or pawn move, with the same side to move.
+     *
+     * @return True if the position is a repetition.
+     */
+    public boolean isRepetition() {
+        long key = getPositionKey();
+        int first = Math.max(0, historySize - halfmoveClock);
+        for (int i = historySize - 2; i >= first; i -= 2) {
+            if (historyKeys[i] == key)
+                return true;
+        }
+        return false;
+    }
+
+    private void initHistory() {
+        historySize = 0;
+        historyMoves = new int[INITIAL_HISTORY];
+        historyStates = new int[INITIAL_HISTORY];
+        historyKeys = new long[INITIAL_HISTORY];
+        historyPieces = new Piece[INITIAL_HISTORY];
+        historyCaptured = new Piece[INITIAL_HISTORY];
+    }
+
+    private void growHistory() {
+        int capacity = historyMoves.length * 2;
+        historyMoves = Arrays.copyOf(historyMoves, capacity);
+        historyStates = Arrays.copyOf(historyStates, capacity);
+        historyKeys = Arrays.copyOf(historyKeys, capacity);
+        historyPieces = Arrays.copyOf(historyPieces, capacity);
+        historyCaptured = Arrays.copyOf(historyCaptured, capacity);
+    }
+
     /**
      * Updates the current state of the game (CHECK, CHECKMATE, STALEMATE or if it is ON GOING).
      */
     public void updateGameState() {
         boolean isCheck = isInCheck(whiteToMove);
-        boolean hasMoves = hasLegalMoves(whiteToMove);
+        boolean hasMoves = hasLegalMoves();
 
         if (isCheck && !hasMoves) {
             gameState = GameState.CHECKMATE;
             winner = whiteToMove ? Winner.BLACK : Winner.WHITE;
-            ModelLog.getInstance().add("Checkmate. Vencedor: " + getWinnerName());
+            log("Checkmate. Vencedor: " + getWinnerName());
         } else if (!isCheck && !hasMoves) {
             gameState = GameState.STALEMATE;
             winner = Winner.NONE;
-            ModelLog.getInstance().add("Empate (Stalemate).");
+            log("Empate (Stalemate).");
         } else if (isCheck) {
             gameState = GameState.CHECK;
             winner = Winner.NONE;
-            ModelLog.getInstance().add("Jogador em check: " + getCurrentPlayerName());
+            log("Jogador em check: " + getCurrentPlayerName());
         } else {
             gameState = GameState.ONGOING;
             winner = Winner.NONE;
         }
     }
 
-    private boolean hasLegalMoves(boolean white) {
-        for (int row = 1; row <= 8; row++) {
-            for (char col = 'a'; col <= 'h'; col++) {
-                Piece piece = board.getPiece(col, row);
-                if (piece != null && piece.getIsWhite() == white) {
-                    String[] moves = piece.getPossibleMoves(this);
-                    for (String move : moves) {
-                        char newCol = move.charAt(0);
-                        int newRow = Character.getNumericValue(move.charAt(1));
-
-                        // Simula a jogada
-                        Piece backup = board.getPiece(newCol, newRow);
-                        board.removePiece(col, row);
-                        board.setPiece(piece, newCol, newRow);
-
-                        boolean inCheck = isInCheck(white);
-
-                        // Reverter jogada
-                        board.removePiece(newCol, newRow);
-                        board.setPiece(piece, col, row);
-                        if (backup != null)
-                            board.setPiece(backup, newCol, newRow);
-                        if (!inCheck)
-                            return true; // existe pelo menos um movimento legal
-                    }
-                }
-            }
+    private boolean hasLegalMoves() {
+        MoveList moves = getMoveBuffer();
+        moves.clear();
+        generateLegalMoves(moves);
+        return !moves.isEmpty();
+    }
+
+    /**
+     * Appends every legal move of the player to move to a list, as packed
+     * moves (see Move).
+     *
+     * @param moves The list the moves are added to.
+     */
+    public void generateLegalMoves(MoveList moves) {
+        MoveGenerator.generateLegalMoves(this, moves);
+    }
+
+    /**
+     * Appends the moves of every piece of one side to a list, as packed
+     * moves (see Move). The moves may still leave the king in check.
+     *
+     * @param white True to generate white's moves.
+     * @param moves The list the moves are added to.
+     */
+    public void generateMoves(boolean white, MoveList moves) {
+        for (int i = 0; i < board.getPieceCount(white); i++) {
+            board.getPiece(board.getPieceSquare(white, i)).generateMoves(this, moves);
         }
-        return false;
+    }
+
+    private MoveList getMoveBuffer() {
+        if (moveBuffer == null)
+            moveBuffer = new MoveList();
+        return moveBuffer;
     }
 
 
@@ -227,48 +533,65 @@ public class ChessGame implements Serializable {
      * @return True if the square is under attack.
      */
     public boolean isUnderAttack(char column, int row, boolean byWhite) {
-        String targetPosition = "" + column + row;
+        return isUnderAttack(Square.of(column, row), byWhite);
+    }
 
-        for (char c = 'a'; c<= 'h';c++) {
-            for (int r = 1; r <= 8; r++) {
-                Piece piece = board.getPiece(c,r);
-                if (piece == null || piece.getIsWhite() != byWhite){
-                    continue;
-                }
+    /**
+     * Checks whether a given square is under attack by a specified side.
+     *
+     * @param square The square index (0 = a1 .. 63 = h8).
+     * @param byWhite True if checking for attack by white pieces.
+     * @return True if the square is under attack.
+     */
+    public boolean isUnderAttack(int square, boolean byWhite) {
+        return getAttackers(square, byWhite, board.getOccupancy()) != 0;
+    }
 
-                //distinguir se a peça que está a atacar é do tipoKing ou outra peça qualquer (correção loop infinito)
-                if (piece instanceof King) {
-                    // O rei só pode atacar casas adjacentes
-                    int dx = Math.abs(piece.getColumn() - column);
-                    int dy = Math.abs(piece.getRow() - row);
-                    if (dx <= 1 && dy <= 1 && (dx + dy) != 0) {
-                        return true;
-                        }
-                    continue; // Ignora o resto da lógica
-                }
+    /**
+     * Gets the pieces of one side that attack a square, looked up in the
+     * precomputed attack tables from the square outwards.
+     *
+     * @param square The square index.
+     * @param byWhite True for white attackers.
+     * @param occupancy The occupied squares used to block sliding pieces.
+     * @return A bitboard with the attackers (only those inside occupancy).
+     */
+    public long getAttackers(int square, boolean byWhite, long occupancy) {
+        long queens = board.getBitboard(PieceType.QUEEN, byWhite);
+        long attackers = (Attacks.pawn(!byWhite, square) & board.getBitboard(PieceType.PAWN, byWhite))
+                | (Attacks.knight(square) & board.getBitboard(PieceType.KNIGHT, byWhite))
+                | (Attacks.king(square) & board.getBitboard(PieceType.KING, byWhite))
+                | (Attacks.bishop(square, occupancy) & (board.getBitboard(PieceType.BISHOP, byWhite) | queens))
+                | (Attacks.rook(square, occupancy) & (board.getBitboard(PieceType.ROOK, byWhite) | queens));
+        return attackers & occupancy;
+    }
 
-                String[] moves = piece.getPossibleMoves(this);
-                for (String move : moves) {
-                    if (move.equals(targetPosition)) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+
+    /**
+     * Gets the static evaluation of the current position (see Evaluator),
+     * from white's point of view.
+     *
+     * @return The score in centipawns, positive when white is better.
+     */
+    public int getEvaluation() {
+        int score = Evaluator.evaluate(this);
+        return whiteToMove ? score : -score;
     }
 
+    /**
+     * Checks if the player to move is in check.
+     *
+     * @return True if the king of the player to move is attacked.
+     */
+    public boolean isInCheck() {
+        return isInCheck(whiteToMove);
+    }
 
     private boolean isInCheck(boolean white) {
-        for (int row = 1; row <= 8; row++) {
-            for (char col = 'a'; col <= 'h'; col++) {
-                Piece piece = board.getPiece(col, row);
-                if (piece != null && piece.getIsWhite() == white && Character.toLowerCase(piece.getSymbol()) == 'k') {
-                    return this.isUnderAttack(col, row, !white);
-                }
-            }
-        }
-        return false; // rei não encontrado — tecnicamente jogo deveria estar terminado
+        int king = board.getKingSquare(white);
+        if (king == Square.NONE)
+            return false; // rei não encontrado — tecnicamente jogo deveria estar terminado
+        return this.isUnderAttack(king, !white);
     }
 
     /**
@@ -305,6 +628,12 @@ public class ChessGame implements Serializable {
         whiteToMove = true;
         gameState = GameState.ONGOING;
         winner = Winner.NONE;
+        enPassantSquare = Square.NONE;
+        halfmoveClock = 0;
+        startPly = 0;
+        clearPromotionRequest();
+        refreshCastlingRights();
+        initHistory();
     }
 
 
@@ -367,17 +696,14 @@ public class ChessGame implements Serializable {
         StringBuilder sb = new StringBuilder();
         sb.append(whiteToMove ? "WHITE" : "BLACK").append(",\n");
 
-        for (char col = 'a'; col <= 'h'; col++) {
-            for (int row = 1; row <= 8; row++) {
-                Piece piece = board.getPiece(col, row);
-                if (piece != null) {
-                    sb.append(piece.toString());
-                    if (!piece.getHasMoved()){
-                        sb.append("*");
-                    }
-                    sb.append(",");
-                }
+        // só visita as casas ocupadas
+        for (long occupied = board.getOccupancy(); occupied != 0; occupied &= occupied - 1) {
+            Piece piece = board.getPiece(Long.numberOfTrailingZeros(occupied));
+            sb.append(piece.toString());
+            if (!piece.getHasMoved()){
+                sb.append("*");
             }
+            sb.append(",");
         }
 
         return sb.toString();
@@ -396,6 +722,11 @@ public class ChessGame implements Serializable {
 
         // vê quem é o jogador atual
         whiteToMove = parts[0].equalsIgnoreCase("WHITE");
+        enPassantSquare = Square.NONE;
+        halfmoveClock = 0;
+        startPly = whiteToMove ? 0 : 1;
+        clearPromotionRequest();
+        initHistory();
 
         //Limpa o tabuleiro
         board.clear();
@@ -420,6 +751,242 @@ public class ChessGame implements Serializable {
              }
 
         }
+        refreshCastlingRights();
+    }
+
+    /**
+     * Exports the current position in Forsyth-Edwards Notation (FEN).
+     *
+     * @return The FEN string of the position.
+     */
+    public String exportFen() {
+        StringBuilder sb = new StringBuilder();
+        for (int rank = 7; rank >= 0; rank--) {
+            int empty = 0;
+            for (int file = 0; file < 8; file++) {
+                Piece piece = board.getPiece(Square.of(file, rank));
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0)
+                    sb.append(empty);
+                empty = 0;
+                sb.append(piece.getSymbol());
+            }
+            if (empty > 0)
+                sb.append(empty);
+            if (rank > 0)
+                sb.append('/');
+        }
+
+        sb.append(whiteToMove ? " w " : " b ");
+        if (castlingRights == 0)
+            sb.append('-');
+        if ((castlingRights & WHITE_KINGSIDE) != 0) sb.append('K');
+        if ((castlingRights & WHITE_QUEENSIDE) != 0) sb.append('Q');
+        if ((castlingRights & BLACK_KINGSIDE) != 0) sb.append('k');
+        if ((castlingRights & BLACK_QUEENSIDE) != 0) sb.append('q');
+        sb.append(' ').append(enPassantSquare == Square.NONE ? "-" : Square.toString(enPassantSquare));
+        sb.append(' ').append(halfmoveClock);
+        sb.append(' ').append((startPly + historySize) / 2 + 1);
+        return sb.toString();
+    }
+
+    /**
+     * Imports a position in Forsyth-Edwards Notation (FEN). The halfmove
+     * clock and fullmove number fields are optional.
+     * The game is left unchanged if the text is not a valid FEN.
+     *
+     * @param fen The FEN string.
+     * @return True if the position was imported.
+     */
+    public boolean importFen(String fen) {
+        if (fen == null)
+            return false;
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 4)
+            return false;
+
+        // lê primeiro para um tabuleiro novo, para não estragar o jogo atual se o texto for inválido
+        Board newBoard = new Board();
+        newBoard.clear();
+        String[] ranks = fields[0].split("/");
+        if (ranks.length != 8)
+            return false;
+        for (int i = 0; i < 8; i++) {
+            int rank = 7 - i;
+            int file = 0;
+            for (char c : ranks[i].toCharArray()) {
+                if (c >= '1' && c <= '8') {
+                    file += c - '0';
+                    continue;
+                }
+                if ("KQRBNPkqrbnp".indexOf(c) < 0 || file > 7)
+                    return false;
+                PieceType type = PieceType.fromPieceSymbol(c);
+                newBoard.addPiece(PieceFactory.create(type, (char) ('a' + file), rank + 1,
+                        Character.isUpperCase(c), type == PieceType.KING || type == PieceType.ROOK));
+                file++;
+            }
+            if (file != 8)
+                return false;
+        }
+
+        if (!fields[1].equals("w") && !fields[1].equals("b"))
+            return false;
+        int rights = 0;
+        if (!fields[2].equals("-")) {
+            for (char c : fields[2].toCharArray()) {
+                int index = "KQkq".indexOf(c);
+                if (index < 0)
+                    return false;
+                rights |= 1 << index;
+            }
+        }
+        int ep = fields[3].equals("-") ? Square.NONE : Square.fromString(fields[3]);
+        if (ep == Square.NONE && !fields[3].equals("-"))
+            return false;
+        int clock = 0;
+        int fullmove = 1;
+        try {
+            if (fields.length > 4)
+                clock = Integer.parseInt(fields[4]);
+            if (fields.length > 5)
+                fullmove = Math.max(1, Integer.parseInt(fields[5]));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+
+        board = newBoard;
+        whiteToMove = fields[1].equals("w");
+        gameState = GameState.ONGOING;
+        winner = Winner.NONE;
+        enPassantSquare = ep;
+        halfmoveClock = clock;
+        startPly = 2 * (fullmove - 1) + (whiteToMove ? 0 : 1);
+        clearPromotionRequest();
+        initHistory();
+
+        // os reis e torres com direito de roque são os únicos que ficam por mexer
+        if ((rights & (WHITE_KINGSIDE | WHITE_QUEENSIDE)) != 0) markUnmoved(Square.of('e', 1));
+        if ((rights & WHITE_KINGSIDE) != 0) markUnmoved(Square.of('h', 1));
+        if ((rights & WHITE_QUEENSIDE) != 0) markUnmoved(Square.of('a', 1));
+        if ((rights & (BLACK_KINGSIDE | BLACK_QUEENSIDE)) != 0) markUnmoved(Square.of('e', 8));
+        if ((rights & BLACK_KINGSIDE) != 0) markUnmoved(Square.of('h', 8));
+        if ((rights & BLACK_QUEENSIDE) != 0) markUnmoved(Square.of('a', 8));
+        refreshCastlingRights();
+        return true;
+    }
+
+    private void markUnmoved(int square) {
+        Piece piece = board.getPiece(square);
+        if (piece != null)
+            piece.setHasMoved(false);
+    }
+
+    /**
+     * Creates an independent copy of this game, including its move history,
+     * without logging a new game. Used to search or count moves on other threads.
+     *
+     * @return A deep copy of the game.
+     */
+    public ChessGame copy() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+                oos.writeObject(this);
+            }
+            try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                return (ChessGame) ois.readObject();
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("Não foi possível copiar o jogo", e);
+        }
+    }
+
+    // os jogos guardados antes das casas 0..63 têm o en passant e a promoção em texto,
+    // e não têm roque, relógio das 50 jogadas nem histórico de jogadas
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        gameState = (GameState) fields.get("gameState", GameState.ONGOING);
+        board = (Board) fields.get("board", null);
+        whiteToMove = fields.get("whiteToMove", true);
+        winner = (Winner) fields.get("winner", Winner.NONE);
+        whitePlayerName = (String) fields.get("whitePlayerName", null);
+        blackPlayerName = (String) fields.get("blackPlayerName", null);
+        waitingForPromotion = fields.get("waitingForPromotion", false);
+        halfmoveClock = fields.get("halfmoveClock", 0);
+        startPly = fields.get("startPly", 0);
+        silent = fields.get("silent", false);
+        historySize = fields.get("historySize", 0);
+        historyMoves = (int[]) fields.get("historyMoves", null);
+        historyStates = (int[]) fields.get("historyStates", null);
+        historyKeys = (long[]) fields.get("historyKeys", null);
+        historyPieces = (Piece[]) fields.get("historyPieces", null);
+        historyCaptured = (Piece[]) fields.get("historyCaptured", null);
+        if (board == null)
+            throw new InvalidObjectException("Jogo guardado sem tabuleiro");
+
+        if (fields.defaulted("enPassantSquare")) {
+            enPassantSquare = Square.fromString(savedString(fields, "enPassantTarget"));
+            promotionSquare = Square.fromString(savedString(fields, "promotionPosition"));
+        } else {
+            enPassantSquare = fields.get("enPassantSquare", Square.NONE);
+            promotionSquare = fields.get("promotionSquare", Square.NONE);
+        }
+        castlingRights = fields.get("castlingRights", 0);
+        if (fields.defaulted("castlingRights"))
+            refreshCastlingRights();
+        if (historyMoves == null)
+            initHistory();
+    }
+
+    // campo de texto de uma versão antiga, que as versões ainda mais antigas podem não ter
+    private static String savedString(ObjectInputStream.GetField fields, String name) throws IOException {
+        if (fields.getObjectStreamClass().getField(name) == null)
+            return null;
+        return (String) fields.get(name, null);
+    }
+
+    /**
+     * Recomputes the castling rights from the kings and rooks that have not moved.
+     */
+    public void refreshCastlingRights() {
+        castlingRights = 0;
+        if (isUnmoved(Square.of('e', 1), PieceType.KING, true)) {
+            if (isUnmoved(Square.of('h', 1), PieceType.ROOK, true)) castlingRights |= WHITE_KINGSIDE;
+            if (isUnmoved(Square.of('a', 1), PieceType.ROOK, true)) castlingRights |= WHITE_QUEENSIDE;
+        }
+        if (isUnmoved(Square.of('e', 8), PieceType.KING, false)) {
+            if (isUnmoved(Square.of('h', 8), PieceType.ROOK, false)) castlingRights |= BLACK_KINGSIDE;
+            if (isUnmoved(Square.of('a', 8), PieceType.ROOK, false)) castlingRights |= BLACK_QUEENSIDE;
+        }
+    }
+
+    private boolean isUnmoved(int square, PieceType type, boolean white) {
+        Piece piece = board.getPiece(square);
+        return piece != null && !piece.getHasMoved() && piece.getType() == type && piece.getIsWhite() == white;
+    }
+
+    /**
+     * Gets the castling rights still available, as a combination of
+     * WHITE_KINGSIDE, WHITE_QUEENSIDE, BLACK_KINGSIDE and BLACK_QUEENSIDE.
+     *
+     * @return The castling rights bits.
+     */
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    /**
+     * Gets the number of half moves since the last capture or pawn move.
+     *
+     * @return The halfmove clock.
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
     }
 
     /**
@@ -430,43 +997,45 @@ public class ChessGame implements Serializable {
      * @return True if castling is possible.
      */
     public boolean canCastle(Piece king, char targetColumn) {
-        if (king.getHasMoved() || !(king instanceof King)){
+        if (!(king instanceof King)){
             return false;
         }
         boolean isWhite = king.getIsWhite();
-        int getRow = king.getRow();
+        int rank = Square.rank(king.getSquare());
         Board board = getBoard();
 
         //roque pequeno
         if (targetColumn == 'g'){
-            Piece rook = board.getPiece('h',getRow);
-            if (rook == null || rook.getHasMoved() || rook.getIsWhite() != isWhite){
+            Piece rook = board.getPiece(Square.of(7, rank));
+            if ((castlingRights & (isWhite ? WHITE_KINGSIDE : BLACK_KINGSIDE)) == 0
+                    || rook == null || rook.getIsWhite() != isWhite){
                 return false;
             }
 
-            if (board.getPiece('f',getRow) != null || board.getPiece('g',getRow) != null){
+            if (board.getPiece(Square.of(5, rank)) != null || board.getPiece(Square.of(6, rank)) != null){
                 return false;
             }
 
-            return !isUnderAttack('e',getRow,!isWhite)
-                    && !isUnderAttack('f',getRow,!isWhite)
-                    && !isUnderAttack('g',getRow,!isWhite);
+            return !isUnderAttack(Square.of(4, rank),!isWhite)
+                    && !isUnderAttack(Square.of(5, rank),!isWhite)
+                    && !isUnderAttack(Square.of(6, rank),!isWhite);
         }
 
         //roque grande
         if (targetColumn == 'c'){
-            Piece rook = board.getPiece('a',getRow);
-            if (rook == null || rook.getHasMoved() || rook.getIsWhite() != isWhite){
+            Piece rook = board.getPiece(Square.of(0, rank));
+            if ((castlingRights & (isWhite ? WHITE_QUEENSIDE : BLACK_QUEENSIDE)) == 0
+                    || rook == null || rook.getIsWhite() != isWhite){
                 return false;
             }
-            if (board.getPiece('d',getRow) != null || board.getPiece('c',getRow) != null
-                || board.getPiece('b',getRow) != null){
+            if (board.getPiece(Square.of(3, rank)) != null || board.getPiece(Square.of(2, rank)) != null
+                || board.getPiece(Square.of(1, rank)) != null){
                 return false;
             }
 
-            return !isUnderAttack('d',getRow,!isWhite)
-                    && !isUnderAttack('e',getRow,!isWhite)
-                    && !isUnderAttack('c',getRow,!isWhite);
+            return !isUnderAttack(Square.of(3, rank),!isWhite)
+                    && !isUnderAttack(Square.of(4, rank),!isWhite)
+                    && !isUnderAttack(Square.of(2, rank),!isWhite);
         }
         return false;
     }
@@ -479,7 +1048,19 @@ public class ChessGame implements Serializable {
      * @param symbol The symbol representing the desired promotion ('Q','R','N','B').
      */
     public void promotePawn (char column, int row, char symbol){
-        boolean isWhite = board.getPiece(column,row).getIsWhite();
+        promotePawn(Square.of(column, row), symbol);
+    }
+
+    /**
+     * Promotes a pawn to a piece type based on the provided symbol.
+     *
+     * @param square Square of the pawn.
+     * @param symbol The symbol representing the desired promotion ('Q','R','N','B').
+     */
+    public void promotePawn (int square, char symbol){
+        int move = getLastMove();
+        if (!waitingForPromotion || square != promotionSquare || !Move.isPromotion(move))
+            return;
 
         PieceType type = switch (Character.toUpperCase(symbol)){
             case 'R' -> PieceType.ROOK;
@@ -488,12 +1069,12 @@ public class ChessGame implements Serializable {
             case 'Q' ->PieceType.QUEEN;
             default -> PieceType.QUEEN;
         };
-        Piece newPromotedPiece = PieceFactory.create(type,column,row,isWhite,true);
-        board.addPiece(newPromotedPiece);
-        whiteToMove = !whiteToMove;
+        // troca a promoção provisória (dama) pela peça escolhida
+        unmakeMove();
+        makeMove(Move.withPromotion(move, type));
         updateGameState();
         clearPromotionRequest();
-        ModelLog.getInstance().add("Peão promovido para " + type.name() + " em " + column + row);
+        log("Peão promovido para " + type.name() + " em " + Square.toString(square));
     }
 
     /**
@@ -502,7 +1083,16 @@ public class ChessGame implements Serializable {
      * @return En passant target square or null.
      */
     public String getEnPassantTarget() {
-        return enPassantTarget;
+        return enPassantSquare == Square.NONE ? null : Square.toString(enPassantSquare);
+    }
+
+    /**
+     * Gets the square for en passant capture.
+     *
+     * @return En passant target square or Square.NONE.
+     */
+    public int getEnPassantSquare() {
+        return enPassantSquare;
     }
 
     /**
@@ -524,18 +1114,31 @@ public class ChessGame implements Serializable {
     }
 
     /**
-     * Gets the possible moves for a piece at a specific position.
+     * Gets the legal moves for a piece at a specific position.
      *
      * @param column Column of the piece.
      * @param row Row of the piece.
      * @return Array of possible destination squares.
      */
     public String [] getPossibleMoves (char column, int row){
-        Piece piece = board.getPiece(column, row);
+        int square = Square.of(column, row);
+        Piece piece = board.getPiece(square);
         if (piece == null || piece.getIsWhite() != isWhiteToMove()){
             return new String[0];
         }
-        return piece.getPossibleMoves(this);
+        MoveList moves = getMoveBuffer();
+        moves.clear();
+        generateLegalMoves(moves);
+        long targets = 0L;
+        for (int i = 0; i < moves.size(); i++) {
+            if (Move.from(moves.get(i)) == square)
+                targets |= Square.bit(Move.to(moves.get(i)));
+        }
+        String[] possible = new String[Long.bitCount(targets)];
+        for (int i = 0; targets != 0; targets &= targets - 1, i++) {
+            possible[i] = Square.toString(Long.numberOfTrailingZeros(targets));
+        }
+        return possible;
     }
 
     /**
@@ -545,13 +1148,10 @@ public class ChessGame implements Serializable {
      * @return The piece's symbol or '\0' if none.
      */
     public char getPieceSymbolAt (String position){
-        String [] pieces = getAllPiecesTextual().split(",");
-        for (String piece : pieces){
-            if (piece.substring(1).equals(position)){
-                return piece.charAt(0);
-            }
-        }
-        return '\0';
+        if (position == null || position.length() != 2)
+            return '\0';
+        Piece piece = board.getPiece(Square.fromString(position));
+        return piece == null ? '\0' : piece.getSymbol();
     }
 
     /**
@@ -576,7 +1176,16 @@ public class ChessGame implements Serializable {
      * @param originalEnPassant Square eligible for en passant.
      */
     public void setEnPassantTarget (String originalEnPassant){
-        this.enPassantTarget = originalEnPassant;
+        this.enPassantSquare = Square.fromString(originalEnPassant);
+    }
+
+    /**
+     * Sets the en passant target square.
+     *
+     * @param square Square eligible for en passant, or Square.NONE.
+     */
+    public void setEnPassantSquare (int square){
+        this.enPassantSquare = square;
     }
 
     /**
@@ -594,7 +1203,16 @@ public class ChessGame implements Serializable {
      * @return Promotion square (e.g., "e8").
      */
     public String getPromotionPosition() {
-        return promotionPosition;
+        return promotionSquare == Square.NONE ? null : Square.toString(promotionSquare);
+    }
+
+    /**
+     * Gets the board square where a pawn is going to be promoted.
+     *
+     * @return Promotion square or Square.NONE.
+     */
+    public int getPromotionSquare() {
+        return promotionSquare;
     }
 
     /**
@@ -602,7 +1220,7 @@ public class ChessGame implements Serializable {
      */
     public void clearPromotionRequest() {
         waitingForPromotion= false;
-        promotionPosition = null;
+        promotionSquare = Square.NONE;
     }
 
 
@@ -617,6 +1235,16 @@ public class ChessGame implements Serializable {
         return board.getPiece(col, row);
     }
 
+    /**
+     * Gets the piece at a specified square.
+     *
+     * @param square Square index.
+     * @return The piece or null.
+     */
+    public Piece getPieceAt(int square) {
+        return board.getPiece(square);
+    }
+
     /**
      * Places a piece at a specific board position.
      *
@@ -628,6 +1256,16 @@ public class ChessGame implements Serializable {
         board.setPiece(piece, col, row);
     }
 
+    /**
+     * Places a piece at a specific square.
+     *
+     * @param piece The piece to place.
+     * @param square Square index.
+     */
+    public void setPieceAt(Piece piece, int square) {
+        board.setPiece(piece, square);
+    }
+
     /**
      * Removes the piece at the given board position.
      *
@@ -637,6 +1275,15 @@ public class ChessGame implements Serializable {
     public void removePieceAt(char col, int row) {
         board.removePiece(col, row);
     }
+
+    /**
+     * Removes the piece at the given square.
+     *
+     * @param square Square index.
+     */
+    public void removePieceAt(int square) {
+        board.removePiece(square);
+    }
 }
 
 
@@ -1,9 +1,38 @@
 package pt.isec.pa.chess.model;
 import pt.isec.pa.chess.model.command.CommandManager;
+import pt.isec.pa.chess.model.command.ICommand;
 import pt.isec.pa.chess.model.command.MoveCommand;
+import pt.isec.pa.chess.model.data.Move;
+import pt.isec.pa.chess.model.data.MoveList;
+import pt.isec.pa.chess.model.data.PieceType;
+import pt.isec.pa.chess.model.data.Square;
+import pt.isec.pa.chess.model.engine.AnalysisService;
+import pt.isec.pa.chess.model.engine.ComputerPlayer;
+import pt.isec.pa.chess.model.engine.OpeningBook;
+import pt.isec.pa.chess.model.engine.SearchInfo;
+import pt.isec.pa.chess.model.engine.SearchLimits;
+import pt.isec.pa.chess.model.engine.See;
+import pt.isec.pa.chess.model.engine.TimeManager;
+import pt.isec.pa.chess.model.engine.TranspositionTable;
+import pt.isec.pa.chess.model.pgn.PgnGame;
+import pt.isec.pa.chess.model.pgn.PgnReader;
+import pt.isec.pa.chess.model.pgn.PgnWriter;
+import pt.isec.pa.chess.model.tablebase.Tablebase;
 import pt.isec.pa.chess.modelui.ModelUI;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
 
 
 /**
@@ -17,9 +46,26 @@ public class ChessGameManager {
     public static final String PROP_BOARD = "board";
     public static final String PROP_CURRENT_PLAYER = "currentPlayer";
     public static final String PROP_PROMOTE = "promotePawn";
+    public static final String PROP_SEARCH_INFO = "searchInfo";
+    public static final String PROP_ANALYSIS = "analysis";
     private final ModelUI modelUi;
 
     private final CommandManager commandManager = new CommandManager();
+    private final ComputerPlayer computer = new ComputerPlayer();
+    private final AnalysisService analysis = new AnalysisService();
+    private boolean computerWhite;
+    private boolean computerBlack;
+    private boolean ponder;
+    private OpeningBook book;
+    private Tablebase tablebase;
+    // relógio: tempo inicial e incremento por jogada (0 = sem relógio) e tempo de cada lado
+    private long clockBaseMillis;
+    private long clockIncrementMillis;
+    private long whiteClockMillis;
+    private long blackClockMillis;
+    private long turnStartMillis;
+    // onde são entregues os resultados do motor (na interface gráfica, Platform::runLater)
+    private Executor uiExecutor = Runnable::run;
 
     /**
      * Initializes a new chess game manager with default player names ("White Player" , "Black Player").
@@ -28,6 +74,9 @@ public class ChessGameManager {
         game = new ChessGame("White Player", "Black Player");
         pcs = new PropertyChangeSupport(this);
         modelUi = new ModelUI();
+        // no modo de aprendizagem cada posição nova é analisada em segundo plano
+        pcs.addPropertyChangeListener(PROP_BOARD, evt -> updateAnalysis());
+        modelUi.addPropertyChangeListener(ModelUI.PROP_LEARNING_MODE, evt -> updateAnalysis());
     }
 
     /**
@@ -36,9 +85,16 @@ public class ChessGameManager {
      * @param blackPlayerName the name of the black player
      */
     public void newGame(String whitePlayerName, String blackPlayerName){
+        computer.cancel();
+        computer.clearTable();
+        analysis.cancel();
+        analysis.clearTable();
         game = new ChessGame(whitePlayerName, blackPlayerName);
+        commandManager.clear();
+        resetClock();
         pcs.firePropertyChange(PROP_BOARD,null,null);
         pcs.firePropertyChange(PROP_CURRENT_PLAYER, null, getCurrentPlayerName());
+        startComputerIfNeeded();
     }
 
     /**
@@ -50,14 +106,22 @@ public class ChessGameManager {
      * @return true if the move was successful.
      */
     public boolean move(String from, String to) {
+        // enquanto o computador pensa, ou se é a vez dele, as jogadas do tabuleiro são ignoradas
+        if (computer.isThinking() || isComputerPlayer(game.isWhiteToMove())) {
+            pcs.firePropertyChange(PROP_BOARD, null, null);
+            return false;
+        }
+        boolean white = game.isWhiteToMove();
         MoveCommand cmd = new MoveCommand(game, from, to);
         boolean moved = commandManager.invokeCommand(cmd);
         if (moved) {
+            chargeClock(white);
             if (game.isWaitingForPromotion()) {
                 pcs.firePropertyChange(PROP_PROMOTE, null, game.getPromotionPosition());
             }
             pcs.firePropertyChange(PROP_BOARD, null, null);
             pcs.firePropertyChange(PROP_CURRENT_PLAYER, null, getCurrentPlayerName());
+            startComputerIfNeeded();
         }
         else {
             pcs.firePropertyChange(PROP_BOARD, null, null);
@@ -81,7 +145,15 @@ public class ChessGameManager {
      * @param fileName the name of the file.
      */
     public void loadGame (String fileName){
-        game = ChessGameSerialization.load(fileName);
+        ChessGame loaded = ChessGameSerialization.load(fileName);
+        // se o ficheiro não abre, o jogo atual continua
+        if (loaded == null) {
+            ModelLog.getInstance().add("Erro ao carregar o jogo de: " + fileName);
+            return;
+        }
+        computer.cancel();
+        game = loaded;
+        commandManager.clear();
         ModelLog.getInstance().add("Jogo carregado de: " + fileName);
         pcs.firePropertyChange(PROP_BOARD, null, null);
 
@@ -92,7 +164,9 @@ public class ChessGameManager {
      * @param data the CSV string representing the game state
      */
     public void importGame (String data){
+        computer.cancel();
         game.importGame(data);
+        commandManager.clear();
         ModelLog.getInstance().add("Jogo importado do CSV: ");
         pcs.firePropertyChange(PROP_BOARD, null, null);
     }
@@ -107,6 +181,102 @@ public class ChessGameManager {
         return game.exportGame();
     }
 
+    /**
+     * Exports the moves played so far (the undo history) as a PGN file, in
+     * SAN, from the position where they started.
+     *
+     * @param fileName the name of the file
+     * @return true if the file was written
+     */
+    public boolean exportPgn(String fileName) {
+        List<Integer> moves = new ArrayList<>();
+        for (ICommand command : commandManager.getHistory()) {
+            if (command instanceof MoveCommand moveCommand && moveCommand.getMove() != Move.NONE)
+                moves.add(moveCommand.getMove());
+        }
+        // a posição inicial é a do jogo com as jogadas do histórico desfeitas
+        ChessGame start = game.copy();
+        start.setLogging(false);
+        for (int i = 0; i < moves.size(); i++) {
+            start.unmakeMove();
+        }
+        Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("Event", "Chess Game");
+        tags.put("Date", new SimpleDateFormat("yyyy.MM.dd").format(new Date()));
+        tags.put("White", game.getWhitePlayerName());
+        tags.put("Black", game.getBlackPlayerName());
+        String fen = start.exportFen();
+        if (!fen.equals(new ChessGame("White", "Black", false).exportFen()))
+            tags.put("FEN", fen);
+        String result = !isGameOver() ? PgnGame.UNKNOWN_RESULT : switch (game.getWinner()) {
+            case WHITE -> "1-0";
+            case BLACK -> "0-1";
+            default -> "1/2-1/2";
+        };
+        PgnGame pgn = new PgnGame(tags, moves.stream().mapToInt(Integer::intValue).toArray(), result, null);
+        try (Writer writer = Files.newBufferedWriter(Path.of(fileName), StandardCharsets.UTF_8)) {
+            new PgnWriter(writer).write(pgn);
+        } catch (IOException | IllegalArgumentException e) {
+            ModelLog.getInstance().add("Erro ao exportar o PGN " + fileName + ": " + e.getMessage());
+            return false;
+        }
+        ModelLog.getInstance().add("Jogo exportado como PGN para: " + fileName + " (" + moves.size() + " meias-jogadas)");
+        return true;
+    }
+
+    /**
+     * Imports the first game of a PGN file: a new game starts from its
+     * position (the FEN tag, if any) and its moves are played one by one,
+     * so they can be undone.
+     *
+     * @param fileName the name of the file
+     * @return true if a game was read
+     */
+    public boolean importPgn(String fileName) {
+        PgnGame pgn;
+        try (PgnReader reader = PgnReader.open(Path.of(fileName))) {
+            pgn = reader.next();
+        } catch (IOException e) {
+            ModelLog.getInstance().add("Erro ao ler o PGN " + fileName + ": " + e.getMessage());
+            return false;
+        }
+        if (pgn == null) {
+            ModelLog.getInstance().add("Nenhum jogo no PGN " + fileName);
+            return false;
+        }
+
+        computer.cancel();
+        computer.clearTable();
+        analysis.cancel();
+        analysis.clearTable();
+        ChessGame imported = new ChessGame(pgn.getTags().getOrDefault("White", "White Player"),
+                pgn.getTags().getOrDefault("Black", "Black Player"));
+        if (pgn.getStartFen() != null && !imported.importFen(pgn.getStartFen())) {
+            ModelLog.getInstance().add("FEN inválido no PGN " + fileName);
+            return false;
+        }
+        game = imported;
+        commandManager.clear();
+        // as jogadas não vão para o log uma a uma
+        game.setLogging(false);
+        for (int move : pgn.getMoves()) {
+            if (!commandManager.invokeCommand(new MoveCommand(game, Move.from(move), Move.to(move))))
+                break;
+            PieceType promotion = Move.promotion(move);
+            if (promotion != null && game.isWaitingForPromotion())
+                game.promotePawn(Move.to(move), promotion.toSymbol(!game.isWhiteToMove()));
+        }
+        game.setLogging(true);
+        game.updateGameState();
+        resetClock();
+        ModelLog.getInstance().add("Jogo importado do PGN " + fileName + ": " + pgn
+                + (pgn.getError() == null ? "" : " (lido até ao erro)"));
+        pcs.firePropertyChange(PROP_BOARD, null, null);
+        pcs.firePropertyChange(PROP_CURRENT_PLAYER, null, getCurrentPlayerName());
+        startComputerIfNeeded();
+        return true;
+    }
+
     /**
      * Returns the current game state ( check, ongoing, checkmate, stalemate).
      *
@@ -163,6 +333,34 @@ public class ChessGameManager {
         return game.getPossibleMoves(column,row);
     }
 
+    /**
+     * Gets the material a capture wins or loses once both sides have
+     * recaptured on the destination square (static exchange evaluation).
+     * Learning mode uses it to warn that a highlighted capture loses material.
+     *
+     * @param from the position of the piece ("e2")
+     * @param to the destination position
+     * @return the result in centipawns (negative if the capture loses material),
+     *         or 0 if the move is not a legal capture
+     */
+    public int getExchangeValue (String from, String to) {
+        MoveList moves = new MoveList();
+        game.generateLegalMoves(moves);
+        int move = moves.find(Square.fromString(from), Square.fromString(to));
+        if (move == Move.NONE || !Move.isCapture(move))
+            return 0;
+        return See.evaluate(game, move);
+    }
+
+    /**
+     * Returns the static evaluation of the current position.
+     *
+     * @return the score in centipawns, positive when white is better
+     */
+    public int getEvaluation () {
+        return game.getEvaluation();
+    }
+
     /**
      * Checks if it is white's turn to move.
      *
@@ -233,6 +431,7 @@ public class ChessGameManager {
      * @return true if undo was successful
      */
     public boolean undo() {
+        computer.cancel();
         boolean undone = commandManager.undo();
         if (undone) {
             pcs.firePropertyChange(PROP_BOARD, null, null);
@@ -247,6 +446,7 @@ public class ChessGameManager {
      * @return true if redo was successful
      */
     public boolean redo() {
+        computer.cancel();
         boolean redone = commandManager.redo();
         if (redone) {
             pcs.firePropertyChange(PROP_BOARD, null, null);
@@ -274,6 +474,7 @@ public class ChessGameManager {
         game.promotePawn(col, row, symbol);
         pcs.firePropertyChange(PROP_BOARD, null, null);
         pcs.firePropertyChange(PROP_CURRENT_PLAYER,null,getCurrentPlayerName());
+        startComputerIfNeeded();
     }
 
     /**
@@ -286,6 +487,378 @@ public class ChessGameManager {
         return game.isWaitingForPromotion();
     }
 
+    /**
+     * Sets where the results of the computer player are delivered. The engine
+     * searches on its own thread; the GUI passes Platform::runLater so the
+     * moves and search updates reach the model on the JavaFX thread.
+     *
+     * @param executor the executor that runs the engine callbacks
+     */
+    public void setUiExecutor(Executor executor) {
+        this.uiExecutor = executor;
+    }
+
+    /**
+     * Chooses whether the computer plays one of the sides. If it is that
+     * side's turn, the computer starts thinking right away.
+     *
+     * @param white true for the white side, false for black
+     * @param enabled true if the computer plays that side
+     */
+    public void setComputerPlayer(boolean white, boolean enabled) {
+        if (white)
+            computerWhite = enabled;
+        else
+            computerBlack = enabled;
+        ModelLog.getInstance().add("Computador " + (enabled ? "joga" : "deixou de jogar") + " com as " + (white ? "brancas" : "pretas"));
+        if (!enabled && computer.isThinking() && game.isWhiteToMove() == white)
+            computer.cancel();
+        else if (!enabled && computer.isPondering() && game.isWhiteToMove() != white)
+            computer.cancel();
+        startComputerIfNeeded();
+    }
+
+    /**
+     * Checks whether the computer plays one of the sides.
+     *
+     * @param white true for the white side, false for black
+     * @return true if the computer plays that side
+     */
+    public boolean isComputerPlayer(boolean white) {
+        return white ? computerWhite : computerBlack;
+    }
+
+    /**
+     * Sets the depth, node and time limits of the computer player.
+     *
+     * @param limits the limits of each search
+     */
+    public void setComputerLimits(SearchLimits limits) {
+        computer.setLimits(limits);
+    }
+
+    /**
+     * Sets how many threads the computer player searches with.
+     *
+     * @param threads the number of threads (1 for a single-threaded search)
+     */
+    public void setComputerThreads(int threads) {
+        computer.setThreads(threads);
+        ModelLog.getInstance().add("Computador a pensar com " + computer.getThreads() + " thread(s)");
+    }
+
+    /**
+     * Sets the size of the computer player's transposition table.
+     *
+     * @param sizeMb the size in megabytes
+     */
+    public void setComputerHashSize(int sizeMb) {
+        computer.setHashSize(sizeMb);
+    }
+
+    /**
+     * Returns how many threads the computer player searches with.
+     *
+     * @return the number of threads
+     */
+    public int getComputerThreads() {
+        return computer.getThreads();
+    }
+
+    /**
+     * Asks the computer to play a move for the side to move. The search runs
+     * in the background, firing PROP_SEARCH_INFO as it deepens; the move is
+     * then played through a MoveCommand, so it can be undone.
+     *
+     * @return true if the computer started thinking
+     */
+    public boolean playComputerMove() {
+        if (isGameOver() || game.isWaitingForPromotion() || computer.isThinking())
+            return false;
+        ChessGame searched = game;
+        long key = game.getPositionKey();
+        analysis.cancel(); // o computador fica com o processador só para ele
+        int misses = computer.getPonderMisses();
+        boolean ponderHit = computer.start(game, computerLimits(game.isWhiteToMove()),
+                info -> uiExecutor.execute(() -> pcs.firePropertyChange(PROP_SEARCH_INFO, null, info)),
+                result -> uiExecutor.execute(() -> applyComputerMove(searched, key, result)));
+        if (ponderHit || computer.getPonderMisses() != misses)
+            ModelLog.getInstance().add(String.format("Ponder %s (%d de %d, %.0f%%)%s",
+                    ponderHit ? "acertou" : "falhou", computer.getPonderHits(),
+                    computer.getPonderHits() + computer.getPonderMisses(), computer.getPonderHitRate() * 100,
+                    ponderHit ? String.format("; %d ms já pesquisados, %d ms poupados no total",
+                            computer.getLastPonderMillis(), computer.getPonderSavedMillis()) : ""));
+        return true;
+    }
+
+    /**
+     * Opens an opening book (see OpeningBook). The computer then plays the
+     * book moves without searching, and learning mode shows them.
+     * If the file can not be opened, the previous book stays.
+     *
+     * @param fileName the book file
+     * @return true if the book was opened
+     */
+    public boolean loadBook(String fileName) {
+        try {
+            book = OpeningBook.open(Path.of(fileName));
+        } catch (IOException e) {
+            ModelLog.getInstance().add("Erro ao abrir o livro de aberturas " + fileName + ": " + e.getMessage());
+            return false;
+        }
+        computer.setBook(book);
+        ModelLog.getInstance().add("Livro de aberturas: " + fileName + " (" + book.size() + " jogadas)");
+        pcs.firePropertyChange(PROP_BOARD, null, null);
+        return true;
+    }
+
+    /**
+     * Stops using the opening book.
+     */
+    public void closeBook() {
+        book = null;
+        computer.setBook(null);
+        ModelLog.getInstance().add("Sem livro de aberturas");
+        pcs.firePropertyChange(PROP_BOARD, null, null);
+    }
+
+    /**
+     * Checks whether an opening book is open.
+     *
+     * @return true if there is a book
+     */
+    public boolean hasBook() {
+        return book != null;
+    }
+
+    /**
+     * Returns the moves of the opening book for the current position, with
+     * the share of the weight of each one.
+     *
+     * @return the moves as "e2e4 45%", heaviest first (empty without a book or when the position is not in it)
+     */
+    public String[] getBookMoves() {
+        if (book == null)
+            return new String[0];
+        MoveList moves = new MoveList();
+        int[] weights = new int[MoveList.CAPACITY];
+        int count = book.probe(game, moves, weights);
+        int total = 0;
+        for (int i = 0; i < count; i++) {
+            total += weights[i];
+        }
+        String[] result = new String[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = String.format("%s %d%%", Move.toString(moves.get(i)), total == 0 ? 0 : weights[i] * 100 / total);
+        }
+        return result;
+    }
+
+    /**
+     * Maps the endgame tables of a directory (see TablebaseGenerator). The
+     * computer and the analysis of learning mode then read the positions
+     * with up to four pieces from them instead of searching them.
+     *
+     * @param directory the directory with the tables
+     * @return true if at least one table was found
+     */
+    public boolean loadTablebases(String directory) {
+        Tablebase loaded;
+        try {
+            loaded = Tablebase.open(Path.of(directory));
+        } catch (IOException e) {
+            ModelLog.getInstance().add("Erro ao abrir as tabelas de finais em " + directory + ": " + e.getMessage());
+            return false;
+        }
+        if (loaded.getTableCount() == 0) {
+            ModelLog.getInstance().add("Nenhuma tabela de finais em " + directory);
+            return false;
+        }
+        tablebase = loaded;
+        computer.setTablebase(tablebase);
+        analysis.setTablebase(tablebase);
+        ModelLog.getInstance().add("Tabelas de finais: " + tablebase.getTableCount() + " em " + directory);
+        pcs.firePropertyChange(PROP_BOARD, null, null);
+        return true;
+    }
+
+    /**
+     * Returns the result of the current position in the endgame tables.
+     *
+     * @return a text like "White mates in 12" or "Draw", or null if the position is not in the tables
+     */
+    public String getTablebaseResult() {
+        if (tablebase == null)
+            return null;
+        int result = tablebase.probe(game);
+        if (result == Tablebase.UNKNOWN)
+            return null;
+        if (result == Tablebase.DRAW)
+            return "Draw";
+        boolean whiteWins = Tablebase.isWin(result) == game.isWhiteToMove();
+        int moves = Tablebase.movesToMate(result);
+        return moves == 0 ? (whiteWins ? "White" : "Black") + " has mated"
+                : (whiteWins ? "White" : "Black") + " mates in " + moves;
+    }
+
+    /**
+     * Chooses whether the computer keeps searching while the person thinks,
+     * on the reply it expects to its own move (pondering).
+     *
+     * @param enabled true to ponder
+     */
+    public void setPonder(boolean enabled) {
+        ponder = enabled;
+        if (!enabled && computer.isPondering())
+            computer.cancel();
+        ModelLog.getInstance().add("Ponder " + (enabled ? "ligado" : "desligado"));
+    }
+
+    public boolean isPonder() {
+        return ponder;
+    }
+
+    /**
+     * Sets the clock of both sides: the time each one starts with and the
+     * time added after each of its moves. With a clock, the computer
+     * decides how long to think from the time it has left (see
+     * TimeManager) instead of using the limits of setComputerLimits.
+     * The clocks restart from the base time.
+     *
+     * @param baseMillis the starting time of each side, or 0 for no clock
+     * @param incrementMillis the time added after each move
+     */
+    public void setTimeControl(long baseMillis, long incrementMillis) {
+        clockBaseMillis = Math.max(0, baseMillis);
+        clockIncrementMillis = Math.max(0, incrementMillis);
+        resetClock();
+        ModelLog.getInstance().add(clockBaseMillis == 0 ? "Sem relógio"
+                : String.format("Relógio: %d min + %d s", clockBaseMillis / 60000, clockIncrementMillis / 1000));
+        pcs.firePropertyChange(PROP_BOARD, null, null);
+    }
+
+    /**
+     * Checks whether the game is played on the clock.
+     *
+     * @return true if a time control is set
+     */
+    public boolean hasClock() {
+        return clockBaseMillis > 0;
+    }
+
+    /**
+     * Returns the time left on a side's clock, as of its last move.
+     *
+     * @param white true for the white side, false for black
+     * @return the time left in milliseconds (negative if it ran out)
+     */
+    public long getClockMillis(boolean white) {
+        return white ? whiteClockMillis : blackClockMillis;
+    }
+
+    private void resetClock() {
+        whiteClockMillis = clockBaseMillis;
+        blackClockMillis = clockBaseMillis;
+        turnStartMillis = System.currentTimeMillis();
+    }
+
+    // desconta o tempo da jogada de um lado e soma-lhe o incremento
+    private void chargeClock(boolean white) {
+        long now = System.currentTimeMillis();
+        if (hasClock()) {
+            long spent = now - turnStartMillis - clockIncrementMillis;
+            if (white)
+                whiteClockMillis -= spent;
+            else
+                blackClockMillis -= spent;
+        }
+        turnStartMillis = now;
+    }
+
+    private SearchLimits computerLimits(boolean white) {
+        if (!hasClock())
+            return computer.getLimits();
+        return SearchLimits.clock(new TimeManager(Math.max(0, getClockMillis(white)), clockIncrementMillis));
+    }
+
+    /**
+     * Stops the computer search, which then plays the best move found so far.
+     */
+    public void stopComputer() {
+        computer.stop();
+    }
+
+    /**
+     * Checks whether the computer is searching.
+     *
+     * @return true while the computer is thinking
+     */
+    public boolean isComputerThinking() {
+        return computer.isThinking();
+    }
+
+    private void applyComputerMove(ChessGame searched, long key, SearchInfo result) {
+        // o jogo pode ter mudado enquanto o motor pensava (novo jogo, importação...)
+        int move = result.getBestMove();
+        if (game != searched || game.getPositionKey() != key || move == Move.NONE)
+            return;
+
+        boolean white = game.isWhiteToMove();
+        if (!commandManager.invokeCommand(new MoveCommand(game, Move.from(move), Move.to(move))))
+            return;
+        chargeClock(white);
+        PieceType promotion = Move.promotion(move);
+        if (promotion != null && game.isWaitingForPromotion())
+            game.promotePawn(Move.to(move), promotion.toSymbol(!game.isWhiteToMove()));
+
+        if (result.isFromBook()) {
+            ModelLog.getInstance().add("Computador jogou " + Move.toString(move) + " do livro de aberturas");
+        } else {
+            TranspositionTable table = computer.getTable();
+            ModelLog.getInstance().add("Computador jogou " + Move.toString(move) + " (" + result + ")");
+            ModelLog.getInstance().add(String.format("Tabela de transposição: %.1f%% acertos, %d‰ ocupada; "
+                            + "tabela de peões: %.1f%% acertos",
+                    table.getHitRate() * 100, table.getFillPermille(), computer.getPawnHitRate() * 100));
+        }
+        // enquanto a pessoa pensa, o computador pesquisa a resposta que espera dela
+        int[] pv = result.getPv();
+        if (ponder && pv.length >= 2 && !isGameOver() && !isComputerPlayer(game.isWhiteToMove()))
+            computer.startPondering(game, pv[1], computerLimits(white));
+        pcs.firePropertyChange(PROP_BOARD, null, null);
+        pcs.firePropertyChange(PROP_CURRENT_PLAYER, null, getCurrentPlayerName());
+        startComputerIfNeeded();
+    }
+
+    /**
+     * Checks whether the background analysis of learning mode is running.
+     *
+     * @return true while the position is being analysed
+     */
+    public boolean isAnalysing() {
+        return analysis.isAnalysing();
+    }
+
+    // analisa a posição atual se estiver no modo de aprendizagem e for a vez de uma pessoa jogar
+    private void updateAnalysis() {
+        if (!modelUi.isLearningMode() || isGameOver() || game.isWaitingForPromotion()
+                || computer.isThinking() || computer.isPondering() || isComputerPlayer(game.isWhiteToMove())) {
+            analysis.cancel();
+            return;
+        }
+        ChessGame analysed = game;
+        long key = game.getPositionKey();
+        analysis.start(game, info -> uiExecutor.execute(() -> {
+            // um resultado atrasado de uma posição anterior já não interessa
+            if (game == analysed && game.getPositionKey() == key)
+                pcs.firePropertyChange(PROP_ANALYSIS, null, info);
+        }));
+    }
+
+    private void startComputerIfNeeded() {
+        if (isComputerPlayer(game.isWhiteToMove()))
+            playComputerMove();
+    }
+
     /**
      * Returns the UI model associated with the chess game.
      *
@@ -0,0 +1,186 @@
+package pt.isec.pa.chess.model;
+
+import pt.isec.pa.chess.model.data.Attacks;
+import pt.isec.pa.chess.model.data.Board;
+import pt.isec.pa.chess.model.data.Move;
+import pt.isec.pa.chess.model.data.MoveList;
+import pt.isec.pa.chess.model.data.PieceType;
+import pt.isec.pa.chess.model.data.Square;
+
+/**
+ * Generates only legal moves for the side to move.
+ * The checkers, the pinned pieces and the squares that stop a check are
+ * computed once per position; each piece then generates its moves
+ * restricted to those squares, so no move has to be played on the board
+ * to find out whether it leaves the king in check.
+ * Captures (with promotions) and quiet moves can also be generated apart,
+ * so a search that gets a cutoff from a capture never generates the rest.
+ */
+public final class MoveGenerator {
+
+    private MoveGenerator() {}
+
+    /**
+     * Appends every legal move of the side to move to a list.
+     *
+     * @param game The game whose position is used.
+     * @param moves The list the packed moves are added to.
+     */
+    public static void generateLegalMoves(ChessGame game, MoveList moves) {
+        generate(game, moves, -1L, -1L, -1L);
+    }
+
+    /**
+     * Appends the legal captures and promotions (including en passant and
+     * promotions without capture) of the side to move to a list.
+     *
+     * @param game The game whose position is used.
+     * @param moves The list the packed moves are added to.
+     */
+    public static void generateCaptures(ChessGame game, MoveList moves) {
+        long noisy = getNoisyPawnTargets(game);
+        generate(game, moves, -1L, game.getBoard().getOccupancy(!game.isWhiteToMove()), noisy);
+    }
+
+    /**
+     * Appends the legal moves of the side to move that are neither captures
+     * nor promotions (including castling) to a list.
+     *
+     * @param game The game whose position is used.
+     * @param moves The list the packed moves are added to.
+     */
+    public static void generateQuiets(ChessGame game, MoveList moves) {
+        long noisy = getNoisyPawnTargets(game);
+        generate(game, moves, -1L, ~game.getBoard().getOccupancy(!game.isWhiteToMove()), ~noisy);
+    }
+
+    /**
+     * Checks if a packed move (for example from a transposition table or a
+     * killer slot) is legal in the current position, generating only the
+     * moves of the piece on its origin square.
+     *
+     * @param game The game whose position is used.
+     * @param move The packed move, with its flags.
+     * @param scratch A list the check may clear and fill, so it does not allocate.
+     * @return True if the move is legal.
+     */
+    public static boolean isLegal(ChessGame game, int move, MoveList scratch) {
+        if (move == Move.NONE)
+            return false;
+        int from = Move.from(move);
+        if ((game.getBoard().getOccupancy(game.isWhiteToMove()) & Square.bit(from)) == 0)
+            return false;
+        long target = Square.bit(Move.to(move));
+        scratch.clear();
+        generate(game, scratch, Square.bit(from), target, target);
+        return scratch.contains(move);
+    }
+
+    // casas onde um peão captura ou é promovido
+    private static long getNoisyPawnTargets(ChessGame game) {
+        boolean white = game.isWhiteToMove();
+        long noisy = game.getBoard().getOccupancy(!white) | (white ? 0xFF00000000000000L : 0xFFL);
+        if (game.getEnPassantSquare() != Square.NONE)
+            noisy |= Square.bit(game.getEnPassantSquare());
+        return noisy;
+    }
+
+    // origins: casas das peças a gerar; targets/pawnTargets: casas de destino aceites
+    private static void generate(ChessGame game, MoveList moves, long origins, long targets, long pawnTargets) {
+        Board board = game.getBoard();
+        boolean white = game.isWhiteToMove();
+        int king = board.getKingSquare(white);
+        if (king == Square.NONE) { // posição sem rei (ex: importada): todas as jogadas servem
+            generateWithoutKing(game, moves, origins, targets, pawnTargets);
+            return;
+        }
+        long occupancy = board.getOccupancy();
+
+        // o rei já só gera casas que não estão atacadas (incluindo o roque)
+        if ((origins & Square.bit(king)) != 0)
+            board.getPiece(king).generateMoves(game, moves, targets);
+
+        long checkers = game.getAttackers(king, !white, occupancy);
+        if (Long.bitCount(checkers) > 1)
+            return; // check duplo: só o rei se pode mexer
+
+        long checkMask = -1L;
+        if (checkers != 0) {
+            int checker = Long.numberOfTrailingZeros(checkers);
+            checkMask = checkers | Attacks.between(king, checker);
+        }
+
+        // peões inimigos que podem ser capturados en passant também resolvem o check
+        long pawnCheckMask = checkMask;
+        int enPassant = game.getEnPassantSquare();
+        if (enPassant != Square.NONE && (checkers & Square.bit(enPassant ^ 8)) != 0)
+            pawnCheckMask |= Square.bit(enPassant);
+
+        long pinned = getPinned(game, king, white);
+        pawnCheckMask &= pawnTargets;
+        checkMask &= targets;
+
+        for (int i = 0; i < board.getPieceCount(white); i++) {
+            int square = board.getPieceSquare(white, i);
+            if (square == king || (origins & Square.bit(square)) == 0)
+                continue;
+            boolean isPawn = board.getPieceCode(square) == Board.pieceCode(PieceType.PAWN, white);
+            long allowed = isPawn ? pawnCheckMask : checkMask;
+            if ((pinned & Square.bit(square)) != 0)
+                allowed &= Attacks.line(king, square);
+            if (allowed == 0)
+                continue;
+
+            int first = moves.size();
+            board.getPiece(square).generateMoves(game, moves, allowed);
+            if (isPawn && enPassant != Square.NONE)
+                removeIllegalEnPassant(game, moves, first, king, white);
+        }
+    }
+
+    private static void generateWithoutKing(ChessGame game, MoveList moves, long origins, long targets, long pawnTargets) {
+        Board board = game.getBoard();
+        boolean white = game.isWhiteToMove();
+        for (int i = 0; i < board.getPieceCount(white); i++) {
+            int square = board.getPieceSquare(white, i);
+            if ((origins & Square.bit(square)) == 0)
+                continue;
+            boolean isPawn = board.getPieceCode(square) == Board.pieceCode(PieceType.PAWN, white);
+            board.getPiece(square).generateMoves(game, moves, isPawn ? pawnTargets : targets);
+        }
+    }
+
+    // peças próprias que estão entre o rei e uma peça deslizante inimiga
+    private static long getPinned(ChessGame game, int king, boolean white) {
+        Board board = game.getBoard();
+        long occupancy = board.getOccupancy();
+        long queens = board.getBitboard(PieceType.QUEEN, !white);
+        long snipers = (Attacks.rook(king, 0L) & (board.getBitboard(PieceType.ROOK, !white) | queens))
+                | (Attacks.bishop(king, 0L) & (board.getBitboard(PieceType.BISHOP, !white) | queens));
+
+        long pinned = 0L;
+        for (; snipers != 0; snipers &= snipers - 1) {
+            long blockers = Attacks.between(king, Long.numberOfTrailingZeros(snipers)) & occupancy;
+            if (Long.bitCount(blockers) == 1)
+                pinned |= blockers & board.getOccupancy(white);
+        }
+        return pinned;
+    }
+
+    // a captura en passant tira dois peões da mesma linha e pode deixar o rei em check
+    private static void removeIllegalEnPassant(ChessGame game, MoveList moves, int first, int king, boolean white) {
+        for (int i = first; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (!Move.isEnPassant(move))
+                continue;
+            int captured = Move.to(move) ^ 8;
+            long occupancy = (game.getBoard().getOccupancy() ^ Square.bit(Move.from(move)) ^ Square.bit(captured))
+                    | Square.bit(Move.to(move));
+            if (game.getAttackers(king, !white, occupancy) != 0) {
+                moves.set(i, moves.get(moves.size() - 1));
+                moves.removeLast();
+                i--;
+            }
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package pt.isec.pa.chess.model;
+
+import pt.isec.pa.chess.model.data.Move;
+import pt.isec.pa.chess.model.data.MoveList;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Serial;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the leaf nodes of the legal move tree of a position (perft).
+ * The counts are compared with published values to check the move
+ * generator, and the time taken measures its speed.
+ * The moves are made and taken back on the game itself with
+ * makeMove/unmakeMove, so the game ends in the same position.
+ */
+public final class Perft {
+    private Perft() {}
+
+    /**
+     * Counts the leaf nodes at a depth.
+     *
+     * @param game The game whose position is counted.
+     * @param depth The depth in half moves.
+     * @return The number of leaf nodes.
+     */
+    public static long perft(ChessGame game, int depth) {
+        if (depth <= 0)
+            return 1;
+        MoveList[] lists = new MoveList[depth + 1];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = new MoveList();
+        }
+        return count(game, depth, lists);
+    }
+
+    private static long count(ChessGame game, int depth, MoveList[] lists) {
+        MoveList moves = lists[depth];
+        moves.clear();
+        game.generateLegalMoves(moves);
+        if (depth == 1)
+            return moves.size(); // o gerador só devolve jogadas legais, não é preciso jogá-las
+
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            game.makeMove(moves.get(i));
+            nodes += count(game, depth - 1, lists);
+            game.unmakeMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Counts the leaf nodes at a depth for each root move, in the order
+     * the moves are generated.
+     *
+     * @param game The game whose position is counted.
+     * @param depth The depth in half moves (at least 1).
+     * @return The node count of each root move, keyed by its coordinate notation ("e2e4").
+     */
+    public static Map<String, Long> divide(ChessGame game, int depth) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        MoveList moves = new MoveList();
+        game.generateLegalMoves(moves);
+        for (int i = 0; i < moves.size(); i++) {
+            game.makeMove(moves.get(i));
+            result.put(Move.toString(moves.get(i)), perft(game, depth - 1));
+            game.unmakeMove();
+        }
+        return result;
+    }
+
+    /**
+     * Same as divide(game, depth), but each root move is counted by a task
+     * of a ForkJoinPool on its own copy of the game.
+     *
+     * @param game The game whose position is counted. It is not changed.
+     * @param depth The depth in half moves (at least 1).
+     * @param pool The pool that runs the tasks.
+     * @return The node count of each root move, keyed by its coordinate notation ("e2e4").
+     */
+    public static Map<String, Long> divide(ChessGame game, int depth, ForkJoinPool pool) {
+        MoveList moves = new MoveList();
+        game.generateLegalMoves(moves);
+        List<RootTask> tasks = new ArrayList<>();
+        for (int i = 0; i < moves.size(); i++) {
+            tasks.add(new RootTask(game.copy(), moves.get(i), depth - 1));
+        }
+        pool.invoke(new RecursiveTask<Void>() {
+            @Override
+            protected Void compute() {
+                invokeAll(tasks);
+                return null;
+            }
+        });
+
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (RootTask task : tasks) {
+            result.put(Move.toString(task.move), task.join());
+        }
+        return result;
+    }
+
+    /**
+     * Counts the leaf nodes at a depth, splitting the root moves across a pool.
+     *
+     * @param game The game whose position is counted. It is not changed.
+     * @param depth The depth in half moves.
+     * @param pool The pool that runs the tasks.
+     * @return The number of leaf nodes.
+     */
+    public static long perft(ChessGame game, int depth, ForkJoinPool pool) {
+        if (depth <= 1)
+            return perft(game, depth);
+        long nodes = 0;
+        for (long count : divide(game, depth, pool).values()) {
+            nodes += count;
+        }
+        return nodes;
+    }
+
+    private static class RootTask extends RecursiveTask<Long> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final ChessGame game;
+        private final int move;
+        private final int depth;
+
+        RootTask(ChessGame game, int move, int depth) {
+            this.game = game;
+            this.move = move;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            game.makeMove(move);
+            return perft(game, depth);
+        }
+    }
+
+    /**
+     * Runs the positions of an EPD file with known perft counts, in the
+     * usual "FEN ;D1 20 ;D2 400" format, and prints the nodes, time and
+     * nodes per second of each depth, flagging the counts that differ.
+     *
+     * @param file The EPD file.
+     * @param maxDepth The deepest depth run for each position.
+     * @param threads The number of threads (1 runs on the calling thread).
+     * @param out Where the report is printed.
+     * @return True if every count matched.
+     * @throws IOException If the file can not be read.
+     */
+    public static boolean runSuite(Path file, int maxDepth, int threads, PrintStream out) throws IOException {
+        ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        int mismatches = 0;
+        long totalNodes = 0;
+        long totalTime = 0;
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#"))
+                    continue;
+                String[] fields = line.split(";");
+                ChessGame game = new ChessGame();
+                if (!game.importFen(fields[0])) {
+                    out.println("FEN inválido: " + fields[0]);
+                    mismatches++;
+                    continue;
+                }
+                out.println(fields[0].trim());
+                for (int i = 1; i < fields.length; i++) {
+                    String[] entry = fields[i].trim().split("\\s+");
+                    int depth = Integer.parseInt(entry[0].substring(1));
+                    if (depth > maxDepth)
+                        continue;
+                    long expected = Long.parseLong(entry[1]);
+
+                    long start = System.nanoTime();
+                    long nodes = pool == null ? perft(game, depth) : perft(game, depth, pool);
+                    long elapsed = System.nanoTime() - start;
+                    totalNodes += nodes;
+                    totalTime += elapsed;
+
+                    boolean ok = nodes == expected;
+                    if (!ok)
+                        mismatches++;
+                    out.printf("  D%d %12d %8.3fs %10.0f nps %s%n", depth, nodes, elapsed / 1e9,
+                            nodes * 1e9 / Math.max(1, elapsed), ok ? "ok" : "ERRO (esperado " + expected + ")");
+                }
+            }
+        } finally {
+            if (pool != null)
+                pool.shutdown();
+        }
+        out.printf("Total: %d nós em %.3fs (%.0f nps), %d erros%n", totalNodes, totalTime / 1e9,
+                totalNodes * 1e9 / Math.max(1, totalTime), mismatches);
+        return mismatches == 0;
+    }
+}
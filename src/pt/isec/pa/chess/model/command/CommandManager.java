@@ -1,7 +1,10 @@
 package pt.isec.pa.chess.model.command;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Deque;
+import java.util.List;
 
 public class CommandManager {
 
@@ -48,5 +51,22 @@ public class CommandManager {
         return redoCmds.size() > 0;
     }
 
+    /**
+     * Gets the commands that can be undone, from the first to the last executed.
+     */
+    public List<ICommand> getHistory() {
+        List<ICommand> commands = new ArrayList<>(history);
+        Collections.reverse(commands);
+        return commands;
+    }
+
+    /**
+     * Forgets every command, for example when another game starts.
+     */
+    public void clear() {
+        history.clear();
+        redoCmds.clear();
+    }
+
 
 }
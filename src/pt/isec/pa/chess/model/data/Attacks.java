@@ -0,0 +1,199 @@
+package pt.isec.pa.chess.model.data;
+
+/**
+ * Precomputed attack sets for every piece type, as bitboards.
+ * Knight, king and pawn attacks are plain per-square tables; rook and
+ * bishop attacks use magic bitboards: the relevant blockers of a square
+ * are multiplied by a magic number and the top bits index a table that
+ * already holds the attacks for that blocker configuration.
+ */
+public final class Attacks {
+
+    private static final long[] KNIGHT = new long[64];
+    private static final long[] KING = new long[64];
+    private static final long[][] PAWN = new long[2][64]; // [0] brancas, [1] pretas
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final long[][] ROOK_TABLE = new long[64][];
+    private static final long[][] BISHOP_TABLE = new long[64][];
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    // gerados offline; qualquer número sem colisões destrutivas serve
+    private static final long[] ROOK_MAGICS = {
+        0x4080008491604000L, 0x0040001000402000L, 0x02002080400A0010L, 0x4100081000200700L,
+        0x0200040200201009L, 0x0900010008040002L, 0x0400011090380204L, 0x0200002410804502L,
+        0x0310800040089025L, 0x0100400020005000L, 0x8021001049002000L, 0x8001002100100008L,
+        0x0102800400080080L, 0x000A00082E00104DL, 0x0004001842011084L, 0x1005000100007082L,
+        0x0080208000400084L, 0xB000808020004000L, 0x0302110045002000L, 0x4000848010010800L,
+        0x0022020010200408L, 0x3501010008040002L, 0x000004004810A102L, 0x10000200005100A4L,
+        0x0510800080204000L, 0x0040400080200080L, 0x2000110100200040L, 0x0080900480080080L,
+        0x0001011100080004L, 0x044C008080020004L, 0x00A021040050A208L, 0x0800802180015100L,
+        0x180040008180022FL, 0x0400400080802000L, 0x0240450011002000L, 0x8010100080800800L,
+        0x1000800400800800L, 0x0000020080800400L, 0x0040880144000230L, 0x004100008F002142L,
+        0x0000400080088020L, 0x0010002000444000L, 0x0420001000208080L, 0x520010010021000AL,
+        0x0008000500090010L, 0x0002005008A20004L, 0x2800821088040001L, 0x0840208041020004L,
+        0x8011244009800180L, 0x0045048026004200L, 0x004A002840108600L, 0x002A4022000A1200L,
+        0x0020080004008080L, 0x4401044020100801L, 0x004221B008020400L, 0x2400364100840200L,
+        0x00010229128000C1L, 0x0009002010820042L, 0x004A200040102903L, 0x0C04090004100021L,
+        0x4041000208000411L, 0x080A000408108102L, 0x0800081001020084L, 0x6000089025040042L
+    };
+
+    private static final long[] BISHOP_MAGICS = {
+        0x0020412200850A00L, 0x01084108008D0000L, 0x0022020052009000L, 0x0051041282800408L,
+        0x0065114000900001L, 0x0025112010005224L, 0x1109009004200C00L, 0x0051011800840418L,
+        0x8032041084010400L, 0x6802200104009880L, 0x8204480803202A48L, 0x5D80441042000100L,
+        0x0008084840400418L, 0x4010811002100002L, 0x0420443202022000L, 0x10600A0201010808L,
+        0x2048104250040090L, 0x8202082004810200L, 0x2020401200810600L, 0x0C04000840400801L,
+        0x0101000820080800L, 0x020080051000A002L, 0x480402B0414808A0L, 0x1031000434821000L,
+        0x00500A0040480142L, 0x0031201011240100L, 0x4400880010002423L, 0x2100802012020200L,
+        0x0901010043104000L, 0x0000C1000A01960CL, 0x00420400020D4508L, 0x0000430022008250L,
+        0x010450081040421AL, 0x4801080800021004L, 0x1030109004420400L, 0x1000520080280480L,
+        0x2010120080001004L, 0x001210020A850085L, 0x0282080120220080L, 0x2844013040020042L,
+        0x0004046085280800L, 0x0000681410100422L, 0x1020202028005000L, 0x000204201800BD00L,
+        0x0002401812004040L, 0x1040210048840100L, 0x0008018410944C00L, 0x0011080103024248L,
+        0x0002011008040000L, 0x0800420824020000L, 0x0800808048080040L, 0x0028112842020202L,
+        0x0020006002442100L, 0x4880214202120028L, 0x0450442188020020L, 0x0114D80204202004L,
+        0x0020210510112080L, 0x2200482088541000L, 0x0040100022011000L, 0x0480091002460800L,
+        0x0C20024004104400L, 0x00410C3808101C26L, 0x100C1011D1090400L, 0x0002100208004080L
+    };
+
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    static {
+        int[][] knightSteps = {{-2, -1}, {-2, 1}, {-1, 2}, {1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}};
+        int[][] kingSteps = {{-1, -1}, {0, -1}, {1, -1}, {1, 0}, {1, 1}, {0, 1}, {-1, 1}, {-1, 0}};
+
+        for (int square = 0; square < 64; square++) {
+            int file = Square.file(square);
+            int rank = Square.rank(square);
+            KNIGHT[square] = steps(file, rank, knightSteps);
+            KING[square] = steps(file, rank, kingSteps);
+            PAWN[0][square] = steps(file, rank, new int[][]{{-1, 1}, {1, 1}});
+            PAWN[1][square] = steps(file, rank, new int[][]{{-1, -1}, {1, -1}});
+
+            ROOK_MASKS[square] = relevantBlockers(file, rank, ROOK_DIRECTIONS);
+            BISHOP_MASKS[square] = relevantBlockers(file, rank, BISHOP_DIRECTIONS);
+            ROOK_SHIFTS[square] = 64 - Long.bitCount(ROOK_MASKS[square]);
+            BISHOP_SHIFTS[square] = 64 - Long.bitCount(BISHOP_MASKS[square]);
+            ROOK_TABLE[square] = fillTable(square, ROOK_MASKS[square], ROOK_MAGICS[square], ROOK_SHIFTS[square], ROOK_DIRECTIONS);
+            BISHOP_TABLE[square] = fillTable(square, BISHOP_MASKS[square], BISHOP_MAGICS[square], BISHOP_SHIFTS[square], BISHOP_DIRECTIONS);
+        }
+
+        for (int a = 0; a < 64; a++) {
+            for (int b = 0; b < 64; b++) {
+                if (a == b)
+                    continue;
+                long ends = Square.bit(a) | Square.bit(b);
+                if ((rook(a, 0L) & Square.bit(b)) != 0) {
+                    BETWEEN[a][b] = rook(a, Square.bit(b)) & rook(b, Square.bit(a));
+                    LINE[a][b] = (rook(a, 0L) & rook(b, 0L)) | ends;
+                } else if ((bishop(a, 0L) & Square.bit(b)) != 0) {
+                    BETWEEN[a][b] = bishop(a, Square.bit(b)) & bishop(b, Square.bit(a));
+                    LINE[a][b] = (bishop(a, 0L) & bishop(b, 0L)) | ends;
+                }
+            }
+        }
+    }
+
+    private Attacks() {}
+
+    public static long knight(int square) {
+        return KNIGHT[square];
+    }
+
+    public static long king(int square) {
+        return KING[square];
+    }
+
+    /**
+     * Gets the squares a pawn of the given colour attacks from a square.
+     */
+    public static long pawn(boolean white, int square) {
+        return PAWN[white ? 0 : 1][square];
+    }
+
+    public static long rook(int square, long occupancy) {
+        return ROOK_TABLE[square][(int) (((occupancy & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square])];
+    }
+
+    public static long bishop(int square, long occupancy) {
+        return BISHOP_TABLE[square][(int) (((occupancy & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square])];
+    }
+
+    public static long queen(int square, long occupancy) {
+        return rook(square, occupancy) | bishop(square, occupancy);
+    }
+
+    /**
+     * Gets the squares strictly between two squares on the same rank, file
+     * or diagonal (empty if they are not aligned).
+     */
+    public static long between(int a, int b) {
+        return BETWEEN[a][b];
+    }
+
+    /**
+     * Gets the whole rank, file or diagonal through two squares, edge to
+     * edge (empty if they are not aligned).
+     */
+    public static long line(int a, int b) {
+        return LINE[a][b];
+    }
+
+    private static long steps(int file, int rank, int[][] steps) {
+        long attacks = 0L;
+        for (int[] step : steps) {
+            int target = Square.of(file + step[0], rank + step[1]);
+            if (target != Square.NONE)
+                attacks |= Square.bit(target);
+        }
+        return attacks;
+    }
+
+    // casas que podem bloquear o raio, sem contar a última casa de cada direção
+    private static long relevantBlockers(int file, int rank, int[][] directions) {
+        long mask = 0L;
+        for (int[] direction : directions) {
+            int f = file + direction[0];
+            int r = rank + direction[1];
+            while (Square.of(f + direction[0], r + direction[1]) != Square.NONE) {
+                mask |= Square.bit(Square.of(f, r));
+                f += direction[0];
+                r += direction[1];
+            }
+        }
+        return mask;
+    }
+
+    private static long slidingAttacks(int square, long occupancy, int[][] directions) {
+        long attacks = 0L;
+        for (int[] direction : directions) {
+            int f = Square.file(square) + direction[0];
+            int r = Square.rank(square) + direction[1];
+            int target;
+            while ((target = Square.of(f, r)) != Square.NONE) {
+                attacks |= Square.bit(target);
+                if ((occupancy & Square.bit(target)) != 0)
+                    break;
+                f += direction[0];
+                r += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    private static long[] fillTable(int square, long mask, long magic, int shift, int[][] directions) {
+        long[] table = new long[1 << (64 - shift)];
+        long subset = 0L;
+        do { // percorre todos os subconjuntos da máscara
+            table[(int) ((subset * magic) >>> shift)] = slidingAttacks(square, subset, directions);
+            subset = (subset - mask) & mask;
+        } while (subset != 0);
+        return table;
+    }
+}
@@ -2,23 +2,77 @@ package pt.isec.pa.chess.model.data;
 
 import  pt.isec.pa.chess.model.data.pieces.*;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serial;
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
+import java.util.Arrays;
 import java.util.Map;
 
+/**
+ * Chess board backed by bitboards.
+ * Keeps one 64-bit occupancy set per piece code (6 types x 2 colours)
+ * and a 64-entry piece-code array, so square probes are plain array
+ * accesses and bit operations. The Piece objects are kept alongside
+ * so the rest of the model keeps working with getPiece/setPiece.
+ * King squares, a piece list per side and the number of pieces of each
+ * code are updated on every change, so code that needs to visit the
+ * pieces does work proportional to the pieces left, not to 64 squares.
+ * The Zobrist key of the pieces (see Zobrist) is updated the same way,
+ * along with a second key of the pawns alone (for caching pawn structure),
+ * and so are the material and piece-square sums of the evaluation and
+ * the game phase (see PieceSquareTables).
+ * Squares are indexed 0..63 from a1 (0) to h8 (63).
+ */
 public class Board implements Serializable {
     @Serial
     static final long serialVersionUID = 100L;
-    private Map<String,Piece> board;
+
+    public static final int EMPTY = -1;
+    public static final int PIECE_CODES = 12;
+
+    private Piece[] pieces;
+    private transient long[] bitboards;
+    private transient byte[] codes;
+    private transient long whiteOccupancy;
+    private transient long blackOccupancy;
+
+    // listas de peças por cor ([0] brancas, [1] pretas) e posição de cada casa na sua lista
+    private transient int[][] pieceLists;
+    private transient int[] pieceListSizes;
+    private transient int[] pieceListIndex;
+    private transient int[] kingSquares;
+    private transient int[] pieceCounts;
+    private transient long key;
+    private transient long pawnKey;
+    private transient int midgameScore;
+    private transient int endgameScore;
+    private transient int phase;
 
     public Board(){
-        board = new HashMap<>();
+        pieces = new Piece[64];
+        initIndexes();
         setupBoard ();
     }
 
+    private void initIndexes() {
+        bitboards = new long[PIECE_CODES];
+        codes = new byte[64];
+        Arrays.fill(codes, (byte) EMPTY);
+        whiteOccupancy = 0L;
+        blackOccupancy = 0L;
+        pieceLists = new int[2][64];
+        pieceListSizes = new int[2];
+        pieceListIndex = new int[64];
+        kingSquares = new int[]{Square.NONE, Square.NONE};
+        pieceCounts = new int[PIECE_CODES];
+        key = 0L;
+        pawnKey = 0L;
+        midgameScore = 0;
+        endgameScore = 0;
+        phase = 0;
+    }
+
     public void setupBoard() {
 
         // Peças pretas
@@ -50,60 +104,251 @@ public class Board implements Serializable {
         for (char c = 'a'; c <= 'h'; c++) {
             addPiece(new Pawn(c, 2, true));
         }
-        
+
+    }
+
+    /**
+     * Returns the piece code used to index the bitboards:
+     * the PieceType ordinal for white, plus 6 for black.
+     */
+    public static int pieceCode(PieceType type, boolean isWhite) {
+        return type.ordinal() + (isWhite ? 0 : 6);
     }
-    private String getPositionKey(char column, int row) {
-        return "" + column + row;
+
+    private void put(Piece piece, int square) {
+        int code = pieceCode(piece.getType(), piece.getIsWhite());
+        long bit = 1L << square;
+        pieces[square] = piece;
+        codes[square] = (byte) code;
+        bitboards[code] |= bit;
+        if (piece.getIsWhite())
+            whiteOccupancy |= bit;
+        else
+            blackOccupancy |= bit;
+
+        int side = piece.getIsWhite() ? 0 : 1;
+        pieceListIndex[square] = pieceListSizes[side];
+        pieceLists[side][pieceListSizes[side]++] = square;
+        pieceCounts[code]++;
+        key ^= Zobrist.piece(code, square);
+        if (code % 6 == PieceType.PAWN.ordinal())
+            pawnKey ^= Zobrist.piece(code, square);
+        midgameScore += PieceSquareTables.midgame(code, square);
+        endgameScore += PieceSquareTables.endgame(code, square);
+        phase += PieceSquareTables.phase(code);
+        if (piece.getType() == PieceType.KING)
+            kingSquares[side] = square;
+    }
+
+    private Piece take(int square) {
+        Piece piece = pieces[square];
+        if (piece == null)
+            return null;
+        int code = codes[square];
+        long bit = ~(1L << square);
+        bitboards[code] &= bit;
+        whiteOccupancy &= bit;
+        blackOccupancy &= bit;
+
+        // troca com a última casa da lista para remover em tempo constante
+        int side = piece.getIsWhite() ? 0 : 1;
+        int last = pieceLists[side][--pieceListSizes[side]];
+        pieceLists[side][pieceListIndex[square]] = last;
+        pieceListIndex[last] = pieceListIndex[square];
+        pieceCounts[code]--;
+        key ^= Zobrist.piece(code, square);
+        if (code % 6 == PieceType.PAWN.ordinal())
+            pawnKey ^= Zobrist.piece(code, square);
+        midgameScore -= PieceSquareTables.midgame(code, square);
+        endgameScore -= PieceSquareTables.endgame(code, square);
+        phase -= PieceSquareTables.phase(code);
+        if (kingSquares[side] == square) // posições importadas podem ter mais do que um rei
+            kingSquares[side] = bitboards[code] == 0 ? Square.NONE : Long.numberOfTrailingZeros(bitboards[code]);
+
+        pieces[square] = null;
+        codes[square] = (byte) EMPTY;
+        return piece;
     }
 
     public void addPiece(Piece newPiece){
-        String position = "" + newPiece.getColumn() + newPiece.getRow();
-        board.put(position,newPiece);
+        int square = newPiece.getSquare();
+        if (square == Square.NONE)
+            return;
+        take(square);
+        put(newPiece, square);
     }
 
     public void removePiece(char column, int row){
-        board.remove (getPositionKey(column, row));
+        removePiece(Square.of(column, row));
+    }
+
+    public void removePiece(int square){
+        if (square != Square.NONE)
+            take(square);
     }
 
 
     public Piece getPiece(char column, int row) {
-        return board.get("" + column + row); //retorna null se nao houver
+        return getPiece(Square.of(column, row)); //retorna null se nao houver
+    }
+
+    public Piece getPiece(int square) {
+        return square == Square.NONE ? null : pieces[square];
     }
 
     public void setPiece(Piece piece, char column, int row) {
-        if (piece != null) {
-            removePiece(column, row); // Remove qualquer peça existente na posição
-            piece.setColumn(column);
-            piece.setRow(row);
-            board.put(getPositionKey(column, row), piece);
+        setPiece(piece, Square.of(column, row));
+    }
+
+    public void setPiece(Piece piece, int square) {
+        if (piece != null && square != Square.NONE) {
+            take(square); // Remove qualquer peça existente na posição
+            piece.setSquare(square);
+            put(piece, square);
         }
     }
 
     public void movePiece(char colFrom, int rowFrom, char colTo, int rowTo) {
-        Piece piece = getPiece(colFrom, rowFrom);
+        movePiece(Square.of(colFrom, rowFrom), Square.of(colTo, rowTo));
+    }
+
+    public void movePiece(int from, int to) {
+        if (from == Square.NONE || to == Square.NONE)
+            return;
         // Remove a peça da posição inicial e coloca na nova posição
+        Piece piece = take(from);
         if (piece == null){
             return;
         }
-        removePiece(colFrom, rowFrom);
-        setPiece(piece, colTo, rowTo);
+        take(to);
         piece.setHasMoved(true);
-        piece.setColumn(colTo);
-        piece.setRow(rowTo);
+        piece.setSquare(to);
+        put(piece, to);
+    }
+
+    /**
+     * Gets the piece code on a square, or EMPTY.
+     */
+    public int getPieceCode(int square) {
+        return square == Square.NONE ? EMPTY : codes[square];
+    }
+
+    /**
+     * Gets the occupancy set of one piece code.
+     */
+    public long getBitboard(int code) {
+        return bitboards[code];
+    }
+
+    /**
+     * Gets the occupancy set of one piece type and colour.
+     */
+    public long getBitboard(PieceType type, boolean isWhite) {
+        return bitboards[pieceCode(type, isWhite)];
+    }
+
+    /**
+     * Gets the squares occupied by one side.
+     */
+    public long getOccupancy(boolean isWhite) {
+        return isWhite ? whiteOccupancy : blackOccupancy;
+    }
+
+    /**
+     * Gets all occupied squares.
+     */
+    public long getOccupancy() {
+        return whiteOccupancy | blackOccupancy;
+    }
+
+    /**
+     * Gets the square of a king, or Square.NONE if it is not on the board.
+     */
+    public int getKingSquare(boolean isWhite) {
+        return kingSquares[isWhite ? 0 : 1];
+    }
+
+    /**
+     * Gets the number of pieces of one side (the size of its piece list).
+     */
+    public int getPieceCount(boolean isWhite) {
+        return pieceListSizes[isWhite ? 0 : 1];
+    }
+
+    /**
+     * Gets the square of the piece at a position of a side's piece list.
+     * The list has no particular order and changes when pieces move.
+     *
+     * @param index a value from 0 to getPieceCount(isWhite) - 1.
+     */
+    public int getPieceSquare(boolean isWhite, int index) {
+        return pieceLists[isWhite ? 0 : 1][index];
+    }
+
+    /**
+     * Gets the number of pieces of one type and colour.
+     */
+    public int getPieceCount(PieceType type, boolean isWhite) {
+        return pieceCounts[pieceCode(type, isWhite)];
+    }
+
+    /**
+     * Gets the number of pieces on the board.
+     */
+    public int getPieceCount() {
+        return pieceListSizes[0] + pieceListSizes[1];
+    }
+
+    /**
+     * Gets the Zobrist key of the pieces on the board. It does not include
+     * the side to move, castling rights or en passant (see ChessGame.getPositionKey).
+     */
+    public long getKey() {
+        return key;
+    }
+
+    /**
+     * Gets the Zobrist key of the pawns alone, which only changes on pawn
+     * moves, captures of pawns and promotions.
+     */
+    public long getPawnKey() {
+        return pawnKey;
+    }
+
+    /**
+     * Gets the sum of the middlegame material and piece-square values of
+     * the pieces on the board, from white's point of view.
+     */
+    public int getMidgameScore() {
+        return midgameScore;
+    }
+
+    /**
+     * Gets the sum of the endgame material and piece-square values of the
+     * pieces on the board, from white's point of view.
+     */
+    public int getEndgameScore() {
+        return endgameScore;
+    }
+
+    /**
+     * Gets the game phase from the pieces left: PieceSquareTables.MAX_PHASE
+     * with all the pieces of the start position (more after promotions),
+     * down to 0 with only kings and pawns.
+     */
+    public int getPhase() {
+        return phase;
     }
 
     public String getAllPiecesOnBoard() {
         StringBuilder sb = new StringBuilder();
 
-        for (Map.Entry<String, Piece> entry : board.entrySet()) {
-            Piece piece = entry.getValue();
-            String position = entry.getKey();
-
-            if (piece != null) {
-                sb.append(piece.getSymbol());
-                sb.append(position);
-                sb.append(",");
-            }
+        for (long occupied = getOccupancy(); occupied != 0; occupied &= occupied - 1) {
+            Piece piece = pieces[Long.numberOfTrailingZeros(occupied)];
+            sb.append(piece.getSymbol());
+            sb.append(piece.getColumn());
+            sb.append(piece.getRow());
+            sb.append(",");
         }
 
         if (sb.length() > 0)
@@ -113,11 +358,33 @@ public class Board implements Serializable {
     }
 
     public void clear (){
-        board.clear();
+        Arrays.fill(pieces, null);
+        initIndexes();
     }
 
     public int getBoardSize() {
         return 8;
     }
 
+    // os bitboards e as listas não são serializados, são reconstruídos a partir das peças
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        Piece[] saved = (Piece[]) fields.get("pieces", null);
+        pieces = new Piece[64];
+        initIndexes();
+        if (saved != null) {
+            for (int square = 0; square < saved.length; square++) {
+                if (saved[square] != null)
+                    put(saved[square], square);
+            }
+        } else if (fields.get("board", null) instanceof Map<?, ?> board) {
+            // jogos guardados antes dos bitboards: um mapa "e2" -> peça
+            for (Object piece : board.values()) {
+                if (piece instanceof Piece p)
+                    put(p, p.getSquare());
+            }
+        }
+    }
+
 }
@@ -0,0 +1,93 @@
+package pt.isec.pa.chess.model.data;
+
+/**
+ * Helpers for moves packed into a single int, so move generation and
+ * validation work on primitives instead of Strings.
+ *
+ * Layout: bits 0-5 origin square, bits 6-11 destination square,
+ * bits 12-14 promotion piece (PieceType ordinal + 1, 0 if none),
+ * bits 15-18 flags (capture, double push, en passant, castle).
+ * The value 0 (a1 to a1) is never a valid move and is used as NONE.
+ */
+public final class Move {
+    public static final int NONE = 0;
+
+    public static final int CAPTURE = 1 << 15;
+    public static final int DOUBLE_PUSH = 1 << 16;
+    public static final int EN_PASSANT = 1 << 17;
+    public static final int CASTLE = 1 << 18;
+
+    private static final int SQUARE_MASK = 0x3F;
+    private static final int PROMOTION_SHIFT = 12;
+    private static final int PROMOTION_MASK = 0x7;
+
+    private static final PieceType[] TYPES = PieceType.values();
+
+    private Move() {}
+
+    public static int of(int from, int to, int flags) {
+        return from | (to << 6) | flags;
+    }
+
+    public static int of(int from, int to) {
+        return of(from, to, 0);
+    }
+
+    public static int promotion(int from, int to, PieceType type, int flags) {
+        return of(from, to, flags) | ((type.ordinal() + 1) << PROMOTION_SHIFT);
+    }
+
+    public static int from(int move) {
+        return move & SQUARE_MASK;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & SQUARE_MASK;
+    }
+
+    /**
+     * Gets the piece a pawn is promoted to.
+     *
+     * @return the promotion type or null if the move is not a promotion.
+     */
+    public static PieceType promotion(int move) {
+        int code = (move >>> PROMOTION_SHIFT) & PROMOTION_MASK;
+        return code == 0 ? null : TYPES[code - 1];
+    }
+
+    public static boolean isPromotion(int move) {
+        return ((move >>> PROMOTION_SHIFT) & PROMOTION_MASK) != 0;
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE) != 0;
+    }
+
+    public static boolean isDoublePush(int move) {
+        return (move & DOUBLE_PUSH) != 0;
+    }
+
+    public static boolean isEnPassant(int move) {
+        return (move & EN_PASSANT) != 0;
+    }
+
+    public static boolean isCastle(int move) {
+        return (move & CASTLE) != 0;
+    }
+
+    /**
+     * Replaces the promotion piece of a promotion move.
+     */
+    public static int withPromotion(int move, PieceType type) {
+        return (move & ~(PROMOTION_MASK << PROMOTION_SHIFT)) | ((type.ordinal() + 1) << PROMOTION_SHIFT);
+    }
+
+    /**
+     * Renders a move in coordinate notation ("e2e4", "e7e8q").
+     */
+    public static String toString(int move) {
+        String text = Square.toString(from(move)) + Square.toString(to(move));
+        PieceType promotion = promotion(move);
+        return promotion == null ? text : text + promotion.toSymbol(false);
+    }
+}
@@ -0,0 +1,66 @@
+package pt.isec.pa.chess.model.data;
+
+/**
+ * Fixed-capacity list of packed moves (see Move).
+ * Generators append into it and callers clear and reuse the same
+ * instance, so generating moves does not allocate.
+ */
+public class MoveList {
+    public static final int CAPACITY = 256; // nenhuma posição legal tem mais de 218 jogadas
+
+    private final int[] moves;
+    private int size;
+
+    public MoveList() {
+        moves = new int[CAPACITY];
+    }
+
+    public void add(int move) {
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void removeLast() {
+        size--;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Finds the first move between two squares.
+     *
+     * @return the packed move or Move.NONE if there is none.
+     */
+    public int find(int from, int to) {
+        for (int i = 0; i < size; i++) {
+            if (Move.from(moves[i]) == from && Move.to(moves[i]) == to)
+                return moves[i];
+        }
+        return Move.NONE;
+    }
+
+    public boolean contains(int move) {
+        for (int i = 0; i < size; i++) {
+            if (moves[i] == move)
+                return true;
+        }
+        return false;
+    }
+}
@@ -2,41 +2,86 @@ package pt.isec.pa.chess.model.data;
 
 import pt.isec.pa.chess.model.ChessGame;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serial;
 import java.io.Serializable;
-import java.util.List;
 
 public abstract class Piece implements Serializable {
 
     @Serial
     static final long serialVersionUID = 100L;
 
-    private int row;
-    private char column,symbol;
+    private int square;
+    private char symbol;
     private boolean hasMoved;
     private boolean isWhite;
 
 
     public Piece (char column,int row,char symbol, boolean isWhite){
-        this.row = row;
-        this.column = column;
+        this.square = Square.of(column, row);
         this.hasMoved = false;
         this.symbol = symbol;
         this.isWhite = isWhite;
     }
 
-    public abstract String[] getPossibleMoves (ChessGame game);
+    /**
+     * Gets the squares this piece can move to, as a bitboard.
+     *
+     * @param game the game the piece belongs to.
+     * @return a set of destination squares (bit n set for square n).
+     */
+    public abstract long getMoveTargets (ChessGame game);
+
+    /**
+     * Appends the moves of this piece to a list, as packed moves (see Move).
+     *
+     * @param game the game the piece belongs to.
+     * @param moves the list the moves are added to.
+     */
+    public void generateMoves (ChessGame game, MoveList moves){
+        generateMoves(game, moves, -1L);
+    }
+
+    /**
+     * Appends the moves of this piece whose destination is in a set of
+     * allowed squares, as packed moves (see Move).
+     *
+     * @param game the game the piece belongs to.
+     * @param moves the list the moves are added to.
+     * @param allowed the destination squares allowed (for check evasions and pins).
+     */
+    public void generateMoves (ChessGame game, MoveList moves, long allowed){
+        long enemies = game.getBoard().getOccupancy(!isWhite);
+        for (long targets = getMoveTargets(game) & allowed; targets != 0; targets &= targets - 1) {
+            int to = Long.numberOfTrailingZeros(targets);
+            moves.add(Move.of(square, to, (enemies & Square.bit(to)) != 0 ? Move.CAPTURE : 0));
+        }
+    }
+
+    public String[] getPossibleMoves (ChessGame game){
+        MoveList list = new MoveList();
+        generateMoves(game, list);
+        long targets = 0L;
+        for (int i = 0; i < list.size(); i++) {
+            targets |= Square.bit(Move.to(list.get(i)));
+        }
+        String[] moves = new String[Long.bitCount(targets)];
+        for (int i = 0; targets != 0; targets &= targets - 1, i++) {
+            moves[i] = Square.toString(Long.numberOfTrailingZeros(targets));
+        }
+        return moves;
+    }
 
     public void move(int newRow, char newColumn){
-        this.row = newRow;
-        this.column = newColumn;
+        this.square = Square.of(newColumn, newRow);
         this.hasMoved = true;
 
     }
 
     @Override
     public String toString(){
-        String position = "" + symbol + column + row;
+        String position = "" + symbol + getColumn() + getRow();
         if (!hasMoved && (symbol == 'K' || symbol == 'k' || symbol == 'R' || symbol == 'r')){
             position = position + "*";
         }
@@ -48,11 +93,15 @@ public abstract class Piece implements Serializable {
     }
 
     public char getColumn (){
-        return column;
+        return Square.column(square);
     }
 
     public int getRow () {
-        return row;
+        return Square.row(square);
+    }
+
+    public int getSquare () {
+        return square;
     }
 
     public boolean getHasMoved () {
@@ -64,11 +113,15 @@ public abstract class Piece implements Serializable {
     }
 
     public void setRow(int newRow) {
-        this.row = newRow;
+        this.square = Square.of(Square.file(square), newRow - 1);
     }
 
     public void setColumn(char newColumn) {
-        this.column = newColumn;
+        this.square = Square.of(newColumn - 'a', Square.rank(square));
+    }
+
+    public void setSquare(int newSquare) {
+        this.square = newSquare;
     }
 
     public void setSymbol(char newSymbol) {
@@ -79,67 +132,34 @@ public abstract class Piece implements Serializable {
         return isWhite;
     }
 
+    public PieceType getType() {
+        return PieceType.fromPieceSymbol(symbol);
+    }
+
     public boolean isValidPosition(char column, int row) {
         return column >= 'a' && column <= 'h' && row >= 1 && row <= 8;
     }
 
-    public void addLinearMoves (List<String> moves, Board board){
-        int dx [] = {-1,0,1,0};
-        int dy [] = {0,-1,0,1};
-
-        for (int i = 0; i < dx.length; i++){
-            char newColumn = column;
-            int newRow = row;
-
-            while (true){
-                newColumn =(char) (newColumn + dx[i]);
-                newRow = newRow + dy[i];
-
-                if (!isValidPosition(newColumn,newRow)){
-                    break;
-                }
-
-                ///verifica pecas aliadas
-                Piece piece = board.getPiece(newColumn, newRow);
-                if (piece != null) { // se ha uma peca nessa posicao
-                    if (piece.getIsWhite() != this.getIsWhite()) { // se for inimiga
-                        moves.add("" + newColumn + newRow); // captura possível (logo movimento possivel)
-                    }
-                    break;
-                }
-                moves.add("" + newColumn + newRow);
-            }
-        }
+    public long getLinearTargets (Board board){
+        return Attacks.rook(square, board.getOccupancy()) & ~board.getOccupancy(isWhite);
     }
 
-    public void addDiagonalMoves(List <String> moves, Board board){
-        int [] dx = {1,1,-1,-1};
-        int [] dy = {1,-1,1,-1};
-
-        for (int i = 0; i < dx.length; i++){
-            char newColumn = column;
-            int newRow = row;
-
-            while (true) {
-                newColumn = (char) (newColumn + dx[i]);
-                newRow += dy[i];
-
-                if (!isValidPosition(newColumn, newRow)) break;
-
-
-
-                ///verifica pecas aliadas
-                Piece piece = board.getPiece(newColumn, newRow);
-                if (piece != null) { // se ha uma peca nessa posicao
-                    if (piece.getIsWhite() != this.getIsWhite()) { // se for inimiga
-                        moves.add("" + newColumn + newRow); // captura possível (logo movimento possivel)
-                    }
-                    break;
-                }
-                moves.add("" + newColumn + newRow);
-            }
-        }
+    public long getDiagonalTargets (Board board){
+        return Attacks.bishop(square, board.getOccupancy()) & ~board.getOccupancy(isWhite);
+    }
 
+    // os jogos guardados antes das casas 0..63 têm a coluna e a linha em vez da casa
+    // (as subclasses declaram o serialVersionUID implícito que tinham nessa versão)
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        symbol = fields.get("symbol", ' ');
+        hasMoved = fields.get("hasMoved", false);
+        isWhite = fields.get("isWhite", false);
+        if (fields.defaulted("square"))
+            square = Square.of(fields.get("column", 'a'), fields.get("row", 1));
+        else
+            square = fields.get("square", 0);
     }
 
 }
@@ -0,0 +1,145 @@
+package pt.isec.pa.chess.model.data;
+
+/**
+ * Material and piece-square values of the evaluation, one for the
+ * middlegame and one for the endgame, and the weight of each piece in the
+ * game phase (knight and bishop 1, rook 2, queen 4; 24 at the start).
+ * The values already include the piece value and are signed from white's
+ * point of view (negative for black pieces), so Board keeps their sums up
+ * to date on every change the same way it keeps the Zobrist key.
+ * The tables are written from white's side, with rank 8 on the first line;
+ * black uses them mirrored.
+ */
+public final class PieceSquareTables {
+    public static final int MAX_PHASE = 24;
+
+    // valores pela ordem de PieceType (KING, QUEEN, BISHOP, ROOK, PAWN, KNIGHT)
+    private static final int[] MIDGAME_VALUES = {0, 1025, 365, 477, 82, 337};
+    private static final int[] ENDGAME_VALUES = {0, 936, 297, 512, 94, 281};
+    private static final int[] PHASE_WEIGHTS = {0, 4, 1, 2, 0, 1};
+
+    private static final int[] KING_MIDGAME = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+             20,  20,   0,   0,   0,   0,  20,  20,
+             20,  30,  10,   0,   0,  10,  30,  20
+    };
+    private static final int[] KING_ENDGAME = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10,   0,   0, -10, -20, -30,
+            -30, -10,  20,  30,  30,  20, -10, -30,
+            -30, -10,  30,  40,  40,  30, -10, -30,
+            -30, -10,  30,  40,  40,  30, -10, -30,
+            -30, -10,  20,  30,  30,  20, -10, -30,
+            -30, -30,   0,   0,   0,   0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50
+    };
+    private static final int[] QUEEN = {
+            -20, -10, -10,  -5,  -5, -10, -10, -20,
+            -10,   0,   0,   0,   0,   0,   0, -10,
+            -10,   0,   5,   5,   5,   5,   0, -10,
+             -5,   0,   5,   5,   5,   5,   0,  -5,
+              0,   0,   5,   5,   5,   5,   0,  -5,
+            -10,   5,   5,   5,   5,   5,   0, -10,
+            -10,   0,   5,   0,   0,   0,   0, -10,
+            -20, -10, -10,  -5,  -5, -10, -10, -20
+    };
+    private static final int[] BISHOP = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10,   0,   0,   0,   0,   0,   0, -10,
+            -10,   0,   5,  10,  10,   5,   0, -10,
+            -10,   5,   5,  10,  10,   5,   5, -10,
+            -10,   0,  10,  10,  10,  10,   0, -10,
+            -10,  10,  10,  10,  10,  10,  10, -10,
+            -10,   5,   0,   0,   0,   0,   5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20
+    };
+    private static final int[] ROOK = {
+              0,   0,   0,   0,   0,   0,   0,   0,
+              5,  10,  10,  10,  10,  10,  10,   5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+              0,   0,   0,   5,   5,   0,   0,   0
+    };
+    private static final int[] PAWN_MIDGAME = {
+              0,   0,   0,   0,   0,   0,   0,   0,
+             50,  50,  50,  50,  50,  50,  50,  50,
+             10,  10,  20,  30,  30,  20,  10,  10,
+              5,   5,  10,  25,  25,  10,   5,   5,
+              0,   0,   0,  20,  20,   0,   0,   0,
+              5,  -5, -10,   0,   0, -10,  -5,   5,
+              5,  10,  10, -20, -20,  10,  10,   5,
+              0,   0,   0,   0,   0,   0,   0,   0
+    };
+    // no final o que conta num peão é estar perto da promoção
+    private static final int[] PAWN_ENDGAME = {
+              0,   0,   0,   0,   0,   0,   0,   0,
+            100, 100, 100, 100, 100, 100, 100, 100,
+             60,  60,  60,  60,  60,  60,  60,  60,
+             35,  35,  35,  35,  35,  35,  35,  35,
+             20,  20,  20,  20,  20,  20,  20,  20,
+             10,  10,  10,  10,  10,  10,  10,  10,
+              5,   5,   5,   5,   5,   5,   5,   5,
+              0,   0,   0,   0,   0,   0,   0,   0
+    };
+    private static final int[] KNIGHT = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20,   0,   0,   0,   0, -20, -40,
+            -30,   0,  10,  15,  15,  10,   0, -30,
+            -30,   5,  15,  20,  20,  15,   5, -30,
+            -30,   0,  15,  20,  20,  15,   0, -30,
+            -30,   5,  10,  15,  15,  10,   5, -30,
+            -40, -20,   0,   5,   5,   0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50
+    };
+
+    private static final int[][] MIDGAME_TABLES = {KING_MIDGAME, QUEEN, BISHOP, ROOK, PAWN_MIDGAME, KNIGHT};
+    private static final int[][] ENDGAME_TABLES = {KING_ENDGAME, QUEEN, BISHOP, ROOK, PAWN_ENDGAME, KNIGHT};
+
+    private static final int[][] MIDGAME = new int[Board.PIECE_CODES][64];
+    private static final int[][] ENDGAME = new int[Board.PIECE_CODES][64];
+
+    static {
+        for (int type = 0; type < 6; type++) {
+            for (int square = 0; square < 64; square++) {
+                // a tabela começa na linha 8: para as brancas inverte-se a linha, para as pretas não
+                int white = square ^ 56;
+                MIDGAME[type][square] = MIDGAME_VALUES[type] + MIDGAME_TABLES[type][white];
+                ENDGAME[type][square] = ENDGAME_VALUES[type] + ENDGAME_TABLES[type][white];
+                MIDGAME[type + 6][square] = -(MIDGAME_VALUES[type] + MIDGAME_TABLES[type][square]);
+                ENDGAME[type + 6][square] = -(ENDGAME_VALUES[type] + ENDGAME_TABLES[type][square]);
+            }
+        }
+    }
+
+    private PieceSquareTables() {}
+
+    /**
+     * Gets the middlegame value of a piece code (see Board.pieceCode) on a
+     * square, from white's point of view.
+     */
+    public static int midgame(int code, int square) {
+        return MIDGAME[code][square];
+    }
+
+    /**
+     * Gets the endgame value of a piece code on a square, from white's point of view.
+     */
+    public static int endgame(int code, int square) {
+        return ENDGAME[code][square];
+    }
+
+    /**
+     * Gets how much a piece code counts towards the game phase.
+     */
+    public static int phase(int code) {
+        return PHASE_WEIGHTS[code % 6];
+    }
+}
@@ -0,0 +1,67 @@
+package pt.isec.pa.chess.model.data;
+
+/**
+ * Conversions between the 0..63 square indexes used inside the model
+ * and the "e4"-style positions used by the UI and import/export.
+ * Square 0 is a1, 7 is h1 and 63 is h8.
+ */
+public final class Square {
+    public static final int NONE = -1;
+
+    private Square() {}
+
+    /**
+     * Gets the index of a square from its file and rank (both 0..7).
+     *
+     * @return the square index or NONE if outside the board.
+     */
+    public static int of(int file, int rank) {
+        if (file < 0 || file > 7 || rank < 0 || rank > 7)
+            return NONE;
+        return rank * 8 + file;
+    }
+
+    /**
+     * Gets the index of a square from its column ('a'..'h') and row (1..8).
+     *
+     * @return the square index or NONE if outside the board.
+     */
+    public static int of(char column, int row) {
+        return of(column - 'a', row - 1);
+    }
+
+    /**
+     * Parses a position like "e4".
+     *
+     * @return the square index or NONE if the text is not a valid position.
+     */
+    public static int fromString(String position) {
+        if (position == null || position.length() != 2)
+            return NONE;
+        return of(position.charAt(0), position.charAt(1) - '0');
+    }
+
+    public static String toString(int square) {
+        return "" + column(square) + row(square);
+    }
+
+    public static int file(int square) {
+        return square & 7;
+    }
+
+    public static int rank(int square) {
+        return square >>> 3;
+    }
+
+    public static char column(int square) {
+        return (char) ('a' + file(square));
+    }
+
+    public static int row(int square) {
+        return rank(square) + 1;
+    }
+
+    public static long bit(int square) {
+        return 1L << square;
+    }
+}
@@ -0,0 +1,77 @@
+package pt.isec.pa.chess.model.data;
+
+/**
+ * Random keys used to hash positions (Zobrist hashing).
+ * The key of a position is the XOR of one key per piece on its square,
+ * plus the keys of the side to move, castling rights and en passant file,
+ * so making or taking back a move only needs a few XORs.
+ * The keys come from a fixed seed so they are the same on every run.
+ */
+public final class Zobrist {
+    private static final long SEED = 0x1CE5C0FFEE15BADL;
+
+    private static final long[][] PIECE_SQUARE = new long[Board.PIECE_CODES][64];
+    private static final long[] CASTLING = new long[16];
+    private static final long[] EN_PASSANT = new long[8];
+    private static final long SIDE;
+
+    static {
+        long state = SEED;
+        for (long[] keys : PIECE_SQUARE) {
+            for (int square = 0; square < 64; square++) {
+                keys[square] = splitMix(state += 0x9E3779B97F4A7C15L);
+            }
+        }
+        // os direitos de roque são 4 bits independentes, a chave de cada combinação é o XOR dos bits
+        long[] rights = new long[4];
+        for (int i = 0; i < rights.length; i++) {
+            rights[i] = splitMix(state += 0x9E3779B97F4A7C15L);
+        }
+        for (int mask = 0; mask < CASTLING.length; mask++) {
+            for (int i = 0; i < rights.length; i++) {
+                if ((mask & (1 << i)) != 0)
+                    CASTLING[mask] ^= rights[i];
+            }
+        }
+        for (int file = 0; file < EN_PASSANT.length; file++) {
+            EN_PASSANT[file] = splitMix(state += 0x9E3779B97F4A7C15L);
+        }
+        SIDE = splitMix(state + 0x9E3779B97F4A7C15L);
+    }
+
+    private Zobrist() {}
+
+    private static long splitMix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Gets the key of a piece code (see Board.pieceCode) on a square.
+     */
+    public static long piece(int code, int square) {
+        return PIECE_SQUARE[code][square];
+    }
+
+    /**
+     * Gets the key of a set of castling rights (ChessGame.WHITE_KINGSIDE, ...).
+     */
+    public static long castling(int rights) {
+        return CASTLING[rights & 0xF];
+    }
+
+    /**
+     * Gets the key of an en passant target on a file (0..7).
+     */
+    public static long enPassant(int file) {
+        return EN_PASSANT[file];
+    }
+
+    /**
+     * Gets the key XORed in when black is to move.
+     */
+    public static long side() {
+        return SIDE;
+    }
+}
@@ -4,21 +4,20 @@ import pt.isec.pa.chess.model.ChessGame;
 import pt.isec.pa.chess.model.data.Board;
 import pt.isec.pa.chess.model.data.Piece;
 
-import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.Serial;
 
 public class Bishop extends Piece {
+
+    @Serial
+    static final long serialVersionUID = -1792628294185307747L;
     public Bishop(char column, int row, boolean isWhite) {
 
         super(column, row, isWhite? 'B' : 'b', isWhite);
     }
 
     @Override
-    public String[] getPossibleMoves(ChessGame game) {
-        List<String> moves = new ArrayList<>();
-        addDiagonalMoves(moves, game.getBoard());
-        return moves.toArray(new String [0]);
+    public long getMoveTargets(ChessGame game) {
+        return getDiagonalTargets(game.getBoard());
     }
 
     @Override
@@ -1,49 +1,60 @@
 package pt.isec.pa.chess.model.data.pieces;
 
 import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.data.Attacks;
 import pt.isec.pa.chess.model.data.Board;
+import pt.isec.pa.chess.model.data.Move;
+import pt.isec.pa.chess.model.data.MoveList;
 import pt.isec.pa.chess.model.data.Piece;
+import pt.isec.pa.chess.model.data.Square;
 
-import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.Serial;
 
 public class King extends Piece{
+
+    @Serial
+    static final long serialVersionUID = -5580619708404785255L;
     public King (char column,int row, boolean isWhite){
         super(column,row,isWhite? 'K' : 'k',isWhite);
     }
 
 
     @Override
-    public String[] getPossibleMoves(ChessGame game) {
-        List<String> moves = new ArrayList<>();
-        int[] dx = {-1, 0, 1, 1, 1, 0, -1, -1};
-        int[] dy = {-1, -1, -1, 0, 1, 1, 1, 0};
-
-        for (int i = 0; i < dx.length; i++) {
-            char newColumn = (char) (getColumn() + dx[i]);
-            int newRow = getRow() + dy[i];
-
-            if (isValidPosition(newColumn, newRow)) {
-                Piece piece = game.getBoard().getPiece(newColumn, newRow);
-
-                // Se a casa estiver vazia ou tiver uma peça inimiga
-                if (piece == null || piece.getIsWhite() != this.getIsWhite()) {
-                    // Rei não pode mover para uma casa atacada
-                    if (!game.isUnderAttack(newColumn, newRow, !this.getIsWhite())) {
-                        moves.add("" + newColumn + newRow);
-                    }
-                }
+    public long getMoveTargets(ChessGame game) {
+        long targets = 0L;
+        Board board = game.getBoard();
+        // o rei sai da casa onde está, por isso não pode bloquear os ataques das peças deslizantes
+        long occupancy = board.getOccupancy() & ~Square.bit(getSquare());
+
+        // Casas vazias ou com uma peça inimiga
+        for (long candidates = Attacks.king(getSquare()) & ~board.getOccupancy(getIsWhite());
+             candidates != 0; candidates &= candidates - 1) {
+            int target = Long.numberOfTrailingZeros(candidates);
+            // Rei não pode mover para uma casa atacada
+            if (game.getAttackers(target, !this.getIsWhite(), occupancy) == 0) {
+                targets |= Square.bit(target);
             }
         }
 
         // Roque (Castling)
-        if (!getHasMoved() && !game.isUnderAttack(getColumn(), getRow(), !this.getIsWhite())) {
-            if (game.canCastle(this, 'g')) moves.add("g" + getRow());  // Roque pequeno
-            if (game.canCastle(this, 'c')) moves.add("c" + getRow());  // Roque grande
+        if (game.getCastlingRights() != 0 && !game.isUnderAttack(getSquare(), !this.getIsWhite())) {
+            if (game.canCastle(this, 'g')) targets |= Square.bit(Square.of('g', getRow()));  // Roque pequeno
+            if (game.canCastle(this, 'c')) targets |= Square.bit(Square.of('c', getRow()));  // Roque grande
         }
 
-        return moves.toArray(new String[0]);
+        return targets;
+    }
+
+    @Override
+    public void generateMoves(ChessGame game, MoveList moves, long allowed) {
+        long enemies = game.getBoard().getOccupancy(!getIsWhite());
+        for (long targets = getMoveTargets(game) & allowed; targets != 0; targets &= targets - 1) {
+            int to = Long.numberOfTrailingZeros(targets);
+            int flags = (enemies & Square.bit(to)) != 0 ? Move.CAPTURE : 0;
+            if (Math.abs(Square.file(to) - Square.file(getSquare())) == 2)
+                flags |= Move.CASTLE;
+            moves.add(Move.of(getSquare(), to, flags));
+        }
     }
 
     @Override
@@ -1,77 +1,82 @@
 package pt.isec.pa.chess.model.data.pieces;
 
 import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.data.Attacks;
 import pt.isec.pa.chess.model.data.Board;
+import pt.isec.pa.chess.model.data.Move;
+import pt.isec.pa.chess.model.data.MoveList;
 import pt.isec.pa.chess.model.data.Piece;
+import pt.isec.pa.chess.model.data.PieceType;
+import pt.isec.pa.chess.model.data.Square;
 
-import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.Serial;
 
 public class Pawn extends Piece{
 
+    @Serial
+    static final long serialVersionUID = 1645274590833031576L;
+
     public Pawn(char column, int row, boolean isWhite) {
         super(column, row, isWhite? 'P' : 'p', isWhite);
     }
 
 
     @Override
-    public String[] getPossibleMoves(ChessGame game) {
-        List<String> moves = new ArrayList<>();
+    public long getMoveTargets(ChessGame game) {
+        long targets = 0L;
         int direction = (getIsWhite() ? 1 : -1);
         Board board = game.getBoard();
+        long all = board.getOccupancy();
+        long enemies = board.getOccupancy(!getIsWhite());
 
-        char col = getColumn();
-        int row = getRow();
+        int file = Square.file(getSquare());
+        int rank = Square.rank(getSquare());
 
         // 1. Movimento normal (1 casa à frente)
-        int nextRow = row + direction;
-        if (isValidPosition(col, nextRow) && board.getPiece(col, nextRow) == null) {
-            moves.add("" + col + nextRow);
+        int next = Square.of(file, rank + direction);
+        if (next != Square.NONE && (all & Square.bit(next)) == 0) {
+            targets |= Square.bit(next);
 
             // 2. Movimento inicial (2 casas à frente) — só se a primeira casa também estiver vazia
-            int twoStepsRow = row + 2 * direction;
-            if (!getHasMoved()
-                    && isValidPosition(col, twoStepsRow)
-                    && board.getPiece(col, twoStepsRow) == null) {
-
-                // Verifica também se a casa entre está livre
-                if (board.getPiece(col, nextRow) == null) {
-                    moves.add("" + col + twoStepsRow);
-                }
+            int twoSteps = Square.of(file, rank + 2 * direction);
+            if (rank == (getIsWhite() ? 1 : 6)
+                    && (all & Square.bit(twoSteps)) == 0) {
+                targets |= Square.bit(twoSteps);
             }
         }
 
-        // 3. Captura diagonal esquerda
-        char leftDiagonal = (char) (col - 1);
-        if (isValidPosition(leftDiagonal, nextRow)) {
-            Piece leftPiece = board.getPiece(leftDiagonal, nextRow);
-            if (leftPiece != null && leftPiece.getIsWhite() != this.getIsWhite()) {
-                moves.add("" + leftDiagonal + nextRow);
-            }
+        // 3. Capturas nas diagonais (incluindo en passant)
+        int enPassant = game.getEnPassantSquare();
+        if (enPassant != Square.NONE) {
+            enemies |= Square.bit(enPassant);
         }
+        targets |= Attacks.pawn(getIsWhite(), getSquare()) & enemies;
 
-        // 4. Captura diagonal direita
-        char rightDiagonal = (char) (col + 1);
-        if (isValidPosition(rightDiagonal, nextRow)) {
-            Piece rightPiece = board.getPiece(rightDiagonal, nextRow);
-            if (rightPiece != null && rightPiece.getIsWhite() != this.getIsWhite()) {
-                moves.add("" + rightDiagonal + nextRow);
-            }
-        }
-        // en Passant
-        String enPassant = game.getEnPassantTarget();
-        if (enPassant != null) {
-            char targetCol = enPassant.charAt(0);
-            int targetRow = Character.getNumericValue(enPassant.charAt(1));
+        return targets;
+    }
+
+    @Override
+    public void generateMoves(ChessGame game, MoveList moves, long allowed) {
+        long enemies = game.getBoard().getOccupancy(!getIsWhite());
+        int from = getSquare();
+        int lastRank = getIsWhite() ? 7 : 0;
+        for (long targets = getMoveTargets(game) & allowed; targets != 0; targets &= targets - 1) {
+            int to = Long.numberOfTrailingZeros(targets);
+            int flags = (enemies & Square.bit(to)) != 0 ? Move.CAPTURE : 0;
+            if (to == game.getEnPassantSquare())
+                flags |= Move.CAPTURE | Move.EN_PASSANT;
+            else if (Math.abs(to - from) == 16)
+                flags |= Move.DOUBLE_PUSH;
 
-            // Verifica se o alvo en passant está na linha correta e colunas adjacentes
-            if (targetRow == row + direction && Math.abs(targetCol - col) == 1) {
-                moves.add("" + targetCol + targetRow);
+            if (Square.rank(to) == lastRank) {
+                moves.add(Move.promotion(from, to, PieceType.QUEEN, flags));
+                moves.add(Move.promotion(from, to, PieceType.ROOK, flags));
+                moves.add(Move.promotion(from, to, PieceType.BISHOP, flags));
+                moves.add(Move.promotion(from, to, PieceType.KNIGHT, flags));
+            } else {
+                moves.add(Move.of(from, to, flags));
             }
         }
-
-        return moves.toArray(new String[0]);
     }
 
 }
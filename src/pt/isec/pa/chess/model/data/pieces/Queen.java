@@ -3,21 +3,19 @@ import pt.isec.pa.chess.model.ChessGame;
 import pt.isec.pa.chess.model.data.Board;
 import pt.isec.pa.chess.model.data.Piece;
 
-import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.Serial;
 
 public class Queen extends Piece{
 
+    @Serial
+    static final long serialVersionUID = 4853959127292543537L;
+
     public Queen(char column, int row, boolean isWhite) {
         super(column, row, isWhite ? 'Q' : 'q', isWhite);
     }
     @Override
-    public String[] getPossibleMoves(ChessGame game) {
-        List<String> moves = new ArrayList<>();
-        addDiagonalMoves(moves, game.getBoard());
-        addLinearMoves(moves, game.getBoard());
-        return moves.toArray(new String [0]);
+    public long getMoveTargets(ChessGame game) {
+        return getDiagonalTargets(game.getBoard()) | getLinearTargets(game.getBoard());
     }
 
 }
\ No newline at end of file
@@ -3,22 +3,22 @@ import pt.isec.pa.chess.model.ChessGame;
 import pt.isec.pa.chess.model.data.Board;
 import pt.isec.pa.chess.model.data.Piece;
 
-import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.Serial;
+
 
 
 public class Rook extends Piece {
 
+    @Serial
+    static final long serialVersionUID = 1939714412714125513L;
+
     public Rook(char column, int row, boolean isWhite) {
         super(column, row, isWhite ? 'R' : 'r', isWhite);
     }
 
     @Override
-    public String[] getPossibleMoves(ChessGame game) {
-        List<String> moves = new ArrayList<>();
-        addLinearMoves(moves, game.getBoard()); //addLinearMoves() - ja tem a verificacao de pecas aliadas
-        return moves.toArray(new String [0]);
+    public long getMoveTargets(ChessGame game) {
+        return getLinearTargets(game.getBoard()); //getLinearTargets() - ja tem a verificacao de pecas aliadas
     }
 
     @Override
@@ -0,0 +1,126 @@
+package pt.isec.pa.chess.model.engine;
+
+import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.tablebase.Tablebase;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Analyses the current position in the background while the user plays,
+ * for learning mode. The search has no limits: it deepens until the
+ * next analysis replaces it or cancel is called, and every completed
+ * iteration is reported. Only one analysis runs at a time; starting a
+ * new one stops the previous one, which then reports nothing more.
+ * A stopped search notices it within a few thousand nodes (a millisecond
+ * or two), so the analysis thread is free again almost at once.
+ */
+public class AnalysisService {
+    public static final int DEFAULT_HASH_MB = 16;
+
+    private final ExecutorService executor;
+    private final TranspositionTable table;
+    private Search current;
+    private Future<?> running;
+    private Tablebase tablebase;
+
+    public AnalysisService() {
+        this(DEFAULT_HASH_MB);
+    }
+
+    /**
+     * Creates the service, with a transposition table of its own that is
+     * kept from one analysis to the next.
+     *
+     * @param hashMb The size of the table in megabytes.
+     */
+    public AnalysisService(int hashMb) {
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "chess-analysis");
+            thread.setDaemon(true);
+            return thread;
+        });
+        table = new TranspositionTable(hashMb);
+    }
+
+    /**
+     * Starts analysing a copy of the game, stopping the previous analysis.
+     *
+     * @param game The game to analyse. It is copied, so it can keep changing.
+     * @param listener Receives the result of each iteration, on the analysis thread.
+     */
+    public synchronized void start(ChessGame game, SearchListener listener) {
+        cancel();
+        Search search = new Search(game.copy(), table, 0);
+        search.setTablebase(tablebase);
+        current = search;
+        running = executor.submit(() -> search.search(SearchLimits.infinite(), info -> {
+            if (isCurrent(search))
+                listener.onInfo(info);
+        }));
+    }
+
+    /**
+     * Sets the endgame tables of the next analyses.
+     *
+     * @param tablebase The tables, or null to search every position.
+     */
+    public synchronized void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    /**
+     * Stops the running analysis without waiting for its thread.
+     */
+    public synchronized void cancel() {
+        if (current != null) {
+            current.stop();
+            current = null;
+        }
+    }
+
+    /**
+     * Waits for the last analysis to stop after cancel.
+     *
+     * @param timeoutMillis The longest time to wait.
+     * @return true if the analysis thread is idle.
+     */
+    public boolean awaitIdle(long timeoutMillis) {
+        Future<?> last;
+        synchronized (this) {
+            last = running;
+        }
+        if (last == null)
+            return true;
+        try {
+            last.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    public synchronized boolean isAnalysing() {
+        return current != null;
+    }
+
+    private synchronized boolean isCurrent(Search search) {
+        return current == search;
+    }
+
+    /**
+     * Forgets the cached results, for example when a new game starts.
+     */
+    public synchronized void clearTable() {
+        table.clear();
+    }
+}
@@ -0,0 +1,344 @@
+package pt.isec.pa.chess.model.engine;
+
+import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.data.Move;
+import pt.isec.pa.chess.model.data.MoveList;
+import pt.isec.pa.chess.model.tablebase.Tablebase;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Runs the searches of the computer player on a background thread, so
+ * the thread that asks for a move (the JavaFX thread) never waits for
+ * the engine. Only one search runs at a time; starting a new one cancels
+ * the previous one, and a cancelled search reports nothing.
+ * With more than one thread the search is a ParallelSearch, and the
+ * transposition table is kept from one move to the next.
+ * While the opponent thinks, the player can ponder: search the position
+ * after the reply it expects. If the opponent plays that reply, the
+ * search carries on as the search of the next move (a ponder hit), and
+ * the time already spent on it is time the clock does not pay for.
+ * With an opening book, a position found in the book is answered at once
+ * with one of its moves, chosen by weight, without searching.
+ */
+public class ComputerPlayer {
+    public static final int DEFAULT_HASH_MB = 32;
+
+    private final ExecutorService executor;
+    private final ExecutorService helperPool;
+    private TranspositionTable table = new TranspositionTable(DEFAULT_HASH_MB);
+    private SearchLimits limits = SearchLimits.time(2000);
+    private int threads = 1;
+    private ParallelSearch current;
+    private SearchListener listener;
+    private Consumer<SearchInfo> onResult;
+    private volatile double pawnHitRate;
+    private OpeningBook book;
+    private Tablebase tablebase;
+    private final Random random = new Random();
+    private int bookMoves;
+
+    // pesquisa no tempo do adversário: posição esperada e resultado, se acabar antes de ele jogar
+    private boolean pondering;
+    private long ponderKey;
+    private long ponderStart;
+    private SearchInfo ponderResult;
+    private int ponderHits;
+    private int ponderMisses;
+    private long lastPonderMillis;
+    private long ponderSavedMillis;
+
+    public ComputerPlayer() {
+        executor = Executors.newSingleThreadExecutor(r -> newThread(r, "chess-engine"));
+        helperPool = Executors.newCachedThreadPool(r -> newThread(r, "chess-engine-helper"));
+    }
+
+    private static Thread newThread(Runnable r, String name) {
+        Thread thread = new Thread(r, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Starts searching a copy of the game in the background, with the
+     * limits set in setLimits.
+     *
+     * @param game The game to search. It is copied, so it can keep changing.
+     * @param listener Receives the result of each iteration, on the search thread (may be null).
+     * @param onResult Receives the final result, on the search thread.
+     * @return true if the position was the one being pondered (a ponder hit).
+     */
+    public synchronized boolean start(ChessGame game, SearchListener listener, Consumer<SearchInfo> onResult) {
+        return start(game, limits, listener, onResult);
+    }
+
+    /**
+     * Starts searching a copy of the game in the background. If it is the
+     * position being pondered, the pondering search becomes this search
+     * and keeps the limits it was started with.
+     *
+     * @param game The game to search. It is copied, so it can keep changing.
+     * @param searchLimits The limits of this search.
+     * @param listener Receives the result of each iteration, on the search thread (may be null).
+     * @param onResult Receives the final result, on the search thread.
+     * @return true if the position was the one being pondered (a ponder hit).
+     */
+    public synchronized boolean start(ChessGame game, SearchLimits searchLimits, SearchListener listener,
+                                      Consumer<SearchInfo> onResult) {
+        int bookMove = book == null ? Move.NONE : book.pickMove(game, random);
+        if (bookMove != Move.NONE) {
+            // jogada do livro: responde logo, na mesma thread que entrega os resultados das pesquisas
+            cancel();
+            bookMoves++;
+            SearchInfo result = SearchInfo.fromBook(bookMove);
+            executor.execute(() -> onResult.accept(result));
+            return false;
+        }
+        if (pondering && current != null) {
+            if (game.getPositionKey() == ponderKey) {
+                ponderHit(listener, onResult);
+                return true;
+            }
+            ponderMisses++;
+        }
+        cancel();
+        table.resetStats(); // as estatísticas são de cada jogada
+        ParallelSearch search = new ParallelSearch(game, table, threads, helperPool);
+        search.setTablebase(tablebase);
+        current = search;
+        this.listener = listener;
+        this.onResult = onResult;
+        executor.execute(() -> run(search, searchLimits));
+        return false;
+    }
+
+    /**
+     * Starts searching, while the opponent thinks, the position after the
+     * reply the player expects (usually the second move of the principal
+     * variation of its last search). A later start with that position is
+     * a ponder hit; any other start or cancel stops the pondering.
+     *
+     * @param game The game, with the opponent to move. It is copied.
+     * @param expectedMove The reply the player expects.
+     * @param searchLimits The limits of the player's next move, applied from the ponder hit.
+     * @return true if pondering started (false if expectedMove is not legal).
+     */
+    public synchronized boolean startPondering(ChessGame game, int expectedMove, SearchLimits searchLimits) {
+        cancel();
+        MoveList moves = new MoveList();
+        game.generateLegalMoves(moves);
+        if (!moves.contains(expectedMove))
+            return false;
+        ChessGame expected = game.copy();
+        expected.makeMove(expectedMove);
+
+        table.resetStats();
+        ParallelSearch search = new ParallelSearch(expected, table, threads, helperPool);
+        search.setTablebase(tablebase);
+        search.setPondering(true);
+        current = search;
+        listener = null;
+        onResult = null;
+        pondering = true;
+        ponderKey = expected.getPositionKey();
+        ponderStart = System.currentTimeMillis();
+        ponderResult = null;
+        executor.execute(() -> run(search, searchLimits));
+        return true;
+    }
+
+    private void ponderHit(SearchListener listener, Consumer<SearchInfo> onResult) {
+        ponderHits++;
+        pondering = false;
+        this.listener = listener;
+        this.onResult = onResult;
+        lastPonderMillis = System.currentTimeMillis() - ponderStart;
+        if (ponderResult == null) {
+            ponderSavedMillis += lastPonderMillis;
+            current.ponderHit();
+            return;
+        }
+        // a pesquisa acabou antes de o adversário jogar (mate ou profundidade máxima)
+        SearchInfo result = ponderResult;
+        lastPonderMillis = Math.min(lastPonderMillis, result.getTimeMillis());
+        ponderSavedMillis += lastPonderMillis;
+        ponderResult = null;
+        current = null;
+        executor.execute(() -> onResult.accept(result));
+    }
+
+    private void run(ParallelSearch search, SearchLimits searchLimits) {
+        SearchInfo result = search.search(searchLimits, info -> {
+            SearchListener target = listenerOf(search);
+            if (target != null)
+                target.onInfo(info);
+        });
+        Consumer<SearchInfo> target;
+        synchronized (this) {
+            if (current != search)
+                return; // cancelada entretanto
+            pawnHitRate = search.getPawnHitRate();
+            if (pondering) {
+                ponderResult = result; // fica à espera da jogada do adversário
+                return;
+            }
+            current = null;
+            target = onResult;
+        }
+        target.accept(result);
+    }
+
+    private synchronized SearchListener listenerOf(ParallelSearch search) {
+        return current == search && !pondering ? listener : null;
+    }
+
+    /**
+     * Stops the running search and reports the best move found so far.
+     */
+    public synchronized void stop() {
+        if (current != null && !pondering)
+            current.stop();
+    }
+
+    /**
+     * Stops the running search without reporting any result.
+     */
+    public synchronized void cancel() {
+        if (current != null) {
+            current.stop();
+            current = null;
+        }
+        pondering = false;
+        ponderResult = null;
+    }
+
+    /**
+     * Checks if the player is searching its own move (pondering does not count).
+     */
+    public synchronized boolean isThinking() {
+        return current != null && !pondering;
+    }
+
+    public synchronized boolean isPondering() {
+        return current != null && pondering;
+    }
+
+    public synchronized int getPonderHits() {
+        return ponderHits;
+    }
+
+    public synchronized int getPonderMisses() {
+        return ponderMisses;
+    }
+
+    /**
+     * Gets the fraction of the pondered positions the opponent actually played.
+     */
+    public synchronized double getPonderHitRate() {
+        int total = ponderHits + ponderMisses;
+        return total == 0 ? 0 : (double) ponderHits / total;
+    }
+
+    /**
+     * Gets how long the last ponder hit had already been searching when
+     * the opponent played the expected move.
+     */
+    public synchronized long getLastPonderMillis() {
+        return lastPonderMillis;
+    }
+
+    /**
+     * Gets the search time of every ponder hit so far, which the
+     * player's clock did not pay for.
+     */
+    public synchronized long getPonderSavedMillis() {
+        return ponderSavedMillis;
+    }
+
+    /**
+     * Gets the opening book the player answers from, or null if it has none.
+     */
+    public synchronized OpeningBook getBook() {
+        return book;
+    }
+
+    /**
+     * Sets the opening book of the next moves.
+     *
+     * @param book The book, or null to always search.
+     */
+    public synchronized void setBook(OpeningBook book) {
+        this.book = book;
+    }
+
+    /**
+     * Sets the endgame tables of the next searches.
+     *
+     * @param tablebase The tables, or null to search every position.
+     */
+    public synchronized void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    /**
+     * Gets how many moves were played from the opening book.
+     */
+    public synchronized int getBookMoves() {
+        return bookMoves;
+    }
+
+    public synchronized SearchLimits getLimits() {
+        return limits;
+    }
+
+    public synchronized void setLimits(SearchLimits limits) {
+        this.limits = limits;
+    }
+
+    public synchronized int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Sets the number of threads of the next searches (at least 1).
+     */
+    public synchronized void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Replaces the transposition table with an empty one of another size.
+     * A running search keeps using the old table until it ends.
+     *
+     * @param sizeMb The size of the table in megabytes.
+     */
+    public synchronized void setHashSize(int sizeMb) {
+        if (sizeMb != table.getSizeMb())
+            table = new TranspositionTable(sizeMb);
+    }
+
+    /**
+     * Gets the fraction of pawn table probes that hit in the last search
+     * that reported a result.
+     */
+    public double getPawnHitRate() {
+        return pawnHitRate;
+    }
+
+    /**
+     * Gets the transposition table, to read its statistics.
+     */
+    public synchronized TranspositionTable getTable() {
+        return table;
+    }
+
+    /**
+     * Forgets the cached results, for example when a new game starts.
+     */
+    public synchronized void clearTable() {
+        table.clear();
+    }
+}
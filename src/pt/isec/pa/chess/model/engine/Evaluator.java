@@ -0,0 +1,171 @@
+package pt.isec.pa.chess.model.engine;
+
+import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.data.Attacks;
+import pt.isec.pa.chess.model.data.Board;
+import pt.isec.pa.chess.model.data.PieceSquareTables;
+import pt.isec.pa.chess.model.data.PieceType;
+import pt.isec.pa.chess.model.data.Square;
+
+/**
+ * Static evaluation of a position, in centipawns from the point of view
+ * of the side to move. Every term has a middlegame and an endgame value,
+ * blended by the game phase (tapered evaluation):
+ * material and piece-square values, kept up to date by Board on every
+ * move (see PieceSquareTables); mobility, the safe squares each knight,
+ * bishop, rook and queen reaches; and king safety, the pawn shield in
+ * front of a castled king and the pieces attacking the squares around it;
+ * pawn structure (see PawnStructure), taken from a PawnTable when the
+ * caller has one; and, in the endgame, how much closer the own king is
+ * than the enemy king to the square in front of each passed pawn.
+ * Mobility and king safety depend on the attack sets, so they are
+ * computed on each call from the piece lists.
+ */
+public final class Evaluator {
+    // valor de cada tipo, pela ordem de PieceType (KING, QUEEN, BISHOP, ROOK, PAWN, KNIGHT), para ordenar capturas
+    static final int[] PIECE_VALUES = {0, 900, 330, 500, 100, 320};
+
+    // mobilidade: pontos por casa acima (ou abaixo) de um número médio de casas
+    private static final int[] MOBILITY_MIDGAME = {0, 1, 5, 2, 0, 4};
+    private static final int[] MOBILITY_ENDGAME = {0, 2, 5, 4, 0, 4};
+    private static final int[] MOBILITY_BASE = {0, 14, 7, 7, 0, 4};
+
+    // peso de cada tipo no ataque às casas à volta do rei, e o perigo para o total dos pesos
+    private static final int[] KING_ATTACK_WEIGHTS = {0, 5, 2, 3, 0, 2};
+    private static final int[] KING_DANGER = {0, 0, 8, 16, 28, 42, 60, 80, 100, 125, 150, 180, 210, 240, 270, 300};
+    private static final int SHIELD_MISSING = 15;
+    private static final int SHIELD_ADVANCED = 7;
+    // pontos por casa de vantagem do rei próprio sobre o inimigo, pela linha do peão passado
+    private static final int[] PASSED_KING_DISTANCE = {0, 0, 0, 2, 4, 6, 8, 0};
+
+    private Evaluator() {}
+
+    public static int value(PieceType type) {
+        return PIECE_VALUES[type.ordinal()];
+    }
+
+    /**
+     * Evaluates a position, evaluating its pawn structure from scratch.
+     *
+     * @param game The game whose current position is evaluated.
+     * @return The score in centipawns, positive when the side to move is better.
+     */
+    public static int evaluate(ChessGame game) {
+        return evaluate(game, null);
+    }
+
+    /**
+     * Evaluates a position, with the pawn structure cached in a table.
+     *
+     * @param game The game whose current position is evaluated.
+     * @param pawnTable The table of the calling thread, or null to evaluate the pawns every time.
+     * @return The score in centipawns, positive when the side to move is better.
+     */
+    public static int evaluate(ChessGame game, PawnTable pawnTable) {
+        Board board = game.getBoard();
+        PawnTable.Entry pawns;
+        if (pawnTable != null) {
+            pawns = pawnTable.probe(board);
+        } else {
+            pawns = new PawnTable.Entry();
+            PawnStructure.evaluate(board, pawns);
+        }
+        int midgame = board.getMidgameScore() + pawns.getMidgame();
+        int endgame = board.getEndgameScore() + pawns.getEndgame() + passedKingDistance(board, pawns.getPassed());
+
+        for (int side = 0; side < 2; side++) {
+            boolean white = side == 0;
+            int sign = white ? 1 : -1;
+            long occupancy = board.getOccupancy();
+            long safe = ~board.getOccupancy(white)
+                    & ~PawnStructure.pawnAttacks(board.getBitboard(PieceType.PAWN, !white), !white);
+            int enemyKing = board.getKingSquare(!white);
+            long kingZone = enemyKing == Square.NONE ? 0L : Attacks.king(enemyKing) | Square.bit(enemyKing);
+
+            int attackers = 0;
+            int attackWeight = 0;
+            for (int i = 0; i < board.getPieceCount(white); i++) {
+                int square = board.getPieceSquare(white, i);
+                int type = board.getPieceCode(square) % 6;
+                long attacks = attacks(type, square, occupancy);
+                if (attacks == 0)
+                    continue;
+                int mobility = Long.bitCount(attacks & safe) - MOBILITY_BASE[type];
+                midgame += sign * MOBILITY_MIDGAME[type] * mobility;
+                endgame += sign * MOBILITY_ENDGAME[type] * mobility;
+                long zoneAttacks = attacks & kingZone;
+                if (zoneAttacks != 0) {
+                    attackers++;
+                    attackWeight += KING_ATTACK_WEIGHTS[type] * Long.bitCount(zoneAttacks);
+                }
+            }
+            // uma peça sozinha não chega para um ataque ao rei
+            if (attackers >= 2)
+                midgame += sign * KING_DANGER[Math.min(attackWeight, KING_DANGER.length - 1)];
+            midgame -= sign * shieldPenalty(board, white);
+        }
+
+        int phase = Math.min(board.getPhase(), PieceSquareTables.MAX_PHASE);
+        int score = (midgame * phase + endgame * (PieceSquareTables.MAX_PHASE - phase)) / PieceSquareTables.MAX_PHASE;
+        return game.isWhiteToMove() ? score : -score;
+    }
+
+    // casas atacadas por uma peça que conta para a mobilidade (0 para o rei e os peões)
+    private static long attacks(int type, int square, long occupancy) {
+        if (type == PieceType.KNIGHT.ordinal())
+            return Attacks.knight(square);
+        if (type == PieceType.BISHOP.ordinal())
+            return Attacks.bishop(square, occupancy);
+        if (type == PieceType.ROOK.ordinal())
+            return Attacks.rook(square, occupancy);
+        if (type == PieceType.QUEEN.ordinal())
+            return Attacks.queen(square, occupancy);
+        return 0L;
+    }
+
+    // depende da posição dos reis, por isso não fica na tabela de peões
+    private static int passedKingDistance(Board board, long passed) {
+        int whiteKing = board.getKingSquare(true);
+        int blackKing = board.getKingSquare(false);
+        if (passed == 0 || whiteKing == Square.NONE || blackKing == Square.NONE)
+            return 0;
+        int score = 0;
+        for (; passed != 0; passed &= passed - 1) {
+            int square = Long.numberOfTrailingZeros(passed);
+            boolean white = (board.getOccupancy(true) & Square.bit(square)) != 0;
+            int relativeRank = white ? Square.rank(square) : 7 - Square.rank(square);
+            int stop = square + (white ? 8 : -8);
+            if (relativeRank >= 7 || stop < 0 || stop > 63)
+                continue;
+            int own = distance(white ? whiteKing : blackKing, stop);
+            int enemy = distance(white ? blackKing : whiteKing, stop);
+            score += (white ? 1 : -1) * PASSED_KING_DISTANCE[relativeRank] * (enemy - own);
+        }
+        return score;
+    }
+
+    private static int distance(int a, int b) {
+        return Math.max(Math.abs(Square.file(a) - Square.file(b)), Math.abs(Square.rank(a) - Square.rank(b)));
+    }
+
+    // só conta com o rei na primeira ou segunda linha: peões à frente dele, uma ou duas casas
+    private static int shieldPenalty(Board board, boolean white) {
+        int king = board.getKingSquare(white);
+        if (king == Square.NONE)
+            return 0;
+        int rank = white ? Square.rank(king) : 7 - Square.rank(king);
+        if (rank > 1)
+            return 0;
+        int direction = white ? 1 : -1;
+        long pawns = board.getBitboard(PieceType.PAWN, white);
+        int penalty = 0;
+        for (int file = Math.max(0, Square.file(king) - 1); file <= Math.min(7, Square.file(king) + 1); file++) {
+            int front = Square.of(file, Square.rank(king) + direction);
+            int second = Square.of(file, Square.rank(king) + 2 * direction);
+            if ((pawns & Square.bit(front)) != 0)
+                continue;
+            penalty += second != Square.NONE && (pawns & Square.bit(second)) != 0 ? SHIELD_ADVANCED : SHIELD_MISSING;
+        }
+        return penalty;
+    }
+}
@@ -0,0 +1,234 @@
+package pt.isec.pa.chess.model.engine;
+
+import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.MoveGenerator;
+import pt.isec.pa.chess.model.data.Board;
+import pt.isec.pa.chess.model.data.Move;
+import pt.isec.pa.chess.model.data.MoveList;
+import pt.isec.pa.chess.model.data.PieceType;
+
+/**
+ * Hands out the legal moves of a search node one at a time, best
+ * candidates first, in stages: the transposition table move, captures and
+ * promotions by MVV-LVA (most valuable victim, least valuable attacker),
+ * the two killer moves of the ply, the countermove of the opponent's last
+ * move, the remaining quiet moves by their history score and last the
+ * captures that lose material in the exchange (see See).
+ * Each stage is only generated when the previous ones are used up, so a
+ * node that gets a cutoff from the table move or a capture never
+ * generates its quiet moves. Within a stage the best move left is picked
+ * each time (selection sort), which is cheaper than sorting moves that
+ * are never searched.
+ * For the quiescence search the picker only hands out the captures that
+ * do not lose material, or every move when the side to move is in check.
+ * The search keeps one picker per ply and reuses it with init.
+ */
+public class MovePicker {
+    private static final int STAGE_TT = 0;
+    private static final int STAGE_GENERATE_CAPTURES = 1;
+    private static final int STAGE_CAPTURES = 2;
+    private static final int STAGE_KILLER_1 = 3;
+    private static final int STAGE_KILLER_2 = 4;
+    private static final int STAGE_COUNTER_MOVE = 5;
+    private static final int STAGE_GENERATE_QUIETS = 6;
+    private static final int STAGE_QUIETS = 7;
+    private static final int STAGE_BAD_CAPTURES = 8;
+    private static final int STAGE_DONE = 9;
+
+    private final ChessGame game;
+    private final MoveList moves = new MoveList();
+    private final MoveList scratch = new MoveList();
+    private final int[] scores = new int[MoveList.CAPACITY];
+    private final MoveList badCaptures = new MoveList();
+    private final int[] seeGains = new int[See.GAINS];
+
+    private int stage;
+    private int index;
+    private int ttMove;
+    private int killer1;
+    private int killer2;
+    private int counterMove;
+    private int[] history;
+    private boolean sortCaptures;
+    private boolean useSee;
+    private boolean capturesOnly;
+
+    /**
+     * Creates a picker for the positions of a game.
+     *
+     * @param game The game the search plays its moves on.
+     */
+    public MovePicker(ChessGame game) {
+        this.game = game;
+    }
+
+    /**
+     * Starts handing out the moves of the current position of the game.
+     *
+     * @param ttMove The move from the transposition table, or Move.NONE.
+     * @param killer1 The newest killer move of the ply, or Move.NONE.
+     * @param killer2 The older killer move of the ply, or Move.NONE.
+     * @param counterMove The move that refuted the opponent's last move, or Move.NONE.
+     * @param history The history scores of the side to move, indexed by
+     *                from * 64 + to, or null to leave quiet moves unsorted.
+     * @param sortCaptures False to leave captures in generation order.
+     * @param useSee True to leave the captures that lose material for last.
+     */
+    public void init(int ttMove, int killer1, int killer2, int counterMove, int[] history,
+                     boolean sortCaptures, boolean useSee) {
+        this.ttMove = ttMove;
+        this.killer1 = killer1;
+        this.killer2 = killer2;
+        this.counterMove = counterMove;
+        this.history = history;
+        this.sortCaptures = sortCaptures;
+        this.useSee = useSee;
+        capturesOnly = false;
+        badCaptures.clear();
+        stage = STAGE_TT;
+    }
+
+    /**
+     * Starts handing out the moves of a quiescence search node: every move
+     * when the side to move is in check, otherwise only the captures and
+     * promotions (without those that lose material, if useSee is set).
+     *
+     * @param inCheck True if the side to move is in check.
+     * @param history The history scores of the side to move, for the check evasions, or null.
+     * @param useSee True to skip the captures that lose material.
+     */
+    public void initQuiescence(boolean inCheck, int[] history, boolean useSee) {
+        init(Move.NONE, Move.NONE, Move.NONE, Move.NONE, history, true, useSee);
+        capturesOnly = !inCheck;
+    }
+
+    /**
+     * Gets the next move to search.
+     *
+     * @return The next legal move, or Move.NONE when there are no more.
+     */
+    public int next() {
+        while (true) {
+            switch (stage) {
+                case STAGE_TT -> {
+                    stage = STAGE_GENERATE_CAPTURES;
+                    if (MoveGenerator.isLegal(game, ttMove, scratch))
+                        return ttMove;
+                }
+                case STAGE_GENERATE_CAPTURES -> {
+                    moves.clear();
+                    MoveGenerator.generateCaptures(game, moves);
+                    for (int i = 0; i < moves.size(); i++) {
+                        scores[i] = sortCaptures ? mvvLva(moves.get(i)) : 0;
+                    }
+                    index = 0;
+                    stage = STAGE_CAPTURES;
+                }
+                case STAGE_CAPTURES -> {
+                    int move = pickBest();
+                    if (move == Move.NONE) {
+                        stage = capturesOnly ? STAGE_DONE : STAGE_KILLER_1;
+                    } else if (move != ttMove) {
+                        if (!useSee || See.isSafe(game, move, seeGains))
+                            return move;
+                        if (!capturesOnly)
+                            badCaptures.add(move);
+                    }
+                }
+                case STAGE_KILLER_1 -> {
+                    stage = STAGE_KILLER_2;
+                    if (isQuietCandidate(killer1))
+                        return killer1;
+                }
+                case STAGE_KILLER_2 -> {
+                    stage = STAGE_COUNTER_MOVE;
+                    if (killer2 != killer1 && isQuietCandidate(killer2))
+                        return killer2;
+                }
+                case STAGE_COUNTER_MOVE -> {
+                    stage = STAGE_GENERATE_QUIETS;
+                    if (counterMove != killer1 && counterMove != killer2 && isQuietCandidate(counterMove))
+                        return counterMove;
+                }
+                case STAGE_GENERATE_QUIETS -> {
+                    moves.clear();
+                    MoveGenerator.generateQuiets(game, moves);
+                    for (int i = 0; i < moves.size(); i++) {
+                        int move = moves.get(i);
+                        scores[i] = history == null ? 0 : history[Move.from(move) * 64 + Move.to(move)];
+                    }
+                    index = 0;
+                    stage = STAGE_QUIETS;
+                }
+                case STAGE_QUIETS -> {
+                    int move = pickBest();
+                    if (move == Move.NONE) {
+                        stage = STAGE_BAD_CAPTURES;
+                        index = 0;
+                    } else if (move != ttMove && move != killer1 && move != killer2 && move != counterMove) {
+                        return move;
+                    }
+                }
+                case STAGE_BAD_CAPTURES -> {
+                    if (index < badCaptures.size())
+                        return badCaptures.get(index++);
+                    stage = STAGE_DONE;
+                }
+                default -> {
+                    return Move.NONE;
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if the last move handed out came after the table move, the
+     * good captures, the killers and the countermove, so it is less likely
+     * to be good (the search reduces these moves).
+     */
+    public boolean isLateMove() {
+        return stage == STAGE_QUIETS || stage == STAGE_BAD_CAPTURES;
+    }
+
+    /**
+     * Gets the MVV-LVA score of a capture or promotion: the value of the
+     * captured piece weighs ten times more than the value of the piece that
+     * captures, and a promotion adds what the pawn gains.
+     *
+     * @param move A capture or promotion of the current position.
+     * @return A score where better captures are higher.
+     */
+    public int mvvLva(int move) {
+        Board board = game.getBoard();
+        int victim = Move.isEnPassant(move) ? PieceType.PAWN.ordinal() : board.getPieceCode(Move.to(move));
+        int score = victim == Board.EMPTY ? 0 : 10 * Evaluator.PIECE_VALUES[victim % 6];
+        score -= Evaluator.PIECE_VALUES[board.getPieceCode(Move.from(move)) % 6];
+        if (Move.isPromotion(move))
+            score += 10 * (Evaluator.value(Move.promotion(move)) - Evaluator.value(PieceType.PAWN));
+        return score;
+    }
+
+    // as jogadas guardadas (killers e contra-jogadas) podem já não ser legais nesta posição
+    private boolean isQuietCandidate(int move) {
+        return move != Move.NONE && move != ttMove && !Move.isCapture(move) && !Move.isPromotion(move)
+                && MoveGenerator.isLegal(game, move, scratch);
+    }
+
+    private int pickBest() {
+        if (index >= moves.size())
+            return Move.NONE;
+        int best = index;
+        for (int i = index + 1; i < moves.size(); i++) {
+            if (scores[i] > scores[best])
+                best = i;
+        }
+        int move = moves.get(best);
+        moves.set(best, moves.get(index));
+        moves.set(index, move);
+        int score = scores[best];
+        scores[best] = scores[index];
+        scores[index] = score;
+        index++;
+        return move;
+    }
+}
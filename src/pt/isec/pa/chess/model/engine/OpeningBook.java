@@ -0,0 +1,197 @@
+package pt.isec.pa.chess.model.engine;
+
+import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.data.Move;
+import pt.isec.pa.chess.model.data.MoveList;
+import pt.isec.pa.chess.model.data.PieceType;
+import pt.isec.pa.chess.model.data.Square;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * Opening book read straight from a memory-mapped file. The file has the
+ * layout of a Polyglot book: 16-byte big-endian entries (key, move,
+ * weight, learn) sorted by key, with the moves of a position next to
+ * each other. Opening the file only maps it, so it takes the same time
+ * whatever its size, and the operating system reads just the pages the
+ * lookups touch. A lookup is a binary search for the first entry of the
+ * key; it does not allocate.
+ * The keys are Polyglot keys (see PolyglotKey), so books made by other
+ * programs can be used as well as the ones built with OpeningBookWriter.
+ * Moves are encoded as in Polyglot: to square in bits 0-5, from square in
+ * bits 6-11, promotion in bits 12-14 (1 knight ... 4 queen) and castling
+ * written as the king taking its own rook (e1h1 for e1g1).
+ */
+public class OpeningBook {
+    static final int ENTRY_SIZE = 16;
+    static final int MAX_WEIGHT = 0xFFFF;
+
+    private static final PieceType[] PROMOTIONS = {null, PieceType.KNIGHT, PieceType.BISHOP, PieceType.ROOK, PieceType.QUEEN};
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final int entries;
+
+    // listas reutilizadas em todas as consultas (por isso os métodos são synchronized)
+    private final MoveList legal = new MoveList();
+    private final MoveList candidates = new MoveList();
+    private final int[] weights = new int[MoveList.CAPACITY];
+
+    private OpeningBook(Path path, MappedByteBuffer buffer) {
+        this.path = path;
+        this.buffer = buffer;
+        entries = buffer.capacity() / ENTRY_SIZE;
+    }
+
+    /**
+     * Maps a book file, read-only. Nothing is read until the first lookup.
+     *
+     * @param path The book file.
+     * @return The book.
+     * @throws IOException If the file can not be mapped or is not a book (its size is not a multiple of 16 bytes).
+     */
+    public static OpeningBook open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size % ENTRY_SIZE != 0)
+                throw new IOException("Not an opening book: " + size + " bytes is not a multiple of " + ENTRY_SIZE);
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("Opening book too large: " + size + " bytes");
+            // o mapeamento continua válido depois de fechado o canal
+            return new OpeningBook(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Gets the number of entries (moves) of the book.
+     */
+    public int size() {
+        return entries;
+    }
+
+    /**
+     * Finds the first entry of a key.
+     *
+     * @param key The key of a position.
+     * @return The index of the entry, or -1 if the key is not in the book.
+     */
+    public int find(long key) {
+        int low = 0;
+        int high = entries;
+        // primeira entrada com chave >= key (as chaves comparam-se sem sinal, como no Polyglot)
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(keyAt(middle), key) < 0)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low < entries && keyAt(low) == key ? low : -1;
+    }
+
+    /**
+     * Gets the moves of the book for a position, with their weights.
+     *
+     * @param game The game whose current position is looked up.
+     * @param moves Receives the legal moves of the book (it is cleared first).
+     * @param moveWeights Receives the weight of each move, at the same index; at most its length moves are returned.
+     * @return The number of moves found.
+     */
+    public synchronized int probe(ChessGame game, MoveList moves, int[] moveWeights) {
+        moves.clear();
+        long key = PolyglotKey.of(game);
+        int first = find(key);
+        if (first < 0)
+            return 0;
+        legal.clear();
+        game.generateLegalMoves(legal);
+        for (int i = first; i < entries && keyAt(i) == key && moves.size() < moveWeights.length; i++) {
+            int move = decode(buffer.getShort(i * ENTRY_SIZE + 8) & 0xFFFF, legal);
+            // entradas que não são jogadas legais vêm de colisões de chaves
+            if (move == Move.NONE || moves.contains(move))
+                continue;
+            moveWeights[moves.size()] = buffer.getShort(i * ENTRY_SIZE + 10) & 0xFFFF;
+            moves.add(move);
+        }
+        return moves.size();
+    }
+
+    /**
+     * Chooses a book move at random, each with a probability proportional
+     * to its weight. Moves of weight 0 are never chosen.
+     *
+     * @param game The game whose current position is looked up.
+     * @param random The source of randomness.
+     * @return The packed move, or Move.NONE if the position is not in the book.
+     */
+    public synchronized int pickMove(ChessGame game, Random random) {
+        int count = probe(game, candidates, weights);
+        int total = 0;
+        for (int i = 0; i < count; i++) {
+            total += weights[i];
+        }
+        if (total == 0)
+            return Move.NONE;
+        int target = random.nextInt(total);
+        for (int i = 0; i < count; i++) {
+            target -= weights[i];
+            if (target < 0)
+                return candidates.get(i);
+        }
+        return Move.NONE;
+    }
+
+    private long keyAt(int index) {
+        return buffer.getLong(index * ENTRY_SIZE);
+    }
+
+    /**
+     * Encodes a move in the Polyglot format.
+     *
+     * @param move The packed move (see Move).
+     * @return The 16-bit book move.
+     */
+    public static int encode(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        if (Move.isCastle(move))
+            to = Square.of(Square.file(to) > Square.file(from) ? 7 : 0, Square.rank(from));
+        int promotion = 0;
+        PieceType type = Move.promotion(move);
+        for (int i = 1; i < PROMOTIONS.length; i++) {
+            if (PROMOTIONS[i] == type)
+                promotion = i;
+        }
+        return to | (from << 6) | (promotion << 12);
+    }
+
+    // procura nas jogadas legais a jogada do livro; o roque vem como o rei a tomar a torre
+    private static int decode(int bookMove, MoveList legal) {
+        int to = bookMove & 0x3F;
+        int from = (bookMove >>> 6) & 0x3F;
+        int promotion = (bookMove >>> 12) & 0x7;
+        if (promotion >= PROMOTIONS.length)
+            return Move.NONE;
+        PieceType type = PROMOTIONS[promotion];
+        for (int i = 0; i < legal.size(); i++) {
+            int move = legal.get(i);
+            if (Move.from(move) != from || Move.promotion(move) != type)
+                continue;
+            if (Move.to(move) == to && !Move.isCastle(move))
+                return move;
+            if (Move.isCastle(move) && Square.rank(to) == Square.rank(from) && (Square.file(to) == 0 || Square.file(to) == 7)
+                    && (Square.file(to) > Square.file(from)) == (Square.file(Move.to(move)) > Square.file(from)))
+                return move;
+        }
+        return Move.NONE;
+    }
+}
@@ -0,0 +1,114 @@
+package pt.isec.pa.chess.model.engine;
+
+import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.data.Move;
+import pt.isec.pa.chess.model.data.MoveList;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Builds an opening book file (see OpeningBook) from the moves played in
+ * each position. The same move added again in the same position adds to
+ * its weight, so a book built from many games weighs each move by how
+ * often it was played.
+ */
+public class OpeningBookWriter {
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * Adds a move of a position.
+     *
+     * @param game The game, in the position before the move.
+     * @param move The packed move (see Move).
+     * @param weight How much the move counts (added to what it already has).
+     */
+    public void add(ChessGame game, int move, int weight) {
+        entries.add(new Entry(PolyglotKey.of(game), OpeningBook.encode(move), weight));
+    }
+
+    /**
+     * Adds every move of a line played from the initial position, each with weight 1.
+     *
+     * @param line The moves in coordinate notation, separated by spaces ("e2e4 e7e5 g1f3").
+     * @return The number of moves added; the line stops at the first move that is not legal.
+     */
+    public int addLine(String line) {
+        ChessGame game = new ChessGame("White Player", "Black Player");
+        MoveList moves = new MoveList();
+        int added = 0;
+        for (String text : line.trim().split("\\s+")) {
+            moves.clear();
+            game.generateLegalMoves(moves);
+            int move = Move.NONE;
+            for (int i = 0; i < moves.size() && move == Move.NONE; i++) {
+                if (Move.toString(moves.get(i)).equals(text))
+                    move = moves.get(i);
+            }
+            if (move == Move.NONE)
+                break;
+            add(game, move, 1);
+            game.makeMove(move);
+            added++;
+        }
+        return added;
+    }
+
+    /**
+     * Gets the number of moves added so far (before the repeated ones are merged).
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Writes the book, sorted by key, with the repeated moves merged and
+     * the moves of each position from the heaviest to the lightest.
+     *
+     * @param path The book file (replaced if it exists).
+     * @return The number of entries written.
+     * @throws IOException If the file can not be written.
+     */
+    public int write(Path path) throws IOException {
+        // primeiro por chave e jogada, para juntar as repetidas
+        entries.sort(Comparator.<Entry>comparingLong(e -> e.key).thenComparingInt(e -> e.move));
+        List<Entry> merged = new ArrayList<>();
+        for (Entry entry : entries) {
+            Entry last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && last.key == entry.key && last.move == entry.move)
+                last.weight = Math.min(OpeningBook.MAX_WEIGHT, last.weight + entry.weight);
+            else
+                merged.add(new Entry(entry.key, entry.move, Math.min(OpeningBook.MAX_WEIGHT, entry.weight)));
+        }
+        // depois por chave sem sinal, a ordem em que o OpeningBook procura
+        merged.sort((a, b) -> a.key != b.key ? Long.compareUnsigned(a.key, b.key) : Integer.compare(b.weight, a.weight));
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            for (Entry entry : merged) {
+                out.writeLong(entry.key);
+                out.writeShort(entry.move);
+                out.writeShort(entry.weight);
+                out.writeInt(0); // learn: não usado
+            }
+        }
+        return merged.size();
+    }
+
+    private static class Entry {
+        private final long key;
+        private final int move;
+        private int weight;
+
+        private Entry(long key, int move, int weight) {
+            this.key = key;
+            this.move = move;
+            this.weight = weight;
+        }
+    }
+}
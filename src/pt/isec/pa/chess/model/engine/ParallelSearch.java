@@ -0,0 +1,148 @@
+package pt.isec.pa.chess.model.engine;
+
+import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.tablebase.Tablebase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Lazy SMP: several searches of the same position run at the same time
+ * on their own copies of the game, sharing one transposition table. The
+ * helpers only feed the table (helpers with an odd index search one ply
+ * deeper, so they run ahead of the main search); the result is always
+ * the main search's, which runs on the calling thread.
+ */
+public class ParallelSearch {
+    private final Search main;
+    private final List<Search> helpers = new ArrayList<>();
+    private final ExecutorService helperPool;
+
+    /**
+     * Prepares a parallel search of a position.
+     *
+     * @param game The position to search. It is copied for every thread.
+     * @param table The transposition table shared by the threads.
+     * @param threads The total number of threads, including the calling one.
+     * @param helperPool The pool that runs the helpers (at least threads - 1 threads).
+     */
+    public ParallelSearch(ChessGame game, TranspositionTable table, int threads, ExecutorService helperPool) {
+        this.helperPool = helperPool;
+        main = new Search(game.copy(), table, 0);
+        for (int i = 1; i < threads; i++) {
+            helpers.add(new Search(game.copy(), table, i));
+        }
+    }
+
+    /**
+     * Chooses which techniques every thread uses.
+     *
+     * @param options The options shared by the threads.
+     */
+    public void setOptions(SearchOptions options) {
+        main.setOptions(options);
+        for (Search helper : helpers) {
+            helper.setOptions(options);
+        }
+    }
+
+    /**
+     * Sets the endgame tables of every thread (see Search.setTablebase).
+     */
+    public void setTablebase(Tablebase tablebase) {
+        main.setTablebase(tablebase);
+        for (Search helper : helpers) {
+            helper.setTablebase(tablebase);
+        }
+    }
+
+    /**
+     * Makes the search ignore its limits until ponderHit (see Search.setPondering).
+     * The helpers have no limits of their own, so only the main search needs it.
+     */
+    public void setPondering(boolean pondering) {
+        main.setPondering(pondering);
+    }
+
+    public void ponderHit() {
+        main.ponderHit();
+    }
+
+    /**
+     * Runs the search on the calling thread, with the helpers on the pool,
+     * and waits for the helpers to stop before returning.
+     *
+     * @param limits The limits of the main search; the helpers run until it ends.
+     * @param listener Called with each iteration of the main search, or null.
+     * @return The result of the main search, with the nodes of every thread.
+     */
+    public SearchInfo search(SearchLimits limits, SearchListener listener) {
+        SearchLimits helperLimits = SearchLimits.depth(limits.getMaxDepth());
+        List<Future<?>> running = new ArrayList<>();
+        for (Search helper : helpers) {
+            running.add(helperPool.submit(() -> helper.search(helperLimits, null)));
+        }
+
+        SearchInfo result;
+        try {
+            result = main.search(limits, listener == null ? null : info -> listener.onInfo(withAllNodes(info)));
+        } finally {
+            for (Search helper : helpers) {
+                helper.stop();
+            }
+            for (Future<?> future : running) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        }
+        return withAllNodes(result);
+    }
+
+    /**
+     * Asks every thread to stop; search then returns the last completed
+     * iteration of the main search.
+     */
+    public void stop() {
+        main.stop();
+        for (Search helper : helpers) {
+            helper.stop();
+        }
+    }
+
+    /**
+     * Gets the nodes searched so far by every thread.
+     */
+    public long getNodes() {
+        long nodes = main.getNodes();
+        for (Search helper : helpers) {
+            nodes += helper.getNodes();
+        }
+        return nodes;
+    }
+
+    /**
+     * Gets the fraction of pawn table probes that hit, over every thread.
+     * Read it after search returns.
+     */
+    public double getPawnHitRate() {
+        long probes = main.getPawnTable().getProbes();
+        long hits = main.getPawnTable().getHits();
+        for (Search helper : helpers) {
+            probes += helper.getPawnTable().getProbes();
+            hits += helper.getPawnTable().getHits();
+        }
+        return probes == 0 ? 0 : (double) hits / probes;
+    }
+
+    private SearchInfo withAllNodes(SearchInfo info) {
+        return new SearchInfo(info.getDepth(), info.getScore(), getNodes(), info.getTimeMillis(), info.getPv());
+    }
+}
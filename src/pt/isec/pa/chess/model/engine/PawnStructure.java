@@ -0,0 +1,126 @@
+package pt.isec.pa.chess.model.engine;
+
+import pt.isec.pa.chess.model.data.Board;
+import pt.isec.pa.chess.model.data.PieceType;
+import pt.isec.pa.chess.model.data.Square;
+
+/**
+ * Evaluation of the pawns alone: doubled, isolated, backward and passed
+ * pawns, with a middlegame and an endgame value like the rest of the
+ * evaluation. It only depends on where the pawns are, so the result is
+ * cached by the pawn key of the board (see PawnTable).
+ * The masks used to find each kind of pawn are built once, per side and
+ * square.
+ */
+public final class PawnStructure {
+    private static final long FILE_A = 0x0101010101010101L;
+    private static final long FILE_H = FILE_A << 7;
+
+    private static final int DOUBLED_MIDGAME = 10;
+    private static final int DOUBLED_ENDGAME = 20;
+    private static final int ISOLATED_MIDGAME = 10;
+    private static final int ISOLATED_ENDGAME = 15;
+    private static final int BACKWARD_MIDGAME = 8;
+    private static final int BACKWARD_ENDGAME = 10;
+    // bónus de um peão passado pela linha a contar do seu lado (0 = primeira linha)
+    private static final int[] PASSED_MIDGAME = {0, 5, 10, 15, 25, 40, 60, 0};
+    private static final int[] PASSED_ENDGAME = {0, 10, 15, 25, 45, 75, 110, 0};
+
+    private static final long[] ADJACENT_FILES = new long[8];
+    // [lado][casa]: casas à frente na mesma coluna; à frente na mesma coluna e nas vizinhas;
+    // nas colunas vizinhas, na mesma linha ou atrás (de onde pode vir apoio)
+    private static final long[][] FRONT_SPAN = new long[2][64];
+    private static final long[][] PASSED_MASK = new long[2][64];
+    private static final long[][] SUPPORT_MASK = new long[2][64];
+
+    static {
+        for (int file = 0; file < 8; file++) {
+            ADJACENT_FILES[file] = (file > 0 ? FILE_A << (file - 1) : 0L) | (file < 7 ? FILE_A << (file + 1) : 0L);
+        }
+        for (int square = 0; square < 64; square++) {
+            int file = Square.file(square);
+            int rank = Square.rank(square);
+            long sameFile = FILE_A << file;
+            long neighbours = ADJACENT_FILES[file];
+            long above = rank == 7 ? 0L : -1L << (8 * (rank + 1));
+            long below = rank == 0 ? 0L : -1L >>> (8 * (8 - rank));
+            long atOrAbove = -1L << (8 * rank);
+            long atOrBelow = -1L >>> (8 * (7 - rank));
+            FRONT_SPAN[0][square] = sameFile & above;
+            FRONT_SPAN[1][square] = sameFile & below;
+            PASSED_MASK[0][square] = (sameFile | neighbours) & above;
+            PASSED_MASK[1][square] = (sameFile | neighbours) & below;
+            SUPPORT_MASK[0][square] = neighbours & atOrBelow;
+            SUPPORT_MASK[1][square] = neighbours & atOrAbove;
+        }
+    }
+
+    private PawnStructure() {}
+
+    /**
+     * Evaluates the pawns of a board into a pawn table entry.
+     *
+     * @param board The board.
+     * @param entry The entry that receives the scores (from white's point
+     *              of view) and the passed pawns of both sides.
+     */
+    public static void evaluate(Board board, PawnTable.Entry entry) {
+        int midgame = 0;
+        int endgame = 0;
+        long passed = 0L;
+        for (int side = 0; side < 2; side++) {
+            boolean white = side == 0;
+            int sign = white ? 1 : -1;
+            long own = board.getBitboard(PieceType.PAWN, white);
+            long enemy = board.getBitboard(PieceType.PAWN, !white);
+            long enemyAttacks = pawnAttacks(enemy, !white);
+            for (long pawns = own; pawns != 0; pawns &= pawns - 1) {
+                int square = Long.numberOfTrailingZeros(pawns);
+                int relativeRank = white ? Square.rank(square) : 7 - Square.rank(square);
+                boolean doubled = (FRONT_SPAN[side][square] & own) != 0;
+                if (doubled) {
+                    midgame -= sign * DOUBLED_MIDGAME;
+                    endgame -= sign * DOUBLED_ENDGAME;
+                }
+                if ((ADJACENT_FILES[Square.file(square)] & own) == 0) {
+                    midgame -= sign * ISOLATED_MIDGAME;
+                    endgame -= sign * ISOLATED_ENDGAME;
+                } else if ((SUPPORT_MASK[side][square] & own) == 0 && relativeRank < 6
+                        && (enemyAttacks & Square.bit(square + (white ? 8 : -8))) != 0) {
+                    // sem peões vizinhos que o possam apoiar e com a casa da frente controlada
+                    midgame -= sign * BACKWARD_MIDGAME;
+                    endgame -= sign * BACKWARD_ENDGAME;
+                }
+                if (!doubled && (PASSED_MASK[side][square] & enemy) == 0) {
+                    passed |= Square.bit(square);
+                    midgame += sign * PASSED_MIDGAME[relativeRank];
+                    endgame += sign * PASSED_ENDGAME[relativeRank];
+                }
+            }
+        }
+        entry.set(board.getPawnKey(), midgame, endgame, passed);
+    }
+
+    /**
+     * Gets the squares attacked by a set of pawns.
+     *
+     * @param pawns The pawns.
+     * @param white True if they are white pawns.
+     */
+    public static long pawnAttacks(long pawns, boolean white) {
+        if (white)
+            return ((pawns << 7) & ~FILE_H) | ((pawns << 9) & ~FILE_A);
+        return ((pawns >>> 9) & ~FILE_H) | ((pawns >>> 7) & ~FILE_A);
+    }
+
+    /**
+     * Gets the squares a pawn must pass to promote, on its file and the
+     * two next to it. The pawn is passed when no enemy pawn is on them.
+     *
+     * @param white True for a white pawn.
+     * @param square The square of the pawn.
+     */
+    public static long passedMask(boolean white, int square) {
+        return PASSED_MASK[white ? 0 : 1][square];
+    }
+}
@@ -0,0 +1,107 @@
+package pt.isec.pa.chess.model.engine;
+
+import pt.isec.pa.chess.model.data.Board;
+
+/**
+ * Cache of the pawn structure evaluation (see PawnStructure), indexed by
+ * the pawn key of the board. Pawns move in few of the moves of a search,
+ * so most positions find their pawn structure already evaluated.
+ * Each search thread has its own table, so there is no locking; the
+ * entries are allocated once and overwritten in place.
+ */
+public class PawnTable {
+    public static final int DEFAULT_ENTRIES = 1 << 14;
+
+    private final Entry[] entries;
+    private final int mask;
+    private long probes;
+    private long hits;
+
+    /**
+     * Creates an empty table.
+     *
+     * @param size The number of entries, rounded down to a power of two.
+     */
+    public PawnTable(int size) {
+        int capacity = Integer.highestOneBit(Math.max(1, size));
+        entries = new Entry[capacity];
+        for (int i = 0; i < capacity; i++) {
+            entries[i] = new Entry();
+        }
+        mask = capacity - 1;
+    }
+
+    /**
+     * Gets the pawn structure of a board, evaluating it only when it is not
+     * in the table.
+     *
+     * @param board The board.
+     * @return The entry of the board's pawns; it is only valid until the next probe.
+     */
+    public Entry probe(Board board) {
+        long key = board.getPawnKey();
+        Entry entry = entries[(int) key & mask];
+        probes++;
+        if (entry.filled && entry.key == key) {
+            hits++;
+            return entry;
+        }
+        PawnStructure.evaluate(board, entry);
+        return entry;
+    }
+
+    public long getProbes() {
+        return probes;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the fraction of probes that found their pawns in the table.
+     */
+    public double getHitRate() {
+        return probes == 0 ? 0 : (double) hits / probes;
+    }
+
+    public void resetStats() {
+        probes = 0;
+        hits = 0;
+    }
+
+    /**
+     * Evaluation of one pawn structure: middlegame and endgame scores from
+     * white's point of view, and the passed pawns of both sides.
+     */
+    public static class Entry {
+        private long key;
+        private boolean filled;
+        private int midgame;
+        private int endgame;
+        private long passed;
+
+        void set(long key, int midgame, int endgame, long passed) {
+            this.key = key;
+            this.midgame = midgame;
+            this.endgame = endgame;
+            this.passed = passed;
+            filled = true;
+        }
+
+        public int getMidgame() {
+            return midgame;
+        }
+
+        public int getEndgame() {
+            return endgame;
+        }
+
+        /**
+         * Gets the passed pawns of both sides.
+         */
+        public long getPassed() {
+            return passed;
+        }
+    }
+}
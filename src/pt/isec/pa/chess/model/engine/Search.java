@@ -0,0 +1,572 @@
+package pt.isec.pa.chess.model.engine;
+
+import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.data.Board;
+import pt.isec.pa.chess.model.data.Move;
+import pt.isec.pa.chess.model.data.MoveList;
+import pt.isec.pa.chess.model.data.PieceType;
+import pt.isec.pa.chess.model.tablebase.Material;
+import pt.isec.pa.chess.model.tablebase.Tablebase;
+
+import java.util.Arrays;
+
+/**
+ * Iterative deepening negamax search with alpha-beta pruning.
+ * Each iteration searches one ply deeper than the last one, trying its
+ * best move first, and from depth 4 on starts with a narrow aspiration
+ * window around the previous score that is widened when the score falls
+ * outside it. After the first move of a node the others are searched with
+ * a null window (principal variation search) and only searched again with
+ * the full window when they beat alpha. The principal variation is kept
+ * in a triangular table.
+ * The moves of each node come from a MovePicker: the table move, then
+ * captures, then the killer moves and countermove, then the quiet moves
+ * by their history score. The killer, countermove and history tables are
+ * updated whenever a quiet move causes a cutoff.
+ * Some nodes are cut or searched less deeply than the others (null move,
+ * late move reductions, reverse futility and futility pruning), and moves
+ * that give check are searched one ply deeper; SearchOptions turns each of
+ * these on or off.
+ * At depth 0 a quiescence search goes on with the captures and promotions
+ * (and every move when in check) until the position is quiet, so a piece
+ * left hanging at the horizon is not counted as safe. The side to move may
+ * always stand pat with the static evaluation, and captures that lose
+ * material in the exchange (see See) are not searched.
+ * Results are cached in a transposition table, which several searches on
+ * different threads can share (see ParallelSearch); the pawn structure
+ * evaluations are cached in a pawn table of each search.
+ * With endgame tables (see Tablebase), positions of up to four pieces
+ * below the root are not searched: their exact value is read from them.
+ * The search makes and takes back moves on the game it is given, so it
+ * must own that game (see ChessGame.copy).
+ */
+public class Search {
+    public static final int MATE = 32000;
+    public static final int INFINITE = MATE + 1;
+    public static final int MAX_PLY = 128;
+
+    private static final int ASPIRATION_WINDOW = 25;
+    private static final int ASPIRATION_MIN_DEPTH = 4;
+    private static final int CHECK_INTERVAL = 255; // os limites são verificados a cada 256 nós
+    private static final int HISTORY_MAX = 16384;
+    private static final int MAX_QUIETS_TRIED = 64;
+    private static final int NULL_MOVE_MIN_DEPTH = 3;
+    private static final int NULL_MOVE_VERIFY_DEPTH = 10;
+    private static final int REVERSE_FUTILITY_DEPTH = 6;
+    private static final int REVERSE_FUTILITY_MARGIN = 80;
+    private static final int[] FUTILITY_MARGINS = {0, 150, 300, 450};
+    private static final int LMR_MIN_DEPTH = 3;
+    private static final int[][] LMR_REDUCTIONS = new int[64][64];
+
+    static {
+        // redução que cresce com a profundidade e com a ordem da jogada
+        for (int depth = 1; depth < 64; depth++) {
+            for (int count = 1; count < 64; count++) {
+                LMR_REDUCTIONS[depth][count] = (int) (0.75 + Math.log(depth) * Math.log(count) / 2.25);
+            }
+        }
+    }
+
+    private final ChessGame game;
+    private final TranspositionTable table;
+    private final int threadIndex;
+    private final MovePicker[] pickers = new MovePicker[MAX_PLY + 1];
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    private final int[][] history = new int[2][64 * 64];
+    private final int[] counterMoves = new int[Board.PIECE_CODES * 64];
+    private final int[][] quietsTried = new int[MAX_PLY + 1][MAX_QUIETS_TRIED];
+    private final int[][] pvTable = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+    private final MoveList rootMoves = new MoveList();
+    private final PawnTable pawnTable = new PawnTable(PawnTable.DEFAULT_ENTRIES);
+    private SearchOptions options = new SearchOptions();
+    private Tablebase tablebase;
+    private long tablebaseHits;
+    private boolean verifyingNullMove;
+
+    private volatile boolean stopRequested;
+    private volatile boolean pondering;
+    private boolean stopped;
+    private SearchLimits limits;
+    private long nodes;
+    private long startTime;
+
+    /**
+     * Creates a search over a game the search may change while it runs,
+     * with its own small transposition table.
+     *
+     * @param game The position to search; use a copy of the game being played.
+     */
+    public Search(ChessGame game) {
+        this(game, new TranspositionTable(1), 0);
+    }
+
+    /**
+     * Creates one of the searches of a parallel search.
+     *
+     * @param game The position to search; each thread needs its own copy.
+     * @param table The transposition table shared by all the threads.
+     * @param threadIndex 0 for the main search; helpers with an odd index
+     *                    search each iteration one ply deeper, so the threads
+     *                    do not all repeat the same work.
+     */
+    public Search(ChessGame game, TranspositionTable table, int threadIndex) {
+        this.game = game;
+        this.table = table;
+        this.threadIndex = threadIndex;
+        for (int i = 0; i < pickers.length; i++) {
+            pickers[i] = new MovePicker(game);
+        }
+    }
+
+    /**
+     * Chooses which techniques the next searches use.
+     *
+     * @param options The options; they are read while the search runs.
+     */
+    public void setOptions(SearchOptions options) {
+        this.options = options;
+    }
+
+    public SearchOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * Sets the endgame tables the search reads positions with few pieces from.
+     *
+     * @param tablebase The tables, or null to search every position.
+     */
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    /**
+     * Gets how many positions were read from the endgame tables.
+     */
+    public long getTablebaseHits() {
+        return tablebaseHits;
+    }
+
+    /**
+     * Searches the position until a limit is reached or stop is called.
+     * It always returns a move when the position has one, even if the
+     * first iteration did not finish.
+     *
+     * @param limits The depth, node and time limits.
+     * @param listener Called with the result of each completed iteration, or null.
+     * @return The result of the deepest completed iteration.
+     */
+    public SearchInfo search(SearchLimits limits, SearchListener listener) {
+        this.limits = limits;
+        nodes = 0;
+        stopped = false;
+        startTime = System.currentTimeMillis();
+        if (threadIndex == 0)
+            table.newSearch();
+        clearOrdering();
+
+        rootMoves.clear();
+        game.generateLegalMoves(rootMoves);
+        if (rootMoves.isEmpty())
+            return new SearchInfo(0, game.isInCheck() ? -MATE : 0, 0, 0, new int[0]);
+
+        SearchInfo result = new SearchInfo(0, 0, 0, 0, new int[]{rootMoves.get(0)});
+        int score = 0;
+        int offset = threadIndex & 1;
+        for (int depth = 1; depth <= limits.getMaxDepth(); depth++) {
+            score = aspiration(Math.min(depth + offset, MAX_PLY - 1), score);
+            if (stopped)
+                break;
+
+            int[] pv = Arrays.copyOf(pvTable[0], pvLength[0]);
+            moveToFront(rootMoves, pv[0]);
+            result = new SearchInfo(depth + offset, score, nodes, elapsed(), pv);
+            if (listener != null)
+                listener.onInfo(result);
+
+            if (Math.abs(score) >= MATE - depth)
+                break; // mate encontrado dentro da profundidade, procurar mais não muda a jogada
+            TimeManager timeManager = limits.getTimeManager();
+            boolean enough = timeManager != null ? timeManager.shouldStop(elapsed(), pv[0])
+                    : elapsed() >= limits.getMaxTimeMillis() / 2;
+            // a pensar no tempo do adversário, os limites só contam quando ele fizer a jogada esperada
+            if (enough && !pondering)
+                break; // a próxima iteração não ia acabar no tempo que sobra
+        }
+        return result;
+    }
+
+    /**
+     * Makes the next search ignore its time and node limits until
+     * ponderHit is called, so it can run while the opponent thinks.
+     * Call it before search.
+     */
+    public void setPondering(boolean pondering) {
+        this.pondering = pondering;
+    }
+
+    public boolean isPondering() {
+        return pondering;
+    }
+
+    /**
+     * Tells a pondering search that the opponent played the expected move:
+     * from now on the limits apply. The time spent pondering counts as
+     * time already used, so a long ponder lets the move be played sooner.
+     */
+    public void ponderHit() {
+        pondering = false;
+    }
+
+    /**
+     * Asks the search to stop as soon as possible. The running search
+     * returns the last completed iteration, and later searches with this
+     * object return right away.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public PawnTable getPawnTable() {
+        return pawnTable;
+    }
+
+    private int aspiration(int depth, int previous) {
+        int delta = ASPIRATION_WINDOW;
+        int alpha = -INFINITE;
+        int beta = INFINITE;
+        if (depth >= ASPIRATION_MIN_DEPTH) {
+            alpha = Math.max(previous - delta, -INFINITE);
+            beta = Math.min(previous + delta, INFINITE);
+        }
+        while (true) {
+            int score = negamax(depth, 0, alpha, beta);
+            if (stopped)
+                return score;
+            if (score <= alpha && alpha > -INFINITE) {
+                alpha = Math.max(score - delta, -INFINITE);
+            } else if (score >= beta && beta < INFINITE) {
+                beta = Math.min(score + delta, INFINITE);
+            } else {
+                return score;
+            }
+            delta *= 2;
+        }
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta) {
+        if (depth <= 0 && options.isQuiescence())
+            return quiesce(ply, alpha, beta);
+        pvLength[ply] = ply;
+        if ((++nodes & CHECK_INTERVAL) == 0)
+            checkLimits();
+        if (stopped)
+            return 0;
+
+        if (ply > 0 && (game.getHalfmoveClock() >= 100 || game.isRepetition()))
+            return 0;
+        // com poucas peças o valor exato vem das tabelas de finais
+        if (tablebase != null && ply > 0 && game.getBoard().getPieceCount() <= Material.MAX_PIECES) {
+            int result = tablebase.probe(game);
+            if (result != Tablebase.UNKNOWN) {
+                tablebaseHits++;
+                return tablebaseScore(result, ply);
+            }
+        }
+        if (depth <= 0 || ply >= MAX_PLY)
+            return Evaluator.evaluate(game, pawnTable);
+
+        long key = game.getPositionKey();
+        long entry = table.probe(key);
+        int ttMove = TranspositionTable.move(entry);
+        // nos nós da variante principal não se corta, para a variante ficar completa
+        boolean pvNode = beta - alpha > 1;
+        if (entry != 0 && !pvNode && TranspositionTable.depth(entry) >= depth) {
+            int score = scoreFromTable(TranspositionTable.score(entry), ply);
+            int bound = TranspositionTable.bound(entry);
+            if (bound == TranspositionTable.BOUND_EXACT
+                    || (bound == TranspositionTable.BOUND_LOWER && score >= beta)
+                    || (bound == TranspositionTable.BOUND_UPPER && score <= alpha))
+                return score;
+        }
+
+        boolean inCheck = game.isInCheck();
+        int staticEval = -INFINITE;
+        if (!pvNode && !inCheck && ply > 0) {
+            staticEval = Evaluator.evaluate(game, pawnTable);
+
+            // muito acima de beta perto do horizonte: a jogada do adversário dificilmente chega
+            if (options.isReverseFutility() && depth <= REVERSE_FUTILITY_DEPTH
+                    && staticEval - REVERSE_FUTILITY_MARGIN * depth >= beta && Math.abs(beta) < MATE - MAX_PLY)
+                return staticEval - REVERSE_FUTILITY_MARGIN * depth;
+
+            if (options.isNullMove() && depth >= NULL_MOVE_MIN_DEPTH && staticEval >= beta
+                    && !verifyingNullMove && game.getLastMove() != Move.NONE && hasPieces(game.isWhiteToMove())) {
+                int score = nullMoveSearch(depth, ply, beta);
+                if (stopped)
+                    return 0;
+                if (score >= beta)
+                    return score >= MATE - MAX_PLY ? beta : score;
+            }
+        }
+        // perto do horizonte, se nem com uma margem a avaliação chega a alpha, só as jogadas táticas contam
+        boolean futile = options.isFutility() && staticEval != -INFINITE && depth < FUTILITY_MARGINS.length
+                && Math.abs(alpha) < MATE - MAX_PLY && staticEval + FUTILITY_MARGINS[depth] <= alpha;
+
+        // na raiz usa-se a lista já ordenada pelas iterações anteriores
+        MovePicker picker = pickers[ply];
+        if (ply > 0)
+            initPicker(picker, ply, ttMove);
+        else if (ttMove != Move.NONE)
+            moveToFront(rootMoves, ttMove);
+
+        int originalAlpha = alpha;
+        int best = -INFINITE;
+        int bestMove = Move.NONE;
+        int quietCount = 0;
+        int searched = 0;
+        for (int i = 0; ; i++) {
+            int move = ply == 0 ? (i < rootMoves.size() ? rootMoves.get(i) : Move.NONE) : picker.next();
+            if (move == Move.NONE)
+                break;
+            boolean quiet = !Move.isCapture(move) && !Move.isPromotion(move);
+            boolean late = ply > 0 && picker.isLateMove();
+            game.makeMove(move);
+            boolean givesCheck = game.isInCheck();
+            if (futile && searched > 0 && quiet && !givesCheck) {
+                game.unmakeMove();
+                continue;
+            }
+
+            int newDepth = depth - 1;
+            if (givesCheck && options.isCheckExtensions() && ply < MAX_PLY / 2)
+                newDepth++;
+            int score;
+            if (searched == 0) {
+                score = -negamax(newDepth, ply + 1, -beta, -alpha);
+            } else {
+                int reduction = 0;
+                if (options.isLateMoveReductions() && late && quiet && depth >= LMR_MIN_DEPTH
+                        && !inCheck && !givesCheck) {
+                    reduction = LMR_REDUCTIONS[Math.min(depth, 63)][Math.min(searched, 63)];
+                    if (pvNode)
+                        reduction--;
+                    reduction = Math.max(0, Math.min(reduction, newDepth - 1));
+                }
+                // janela nula: só interessa saber se a jogada é melhor do que a melhor até agora
+                score = -negamax(newDepth - reduction, ply + 1, -alpha - 1, -alpha);
+                if (reduction > 0 && score > alpha)
+                    score = -negamax(newDepth, ply + 1, -alpha - 1, -alpha);
+                if (score > alpha && score < beta)
+                    score = -negamax(newDepth, ply + 1, -beta, -alpha);
+            }
+            game.unmakeMove();
+            searched++;
+            if (stopped)
+                return 0;
+
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (alpha >= beta) {
+                        if (quiet)
+                            updateQuietCutoff(ply, depth, move, quietCount);
+                        break;
+                    }
+                }
+            }
+            if (quiet && quietCount < MAX_QUIETS_TRIED)
+                quietsTried[ply][quietCount++] = move;
+        }
+        if (bestMove == Move.NONE)
+            return game.isInCheck() ? -MATE + ply : 0;
+
+        int bound = best >= beta ? TranspositionTable.BOUND_LOWER
+                : best > originalAlpha ? TranspositionTable.BOUND_EXACT
+                : TranspositionTable.BOUND_UPPER;
+        table.store(key, bestMove, scoreToTable(best, ply), depth, bound);
+        return best;
+    }
+
+    // o adversário joga duas vezes; se mesmo assim não chegar a beta, o nó é cortado
+    private int nullMoveSearch(int depth, int ply, int beta) {
+        int reduction = 3 + depth / 6;
+        game.makeNullMove();
+        int score = -negamax(depth - 1 - reduction, ply + 1, -beta, -beta + 1);
+        game.unmakeMove();
+        if (stopped || score < beta || depth < NULL_MOVE_VERIFY_DEPTH)
+            return score;
+
+        // a grande profundidade confirma-se com uma busca normal, por causa dos zugzwangs
+        verifyingNullMove = true;
+        score = negamax(depth - reduction, ply, beta - 1, beta);
+        verifyingNullMove = false;
+        return score;
+    }
+
+    // com só rei e peões os zugzwangs são frequentes e a jogada nula engana
+    private boolean hasPieces(boolean white) {
+        Board board = game.getBoard();
+        return board.getPieceCount(white) - board.getPieceCount(PieceType.PAWN, white) > 1;
+    }
+
+    private void initPicker(MovePicker picker, int ply, int ttMove) {
+        int counterMove = Move.NONE;
+        int previous = game.getLastMove();
+        if (options.isCounterMoves() && previous != Move.NONE)
+            counterMove = counterMoves[counterIndex(previous)];
+        boolean useKillers = options.isKillers();
+        picker.init(ttMove, useKillers ? killers[ply][0] : Move.NONE, useKillers ? killers[ply][1] : Move.NONE,
+                counterMove, options.isHistory() ? history[game.isWhiteToMove() ? 0 : 1] : null,
+                options.isCaptureOrdering(), options.isSee());
+    }
+
+    // um mate em n jogadas a partir deste nó fica a ply + 2n - 1 meias-jogadas da raiz
+    private static int tablebaseScore(int result, int ply) {
+        if (Tablebase.isWin(result))
+            return MATE - (ply + 2 * Tablebase.movesToMate(result) - 1);
+        if (Tablebase.isLoss(result))
+            return -(MATE - (ply + 2 * Tablebase.movesToMate(result)));
+        return 0;
+    }
+
+    private int quiesce(int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        if ((++nodes & CHECK_INTERVAL) == 0)
+            checkLimits();
+        if (stopped)
+            return 0;
+        if (game.getHalfmoveClock() >= 100 || game.isRepetition())
+            return 0;
+        if (ply >= MAX_PLY)
+            return Evaluator.evaluate(game, pawnTable);
+
+        // sem check, o lado a jogar pode ficar com a avaliação da posição se nenhuma captura for melhor
+        boolean inCheck = game.isInCheck();
+        int best = -INFINITE;
+        if (!inCheck) {
+            best = Evaluator.evaluate(game, pawnTable);
+            if (best >= beta)
+                return best;
+            alpha = Math.max(alpha, best);
+        }
+
+        MovePicker picker = pickers[ply];
+        picker.initQuiescence(inCheck, options.isHistory() ? history[game.isWhiteToMove() ? 0 : 1] : null,
+                options.isSee());
+        for (int move = picker.next(); move != Move.NONE; move = picker.next()) {
+            game.makeMove(move);
+            int score = -quiesce(ply + 1, -beta, -alpha);
+            game.unmakeMove();
+            if (stopped)
+                return 0;
+
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (alpha >= beta)
+                        break;
+                }
+            }
+        }
+        if (best == -INFINITE)
+            return -MATE + ply; // em check e sem jogadas
+        return best;
+    }
+
+    // a jogada anterior é identificada pela peça que se mexeu e pela casa onde ficou
+    private int counterIndex(int previous) {
+        return game.getBoard().getPieceCode(Move.to(previous)) * 64 + Move.to(previous);
+    }
+
+    private void updateQuietCutoff(int ply, int depth, int move, int quietCount) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int previous = game.getLastMove();
+        if (previous != Move.NONE)
+            counterMoves[counterIndex(previous)] = move;
+
+        // a jogada que cortou ganha pontos e as calmas tentadas antes dela perdem
+        int[] scores = history[game.isWhiteToMove() ? 0 : 1];
+        int bonus = Math.min(depth * depth, 1024);
+        addHistory(scores, move, bonus);
+        for (int i = 0; i < quietCount; i++) {
+            addHistory(scores, quietsTried[ply][i], -bonus);
+        }
+    }
+
+    // os valores tendem para +-HISTORY_MAX em vez de crescerem sem limite
+    private static void addHistory(int[] scores, int move, int bonus) {
+        int index = Move.from(move) * 64 + Move.to(move);
+        scores[index] += bonus - scores[index] * Math.abs(bonus) / HISTORY_MAX;
+    }
+
+    // as killers são da posição anterior; o histórico fica, mas com menos peso
+    private void clearOrdering() {
+        for (int[] plyKillers : killers) {
+            plyKillers[0] = Move.NONE;
+            plyKillers[1] = Move.NONE;
+        }
+        for (int[] scores : history) {
+            for (int i = 0; i < scores.length; i++) {
+                scores[i] /= 2;
+            }
+        }
+    }
+
+    // os mates são guardados a contar da posição e não da raiz, para servirem noutros caminhos
+    private static int scoreToTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY)
+            return score + ply;
+        if (score <= -MATE + MAX_PLY)
+            return score - ply;
+        return score;
+    }
+
+    private static int scoreFromTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY)
+            return score - ply;
+        if (score <= -MATE + MAX_PLY)
+            return score + ply;
+        return score;
+    }
+
+    private void updatePv(int ply, int move) {
+        pvTable[ply][ply] = move;
+        int length = pvLength[ply + 1];
+        System.arraycopy(pvTable[ply + 1], ply + 1, pvTable[ply], ply + 1, length - ply - 1);
+        pvLength[ply] = Math.max(length, ply + 1);
+    }
+
+    private static void moveToFront(MoveList moves, int move) {
+        for (int i = moves.size() - 1; i > 0; i--) {
+            if (moves.get(i) == move) {
+                moves.set(i, moves.get(i - 1));
+                moves.set(i - 1, move);
+            }
+        }
+    }
+
+    private void checkLimits() {
+        if (stopRequested)
+            stopped = true;
+        else if (!pondering && (nodes >= limits.getMaxNodes() || elapsed() >= limits.getMaxTimeMillis()))
+            stopped = true;
+    }
+
+    private long elapsed() {
+        return System.currentTimeMillis() - startTime;
+    }
+}
@@ -0,0 +1,119 @@
+package pt.isec.pa.chess.model.engine;
+
+import pt.isec.pa.chess.model.data.Move;
+
+/**
+ * Result of a search iteration: depth reached, score (in centipawns, from
+ * the point of view of the side to move), nodes, time and principal variation.
+ */
+public class SearchInfo {
+    private final int depth;
+    private final int score;
+    private final long nodes;
+    private final long timeMillis;
+    private final int[] pv;
+    private final boolean fromBook;
+
+    public SearchInfo(int depth, int score, long nodes, long timeMillis, int[] pv) {
+        this(depth, score, nodes, timeMillis, pv, false);
+    }
+
+    private SearchInfo(int depth, int score, long nodes, long timeMillis, int[] pv, boolean fromBook) {
+        this.depth = depth;
+        this.score = score;
+        this.nodes = nodes;
+        this.timeMillis = timeMillis;
+        this.pv = pv.clone();
+        this.fromBook = fromBook;
+    }
+
+    /**
+     * Creates the result of a move taken from the opening book, without searching.
+     *
+     * @param move The packed move.
+     */
+    public static SearchInfo fromBook(int move) {
+        return new SearchInfo(0, 0, 0, 0, new int[] {move}, true);
+    }
+
+    /**
+     * Checks if the move came from the opening book instead of a search.
+     */
+    public boolean isFromBook() {
+        return fromBook;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    public long getNodesPerSecond() {
+        return nodes * 1000 / Math.max(1, timeMillis);
+    }
+
+    /**
+     * Gets the principal variation, as packed moves (see Move).
+     */
+    public int[] getPv() {
+        return pv.clone();
+    }
+
+    /**
+     * Gets the best move (the first move of the principal variation).
+     *
+     * @return The packed move or Move.NONE if the position has no moves.
+     */
+    public int getBestMove() {
+        return pv.length == 0 ? Move.NONE : pv[0];
+    }
+
+    /**
+     * Checks if the score is a forced mate (for either side).
+     */
+    public boolean isMate() {
+        return Math.abs(score) >= Search.MATE - Search.MAX_PLY;
+    }
+
+    /**
+     * Gets the number of moves to mate, negative when the side to move is mated.
+     */
+    public int getMateIn() {
+        int moves = (Search.MATE - Math.abs(score) + 1) / 2;
+        return score > 0 ? moves : -moves;
+    }
+
+    /**
+     * Gets the principal variation in coordinate notation ("e2e4 e7e5 ...").
+     */
+    public String getPvText() {
+        StringBuilder sb = new StringBuilder();
+        for (int move : pv) {
+            if (sb.length() > 0)
+                sb.append(' ');
+            sb.append(Move.toString(move));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "depth " + depth
+                + (isMate() ? " mate " + getMateIn() : " cp " + score)
+                + " nodes " + nodes
+                + " nps " + getNodesPerSecond()
+                + " time " + timeMillis
+                + " pv " + getPvText();
+    }
+}
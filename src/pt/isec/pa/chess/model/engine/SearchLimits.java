@@ -0,0 +1,79 @@
+package pt.isec.pa.chess.model.engine;
+
+/**
+ * Limits of one search: the deepest iteration, the number of nodes and
+ * the time it may use. The search stops as soon as any of them is reached.
+ * With a clock, a TimeManager also decides after each iteration whether
+ * the search goes on.
+ */
+public class SearchLimits {
+    public static final int MAX_DEPTH = 64;
+
+    private final int maxDepth;
+    private final long maxNodes;
+    private final long maxTimeMillis;
+    private final TimeManager timeManager;
+
+    /**
+     * Creates search limits.
+     *
+     * @param maxDepth The deepest iteration (capped to MAX_DEPTH).
+     * @param maxNodes The maximum number of nodes, or Long.MAX_VALUE for no limit.
+     * @param maxTimeMillis The maximum time in milliseconds, or Long.MAX_VALUE for no limit.
+     */
+    public SearchLimits(int maxDepth, long maxNodes, long maxTimeMillis) {
+        this(maxDepth, maxNodes, maxTimeMillis, null);
+    }
+
+    private SearchLimits(int maxDepth, long maxNodes, long maxTimeMillis, TimeManager timeManager) {
+        this.maxDepth = Math.max(1, Math.min(maxDepth, MAX_DEPTH));
+        this.maxNodes = maxNodes;
+        this.maxTimeMillis = maxTimeMillis;
+        this.timeManager = timeManager;
+    }
+
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    public static SearchLimits time(long millis) {
+        return new SearchLimits(MAX_DEPTH, Long.MAX_VALUE, millis);
+    }
+
+    public static SearchLimits nodes(long nodes) {
+        return new SearchLimits(MAX_DEPTH, nodes, Long.MAX_VALUE);
+    }
+
+    /**
+     * Limits of a move played on the clock: the time manager's maximum is
+     * the time limit, and it chooses when to stop before that.
+     *
+     * @param timeManager The time manager of this move.
+     */
+    public static SearchLimits clock(TimeManager timeManager) {
+        return new SearchLimits(MAX_DEPTH, Long.MAX_VALUE, timeManager.getMaximumMillis(), timeManager);
+    }
+
+    public static SearchLimits infinite() {
+        return new SearchLimits(MAX_DEPTH, Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getMaxNodes() {
+        return maxNodes;
+    }
+
+    public long getMaxTimeMillis() {
+        return maxTimeMillis;
+    }
+
+    /**
+     * Gets the time manager of a search on the clock, or null.
+     */
+    public TimeManager getTimeManager() {
+        return timeManager;
+    }
+}
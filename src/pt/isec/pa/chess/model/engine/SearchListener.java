@@ -0,0 +1,10 @@
+package pt.isec.pa.chess.model.engine;
+
+/**
+ * Receives the result of each completed iteration of a search.
+ * It is called on the search thread.
+ */
+@FunctionalInterface
+public interface SearchListener {
+    void onInfo(SearchInfo info);
+}
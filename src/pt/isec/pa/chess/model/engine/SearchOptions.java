@@ -0,0 +1,199 @@
+package pt.isec.pa.chess.model.engine;
+
+/**
+ * Switches for the techniques of the search, all on by default.
+ * Turning one off makes it possible to measure what it is worth, by
+ * comparing the nodes a search needs to reach the same depth.
+ */
+public class SearchOptions {
+    private boolean captureOrdering = true;
+    private boolean killers = true;
+    private boolean history = true;
+    private boolean counterMoves = true;
+    private boolean see = true;
+    private boolean quiescence = true;
+    private boolean nullMove = true;
+    private boolean lateMoveReductions = true;
+    private boolean reverseFutility = true;
+    private boolean futility = true;
+    private boolean checkExtensions = true;
+
+    /**
+     * Creates options with every technique on.
+     */
+    public SearchOptions() {}
+
+    /**
+     * Creates options with every technique on or off.
+     *
+     * @param enabled True to turn every technique on.
+     */
+    public SearchOptions(boolean enabled) {
+        captureOrdering = enabled;
+        killers = enabled;
+        history = enabled;
+        counterMoves = enabled;
+        see = enabled;
+        quiescence = enabled;
+        nullMove = enabled;
+        lateMoveReductions = enabled;
+        reverseFutility = enabled;
+        futility = enabled;
+        checkExtensions = enabled;
+    }
+
+    /**
+     * Checks if captures are tried by MVV-LVA (most valuable victim,
+     * least valuable attacker) instead of in generation order.
+     */
+    public boolean isCaptureOrdering() {
+        return captureOrdering;
+    }
+
+    public SearchOptions setCaptureOrdering(boolean captureOrdering) {
+        this.captureOrdering = captureOrdering;
+        return this;
+    }
+
+    /**
+     * Checks if the two last quiet moves that caused a cutoff at the same
+     * ply are tried before the other quiet moves.
+     */
+    public boolean isKillers() {
+        return killers;
+    }
+
+    public SearchOptions setKillers(boolean killers) {
+        this.killers = killers;
+        return this;
+    }
+
+    /**
+     * Checks if quiet moves are sorted by how often they caused cutoffs.
+     */
+    public boolean isHistory() {
+        return history;
+    }
+
+    public SearchOptions setHistory(boolean history) {
+        this.history = history;
+        return this;
+    }
+
+    /**
+     * Checks if the quiet move that last refuted the opponent's previous
+     * move is tried right after the killers.
+     */
+    public boolean isCounterMoves() {
+        return counterMoves;
+    }
+
+    public SearchOptions setCounterMoves(boolean counterMoves) {
+        this.counterMoves = counterMoves;
+        return this;
+    }
+
+    /**
+     * Checks if captures that lose material in the exchange (see See) are
+     * tried after the quiet moves, and left out of the quiescence search.
+     */
+    public boolean isSee() {
+        return see;
+    }
+
+    public SearchOptions setSee(boolean see) {
+        this.see = see;
+        return this;
+    }
+
+    /**
+     * Checks if the positions at the end of the search are resolved by
+     * searching their captures (quiescence search) instead of being
+     * evaluated as they are.
+     */
+    public boolean isQuiescence() {
+        return quiescence;
+    }
+
+    public SearchOptions setQuiescence(boolean quiescence) {
+        this.quiescence = quiescence;
+        return this;
+    }
+
+    /**
+     * Checks if a node whose static evaluation is already above beta first
+     * lets the opponent move twice, with a reduced depth, and is cut if the
+     * score still stays above beta. It is not tried in check, right after
+     * another null move or when the side to move only has pawns (where
+     * zugzwang is common), and deep cutoffs are verified by a normal search.
+     */
+    public boolean isNullMove() {
+        return nullMove;
+    }
+
+    public SearchOptions setNullMove(boolean nullMove) {
+        this.nullMove = nullMove;
+        return this;
+    }
+
+    /**
+     * Checks if the late quiet moves of the picker (after the killers and
+     * countermove) are searched with less depth, and searched again at full
+     * depth only when they beat alpha.
+     */
+    public boolean isLateMoveReductions() {
+        return lateMoveReductions;
+    }
+
+    public SearchOptions setLateMoveReductions(boolean lateMoveReductions) {
+        this.lateMoveReductions = lateMoveReductions;
+        return this;
+    }
+
+    /**
+     * Checks if nodes close to the horizon return right away when their
+     * static evaluation is above beta by a margin that grows with depth.
+     */
+    public boolean isReverseFutility() {
+        return reverseFutility;
+    }
+
+    public SearchOptions setReverseFutility(boolean reverseFutility) {
+        this.reverseFutility = reverseFutility;
+        return this;
+    }
+
+    /**
+     * Checks if, close to the horizon, quiet moves that do not give check
+     * are skipped when the static evaluation plus a margin is below alpha.
+     */
+    public boolean isFutility() {
+        return futility;
+    }
+
+    public SearchOptions setFutility(boolean futility) {
+        this.futility = futility;
+        return this;
+    }
+
+    /**
+     * Checks if moves that give check are searched one ply deeper.
+     */
+    public boolean isCheckExtensions() {
+        return checkExtensions;
+    }
+
+    public SearchOptions setCheckExtensions(boolean checkExtensions) {
+        this.checkExtensions = checkExtensions;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "captures " + captureOrdering + " killers " + killers
+                + " history " + history + " countermoves " + counterMoves
+                + " see " + see + " quiescence " + quiescence + " nullmove " + nullMove
+                + " lmr " + lateMoveReductions + " rfp " + reverseFutility + " futility " + futility
+                + " checkext " + checkExtensions;
+    }
+}
@@ -0,0 +1,117 @@
+package pt.isec.pa.chess.model.engine;
+
+import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.data.Board;
+import pt.isec.pa.chess.model.data.Move;
+import pt.isec.pa.chess.model.data.PieceType;
+import pt.isec.pa.chess.model.data.Square;
+
+/**
+ * Static exchange evaluation: the material a move wins or loses on its
+ * destination square when both sides keep recapturing there with their
+ * least valuable piece, and each side may stop when going on would lose.
+ * The attackers are looked up in the attack tables (ChessGame.getAttackers)
+ * with the pieces already used removed from the occupancy, so sliding
+ * pieces behind them (x-rays) join the exchange. Pins are not considered.
+ */
+public final class See {
+    // valores usados na troca, pela ordem de PieceType; o rei só pode capturar em último lugar
+    private static final int[] VALUES = {20000, 900, 330, 500, 100, 320};
+    // tipos pela ordem em que entram na troca, do menos valioso para o mais valioso
+    private static final PieceType[] ORDER = {
+            PieceType.PAWN, PieceType.KNIGHT, PieceType.BISHOP, PieceType.ROOK, PieceType.QUEEN, PieceType.KING
+    };
+
+    /**
+     * The size of the buffer evaluate needs: one entry per capture in the
+     * exchange (at most one per piece on the board).
+     */
+    public static final int GAINS = 32;
+
+    private See() {}
+
+    /**
+     * Gets the material a move wins (positive) or loses (negative) in the
+     * exchange on its destination square, in centipawns.
+     *
+     * @param game The game, in the position before the move.
+     * @param move A packed move of the side to move.
+     * @return The result of the exchange; 0 for a quiet move to a safe square.
+     */
+    public static int evaluate(ChessGame game, int move) {
+        return evaluate(game, move, new int[GAINS]);
+    }
+
+    /**
+     * Gets the result of the exchange like evaluate(game, move), using a
+     * buffer of the caller instead of allocating one, for the search.
+     *
+     * @param game The game, in the position before the move.
+     * @param move A packed move of the side to move.
+     * @param gain A buffer of at least GAINS entries, overwritten.
+     * @return The result of the exchange; 0 for a quiet move to a safe square.
+     */
+    public static int evaluate(ChessGame game, int move, int[] gain) {
+        Board board = game.getBoard();
+        int from = Move.from(move);
+        int to = Move.to(move);
+
+        int victim = Move.isEnPassant(move) ? PieceType.PAWN.ordinal() : board.getPieceCode(to) % 6;
+        gain[0] = board.getPieceCode(to) == Board.EMPTY && !Move.isEnPassant(move) ? 0 : VALUES[victim];
+        int attacker = board.getPieceCode(from) % 6;
+        if (Move.isPromotion(move)) {
+            gain[0] += VALUES[Move.promotion(move).ordinal()] - VALUES[PieceType.PAWN.ordinal()];
+            attacker = Move.promotion(move).ordinal();
+        }
+
+        long occupancy = board.getOccupancy() ^ Square.bit(from);
+        if (Move.isEnPassant(move))
+            occupancy ^= Square.bit(to ^ 8);
+        boolean white = !game.isWhiteToMove();
+        int depth = 0;
+        while (true) {
+            long attackers = game.getAttackers(to, white, occupancy);
+            if (attackers == 0)
+                break;
+            depth++;
+            // saldo do lado que captura se a troca parar aqui
+            gain[depth] = VALUES[attacker] - gain[depth - 1];
+            for (PieceType type : ORDER) {
+                long pieces = attackers & board.getBitboard(type, white);
+                if (pieces != 0) {
+                    occupancy ^= pieces & -pieces;
+                    attacker = type.ordinal();
+                    break;
+                }
+            }
+            white = !white;
+        }
+
+        // de trás para a frente: cada lado só captura se isso for melhor do que parar
+        while (depth > 0) {
+            gain[depth - 1] = Math.min(gain[depth - 1], -gain[depth]);
+            depth--;
+        }
+        return gain[0];
+    }
+
+    /**
+     * Checks if a move does not lose material in the exchange on its
+     * destination square.
+     *
+     * @param game The game, in the position before the move.
+     * @param move A packed move of the side to move.
+     * @return True if the exchange result is at least 0.
+     */
+    public static boolean isSafe(ChessGame game, int move) {
+        return evaluate(game, move) >= 0;
+    }
+
+    /**
+     * Checks if a move does not lose material, like isSafe(game, move),
+     * using a buffer of the caller (see evaluate).
+     */
+    public static boolean isSafe(ChessGame game, int move, int[] gain) {
+        return evaluate(game, move, gain) >= 0;
+    }
+}
@@ -0,0 +1,71 @@
+package pt.isec.pa.chess.model.engine;
+
+/**
+ * Decides how long the computer player thinks about one move, from the
+ * time left on its clock and the increment it gets after each move.
+ * The budget is a share of the remaining time plus most of the
+ * increment; the search never goes past a hard maximum, and between the
+ * two it stops sooner when the best move stays the same from one
+ * iteration to the next, and later when it keeps changing.
+ * A time manager keeps the history of one search, so each move needs a
+ * new one.
+ */
+public class TimeManager {
+    // jogadas que se conta ainda ter de fazer com o tempo que resta
+    private static final int MOVES_TO_GO = 30;
+    // margem para o atraso entre parar a pesquisa e a jogada aparecer no tabuleiro
+    private static final long OVERHEAD_MILLIS = 30;
+    private static final long MIN_MILLIS = 10;
+    // fator do orçamento pelo número de iterações seguidas com a mesma melhor jogada
+    private static final double[] STABILITY_FACTORS = {1.6, 1.2, 1.0, 0.8, 0.6};
+
+    private final long optimumMillis;
+    private final long maximumMillis;
+    private int lastBestMove;
+    private int stableIterations;
+
+    /**
+     * Creates the time manager of one move.
+     *
+     * @param remainingMillis The time left on the clock of the side to move.
+     * @param incrementMillis The time added to that clock after the move.
+     */
+    public TimeManager(long remainingMillis, long incrementMillis) {
+        long available = Math.max(MIN_MILLIS, remainingMillis - OVERHEAD_MILLIS);
+        long optimum = available / MOVES_TO_GO + incrementMillis * 3 / 4;
+        maximumMillis = Math.max(MIN_MILLIS, Math.min(available / 4 + incrementMillis, optimum * 4));
+        optimumMillis = Math.max(MIN_MILLIS, Math.min(optimum, maximumMillis));
+    }
+
+    /**
+     * Gets the time the search should take when the best move is not
+     * particularly stable or unstable.
+     */
+    public long getOptimumMillis() {
+        return optimumMillis;
+    }
+
+    /**
+     * Gets the time the search must never go past.
+     */
+    public long getMaximumMillis() {
+        return maximumMillis;
+    }
+
+    /**
+     * Decides, after a completed iteration, whether to start another one.
+     * The next iteration usually takes longer than all the previous ones
+     * together, so the search stops once half of the budget is used.
+     *
+     * @param elapsedMillis The time the search has taken so far.
+     * @param bestMove The best move of the iteration just completed.
+     * @return true if the search should stop and play bestMove.
+     */
+    public boolean shouldStop(long elapsedMillis, int bestMove) {
+        stableIterations = bestMove == lastBestMove ? stableIterations + 1 : 0;
+        lastBestMove = bestMove;
+        double factor = STABILITY_FACTORS[Math.min(stableIterations, STABILITY_FACTORS.length - 1)];
+        long budget = Math.min(maximumMillis, (long) (optimumMillis * factor));
+        return elapsedMillis >= budget / 2;
+    }
+}
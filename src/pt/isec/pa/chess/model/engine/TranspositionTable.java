@@ -0,0 +1,197 @@
+package pt.isec.pa.chess.model.engine;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of search results keyed by the Zobrist key of the position,
+ * shared by every search thread without locks.
+ * The table is a single long[] split in buckets of 4 entries (64 bytes,
+ * one cache line). Each entry is two longs: the data (move, score, depth,
+ * bound and age packed together) and the key XORed with the data. A read
+ * only accepts an entry when key ^ data gives back the key, so an entry
+ * torn by two threads writing at the same time is seen as a miss instead
+ * of wrong data.
+ * When a bucket is full, the entry replaced is the one with the lowest
+ * depth, counting entries left by older searches as shallower.
+ */
+public class TranspositionTable {
+    public static final int BOUND_EXACT = 1;
+    public static final int BOUND_LOWER = 2;   // o valor real é >= score (corte beta)
+    public static final int BOUND_UPPER = 3;   // o valor real é <= score (nenhuma jogada subiu alpha)
+
+    private static final int BUCKET_ENTRIES = 4;
+    private static final int BUCKET_LONGS = BUCKET_ENTRIES * 2;
+    private static final int BUCKET_BYTES = BUCKET_LONGS * Long.BYTES;
+    private static final long MAX_BUCKETS = 1L << 27; // long[] com 2^30 posições (8 GB)
+
+    // data: jogada (19 bits) | score + 32768 (16 bits) | profundidade (8 bits) | bound (2 bits) | idade (6 bits)
+    private static final int SCORE_SHIFT = 19;
+    private static final int DEPTH_SHIFT = 35;
+    private static final int BOUND_SHIFT = 43;
+    private static final int AGE_SHIFT = 45;
+    private static final int AGE_MASK = 0x3F;
+
+    private final long[] table;
+    private final int bucketMask;
+    private final int sizeMb;
+    private volatile int age;
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * Creates a table that uses at most the given memory. The number of
+     * buckets is rounded down to a power of two.
+     *
+     * @param sizeMb The size of the table in megabytes (at least 1).
+     */
+    public TranspositionTable(int sizeMb) {
+        this.sizeMb = Math.max(1, sizeMb);
+        long buckets = Long.highestOneBit((long) this.sizeMb * 1024 * 1024 / BUCKET_BYTES);
+        buckets = Math.max(1, Math.min(buckets, MAX_BUCKETS));
+        table = new long[(int) buckets * BUCKET_LONGS];
+        bucketMask = (int) buckets - 1;
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @param key The Zobrist key of the position.
+     * @return The packed entry data, or 0 if the position is not in the table.
+     */
+    public long probe(long key) {
+        probes.increment();
+        int base = bucket(key);
+        for (int i = base; i < base + BUCKET_LONGS; i += 2) {
+            long data = table[i + 1];
+            if ((table[i] ^ data) == key && data != 0) {
+                hits.increment();
+                return data;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Stores the result of a search of a position, in the entry that
+     * already holds the position or, if there is none, in the least
+     * valuable entry of its bucket.
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int base = bucket(key);
+        int currentAge = age;
+        int target = base;
+        int worst = Integer.MAX_VALUE;
+        for (int i = base; i < base + BUCKET_LONGS; i += 2) {
+            long data = table[i + 1];
+            if (data == 0 || (table[i] ^ data) == key) {
+                target = i;
+                // mantém a jogada antiga se a pesquisa nova não encontrou nenhuma
+                if (move == 0 && data != 0)
+                    move = move(data);
+                break;
+            }
+            int value = depth(data) - 8 * ((currentAge - age(data)) & AGE_MASK);
+            if (value < worst) {
+                worst = value;
+                target = i;
+            }
+        }
+        long entry = (move & 0x7FFFFL)
+                | ((long) (score + 32768) << SCORE_SHIFT)
+                | ((long) Math.min(depth, 255) << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT)
+                | ((long) currentAge << AGE_SHIFT);
+        table[target] = key ^ entry;
+        table[target + 1] = entry;
+    }
+
+    private int bucket(long key) {
+        return ((int) key & bucketMask) * BUCKET_LONGS;
+    }
+
+    /**
+     * Marks the start of a new search, so the entries of older searches
+     * are replaced first.
+     */
+    public void newSearch() {
+        age = (age + 1) & AGE_MASK;
+    }
+
+    /**
+     * Empties the table and its statistics.
+     */
+    public void clear() {
+        Arrays.fill(table, 0L);
+        resetStats();
+    }
+
+    public void resetStats() {
+        probes.reset();
+        hits.reset();
+    }
+
+    public long getProbes() {
+        return probes.sum();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the share of probes that found their position, from 0 to 1.
+     */
+    public double getHitRate() {
+        long total = probes.sum();
+        return total == 0 ? 0 : (double) hits.sum() / total;
+    }
+
+    /**
+     * Gets how full the table is with entries of the current search, in
+     * thousandths, estimated from the first 1000 buckets.
+     */
+    public int getFillPermille() {
+        int buckets = Math.min(1000, bucketMask + 1);
+        int currentAge = age;
+        int used = 0;
+        for (int i = 0; i < buckets * BUCKET_LONGS; i += 2) {
+            long data = table[i + 1];
+            if (data != 0 && age(data) == currentAge)
+                used++;
+        }
+        return used * 1000 / (buckets * BUCKET_ENTRIES);
+    }
+
+    public int getSizeMb() {
+        return sizeMb;
+    }
+
+    /**
+     * Gets the number of entries the table holds.
+     */
+    public int getCapacity() {
+        return (bucketMask + 1) * BUCKET_ENTRIES;
+    }
+
+    public static int move(long entry) {
+        return (int) (entry & 0x7FFFF);
+    }
+
+    public static int score(long entry) {
+        return (int) ((entry >>> SCORE_SHIFT) & 0xFFFF) - 32768;
+    }
+
+    public static int depth(long entry) {
+        return (int) ((entry >>> DEPTH_SHIFT) & 0xFF);
+    }
+
+    public static int bound(long entry) {
+        return (int) ((entry >>> BOUND_SHIFT) & 0x3);
+    }
+
+    public static int age(long entry) {
+        return (int) ((entry >>> AGE_SHIFT) & AGE_MASK);
+    }
+}
@@ -0,0 +1,97 @@
+package pt.isec.pa.chess.model.pgn;
+
+import pt.isec.pa.chess.model.ChessGame;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One game of a PGN file: its tags, the moves of the main line and the
+ * result. Comments, variations and annotations are not kept.
+ */
+public class PgnGame {
+    public static final String UNKNOWN_RESULT = "*";
+
+    private final Map<String, String> tags;
+    private final int[] moves;
+    private final String result;
+    private final String error;
+
+    /**
+     * @param tags The tags, in file order (copied).
+     * @param moves The packed moves (see Move) from the start position.
+     * @param result "1-0", "0-1", "1/2-1/2" or "*".
+     * @param error Why the moves stopped before the end of the game, or null.
+     */
+    public PgnGame(Map<String, String> tags, int[] moves, String result, String error) {
+        this.tags = Collections.unmodifiableMap(new LinkedHashMap<>(tags));
+        this.moves = moves;
+        this.result = result;
+        this.error = error;
+    }
+
+    public Map<String, String> getTags() {
+        return tags;
+    }
+
+    /**
+     * Gets a tag, or null if the game does not have it.
+     */
+    public String getTag(String name) {
+        return tags.get(name);
+    }
+
+    /**
+     * Gets the packed moves (see Move) of the main line, from the start position.
+     */
+    public int[] getMoves() {
+        return moves;
+    }
+
+    public int getPlies() {
+        return moves.length;
+    }
+
+    public String getResult() {
+        return result;
+    }
+
+    /**
+     * Gets the reason the moves were not all read (an illegal or unknown
+     * move), or null if they were; the moves before it are kept.
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Gets the FEN of the start position (the FEN tag), or null for the usual initial position.
+     */
+    public String getStartFen() {
+        return tags.get("FEN");
+    }
+
+    /**
+     * Plays the game into a new ChessGame that does not write to the ModelLog.
+     *
+     * @return The game after the last move.
+     */
+    public ChessGame toGame() {
+        ChessGame game = new ChessGame(tags.getOrDefault("White", "White"), tags.getOrDefault("Black", "Black"), false);
+        String fen = getStartFen();
+        if (fen != null && !game.importFen(fen))
+            throw new IllegalStateException("FEN inválido: " + fen);
+        for (int move : moves) {
+            game.makeMove(move);
+        }
+        game.updateGameState();
+        return game;
+    }
+
+    @Override
+    public String toString() {
+        return tags.getOrDefault("White", "?") + " - " + tags.getOrDefault("Black", "?") + " " + result
+                + " (" + moves.length + " meias-jogadas" + (error == null ? "" : ", " + error) + ")";
+    }
+}
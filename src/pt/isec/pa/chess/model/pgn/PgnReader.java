@@ -0,0 +1,452 @@
+package pt.isec.pa.chess.model.pgn;
+
+import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.data.Move;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Reads the games of a PGN file one at a time, through a fixed-size
+ * buffer, so files of any size are read with the same memory. The bytes
+ * are split into tokens as they arrive; comments, variations, annotation
+ * glyphs and escape lines are skipped without being kept, and each move
+ * is resolved against the legal moves of the position as soon as it is
+ * read (see San). A game with a move that can not be played keeps the
+ * moves before it and its error (see PgnGame.getError), and the reader
+ * goes on with the next game.
+ * A reader is used by one thread; readAll splits a file on game
+ * boundaries to read it with several.
+ */
+public class PgnReader implements Closeable {
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private static final int MAX_TOKEN = 255;          // jogadas e nomes de etiquetas maiores são cortados
+    private static final int MAX_TAG_VALUE = 4096;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final byte[] bytes;
+    private int position;
+    private int limit;
+    private boolean endOfInput;
+
+    private final ChessGame game = new ChessGame("White", "Black", false);
+    private final San san = new San();
+    private final StringBuilder token = new StringBuilder(16);
+    private final byte[] value = new byte[MAX_TAG_VALUE];
+    private final Map<String, String> tags = new LinkedHashMap<>();
+    private int[] moves = new int[256];
+    private int plies;
+    private long games;
+
+    public PgnReader(ReadableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param channel Where the PGN text comes from (closed by close).
+     * @param bufferSize The size of the read buffer, in bytes.
+     */
+    public PgnReader(ReadableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(Math.max(16, bufferSize));
+        this.bytes = buffer.array();
+    }
+
+    /**
+     * Opens a PGN file.
+     */
+    public static PgnReader open(Path file) throws IOException {
+        return new PgnReader(FileChannel.open(file, StandardOpenOption.READ));
+    }
+
+    /**
+     * Gets the number of games read so far.
+     */
+    public long getGameCount() {
+        return games;
+    }
+
+    /**
+     * Reads the next game.
+     *
+     * @return The game, or null at the end of the input.
+     * @throws IOException If the channel can not be read.
+     */
+    public PgnGame next() throws IOException {
+        tags.clear();
+        plies = 0;
+        String error = null;
+        String result = null;
+        boolean started = false;   // já leu uma etiqueta ou uma jogada
+        boolean inMoves = false;   // já passou das etiquetas
+
+        loop:
+        while (true) {
+            int c = read();
+            switch (c) {
+                case -1:
+                    break loop;
+                case ' ', '\t', '\n', '\r', '\f':
+                    continue;
+                case '[':
+                    // um jogo sem resultado acaba quando aparecem as etiquetas do seguinte
+                    if (inMoves) {
+                        position--;
+                        break loop;
+                    }
+                    readTag();
+                    started = true;
+                    continue;
+                case '{':
+                    skipUntil('}');
+                    continue;
+                case ';', '%':
+                    skipUntil('\n');
+                    continue;
+                case '(':
+                    skipVariation();
+                    continue;
+                case '$':
+                    readToken(c);
+                    continue;
+                case '*':
+                    result = PgnGame.UNKNOWN_RESULT;
+                    break loop;
+                default:
+                    break;
+            }
+
+            readToken(c);
+            if (isResult(token)) {
+                result = token.toString();
+                break;
+            }
+            int start = moveStart(token);
+            if (start == token.length())
+                continue; // só o número da jogada
+            if (!inMoves) {
+                inMoves = true;
+                started = true;
+                error = setUp();
+            }
+            if (error != null)
+                continue;
+            int move = san.parse(game, start == 0 ? token : token.subSequence(start, token.length()));
+            if (move == Move.NONE) {
+                error = "Jogada inválida \"" + token.substring(start) + "\" na meia-jogada " + (plies + 1);
+                continue;
+            }
+            game.makeMove(move);
+            if (plies == moves.length)
+                moves = Arrays.copyOf(moves, plies * 2);
+            moves[plies++] = move;
+        }
+
+        if (!started && result == null)
+            return null;
+        games++;
+        return new PgnGame(tags, Arrays.copyOf(moves, plies), result == null ? PgnGame.UNKNOWN_RESULT : result, error);
+    }
+
+    // posição inicial do jogo: a da etiqueta FEN ou a habitual
+    private String setUp() {
+        String fen = tags.get("FEN");
+        if (fen == null) {
+            game.resetGame();
+            return null;
+        }
+        return game.importFen(fen) ? null : "FEN inválido: " + fen;
+    }
+
+    private static boolean isResult(CharSequence text) {
+        return contentEquals(text, "1-0") || contentEquals(text, "0-1") || contentEquals(text, "1/2-1/2");
+    }
+
+    private static boolean contentEquals(CharSequence text, String expected) {
+        if (text.length() != expected.length())
+            return false;
+        for (int i = 0; i < expected.length(); i++) {
+            if (text.charAt(i) != expected.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    // salta o número da jogada ("12.", "12...", ou colado à jogada como em "12.e4")
+    private static int moveStart(CharSequence text) {
+        int i = 0;
+        while (i < text.length() && Character.isDigit(text.charAt(i)))
+            i++;
+        if (i == text.length())
+            return i;
+        if (text.charAt(i) != '.')
+            return 0;
+        while (i < text.length() && text.charAt(i) == '.')
+            i++;
+        return i;
+    }
+
+    // lê uma palavra até um espaço ou um delimitador, que fica por ler
+    private void readToken(int first) throws IOException {
+        token.setLength(0);
+        token.append((char) first);
+        while (true) {
+            int c = read();
+            if (c < 0)
+                return;
+            if (c <= ' ' || c == '{' || c == '}' || c == '(' || c == ')' || c == '[' || c == ']' || c == ';' || c == '$') {
+                position--;
+                return;
+            }
+            if (token.length() < MAX_TOKEN)
+                token.append((char) c);
+        }
+    }
+
+    private void readTag() throws IOException {
+        int c = read();
+        while (c >= 0 && c <= ' ')
+            c = read();
+        token.setLength(0);
+        while (c > ' ' && c != '"' && c != ']') {
+            if (token.length() < MAX_TOKEN)
+                token.append((char) c);
+            c = read();
+        }
+        while (c >= 0 && c != '"' && c != ']')
+            c = read();
+        int length = 0;
+        if (c == '"') {
+            c = read();
+            while (c >= 0 && c != '"') {
+                if (c == '\\')
+                    c = read();
+                if (c >= 0 && length < value.length)
+                    value[length++] = (byte) c;
+                c = read();
+            }
+        }
+        while (c >= 0 && c != ']' && c != '\n')
+            c = read();
+        if (token.length() > 0)
+            tags.put(token.toString(), new String(value, 0, length, StandardCharsets.UTF_8));
+    }
+
+    private void skipUntil(int end) throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c >= 0 && c != end);
+    }
+
+    // variantes, que podem ter outras variantes e comentários dentro
+    private void skipVariation() throws IOException {
+        int depth = 1;
+        while (depth > 0) {
+            int c = read();
+            if (c < 0)
+                return;
+            if (c == '(')
+                depth++;
+            else if (c == ')')
+                depth--;
+            else if (c == '{')
+                skipUntil('}');
+            else if (c == ';')
+                skipUntil('\n');
+        }
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill())
+            return -1;
+        return bytes[position++] & 0xFF;
+    }
+
+    private boolean fill() throws IOException {
+        if (endOfInput)
+            return false;
+        buffer.clear();
+        int count;
+        do {
+            count = channel.read(buffer);
+        } while (count == 0);
+        if (count < 0) {
+            endOfInput = true;
+            return false;
+        }
+        position = 0;
+        limit = count;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Reads every game of a file. With more than one thread the file is
+     * split into one part per thread, each starting at the tags of a game,
+     * and the parts are read at the same time, so the games arrive out of
+     * order and on several threads at once.
+     *
+     * @param file The PGN file.
+     * @param threads The number of threads (1 reads on the calling thread).
+     * @param consumer Receives each game; must be thread-safe with more than one thread.
+     * @return The number of games read.
+     * @throws IOException If the file can not be read.
+     */
+    public static long readAll(Path file, int threads, Consumer<PgnGame> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = split(channel, Math.max(1, threads));
+            if (bounds.length == 2)
+                return readPart(channel, bounds[0], bounds[1], consumer);
+
+            ExecutorService pool = Executors.newFixedThreadPool(bounds.length - 1, r -> {
+                Thread thread = new Thread(r, "pgn-reader");
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                List<Future<Long>> parts = new ArrayList<>();
+                for (int i = 0; i + 1 < bounds.length; i++) {
+                    long start = bounds[i];
+                    long end = bounds[i + 1];
+                    parts.add(pool.submit(() -> readPart(channel, start, end, consumer)));
+                }
+                long total = 0;
+                for (Future<Long> part : parts) {
+                    total += part.get();
+                }
+                return total;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Leitura interrompida", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException io)
+                    throw io;
+                throw new IOException(e.getCause());
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    private static long readPart(FileChannel channel, long start, long end, Consumer<PgnGame> consumer) throws IOException {
+        // a leitura por posição não mexe na posição do canal, por isso as partes partilham o mesmo canal
+        PgnReader reader = new PgnReader(new RangeChannel(channel, start, end));
+        for (PgnGame pgn = reader.next(); pgn != null; pgn = reader.next()) {
+            consumer.accept(pgn);
+        }
+        return reader.getGameCount();
+    }
+
+    /**
+     * Splits a file into parts that start at the tags of a game.
+     *
+     * @return The start of each part and the end of the file; fewer parts
+     *         than asked when there are not enough games.
+     */
+    static long[] split(FileChannel channel, int parts) throws IOException {
+        long size = channel.size();
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        for (int i = 1; i < parts; i++) {
+            long last = bounds.get(bounds.size() - 1);
+            long start = gameStart(channel, Math.max(last + 1, size * i / parts), size);
+            if (start < size && start > last)
+                bounds.add(start);
+        }
+        bounds.add(size);
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    // início da primeira linha de etiqueta, depois de from, cuja linha anterior (não vazia) não é uma etiqueta
+    private static long gameStart(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(DEFAULT_BUFFER_SIZE);
+        long offset = from;
+        boolean knownLine = false;     // a primeira linha começa a meio e não conta
+        boolean previousTag = true;
+        int first = -1;                // primeiro carácter visível da linha atual
+        long lineStart = from;
+        while (offset < size) {
+            chunk.clear();
+            int count = channel.read(chunk, offset);
+            if (count <= 0)
+                break;
+            for (int i = 0; i < count; i++) {
+                int c = chunk.get(i) & 0xFF;
+                if (c == '\n') {
+                    if (knownLine && first >= 0)
+                        previousTag = first == '[';
+                    knownLine = true;
+                    first = -1;
+                    lineStart = offset + i + 1;
+                } else if (first < 0 && c > ' ') {
+                    first = c;
+                    if (c == '[' && knownLine && !previousTag)
+                        return lineStart;
+                }
+            }
+            offset += count;
+        }
+        return size;
+    }
+
+    /**
+     * The bytes of a file between two positions, read by position.
+     */
+    private static class RangeChannel implements ReadableByteChannel {
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+
+        RangeChannel(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            if (position >= end)
+                return -1;
+            int limit = dst.limit();
+            dst.limit(dst.position() + (int) Math.min(dst.remaining(), end - position));
+            int count = channel.read(dst, position);
+            dst.limit(limit);
+            if (count > 0)
+                position += count;
+            return count;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return position < end;
+        }
+
+        @Override
+        public void close() {
+            // o canal do ficheiro é fechado por quem o abriu
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package pt.isec.pa.chess.model.pgn;
+
+import pt.isec.pa.chess.model.ChessGame;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes games as PGN: the seven required tags first ("?" when the game
+ * does not have them), then the other tags, then the moves in SAN with
+ * lines of at most 80 characters.
+ */
+public class PgnWriter {
+    private static final List<String> SEVEN_TAG_ROSTER = List.of("Event", "Site", "Date", "Round", "White", "Black", "Result");
+    private static final int LINE = 80;
+
+    private final Writer out;
+    private final San san = new San();
+    private final ChessGame game = new ChessGame("White", "Black", false);
+    private final StringBuilder line = new StringBuilder(LINE + 16);
+
+    public PgnWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes a game followed by an empty line.
+     */
+    public void write(PgnGame pgn) throws IOException {
+        write(pgn, null);
+    }
+
+    /**
+     * Writes a game followed by an empty line.
+     *
+     * @param pgn The game.
+     * @param comment A comment written before the result, or null.
+     */
+    public void write(PgnGame pgn, String comment) throws IOException {
+        String nl = System.lineSeparator();
+        Map<String, String> tags = pgn.getTags();
+        for (String name : SEVEN_TAG_ROSTER) {
+            String value = name.equals("Result") ? pgn.getResult() : tags.getOrDefault(name, name.equals("Date") ? "????.??.??" : "?");
+            tag(name, value);
+        }
+        for (Map.Entry<String, String> entry : tags.entrySet()) {
+            if (!SEVEN_TAG_ROSTER.contains(entry.getKey()))
+                tag(entry.getKey(), entry.getValue());
+        }
+        String fen = pgn.getStartFen();
+        if (fen != null && !tags.containsKey("SetUp"))
+            tag("SetUp", "1");
+        out.write(nl);
+
+        // as jogadas são refeitas a partir da posição inicial, para escrever cada uma em SAN
+        int fullmove = 1;
+        if (fen == null) {
+            game.resetGame();
+        } else {
+            if (!game.importFen(fen))
+                throw new IllegalArgumentException("FEN inválido: " + fen);
+            String[] fields = fen.trim().split("\\s+");
+            try {
+                if (fields.length > 5)
+                    fullmove = Math.max(1, Integer.parseInt(fields[5]));
+            } catch (NumberFormatException ignored) {
+                // o importFen já o teria recusado
+            }
+        }
+        line.setLength(0);
+        boolean first = true;
+        for (int move : pgn.getMoves()) {
+            boolean white = game.isWhiteToMove();
+            String number = white ? fullmove + ". " : first ? fullmove + "... " : "";
+            appendToken(number + san.format(game, move));
+            game.makeMove(move);
+            if (!white)
+                fullmove++;
+            first = false;
+        }
+        if (comment != null)
+            appendToken("{" + comment.replace('}', ')') + "}");
+        appendToken(pgn.getResult());
+        out.write(line.toString());
+        out.write(nl);
+        out.write(nl);
+    }
+
+    /**
+     * Renders a game as PGN text.
+     */
+    public static String format(PgnGame pgn) {
+        return format(pgn, null);
+    }
+
+    /**
+     * Renders a game as PGN text, with a comment before the result.
+     */
+    public static String format(PgnGame pgn, String comment) {
+        StringWriter text = new StringWriter();
+        try {
+            new PgnWriter(text).write(pgn, comment);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // um StringWriter não falha
+        }
+        return text.toString();
+    }
+
+    // junta uma palavra à linha, escrevendo a linha antes de exceder LINE caracteres
+    private void appendToken(String token) throws IOException {
+        if (line.length() > 0 && line.length() + 1 + token.length() > LINE) {
+            out.write(line.toString());
+            out.write(System.lineSeparator());
+            line.setLength(0);
+        }
+        if (line.length() > 0)
+            line.append(' ');
+        line.append(token);
+    }
+
+    private void tag(String name, String value) throws IOException {
+        out.write('[' + name + " \"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"]" + System.lineSeparator());
+    }
+}
@@ -0,0 +1,182 @@
+package pt.isec.pa.chess.model.pgn;
+
+import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.data.Move;
+import pt.isec.pa.chess.model.data.MoveList;
+import pt.isec.pa.chess.model.data.PieceType;
+import pt.isec.pa.chess.model.data.Square;
+
+/**
+ * Standard algebraic notation (SAN) of moves, as used in PGN files:
+ * "Nf3", "exd5", "O-O", "e8=Q+", with the file or rank of the origin only
+ * when another piece of the same type could go to the same square.
+ * Moves are read by matching the text against the legal moves of the
+ * position, so anything the move generator accepts is read and nothing
+ * else. Keeps its own move lists, so an instance is used by one thread at
+ * a time.
+ */
+public class San {
+    private static final PieceType[] TYPES = PieceType.values();
+    private static final int ANY = -1;
+
+    private final MoveList moves = new MoveList();
+    private final MoveList replies = new MoveList();
+
+    /**
+     * Renders a move in SAN, with "+" or "#" when it gives check or mate.
+     *
+     * @param game The game, in the position before the move (it is made and taken back).
+     * @param move A legal packed move of that position.
+     * @return The move in SAN.
+     */
+    public String format(ChessGame game, int move) {
+        StringBuilder sb = new StringBuilder(8);
+        int from = Move.from(move);
+        int to = Move.to(move);
+        PieceType type = typeAt(game, from);
+
+        if (Move.isCastle(move)) {
+            sb.append(Square.file(to) == 6 ? "O-O" : "O-O-O");
+        } else if (type == PieceType.PAWN) {
+            if (Move.isCapture(move) || Move.isEnPassant(move))
+                sb.append(fileChar(from)).append('x');
+            sb.append(Square.toString(to));
+            if (Move.isPromotion(move))
+                sb.append('=').append(Move.promotion(move).toSymbol(true));
+        } else {
+            sb.append(type.toSymbol(true));
+            appendDisambiguation(sb, game, type, from, to);
+            if (Move.isCapture(move))
+                sb.append('x');
+            sb.append(Square.toString(to));
+        }
+
+        game.makeMove(move);
+        if (game.isInCheck()) {
+            replies.clear();
+            game.generateLegalMoves(replies);
+            sb.append(replies.isEmpty() ? '#' : '+');
+        }
+        game.unmakeMove();
+        return sb.toString();
+    }
+
+    /**
+     * Finds the legal move written in SAN. Accepts the usual variants:
+     * "0-0" for castling, a missing "=" or a lowercase piece in promotions,
+     * "x" left out, and check or annotation marks ("+", "#", "!", "?").
+     *
+     * @param game The game, in the position of the move.
+     * @param text The move.
+     * @return The packed move, or Move.NONE if no legal move (or more than one) matches.
+     */
+    public int parse(ChessGame game, CharSequence text) {
+        int end = text.length();
+        while (end > 0 && "+#!?".indexOf(text.charAt(end - 1)) >= 0)
+            end--;
+        if (end < 2)
+            return Move.NONE;
+
+        moves.clear();
+        game.generateLegalMoves(moves);
+        char first = text.charAt(0);
+        if (first == 'O' || first == '0') {
+            boolean kingSide = end == 3;
+            if (!kingSide && end != 5)
+                return Move.NONE;
+            for (int i = 0; i < moves.size(); i++) {
+                int move = moves.get(i);
+                if (Move.isCastle(move) && (Square.file(Move.to(move)) == 6) == kingSide)
+                    return move;
+            }
+            return Move.NONE;
+        }
+
+        PieceType type = PieceType.PAWN;
+        int start = 0;
+        if ("KQRBN".indexOf(first) >= 0) {
+            type = PieceType.fromPieceSymbol(first);
+            start = 1;
+        }
+        PieceType promotion = null;
+        if (type == PieceType.PAWN && "QRBNqrbn".indexOf(text.charAt(end - 1)) >= 0) {
+            promotion = PieceType.fromPieceSymbol(text.charAt(end - 1));
+            end--;
+            if (end > 0 && text.charAt(end - 1) == '=')
+                end--;
+        }
+        if (end - start < 2)
+            return Move.NONE;
+        int to = square(text.charAt(end - 2), text.charAt(end - 1));
+        if (to == Square.NONE)
+            return Move.NONE;
+
+        // o que sobra entre a peça e o destino: coluna e/ou linha de origem, e o "x"
+        int fromFile = ANY;
+        int fromRank = ANY;
+        for (int i = start; i < end - 2; i++) {
+            char c = text.charAt(i);
+            if (c >= 'a' && c <= 'h')
+                fromFile = c - 'a';
+            else if (c >= '1' && c <= '8')
+                fromRank = c - '1';
+            else if (c != 'x' && c != ':' && c != '-')
+                return Move.NONE;
+        }
+
+        int found = Move.NONE;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int from = Move.from(move);
+            if (Move.to(move) != to || Move.isCastle(move) || typeAt(game, from) != type
+                    || (fromFile != ANY && Square.file(from) != fromFile)
+                    || (fromRank != ANY && Square.rank(from) != fromRank))
+                continue;
+            if (Move.isPromotion(move) && Move.promotion(move) != (promotion == null ? PieceType.QUEEN : promotion))
+                continue;
+            if (found != Move.NONE)
+                return Move.NONE; // ambígua
+            found = move;
+        }
+        return found;
+    }
+
+    private static int square(char file, char rank) {
+        if (file < 'a' || file > 'h' || rank < '1' || rank > '8')
+            return Square.NONE;
+        return Square.of(file - 'a', rank - '1');
+    }
+
+    // coluna, linha ou as duas, se outra peça do mesmo tipo também pode ir para a casa
+    private void appendDisambiguation(StringBuilder sb, ChessGame game, PieceType type, int from, int to) {
+        moves.clear();
+        game.generateLegalMoves(moves);
+        boolean ambiguous = false;
+        boolean sameFile = false;
+        boolean sameRank = false;
+        for (int i = 0; i < moves.size(); i++) {
+            int other = Move.from(moves.get(i));
+            if (other == from || Move.to(moves.get(i)) != to || typeAt(game, other) != type)
+                continue;
+            ambiguous = true;
+            sameFile |= Square.file(other) == Square.file(from);
+            sameRank |= Square.rank(other) == Square.rank(from);
+        }
+        if (!ambiguous)
+            return;
+        if (!sameFile)
+            sb.append(fileChar(from));
+        else if (!sameRank)
+            sb.append((char) ('1' + Square.rank(from)));
+        else
+            sb.append(Square.toString(from));
+    }
+
+    private static PieceType typeAt(ChessGame game, int square) {
+        return TYPES[game.getBoard().getPieceCode(square) % 6];
+    }
+
+    private static char fileChar(int square) {
+        return (char) ('a' + Square.file(square));
+    }
+}
@@ -0,0 +1,66 @@
+package pt.isec.pa.chess.model.selfplay;
+
+import pt.isec.pa.chess.model.data.Move;
+import pt.isec.pa.chess.model.pgn.PgnGame;
+import pt.isec.pa.chess.model.pgn.PgnWriter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * How self-play games are written: PGN (moves in SAN) or CSV (one line
+ * per game, moves in coordinate notation).
+ */
+public enum GameFormat {
+    PGN, CSV;
+
+    /**
+     * Gets the text written before the first game (the CSV header), or an empty string.
+     */
+    public String header() {
+        return this == CSV ? "round,white,black,result,termination,plies,millis,moves" + System.lineSeparator() : "";
+    }
+
+    /**
+     * Renders one game, ending with a line separator.
+     */
+    public String format(GameRecord record) {
+        return this == PGN ? toPgn(record) : toCsv(record);
+    }
+
+    private static String toCsv(GameRecord record) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(record.getRound()).append(',')
+                .append(csvField(record.getWhite())).append(',')
+                .append(csvField(record.getBlack())).append(',')
+                .append(record.getResult()).append(',')
+                .append(record.getTermination().name().toLowerCase()).append(',')
+                .append(record.getPlies()).append(',')
+                .append(record.getTimeMillis()).append(',');
+        int[] moves = record.getMoves();
+        for (int i = 0; i < moves.length; i++) {
+            if (i > 0)
+                sb.append(' ');
+            sb.append(Move.toString(moves[i]));
+        }
+        return sb.append(System.lineSeparator()).toString();
+    }
+
+    private static String csvField(String text) {
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0)
+            return text;
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    private static String toPgn(GameRecord record) {
+        Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("Event", "Self-play");
+        tags.put("Round", Integer.toString(record.getRound()));
+        tags.put("White", record.getWhite());
+        tags.put("Black", record.getBlack());
+        tags.put("PlyCount", Integer.toString(record.getPlies()));
+        tags.put("Termination", record.getTermination() == GameRecord.Termination.MAX_PLIES ? "adjudication" : "normal");
+        PgnGame pgn = new PgnGame(tags, record.getMoves(), record.getResult(), null);
+        return PgnWriter.format(pgn, record.getTermination().name().toLowerCase().replace('_', ' '));
+    }
+}
@@ -0,0 +1,83 @@
+package pt.isec.pa.chess.model.selfplay;
+
+import pt.isec.pa.chess.model.Winner;
+
+/**
+ * The outcome of one self-play game: who played, the moves and how it ended.
+ */
+public class GameRecord {
+    /**
+     * Why a game ended.
+     */
+    public enum Termination {
+        CHECKMATE, STALEMATE, REPETITION, FIFTY_MOVES, INSUFFICIENT_MATERIAL, MAX_PLIES
+    }
+
+    private final int round;
+    private final String white;
+    private final String black;
+    private final int[] moves;
+    private final Termination termination;
+    private final Winner winner;
+    private final long timeMillis;
+
+    public GameRecord(int round, String white, String black, int[] moves, Termination termination,
+                      Winner winner, long timeMillis) {
+        this.round = round;
+        this.white = white;
+        this.black = black;
+        this.moves = moves;
+        this.termination = termination;
+        this.winner = winner;
+        this.timeMillis = timeMillis;
+    }
+
+    /**
+     * Gets the number of the game, from 1, in the order the games were started.
+     */
+    public int getRound() {
+        return round;
+    }
+
+    public String getWhite() {
+        return white;
+    }
+
+    public String getBlack() {
+        return black;
+    }
+
+    /**
+     * Gets the packed moves (see Move) played from the initial position.
+     */
+    public int[] getMoves() {
+        return moves;
+    }
+
+    public int getPlies() {
+        return moves.length;
+    }
+
+    public Termination getTermination() {
+        return termination;
+    }
+
+    public Winner getWinner() {
+        return winner;
+    }
+
+    /**
+     * Gets the result as in PGN: "1-0", "0-1" or "1/2-1/2".
+     */
+    public String getResult() {
+        return switch (winner) {
+            case WHITE -> "1-0";
+            case BLACK -> "0-1";
+            default -> "1/2-1/2";
+        };
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+}
@@ -0,0 +1,57 @@
+package pt.isec.pa.chess.model.selfplay;
+
+import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.data.Move;
+import pt.isec.pa.chess.model.data.MoveList;
+import pt.isec.pa.chess.model.data.PieceType;
+import pt.isec.pa.chess.model.engine.Evaluator;
+
+import java.util.Random;
+
+/**
+ * Takes the most valuable piece it can, with the least valuable attacker,
+ * and promotes when it can; otherwise plays a random move. Does not look
+ * at what the opponent takes back.
+ */
+public class GreedyPlayer implements Player {
+    private static final PieceType[] TYPES = PieceType.values();
+
+    private final Random random;
+
+    public GreedyPlayer(long seed) {
+        random = new Random(seed);
+    }
+
+    @Override
+    public int chooseMove(ChessGame game, MoveList moves) {
+        int best = Move.NONE;
+        int bestGain = 0;
+        int ties = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int gain = gain(game, move);
+            if (gain > bestGain) {
+                best = move;
+                bestGain = gain;
+                ties = 1;
+            } else if (gain == bestGain && gain > 0 && random.nextInt(++ties) == 0) {
+                best = move; // escolhe ao acaso entre as capturas que valem o mesmo
+            }
+        }
+        return best != Move.NONE ? best : moves.get(random.nextInt(moves.size()));
+    }
+
+    // valor ganho, com a peça que captura a desempatar (MVV-LVA)
+    private static int gain(ChessGame game, int move) {
+        int gain = 0;
+        if (Move.isEnPassant(move))
+            gain += 16 * Evaluator.value(PieceType.PAWN);
+        else if (Move.isCapture(move))
+            gain += 16 * Evaluator.value(TYPES[game.getBoard().getPieceCode(Move.to(move)) % 6]);
+        if (Move.isPromotion(move))
+            gain += 16 * (Evaluator.value(Move.promotion(move)) - Evaluator.value(PieceType.PAWN));
+        if (gain > 0)
+            gain -= Evaluator.value(TYPES[game.getBoard().getPieceCode(Move.from(move)) % 6]) / 10;
+        return Math.max(0, gain);
+    }
+}
@@ -0,0 +1,67 @@
+package pt.isec.pa.chess.model.selfplay;
+
+import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.data.MoveList;
+import pt.isec.pa.chess.model.engine.SearchLimits;
+
+/**
+ * A player of a self-play game (see SelfPlay). Each game creates its own
+ * players, so a player only ever sees one game, on one thread.
+ */
+public interface Player {
+    /**
+     * Chooses the move to play.
+     *
+     * @param game The game, in the position to play; it may be changed
+     *             while choosing, as long as it is restored.
+     * @param moves The legal moves of the position, with every promotion piece (never empty).
+     * @return One of the moves.
+     */
+    int chooseMove(ChessGame game, MoveList moves);
+
+    /**
+     * Creates a player from its description: "random", "greedy" (takes the
+     * most valuable piece it can), or "search" with an optional limit per
+     * move, as in "search:depth=4", "search:nodes=20000" or "search:time=50"
+     * (milliseconds); plain "search" searches to depth 3.
+     *
+     * @param spec The description.
+     * @param game The game the player plays (a search player searches it).
+     * @param seed The seed of the random choices.
+     * @return The player.
+     * @throws IllegalArgumentException If the description is not valid.
+     */
+    static Player create(String spec, ChessGame game, long seed) {
+        String[] parts = spec.trim().toLowerCase().split(":", 2);
+        switch (parts[0]) {
+            case "random":
+                return new RandomPlayer(seed);
+            case "greedy":
+                return new GreedyPlayer(seed);
+            case "search":
+                return new SearchPlayer(game, parts.length > 1 ? limits(parts[1]) : SearchLimits.depth(3));
+            default:
+                throw new IllegalArgumentException("Jogador desconhecido: " + spec);
+        }
+    }
+
+    private static SearchLimits limits(String text) {
+        String[] option = text.split("=", 2);
+        try {
+            long value = Long.parseLong(option.length > 1 ? option[1] : "");
+            switch (option[0]) {
+                case "depth":
+                    return SearchLimits.depth((int) value);
+                case "nodes":
+                    return SearchLimits.nodes(value);
+                case "time":
+                    return SearchLimits.time(value);
+                default:
+                    break;
+            }
+        } catch (NumberFormatException e) {
+            // cai no erro abaixo
+        }
+        throw new IllegalArgumentException("Limite de pesquisa inválido: " + text);
+    }
+}
@@ -0,0 +1,23 @@
+package pt.isec.pa.chess.model.selfplay;
+
+import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.data.MoveList;
+
+import java.util.Random;
+
+/**
+ * Plays any legal move, all with the same chance. Reaches odd positions
+ * (under-promotions, bare kings, long shuffles) that stronger players avoid.
+ */
+public class RandomPlayer implements Player {
+    private final Random random;
+
+    public RandomPlayer(long seed) {
+        random = new Random(seed);
+    }
+
+    @Override
+    public int chooseMove(ChessGame game, MoveList moves) {
+        return moves.get(random.nextInt(moves.size()));
+    }
+}
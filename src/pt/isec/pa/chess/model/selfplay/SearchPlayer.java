@@ -0,0 +1,42 @@
+package pt.isec.pa.chess.model.selfplay;
+
+import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.data.MoveList;
+import pt.isec.pa.chess.model.engine.Search;
+import pt.isec.pa.chess.model.engine.SearchInfo;
+import pt.isec.pa.chess.model.engine.SearchLimits;
+import pt.isec.pa.chess.model.engine.SearchOptions;
+
+/**
+ * Plays the best move of a single-threaded search of the game, with the
+ * same limits for every move. The search (and its transposition table)
+ * is kept for the whole game.
+ */
+public class SearchPlayer implements Player {
+    private final Search search;
+    private final SearchLimits limits;
+
+    /**
+     * @param game The game played; the search runs on it directly.
+     * @param limits The limits of each move.
+     */
+    public SearchPlayer(ChessGame game, SearchLimits limits) {
+        this.search = new Search(game);
+        this.limits = limits;
+    }
+
+    /**
+     * Chooses which techniques the search uses, to compare them.
+     */
+    public void setOptions(SearchOptions options) {
+        search.setOptions(options);
+    }
+
+    @Override
+    public int chooseMove(ChessGame game, MoveList moves) {
+        SearchInfo info = search.search(limits, null);
+        int move = info.getBestMove();
+        // a pesquisa só devolve jogadas legais; por segurança, nunca sai da lista
+        return moves.contains(move) ? move : moves.get(0);
+    }
+}
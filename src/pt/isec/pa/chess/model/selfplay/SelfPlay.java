@@ -0,0 +1,219 @@
+package pt.isec.pa.chess.model.selfplay;
+
+import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.Winner;
+import pt.isec.pa.chess.model.data.Board;
+import pt.isec.pa.chess.model.data.MoveList;
+import pt.isec.pa.chess.model.data.PieceType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Plays many games between two players without the user interface, on a
+ * pool of threads, to test rule changes and compare players. Each game has
+ * its own ChessGame (which does not write to the ModelLog) and its own
+ * players, so games share nothing. A game ends by checkmate, stalemate,
+ * threefold repetition, the fifty-move rule, insufficient material or,
+ * as a draw, after a maximum number of plies.
+ * Every random choice comes from the seed of the run and the number of
+ * the game, so a run is repeated exactly whatever the number of threads
+ * (for players limited by depth or nodes, not by time).
+ */
+public class SelfPlay {
+    public static final int DEFAULT_MAX_PLIES = 400;
+
+    private final String white;
+    private final String black;
+    private int games = 100;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int maxPlies = DEFAULT_MAX_PLIES;
+    private int randomPlies;
+    private long seed = 1;
+    private boolean alternateColours;
+
+    /**
+     * Prepares a run between two players (see Player.create).
+     *
+     * @param white The description of the white player.
+     * @param black The description of the black player.
+     * @throws IllegalArgumentException If a description is not valid.
+     */
+    public SelfPlay(String white, String black) {
+        ChessGame game = new ChessGame(white, black, false);
+        Player.create(white, game, 0);
+        Player.create(black, game, 0);
+        this.white = white;
+        this.black = black;
+    }
+
+    public void setGames(int games) {
+        this.games = Math.max(1, games);
+    }
+
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Sets the number of plies after which a game is adjudicated a draw.
+     */
+    public void setMaxPlies(int maxPlies) {
+        this.maxPlies = Math.max(1, maxPlies);
+    }
+
+    /**
+     * Sets the number of random plies at the start of each game, so two
+     * search players do not play the same game every time.
+     */
+    public void setRandomPlies(int randomPlies) {
+        this.randomPlies = Math.max(0, randomPlies);
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Swaps the colours of the players every other game.
+     */
+    public void setAlternateColours(boolean alternateColours) {
+        this.alternateColours = alternateColours;
+    }
+
+    /**
+     * Plays every game and waits for them.
+     *
+     * @param listener Receives each game as soon as it ends, on the thread
+     *                 that played it (so possibly on several threads at
+     *                 once), or null.
+     * @return The totals of the run.
+     */
+    public SelfPlayStats run(Consumer<GameRecord> listener) {
+        SelfPlayStats stats = new SelfPlayStats();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "self-play");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long start = System.currentTimeMillis();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int round = 1; round <= games; round++) {
+                boolean swapped = alternateColours && round % 2 == 0;
+                String whiteSpec = swapped ? black : white;
+                String blackSpec = swapped ? white : black;
+                long gameSeed = seed * 1_000_003L + round;
+                int number = round;
+                futures.add(pool.submit(() -> {
+                    GameRecord record = play(number, whiteSpec, blackSpec, gameSeed, maxPlies, randomPlies);
+                    stats.add(record);
+                    if (listener != null)
+                        listener.accept(record);
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Erro num jogo: " + e.getCause(), e.getCause());
+        } finally {
+            pool.shutdownNow();
+            stats.setElapsedMillis(System.currentTimeMillis() - start);
+        }
+        return stats;
+    }
+
+    /**
+     * Plays one game on the calling thread.
+     *
+     * @param round The number of the game.
+     * @param white The description of the white player.
+     * @param black The description of the black player.
+     * @param seed The seed of the game's random choices.
+     * @param maxPlies The plies after which the game is a draw.
+     * @param randomPlies The number of random plies at the start.
+     * @return The game.
+     */
+    public static GameRecord play(int round, String white, String black, long seed, int maxPlies, int randomPlies) {
+        long start = System.currentTimeMillis();
+        ChessGame game = new ChessGame(white, black, false);
+        Random random = new Random(seed);
+        Player whitePlayer = Player.create(white, game, random.nextLong());
+        Player blackPlayer = Player.create(black, game, random.nextLong());
+        MoveList legal = new MoveList();
+        int[] moves = new int[Math.min(maxPlies, 1024)];
+        int plies = 0;
+        Map<Long, Integer> seen = new HashMap<>();
+        seen.put(game.getPositionKey(), 1);
+
+        GameRecord.Termination termination;
+        Winner winner = Winner.NONE;
+        while (true) {
+            legal.clear();
+            game.generateLegalMoves(legal);
+            if (legal.isEmpty()) {
+                if (game.isInCheck()) {
+                    termination = GameRecord.Termination.CHECKMATE;
+                    winner = game.isWhiteToMove() ? Winner.BLACK : Winner.WHITE;
+                } else {
+                    termination = GameRecord.Termination.STALEMATE;
+                }
+                break;
+            }
+            if (game.getHalfmoveClock() >= 100) {
+                termination = GameRecord.Termination.FIFTY_MOVES;
+                break;
+            }
+            if (isInsufficientMaterial(game.getBoard())) {
+                termination = GameRecord.Termination.INSUFFICIENT_MATERIAL;
+                break;
+            }
+            if (plies >= maxPlies) {
+                termination = GameRecord.Termination.MAX_PLIES;
+                break;
+            }
+
+            int move;
+            if (plies < randomPlies)
+                move = legal.get(random.nextInt(legal.size()));
+            else
+                move = (game.isWhiteToMove() ? whitePlayer : blackPlayer).chooseMove(game, legal);
+            game.makeMove(move);
+            if (plies == moves.length)
+                moves = Arrays.copyOf(moves, moves.length * 2);
+            moves[plies++] = move;
+            if (seen.merge(game.getPositionKey(), 1, Integer::sum) >= 3) {
+                termination = GameRecord.Termination.REPETITION;
+                break;
+            }
+        }
+        return new GameRecord(round, white, black, Arrays.copyOf(moves, plies), termination, winner,
+                System.currentTimeMillis() - start);
+    }
+
+    // só reis, ou reis e uma peça menor: ninguém pode dar mate
+    private static boolean isInsufficientMaterial(Board board) {
+        int pieces = board.getPieceCount();
+        if (pieces > 3)
+            return false;
+        for (int side = 0; side < 2; side++) {
+            boolean white = side == 0;
+            if (board.getPieceCount(PieceType.PAWN, white) + board.getPieceCount(PieceType.ROOK, white)
+                    + board.getPieceCount(PieceType.QUEEN, white) > 0)
+                return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,84 @@
+package pt.isec.pa.chess.model.selfplay;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Totals of a self-play run: results, how the games ended, plies and speed.
+ * Games are added from the threads that play them.
+ */
+public class SelfPlayStats {
+    private final Map<GameRecord.Termination, Integer> terminations = new EnumMap<>(GameRecord.Termination.class);
+    private int games;
+    private int whiteWins;
+    private int blackWins;
+    private long plies;
+    private long elapsedMillis;
+
+    synchronized void add(GameRecord record) {
+        games++;
+        plies += record.getPlies();
+        switch (record.getWinner()) {
+            case WHITE -> whiteWins++;
+            case BLACK -> blackWins++;
+            default -> { }
+        }
+        terminations.merge(record.getTermination(), 1, Integer::sum);
+    }
+
+    synchronized void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public synchronized int getGames() {
+        return games;
+    }
+
+    public synchronized int getWhiteWins() {
+        return whiteWins;
+    }
+
+    public synchronized int getBlackWins() {
+        return blackWins;
+    }
+
+    public synchronized int getDraws() {
+        return games - whiteWins - blackWins;
+    }
+
+    public synchronized double getAveragePlies() {
+        return games == 0 ? 0 : (double) plies / games;
+    }
+
+    /**
+     * Gets the number of games that ended in each way.
+     */
+    public synchronized Map<GameRecord.Termination, Integer> getTerminations() {
+        return new EnumMap<>(terminations);
+    }
+
+    public synchronized long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public synchronized double getGamesPerSecond() {
+        return games * 1000.0 / Math.max(1, elapsedMillis);
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%d jogos em %.1f s (%.1f jogos/s), %.1f meias-jogadas em média%n",
+                games, elapsedMillis / 1000.0, getGamesPerSecond(), getAveragePlies()));
+        sb.append(String.format("Brancas %d (%.1f%%), pretas %d (%.1f%%), empates %d (%.1f%%)%n",
+                whiteWins, percent(whiteWins), blackWins, percent(blackWins), getDraws(), percent(getDraws())));
+        for (Map.Entry<GameRecord.Termination, Integer> entry : terminations.entrySet()) {
+            sb.append(String.format("  %-22s %d%n", entry.getKey(), entry.getValue()));
+        }
+        return sb.toString();
+    }
+
+    private double percent(int count) {
+        return games == 0 ? 0 : 100.0 * count / games;
+    }
+}
@@ -0,0 +1,311 @@
+package pt.isec.pa.chess.model.tablebase;
+
+import pt.isec.pa.chess.model.data.Board;
+import pt.isec.pa.chess.model.data.PieceType;
+import pt.isec.pa.chess.model.data.Square;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The pieces of an endgame table (like KRvKN) and how its positions are
+ * numbered. Only one of the two colourings of a material has a table:
+ * the one where white is the stronger side (KRvKN, not KNvKR); the other
+ * is probed with the colours swapped and the board flipped.
+ * A position is numbered by the side to move and the squares of the
+ * pieces, ordered by piece code (see Board.pieceCode), so the white king
+ * comes first. The board is turned so the white king is on the a1-d1-d4
+ * triangle (10 squares), or on files a-d when there are pawns, which can
+ * only be mirrored left to right (32 squares); with the white king on the
+ * a1-d4 diagonal the position and its mirror on the diagonal both fit, and
+ * the smaller number is used. Each position has a single number, found
+ * in constant time.
+ */
+public final class Material {
+    public static final int MAX_PIECES = 4;
+    // número de peças de cada tipo (exceto os reis) de 0 a 2, em base 3
+    static final int KEYS = 59049;
+
+    private static final PieceType[] NAME_ORDER = {PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT, PieceType.PAWN};
+    private static final int[] STRENGTH = {0, 9, 3, 5, 1, 3};
+    private static final int[] POW3 = new int[10];
+
+    // [operação][casa]: bit 0 espelha as colunas, bit 1 as linhas, bit 2 troca colunas com linhas (depois de espelhar)
+    static final int[][] TRANSFORM = new int[8][64];
+    private static final int[] KING_OP = new int[64];
+    private static final int[] PAWN_KING_OP = new int[64];
+    private static final int[] KING_SLOT = new int[64];
+    private static final int[] PAWN_KING_SLOT = new int[64];
+    private static final int[] SLOT_SQUARE = new int[10];
+    private static final int[] PAWN_SLOT_SQUARE = new int[32];
+
+    private static final Material[] BY_KEY = new Material[KEYS];
+    private static final boolean[] FLIPPED = new boolean[KEYS];
+    private static final List<Material> ALL = new ArrayList<>();
+
+    static {
+        for (int i = 0; i < POW3.length; i++) {
+            POW3[i] = i == 0 ? 1 : POW3[i - 1] * 3;
+        }
+        for (int op = 0; op < 8; op++) {
+            for (int square = 0; square < 64; square++) {
+                int file = Square.file(square);
+                int rank = Square.rank(square);
+                if ((op & 1) != 0)
+                    file = 7 - file;
+                if ((op & 2) != 0)
+                    rank = 7 - rank;
+                TRANSFORM[op][square] = (op & 4) != 0 ? Square.of(rank, file) : Square.of(file, rank);
+            }
+        }
+        int slots = 0;
+        for (int square = 0; square < 64; square++) {
+            int file = Square.file(square);
+            int rank = Square.rank(square);
+            int op = (file > 3 ? 1 : 0) | (rank > 3 ? 2 : 0);
+            if ((rank > 3 ? 7 - rank : rank) > (file > 3 ? 7 - file : file))
+                op |= 4;
+            KING_OP[square] = op;
+            PAWN_KING_OP[square] = file > 3 ? 1 : 0;
+            KING_SLOT[square] = -1;
+            PAWN_KING_SLOT[square] = file > 3 ? -1 : rank * 4 + file;
+            if (file <= 3)
+                PAWN_SLOT_SQUARE[rank * 4 + file] = square;
+            if (file <= 3 && rank <= file) {
+                SLOT_SQUARE[slots] = square;
+                KING_SLOT[square] = slots++;
+            }
+        }
+
+        // todas as combinações com até MAX_PIECES peças, cada uma ligada à sua tabela
+        for (int w1 = 0; w1 <= 5; w1++) {
+            for (int w2 = w1; w2 <= 5; w2++) {
+                for (int b1 = 0; b1 <= 5; b1++) {
+                    for (int b2 = b1; b2 <= 5; b2++) {
+                        List<Integer> codes = new ArrayList<>();
+                        for (int type : new int[] {w1, w2})
+                            if (type != 0)
+                                codes.add(type);
+                        for (int type : new int[] {b1, b2})
+                            if (type != 0)
+                                codes.add(type + 6);
+                        if (codes.isEmpty() || codes.size() + 2 > MAX_PIECES)
+                            continue;
+                        register(codes);
+                    }
+                }
+            }
+        }
+    }
+
+    private final int[] codes;
+    private final int key;
+    private final String name;
+    private final boolean pawns;
+    private final int slots;
+    private final int size;
+
+    private Material(int[] codes) {
+        this.codes = codes;
+        int k = 0;
+        boolean hasPawns = false;
+        for (int code : codes) {
+            if (code % 6 != 0)
+                k += POW3[slot(code)];
+            hasPawns |= code % 6 == PieceType.PAWN.ordinal();
+        }
+        key = k;
+        pawns = hasPawns;
+        slots = pawns ? 32 : 10;
+        int positions = 2 * slots;
+        for (int i = 1; i < codes.length; i++) {
+            positions *= 64;
+        }
+        size = positions;
+        name = side(true) + "v" + side(false);
+    }
+
+    private static void register(List<Integer> nonKings) {
+        List<Integer> all = new ArrayList<>(nonKings);
+        all.add(0);
+        all.add(6);
+        Collections.sort(all);
+        int[] codes = all.stream().mapToInt(Integer::intValue).toArray();
+        int[] flippedCodes = all.stream().mapToInt(code -> code < 6 ? code + 6 : code - 6).sorted().toArray();
+        Material material = new Material(codes);
+        Material flipped = new Material(flippedCodes);
+        int order = Integer.compare(material.strength(true), material.strength(false));
+        if (order == 0)
+            order = material.side(true).compareTo(material.side(false)) <= 0 ? 1 : -1;
+        // a tabela é a da cor em que as brancas são o lado mais forte
+        Material canonical = order > 0 ? material : flipped;
+        if (BY_KEY[canonical.key] == null) {
+            BY_KEY[canonical.key] = canonical;
+            ALL.add(canonical);
+        }
+        BY_KEY[material.key] = BY_KEY[canonical.key];
+        FLIPPED[material.key] = order <= 0 && material.key != canonical.key;
+    }
+
+    // posição do tipo de peça na chave (0..9), para códigos que não são reis
+    static int slot(int code) {
+        return code < 6 ? code - 1 : code - 2;
+    }
+
+    static int keyOf(int code) {
+        return code % 6 == 0 ? 0 : POW3[slot(code)];
+    }
+
+    /**
+     * Gets the table of a material key, or null if it has none.
+     */
+    static Material forKey(int key) {
+        return key >= 0 && key < KEYS ? BY_KEY[key] : null;
+    }
+
+    /**
+     * Checks whether a material key is probed with the colours swapped.
+     */
+    static boolean isFlipped(int key) {
+        return FLIPPED[key];
+    }
+
+    /**
+     * Gets every material with a table, with at most maxPieces pieces
+     * counting the kings, from the fewest pieces to the most.
+     *
+     * @param maxPieces 3 or 4.
+     */
+    public static List<Material> all(int maxPieces) {
+        List<Material> result = new ArrayList<>();
+        for (Material material : ALL) {
+            if (material.getPieceCount() <= maxPieces)
+                result.add(material);
+        }
+        result.sort((a, b) -> a.getPieceCount() != b.getPieceCount()
+                ? Integer.compare(a.getPieceCount(), b.getPieceCount()) : a.name.compareTo(b.name));
+        return result;
+    }
+
+    /**
+     * Finds a material by its name, like "KRvKN", in either colouring.
+     *
+     * @return The material with a table, or null if there is none.
+     */
+    public static Material forName(String name) {
+        for (Material material : ALL) {
+            if (material.name.equals(name))
+                return material;
+        }
+        return null;
+    }
+
+    private int strength(boolean white) {
+        int total = 0;
+        for (int code : codes) {
+            if ((code < 6) == white)
+                total += STRENGTH[code % 6];
+        }
+        return total;
+    }
+
+    private String side(boolean white) {
+        StringBuilder sb = new StringBuilder("K");
+        for (PieceType type : NAME_ORDER) {
+            for (int code : codes) {
+                if (code == Board.pieceCode(type, white))
+                    sb.append(type.toSymbol(true));
+            }
+        }
+        return sb.toString();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the number of pieces, kings included.
+     */
+    public int getPieceCount() {
+        return codes.length;
+    }
+
+    /**
+     * Gets the piece code of each piece, in the order of the squares of an index.
+     */
+    int getCode(int piece) {
+        return codes[piece];
+    }
+
+    int getKey() {
+        return key;
+    }
+
+    public boolean hasPawns() {
+        return pawns;
+    }
+
+    /**
+     * Gets the number of positions of the table (both sides to move), one byte each.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the number of a position.
+     *
+     * @param whiteToMove The side to move.
+     * @param squares The square of each piece, 8 bits each, in the order of getCode.
+     * @return The index in the table.
+     */
+    int index(boolean whiteToMove, long squares) {
+        int king = (int) (squares & 0xFF);
+        int op = pawns ? PAWN_KING_OP[king] : KING_OP[king];
+        int index = index(op, whiteToMove, squares);
+        int turned = TRANSFORM[op][king];
+        if (!pawns && Square.file(turned) == Square.rank(turned))
+            index = Math.min(index, index(op ^ 4, whiteToMove, squares));
+        return index;
+    }
+
+    private int index(int op, boolean whiteToMove, long squares) {
+        int[] transform = TRANSFORM[op];
+        int king = transform[(int) (squares & 0xFF)];
+        int index = (whiteToMove ? 0 : slots) + (pawns ? PAWN_KING_SLOT[king] : KING_SLOT[king]);
+        for (int i = 1; i < codes.length; i++) {
+            index = index * 64 + transform[(int) ((squares >>> (8 * i)) & 0xFF)];
+        }
+        return index;
+    }
+
+    /**
+     * Gets the squares of the position with a number (the inverse of index,
+     * for the orientation the number was made with).
+     *
+     * @return The squares, 8 bits each, in the order of getCode.
+     */
+    long squares(int index) {
+        long squares = 0;
+        for (int i = codes.length - 1; i >= 1; i--) {
+            squares |= (long) (index & 63) << (8 * i);
+            index >>>= 6;
+        }
+        int slot = index % slots;
+        return squares | (pawns ? PAWN_SLOT_SQUARE[slot] : SLOT_SQUARE[slot]);
+    }
+
+    /**
+     * Checks the side to move of the position with a number.
+     */
+    boolean isWhiteToMove(int index) {
+        return index < size / 2;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,174 @@
+package pt.isec.pa.chess.model.tablebase;
+
+import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.data.Attacks;
+import pt.isec.pa.chess.model.data.Board;
+import pt.isec.pa.chess.model.data.PieceType;
+import pt.isec.pa.chess.model.data.Square;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Endgame tables of up to four pieces (see TablebaseGenerator), each a
+ * memory-mapped file with one byte per position (see Material): 0 for a
+ * draw, n > 0 when the side to move mates in n moves and -(n + 1) when it
+ * is mated in n moves. A probe finds the table from the piece counts and
+ * reads one byte, so it takes constant time and does not allocate; the
+ * tables are only read, so any number of threads can probe them.
+ * Positions with castling rights or a possible en passant capture are not
+ * in the tables.
+ */
+public class Tablebase {
+    public static final int UNKNOWN = Integer.MIN_VALUE;
+    public static final int DRAW = 0;
+
+    private static final String EXTENSION = ".tb";
+
+    private final ByteBuffer[] tables = new ByteBuffer[Material.KEYS];
+    private int count;
+
+    /**
+     * Maps every table found in a directory. Files of the wrong size are ignored.
+     *
+     * @param directory The directory with the .tb files.
+     * @return The tables.
+     * @throws IOException If a table can not be mapped.
+     */
+    public static Tablebase open(Path directory) throws IOException {
+        Tablebase tablebase = new Tablebase();
+        for (Material material : Material.all(Material.MAX_PIECES)) {
+            Path file = fileOf(directory, material);
+            if (Files.isRegularFile(file) && Files.size(file) == material.size())
+                tablebase.put(material, map(file));
+        }
+        return tablebase;
+    }
+
+    static Path fileOf(Path directory, Material material) {
+        return directory.resolve(material.getName() + EXTENSION);
+    }
+
+    static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    synchronized void put(Material material, ByteBuffer table) {
+        if (tables[material.getKey()] == null)
+            count++;
+        tables[material.getKey()] = table;
+    }
+
+    /**
+     * Gets the number of tables.
+     */
+    public synchronized int getTableCount() {
+        return count;
+    }
+
+    /**
+     * Checks if there is a table for a material, in either colouring.
+     */
+    public boolean has(Material material) {
+        return tables[material.getKey()] != null;
+    }
+
+    /**
+     * Looks up the current position of a game.
+     *
+     * @param game The game.
+     * @return The value of the position for the side to move (see the class
+     *         comment), or UNKNOWN if it is not in the tables.
+     */
+    public int probe(ChessGame game) {
+        Board board = game.getBoard();
+        int pieces = board.getPieceCount();
+        if (pieces > Material.MAX_PIECES || game.getCastlingRights() != 0)
+            return UNKNOWN;
+        boolean white = game.isWhiteToMove();
+        // as tabelas não têm en passant: só conta se houver um peão que possa tomar
+        int enPassant = game.getEnPassantSquare();
+        if (enPassant != Square.NONE && (Attacks.pawn(!white, enPassant) & board.getBitboard(PieceType.PAWN, white)) != 0)
+            return UNKNOWN;
+        if (pieces == 2)
+            return DRAW;
+
+        long packed = 0;
+        int n = 0;
+        for (int side = 0; side < 2; side++) {
+            for (int i = 0; i < board.getPieceCount(side == 0); i++) {
+                int square = board.getPieceSquare(side == 0, i);
+                packed |= (long) (board.getPieceCode(square) << 6 | square) << (10 * n++);
+            }
+        }
+        return probe(packed, n, white);
+    }
+
+    /**
+     * Looks up a position given by its pieces.
+     *
+     * @param pieces Each piece as its code (see Board.pieceCode) times 64 plus its square, 10 bits each.
+     * @param n The number of pieces.
+     * @param whiteToMove The side to move.
+     * @return The value for the side to move, or UNKNOWN if there is no table.
+     */
+    int probe(long pieces, int n, boolean whiteToMove) {
+        if (n == 2)
+            return DRAW;
+        int key = 0;
+        for (int i = 0; i < n; i++) {
+            key += Material.keyOf((int) (pieces >>> (10 * i + 6)) & 0xF);
+        }
+        Material material = Material.forKey(key);
+        if (material == null || material.getPieceCount() != n)
+            return UNKNOWN;
+        ByteBuffer table = tables[material.getKey()];
+        if (table == null)
+            return UNKNOWN;
+        boolean flip = Material.isFlipped(key);
+
+        // as casas pela ordem dos códigos da tabela, com as cores trocadas se for preciso
+        long squares = 0;
+        int placed = 0;
+        for (int code = 0; code < Board.PIECE_CODES; code++) {
+            for (int i = 0; i < n; i++) {
+                int pieceCode = (int) (pieces >>> (10 * i + 6)) & 0xF;
+                int square = (int) (pieces >>> (10 * i)) & 0x3F;
+                if (flip) {
+                    pieceCode = pieceCode < 6 ? pieceCode + 6 : pieceCode - 6;
+                    square ^= 56;
+                }
+                if (pieceCode == code)
+                    squares |= (long) square << (8 * placed++);
+            }
+        }
+        return table.get(material.index(whiteToMove != flip, squares));
+    }
+
+    /**
+     * Checks if a probe result is a win for the side to move.
+     */
+    public static boolean isWin(int result) {
+        return result != UNKNOWN && result > 0;
+    }
+
+    /**
+     * Checks if a probe result is a loss for the side to move.
+     */
+    public static boolean isLoss(int result) {
+        return result != UNKNOWN && result < 0;
+    }
+
+    /**
+     * Gets the number of moves to mate of a win or a loss (0 when the side to move is already mated).
+     */
+    public static int movesToMate(int result) {
+        return result > 0 ? result : -result - 1;
+    }
+}
@@ -0,0 +1,533 @@
+package pt.isec.pa.chess.model.tablebase;
+
+import pt.isec.pa.chess.model.data.Attacks;
+import pt.isec.pa.chess.model.data.PieceType;
+import pt.isec.pa.chess.model.data.Square;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Builds the endgame tables by retrograde analysis. Each table starts with
+ * one pass over its positions: mates and stalemates are found, and moves
+ * that capture or promote are looked up in the smaller tables they lead
+ * to. Then, one ply of distance at a time, the positions already solved
+ * are taken back a move: a position where the side to move is mated in n
+ * plies makes every position before it a win in n + 1, and a position
+ * lost by the side to move once all of its moves lead to wins for the
+ * opponent. What is never solved is a draw.
+ * The tables have no en passant rights, but a double push that the
+ * opponent can take en passant is valued with that capture: the opponent
+ * picks the better of taking and of the position without the right.
+ * Tables that do not depend on each other are built at the same time, one
+ * per thread; each is written to a file and mapped as soon as it is done,
+ * so the tables that need it can probe it. Tables already in the
+ * directory are not built again.
+ */
+public class TablebaseGenerator {
+    // estado de cada posição durante a geração
+    private static final byte UNSOLVED = 0;
+    private static final byte ILLEGAL = 1;
+    private static final byte WIN = 2;
+    private static final byte LOSS = 3;
+    private static final byte DRAW = 4;
+    private static final byte KIND_MASK = 7;
+    private static final byte ESCAPE = 8; // tem uma jogada para fora da tabela que empata
+    private static final int MAX_PLY = 254;
+    private static final int NO_EN_PASSANT = Integer.MIN_VALUE;
+
+    private static final int PAWN = PieceType.PAWN.ordinal();
+    private static final int[] PROMOTIONS = {
+            PieceType.QUEEN.ordinal(), PieceType.ROOK.ordinal(), PieceType.BISHOP.ordinal(), PieceType.KNIGHT.ordinal()
+    };
+
+    private final Path directory;
+    private final int threads;
+
+    /**
+     * Prepares the generation of the tables into a directory.
+     *
+     * @param directory Where the .tb files are written (created if missing).
+     * @param threads How many tables are built at the same time.
+     */
+    public TablebaseGenerator(Path directory, int threads) {
+        this.directory = directory;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Builds every table with at most maxPieces pieces that is not in the
+     * directory yet, and maps them all.
+     *
+     * @param maxPieces 3 or 4.
+     * @param progress Receives a line for each table built or found (may be null).
+     * @return The tables.
+     * @throws IOException If a table can not be written or mapped.
+     */
+    public Tablebase generate(int maxPieces, Consumer<String> progress) throws IOException {
+        Files.createDirectories(directory);
+        Tablebase tablebase = new Tablebase();
+        List<Material> materials = Material.all(Math.min(maxPieces, Material.MAX_PIECES));
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "tablebase-generator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Map<Material, CompletableFuture<Void>> built = new HashMap<>();
+            for (Material material : materials) {
+                schedule(material, built, tablebase, progress, pool);
+            }
+            CompletableFuture.allOf(built.values().toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException io)
+                throw io.getCause();
+            throw e;
+        } finally {
+            pool.shutdown();
+        }
+        return tablebase;
+    }
+
+    // cada tabela começa quando as tabelas para onde as suas capturas e promoções levam estiverem prontas
+    private CompletableFuture<Void> schedule(Material material, Map<Material, CompletableFuture<Void>> built,
+                                             Tablebase tablebase, Consumer<String> progress, ExecutorService pool) {
+        CompletableFuture<Void> future = built.get(material);
+        if (future != null)
+            return future;
+        List<CompletableFuture<Void>> needed = new ArrayList<>();
+        for (Material dependency : dependencies(material)) {
+            needed.add(schedule(dependency, built, tablebase, progress, pool));
+        }
+        future = CompletableFuture.allOf(needed.toArray(new CompletableFuture<?>[0]))
+                .thenRunAsync(() -> build(material, tablebase, progress), pool);
+        built.put(material, future);
+        return future;
+    }
+
+    // tabelas das posições depois de uma captura ou de uma promoção
+    static List<Material> dependencies(Material material) {
+        List<Material> result = new ArrayList<>();
+        int key = material.getKey();
+        for (int i = 0; i < material.getPieceCount(); i++) {
+            int code = material.getCode(i);
+            if (code % 6 == 0)
+                continue;
+            addDependency(result, key - Material.keyOf(code));
+            if (code % 6 == PAWN) {
+                for (int type : PROMOTIONS) {
+                    addDependency(result, key - Material.keyOf(code) + Material.keyOf(code - PAWN + type));
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void addDependency(List<Material> result, int key) {
+        Material dependency = Material.forKey(key);
+        if (dependency != null && !result.contains(dependency))
+            result.add(dependency);
+    }
+
+    private void build(Material material, Tablebase tablebase, Consumer<String> progress) {
+        try {
+            Path file = Tablebase.fileOf(directory, material);
+            long start = System.currentTimeMillis();
+            boolean exists = Files.isRegularFile(file) && Files.size(file) == material.size();
+            if (!exists) {
+                byte[] values = new TableBuilder(material, tablebase).build();
+                Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+                Files.write(temporary, values);
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            ByteBuffer table = Tablebase.map(file);
+            tablebase.put(material, table);
+            if (progress != null)
+                progress.accept(String.format("%s: %s (%d posições, %d ms)", material.getName(),
+                        exists ? "já existia" : "gerada", material.size(), System.currentTimeMillis() - start));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The retrograde analysis of one table. The pieces of a position are
+     * the squares of an index (see Material), 8 bits each.
+     */
+    private static class TableBuilder {
+        private final Material material;
+        private final Tablebase tablebase;
+        private final int n;
+        private final int[] codes;
+        private final byte[] state;
+        private final byte[] depth;
+        private final byte[] counter;
+        private final byte[] exitLoss;
+        private final int[] found = new int[256];
+        private final int[] foundEnPassant = new int[256];
+        private int foundCount;
+        private int maxScheduled;
+        // lances duplos que o adversário ganha a tomar en passant: [meia-jogada] -> pares (antes, depois)
+        private final Map<Integer, List<Long>> enPassantWins = new HashMap<>();
+        private final Set<Long> decremented = new HashSet<>();
+
+        TableBuilder(Material material, Tablebase tablebase) {
+            this.material = material;
+            this.tablebase = tablebase;
+            n = material.getPieceCount();
+            codes = new int[n];
+            for (int i = 0; i < n; i++) {
+                codes[i] = material.getCode(i);
+            }
+            int size = material.size();
+            state = new byte[size];
+            depth = new byte[size];
+            counter = new byte[size];
+            exitLoss = new byte[size];
+        }
+
+        byte[] build() {
+            for (int index = 0; index < state.length; index++) {
+                initialize(index);
+            }
+            for (int ply = 0; ply <= maxScheduled; ply++) {
+                for (long edge : enPassantWins.getOrDefault(ply, List.of())) {
+                    decrement((int) (edge >>> 32), (int) edge, ply);
+                }
+                for (int index = 0; index < state.length; index++) {
+                    int kind = state[index] & KIND_MASK;
+                    if ((kind == WIN || kind == LOSS) && (depth[index] & 0xFF) == ply)
+                        retract(index, kind == LOSS, ply);
+                }
+            }
+
+            // distância em meias-jogadas -> jogadas, no formato das tabelas
+            byte[] values = new byte[state.length];
+            for (int index = 0; index < state.length; index++) {
+                int kind = state[index] & KIND_MASK;
+                int plies = depth[index] & 0xFF;
+                if (kind == WIN)
+                    values[index] = (byte) Math.min(127, (plies + 1) / 2);
+                else if (kind == LOSS)
+                    values[index] = (byte) -Math.min(128, plies / 2 + 1);
+            }
+            return values;
+        }
+
+        private void initialize(int index) {
+            boolean white = material.isWhiteToMove(index);
+            long squares = material.squares(index);
+            if (!isLegal(index, white, squares)) {
+                state[index] = ILLEGAL;
+                return;
+            }
+            foundCount = 0;
+            int moves = 0;
+            int bestWin = Integer.MAX_VALUE;
+            int worstLoss = -1;
+            boolean escape = false;
+            long occupancy = occupancy(squares);
+            for (int i = 0; i < n; i++) {
+                if (isWhite(i) != white)
+                    continue;
+                int from = square(squares, i);
+                int type = codes[i] % 6;
+                long targets = targets(i, from, occupancy, squares);
+                for (; targets != 0; targets &= targets - 1) {
+                    int to = Long.numberOfTrailingZeros(targets);
+                    int captured = pieceAt(squares, to);
+                    boolean promotion = type == PAWN && (Square.rank(to) == 0 || Square.rank(to) == 7);
+                    long child = (squares & ~(0xFFL << (8 * i))) | ((long) to << (8 * i));
+                    if (isAttacked(kingSquare(child, white), !white, child, captured))
+                        continue;
+                    moves++;
+                    if (captured < 0 && !promotion) {
+                        int next = material.index(!white, child);
+                        addFound(next, NO_EN_PASSANT);
+                        // se o adversário ganha a tomar en passant, perde-se no máximo nessa distância
+                        int enPassant = Math.abs(to - from) == 16 ? enPassant(child, i, !white) : NO_EN_PASSANT;
+                        if (enPassant != NO_EN_PASSANT && enPassant > 0) {
+                            enPassantWins.computeIfAbsent(enPassant, k -> new ArrayList<>()).add((long) index << 32 | next);
+                            maxScheduled = Math.max(maxScheduled, enPassant);
+                        }
+                        continue;
+                    }
+                    // captura ou promoção: o valor vem de uma tabela mais pequena
+                    for (int p = 0; p < (promotion ? PROMOTIONS.length : 1); p++) {
+                        int value = probeExit(child, captured, i, promotion ? PROMOTIONS[p] : type, !white);
+                        if (value > 0)
+                            worstLoss = Math.max(worstLoss, 2 * value);
+                        else if (value < 0)
+                            bestWin = Math.min(bestWin, 2 * (-value - 1) + 1);
+                        else
+                            escape = true;
+                    }
+                }
+            }
+
+            if (moves == 0) {
+                state[index] = isAttacked(kingSquare(squares, white), !white, squares, -1) ? LOSS : DRAW;
+                return;
+            }
+            counter[index] = (byte) foundCount;
+            if (bestWin != Integer.MAX_VALUE) {
+                schedule(index, WIN, bestWin);
+            } else if (escape) {
+                state[index] = UNSOLVED | ESCAPE;
+            } else if (foundCount == 0) {
+                schedule(index, LOSS, worstLoss);
+            } else {
+                exitLoss[index] = (byte) Math.max(0, worstLoss);
+            }
+        }
+
+        // desfaz uma jogada do lado que acabou de jogar, a partir de uma posição resolvida
+        private void retract(int index, boolean lost, int ply) {
+            boolean white = material.isWhiteToMove(index);
+            boolean mover = !white;
+            long squares = material.squares(index);
+            long occupancy = occupancy(squares);
+            foundCount = 0;
+            for (int i = 0; i < n; i++) {
+                if (isWhite(i) != mover)
+                    continue;
+                int to = square(squares, i);
+                int type = codes[i] % 6;
+                long origins;
+                if (type == PAWN) {
+                    origins = 0;
+                    int back = mover ? -8 : 8;
+                    int rank = Square.rank(to);
+                    if ((mover ? rank >= 2 : rank <= 5) && (occupancy & Square.bit(to + back)) == 0) {
+                        origins |= Square.bit(to + back);
+                        if ((mover ? rank == 3 : rank == 4) && (occupancy & Square.bit(to + 2 * back)) == 0)
+                            origins |= Square.bit(to + 2 * back);
+                    }
+                } else {
+                    origins = attacks(type, to, occupancy) & ~occupancy;
+                }
+                for (; origins != 0; origins &= origins - 1) {
+                    int from = Long.numberOfTrailingZeros(origins);
+                    long previous = (squares & ~(0xFFL << (8 * i))) | ((long) from << (8 * i));
+                    // antes da jogada, o rei do lado que não jogava não podia estar em xeque
+                    if (isAttacked(kingSquare(previous, white), mover, previous, -1))
+                        continue;
+                    boolean doublePush = type == PAWN && Math.abs(to - from) == 16;
+                    addFound(material.index(mover, previous), doublePush ? enPassant(squares, i, white) : NO_EN_PASSANT);
+                }
+            }
+            for (int f = 0; f < foundCount; f++) {
+                int previous = found[f];
+                int enPassant = foundEnPassant[f];
+                int kind = state[previous] & KIND_MASK;
+                if (lost) {
+                    // com en passant, o adversário só perde se também perder a tomar
+                    int plies = enPassant == NO_EN_PASSANT ? ply : enPassant < 0 ? Math.max(ply, -enPassant) : -1;
+                    if (plies >= 0 && (kind == UNSOLVED || (kind == WIN && (depth[previous] & 0xFF) > plies + 1)))
+                        schedule(previous, WIN, plies + 1);
+                } else if (enPassant != NO_EN_PASSANT && enPassant > 0) {
+                    decrement(previous, index, ply);
+                } else if (kind == UNSOLVED) {
+                    countDown(previous, ply);
+                }
+            }
+        }
+
+        // uma jogada com en passant que perde conta uma só vez: a que chegar primeiro
+        private void decrement(int previous, int next, int ply) {
+            if (decremented.add((long) previous << 32 | next) && (state[previous] & KIND_MASK) == UNSOLVED)
+                countDown(previous, ply);
+        }
+
+        private void countDown(int previous, int ply) {
+            int left = (counter[previous] & 0xFF) - 1;
+            counter[previous] = (byte) left;
+            if (left == 0 && (state[previous] & ESCAPE) == 0)
+                schedule(previous, LOSS, Math.max(ply + 1, exitLoss[previous] & 0xFF));
+        }
+
+        /**
+         * Values the en passant captures of the pawn that just made a double push.
+         *
+         * @return For the side that takes: the plies to its mate when it wins
+         *         (positive), minus the plies to its mate when it loses, 0 for
+         *         a draw, or NO_EN_PASSANT if it can not take.
+         */
+        private int enPassant(long squares, int pushed, boolean white) {
+            int to = square(squares, pushed);
+            int target = to + (white ? 8 : -8);
+            int best = NO_EN_PASSANT;
+            for (int i = 0; i < n; i++) {
+                int from = square(squares, i);
+                if (isWhite(i) != white || codes[i] % 6 != PAWN || Square.rank(from) != Square.rank(to)
+                        || Math.abs(Square.file(from) - Square.file(to)) != 1)
+                    continue;
+                long child = (squares & ~(0xFFL << (8 * i))) | ((long) target << (8 * i));
+                if (isAttacked(kingSquare(child, white), !white, child, pushed))
+                    continue;
+                int value = probeExit(child, pushed, i, PAWN, !white);
+                int plies = value > 0 ? -2 * value : value < 0 ? 2 * (-value - 1) + 1 : 0;
+                if (best == NO_EN_PASSANT || rank(plies) > rank(best))
+                    best = plies;
+            }
+            return best;
+        }
+
+        // ordena os resultados em meias-jogadas: ganhar mais depressa, empatar, perder mais devagar
+        private static int rank(int plies) {
+            return plies > 0 ? 2 * MAX_PLY - plies : plies == 0 ? 0 : -2 * MAX_PLY - plies;
+        }
+
+        private void schedule(int index, byte kind, int ply) {
+            if (ply > MAX_PLY)
+                throw new IllegalStateException(material.getName() + ": mate a mais de " + MAX_PLY + " meias-jogadas");
+            state[index] = kind;
+            depth[index] = (byte) ply;
+            maxScheduled = Math.max(maxScheduled, ply);
+        }
+
+        // junta um índice aos encontrados, sem repetir (posições simétricas dão o mesmo índice)
+        private void addFound(int index, int enPassant) {
+            for (int f = 0; f < foundCount; f++) {
+                if (found[f] == index)
+                    return;
+            }
+            foundEnPassant[foundCount] = enPassant;
+            found[foundCount++] = index;
+        }
+
+        private int probeExit(long child, int captured, int moved, int newType, boolean whiteToMove) {
+            long pieces = 0;
+            int count = 0;
+            for (int i = 0; i < n; i++) {
+                if (i == captured)
+                    continue;
+                int code = i == moved ? codes[i] - codes[i] % 6 + newType : codes[i];
+                pieces |= (long) (code << 6 | square(child, i)) << (10 * count++);
+            }
+            int value = tablebase.probe(pieces, count, whiteToMove);
+            if (value == Tablebase.UNKNOWN)
+                throw new IllegalStateException(material.getName() + ": falta a tabela de uma captura ou promoção");
+            return value;
+        }
+
+        private boolean isLegal(int index, boolean white, long squares) {
+            long occupancy = 0;
+            for (int i = 0; i < n; i++) {
+                int square = square(squares, i);
+                if ((occupancy & Square.bit(square)) != 0)
+                    return false;
+                if (codes[i] % 6 == PAWN && (Square.rank(square) == 0 || Square.rank(square) == 7))
+                    return false;
+                occupancy |= Square.bit(square);
+            }
+            // cada posição tem um só índice; o lado que não joga não pode estar em xeque
+            return material.index(white, squares) == index
+                    && !isAttacked(kingSquare(squares, !white), white, squares, -1);
+        }
+
+        // casas para onde a peça i pode ir, sem contar com xeques
+        private long targets(int i, int from, long occupancy, long squares) {
+            boolean white = isWhite(i);
+            long own = 0;
+            long enemy = 0;
+            for (int j = 0; j < n; j++) {
+                // o rei adversário nunca é capturado
+                if (isWhite(j) == white || codes[j] % 6 == 0)
+                    own |= Square.bit(square(squares, j));
+                else
+                    enemy |= Square.bit(square(squares, j));
+            }
+            int type = codes[i] % 6;
+            if (type != PAWN)
+                return attacks(type, from, occupancy) & ~own;
+            int forward = white ? 8 : -8;
+            long targets = Attacks.pawn(white, from) & enemy;
+            if ((occupancy & Square.bit(from + forward)) == 0) {
+                targets |= Square.bit(from + forward);
+                int rank = Square.rank(from);
+                if ((white ? rank == 1 : rank == 6) && (occupancy & Square.bit(from + 2 * forward)) == 0)
+                    targets |= Square.bit(from + 2 * forward);
+            }
+            return targets;
+        }
+
+        // verifica se uma casa é atacada pelas peças de um lado, sem a peça capturada
+        private boolean isAttacked(int target, boolean byWhite, long squares, int captured) {
+            long occupancy = 0;
+            for (int i = 0; i < n; i++) {
+                if (i != captured)
+                    occupancy |= Square.bit(square(squares, i));
+            }
+            for (int i = 0; i < n; i++) {
+                if (i == captured || isWhite(i) != byWhite)
+                    continue;
+                int from = square(squares, i);
+                int type = codes[i] % 6;
+                long attacks = type == PAWN ? Attacks.pawn(byWhite, from) : attacks(type, from, occupancy);
+                if ((attacks & Square.bit(target)) != 0)
+                    return true;
+            }
+            return false;
+        }
+
+        private static long attacks(int type, int square, long occupancy) {
+            if (type == PieceType.KING.ordinal())
+                return Attacks.king(square);
+            if (type == PieceType.KNIGHT.ordinal())
+                return Attacks.knight(square);
+            if (type == PieceType.BISHOP.ordinal())
+                return Attacks.bishop(square, occupancy);
+            if (type == PieceType.ROOK.ordinal())
+                return Attacks.rook(square, occupancy);
+            return Attacks.queen(square, occupancy);
+        }
+
+        private long occupancy(long squares) {
+            long occupancy = 0;
+            for (int i = 0; i < n; i++) {
+                occupancy |= Square.bit(square(squares, i));
+            }
+            return occupancy;
+        }
+
+        private int pieceAt(long squares, int square) {
+            for (int i = 0; i < n; i++) {
+                if (square(squares, i) == square)
+                    return i;
+            }
+            return -1;
+        }
+
+        private int kingSquare(long squares, boolean white) {
+            for (int i = 0; i < n; i++) {
+                if (codes[i] == (white ? 0 : 6))
+                    return square(squares, i);
+            }
+            return Square.NONE;
+        }
+
+        private boolean isWhite(int piece) {
+            return codes[piece] < 6;
+        }
+
+        private static int square(long squares, int piece) {
+            return (int) (squares >>> (8 * piece)) & 0xFF;
+        }
+    }
+}
@@ -8,6 +8,9 @@ import javafx.scene.image.Image;
 import javafx.scene.paint.Color;
 import pt.isec.pa.chess.model.ChessGameManager;
 import pt.isec.pa.chess.model.GameState;
+import pt.isec.pa.chess.model.data.Move;
+import pt.isec.pa.chess.model.data.Square;
+import pt.isec.pa.chess.model.engine.SearchInfo;
 import pt.isec.pa.chess.modelui.ModelUI;
 import pt.isec.pa.chess.ui.res.ImageManager;
 import pt.isec.pa.chess.ui.res.SoundManager;
@@ -21,6 +24,7 @@ public class BoardView extends Canvas {
     private double squareSize;
     private String selectedPosition = null;
     private List<String> highlightedMoves = new ArrayList<>();
+    private int analysisMove = Move.NONE;
 
     public BoardView (ChessGameManager gameManager) {
         this.gameManager = gameManager;
@@ -117,8 +121,19 @@ public class BoardView extends Canvas {
                     squareSize, squareSize);
         }
 
+        // melhor jogada encontrada até agora pela análise do modo de aprendizagem
+        if (gameManager.getModelUi().isLearningMode() && analysisMove != Move.NONE) {
+            gc.setStroke(Color.LIMEGREEN);
+            gc.setLineWidth(3);
+            for (int square : new int[]{Move.from(analysisMove), Move.to(analysisMove)}) {
+                gc.strokeRect(
+                        padding + Square.file(square) * squareSize + 2,
+                        padding + (boardSize - 1 - Square.rank(square)) * squareSize + 2,
+                        squareSize - 4, squareSize - 4);
+            }
+        }
+
         if (gameManager.getModelUi().isLearningMode() && !highlightedMoves.isEmpty()){
-            gc.setStroke(Color.BLUE);
             gc.setLineWidth(2);
             for (String move : highlightedMoves) {
                 if (move.length() != 2) continue;
@@ -127,6 +142,15 @@ public class BoardView extends Canvas {
                 int colIndex = col - 'a';
                 int rowIndex = boardSize - row;
 
+                // capturas que perdem material depois das recapturas ficam a laranja, com o saldo
+                int exchange = selectedPosition == null ? 0 : gameManager.getExchangeValue(selectedPosition, move);
+                gc.setStroke(exchange < 0 ? Color.ORANGERED : Color.BLUE);
+                if (exchange < 0) {
+                    gc.setFill(Color.ORANGERED);
+                    gc.fillText(String.valueOf(exchange),
+                            padding + colIndex * squareSize + 8,
+                            padding + rowIndex * squareSize + squareSize - 8);
+                }
                 gc.strokeRect(
                         padding + colIndex * squareSize + 5,
                         padding + rowIndex * squareSize + 5,
@@ -140,8 +164,14 @@ public class BoardView extends Canvas {
         gameManager.addPropertyChangeListener(ChessGameManager.PROP_BOARD,evt -> {
             selectedPosition = null;
             highlightedMoves.clear();
+            analysisMove = Move.NONE;
             update();});
 
+        gameManager.addPropertyChangeListener(ChessGameManager.PROP_ANALYSIS, evt -> {
+            analysisMove = ((SearchInfo) evt.getNewValue()).getBestMove();
+            update();
+        });
+
         widthProperty().addListener((obs, oldVal, newVal) -> update());
         heightProperty().addListener((obs, oldVal, newVal) -> update());
 
@@ -149,6 +179,7 @@ public class BoardView extends Canvas {
             // Reage à ativação/desativação do modo de aprendizagem
             if (!(Boolean) evt.getNewValue()) { // SE O NOVO VALOR FOR FALSO
                 highlightedMoves.clear();
+                analysisMove = Move.NONE;
             }
             update();
         });
@@ -1,6 +1,7 @@
 package pt.isec.pa.chess.ui.gui;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 import pt.isec.pa.chess.model.ChessGameManager;
@@ -14,6 +15,8 @@ public class MainJFX extends Application {
 
     @Override
     public void start (Stage stage){
+        // o motor pensa noutra thread, as jogadas dele são aplicadas na thread do JavaFX
+        gameManager.setUiExecutor(Platform::runLater);
         RootPane root = new RootPane(gameManager);
         Scene scene = new Scene(root,800,800);
         stage.setScene(scene);
@@ -4,6 +4,7 @@ package pt.isec.pa.chess.ui.gui;
 
 import javafx.application.Platform;
 import javafx.scene.control.*;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import pt.isec.pa.chess.model.ChessGameManager;
 import pt.isec.pa.chess.model.ModelLog;
@@ -16,10 +17,11 @@ import java.util.Scanner;
 
 public class MainMenuBar extends MenuBar {
     private final ChessGameManager gameManager;
-    Menu mnGame, mnMode;
-    MenuItem mnNew, mnOpen,mnSave,mnImport, mnExport,mnQuit,mnUndo,mnRedo;
+    Menu mnGame, mnMode, mnComputer;
+    MenuItem mnNew, mnOpen,mnSave,mnImport, mnExport,mnImportPgn, mnExportPgn,mnQuit,mnUndo,mnRedo;
+    MenuItem mnComputerMove, mnComputerStop, mnComputerClock, mnComputerBook, mnComputerNoBook, mnComputerTablebases;
     RadioMenuItem mnNormal,mnLearning;
-    CheckMenuItem mnShowMoves;
+    CheckMenuItem mnShowMoves, mnComputerWhite, mnComputerBlack, mnComputerAllCores, mnComputerPonder;
 
 
 
@@ -38,10 +40,12 @@ public class MainMenuBar extends MenuBar {
         mnSave = new MenuItem("Save");
         mnImport = new MenuItem("Import");
         mnExport = new MenuItem ("Export");
+        mnImportPgn = new MenuItem("Import PGN...");
+        mnExportPgn = new MenuItem("Export PGN...");
         mnQuit = new MenuItem ("Quit");
 
         mnGame.getItems().addAll (
-                mnNew, mnImport, mnExport, new SeparatorMenuItem(),mnSave,mnOpen, new SeparatorMenuItem(), mnQuit
+                mnNew, mnImport, mnExport, mnImportPgn, mnExportPgn, new SeparatorMenuItem(),mnSave,mnOpen, new SeparatorMenuItem(), mnQuit
         );
 
         mnMode = new Menu ("Mode");
@@ -62,7 +66,23 @@ public class MainMenuBar extends MenuBar {
 
         mnMode.getItems().addAll(mnNormal,mnLearning, new SeparatorMenuItem(), mnUndo,mnRedo,mnShowMoves);
 
-        this.getMenus().addAll(mnGame,mnMode);
+        mnComputer = new Menu("Computer");
+        mnComputerWhite = new CheckMenuItem("Plays White");
+        mnComputerBlack = new CheckMenuItem("Plays Black");
+        mnComputerMove = new MenuItem("Move now");
+        mnComputerStop = new MenuItem("Stop thinking");
+        mnComputerAllCores = new CheckMenuItem("Use all cores");
+        mnComputerPonder = new CheckMenuItem("Think on my time");
+        mnComputerClock = new MenuItem("Time control...");
+        mnComputerBook = new MenuItem("Opening book...");
+        mnComputerNoBook = new MenuItem("No opening book");
+        mnComputerTablebases = new MenuItem("Endgame tables...");
+
+        mnComputer.getItems().addAll(mnComputerWhite, mnComputerBlack, new SeparatorMenuItem(), mnComputerMove, mnComputerStop,
+                new SeparatorMenuItem(), mnComputerAllCores, mnComputerPonder, mnComputerClock,
+                new SeparatorMenuItem(), mnComputerBook, mnComputerNoBook, mnComputerTablebases);
+
+        this.getMenus().addAll(mnGame,mnMode,mnComputer);
 
     }
 
@@ -93,6 +113,52 @@ public class MainMenuBar extends MenuBar {
 
         });
 
+        mnComputerWhite.setOnAction(e -> gameManager.setComputerPlayer(true, mnComputerWhite.isSelected()));
+        mnComputerBlack.setOnAction(e -> gameManager.setComputerPlayer(false, mnComputerBlack.isSelected()));
+        mnComputerMove.setOnAction(e -> gameManager.playComputerMove());
+        mnComputerStop.setOnAction(e -> gameManager.stopComputer());
+        mnComputerAllCores.setOnAction(e -> gameManager.setComputerThreads(
+                mnComputerAllCores.isSelected() ? Runtime.getRuntime().availableProcessors() : 1));
+        mnComputerPonder.setOnAction(e -> gameManager.setPonder(mnComputerPonder.isSelected()));
+        mnComputerClock.setOnAction(e -> {
+            // minutos + segundos de incremento
+            ChoiceDialog<String> dialog = new ChoiceDialog<>("None", "None", "1+0", "3+2", "5+3", "15+10");
+            dialog.setTitle("Time control");
+            dialog.setHeaderText("Minutes per side + seconds added per move");
+            dialog.setContentText("Clock: ");
+            dialog.showAndWait().ifPresent(choice -> {
+                if (choice.equals("None")) {
+                    gameManager.setTimeControl(0, 0);
+                } else {
+                    String[] parts = choice.split("\\+");
+                    gameManager.setTimeControl(Long.parseLong(parts[0]) * 60_000, Long.parseLong(parts[1]) * 1000);
+                }
+            });
+        });
+
+        mnComputerBook.setOnAction(e -> {
+            FileChooser fileChooser = new FileChooser();
+            fileChooser.setTitle("Opening book");
+            fileChooser.setInitialDirectory(new File("."));
+            fileChooser.getExtensionFilters().addAll(
+                    new FileChooser.ExtensionFilter("Opening book (*.bin)", "*.bin")
+            );
+            File hFile = fileChooser.showOpenDialog(this.getScene().getWindow());
+            if (hFile != null) {
+                gameManager.loadBook(hFile.getAbsolutePath());
+            }
+        });
+        mnComputerNoBook.setOnAction(e -> gameManager.closeBook());
+        mnComputerTablebases.setOnAction(e -> {
+            DirectoryChooser directoryChooser = new DirectoryChooser();
+            directoryChooser.setTitle("Endgame tables");
+            directoryChooser.setInitialDirectory(new File("."));
+            File hDirectory = directoryChooser.showDialog(this.getScene().getWindow());
+            if (hDirectory != null) {
+                gameManager.loadTablebases(hDirectory.getAbsolutePath());
+            }
+        });
+
         mnNew.setOnAction(e ->{
             String white = askPlayerName ("White player name:");
             if (white == null || white.isBlank()) {
@@ -191,6 +257,30 @@ public class MainMenuBar extends MenuBar {
 
         });
 
+        mnExportPgn.setOnAction(e -> {
+            FileChooser fileChooser = new FileChooser();
+            fileChooser.setTitle("Export Game (PGN)");
+            fileChooser.setInitialDirectory(new File("."));
+            fileChooser.getExtensionFilters().addAll(
+                    new FileChooser.ExtensionFilter("PGN Files", "*.pgn")
+            );
+            File hFile = fileChooser.showSaveDialog(this.getScene().getWindow());
+            if (hFile != null)
+                gameManager.exportPgn(hFile.getAbsolutePath());
+        });
+
+        mnImportPgn.setOnAction(e -> {
+            FileChooser fileChooser = new FileChooser();
+            fileChooser.setTitle("Import Game (PGN)");
+            fileChooser.setInitialDirectory(new File("."));
+            fileChooser.getExtensionFilters().addAll(
+                    new FileChooser.ExtensionFilter("PGN Files", "*.pgn")
+            );
+            File hFile = fileChooser.showOpenDialog(this.getScene().getWindow());
+            if (hFile != null)
+                gameManager.importPgn(hFile.getAbsolutePath());
+        });
+
 
     }
 
@@ -10,6 +10,8 @@ import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import pt.isec.pa.chess.model.ChessGameManager;
+import pt.isec.pa.chess.model.data.Move;
+import pt.isec.pa.chess.model.engine.SearchInfo;
 import pt.isec.pa.chess.modelui.ModelUI;
 
 import java.util.Optional;
@@ -19,6 +21,12 @@ public class RootPane extends BorderPane {
     private Label lblPlayerWhite;
     private Label lblPlayerBlack;
     private Label lblCurrentPlayer;
+    private Label lblEngine;
+    private Label lblAnalysis;
+    private Label lblBook;
+    private Label lblTablebase;
+    private Label lblEvaluation;
+    private Label lblClock;
     private BoardView boardView;
     ToggleButton btnSound;
 
@@ -37,6 +45,9 @@ public class RootPane extends BorderPane {
         lblCurrentPlayer = new Label("Current Player: " + gameManager.getCurrentPlayerName());
         lblCurrentPlayer.setMinWidth(160);
         lblCurrentPlayer.setMaxWidth(160);
+        lblEvaluation = new Label();
+        lblEvaluation.setMinWidth(90);
+        lblClock = new Label();
 
         setTop (
                new VBox(
@@ -47,14 +58,30 @@ public class RootPane extends BorderPane {
         btnSound = new ToggleButton("Sound ON");
         btnSound.setSelected(true);
         // Info dos jogadores acima do tabuleiro
-        HBox topInfo = new HBox(20, lblPlayerWhite, lblPlayerBlack, lblCurrentPlayer,btnSound);
+        HBox topInfo = new HBox(20, lblPlayerWhite, lblPlayerBlack, lblCurrentPlayer, lblEvaluation, lblClock, btnSound);
         topInfo.setPadding(new Insets(10));
 
         // Tabuleiro
         boardView = new BoardView(gameManager);
 
+        // Informação do motor (profundidade, avaliação, nós/s e variante principal)
+        lblEngine = new Label();
+        lblEngine.setPadding(new Insets(0, 10, 0, 10));
+
+        // Análise do modo de aprendizagem (avaliação do ponto de vista das brancas)
+        lblAnalysis = new Label();
+        lblAnalysis.setPadding(new Insets(0, 10, 0, 10));
+
+        // Jogadas do livro de aberturas para a posição atual (modo de aprendizagem)
+        lblBook = new Label();
+        lblBook.setPadding(new Insets(0, 10, 0, 10));
+
+        // Resultado da posição nas tabelas de finais (modo de aprendizagem)
+        lblTablebase = new Label();
+        lblTablebase.setPadding(new Insets(0, 10, 0, 10));
+
         // Agrupar info e tabuleiro
-        VBox centerBox = new VBox(topInfo, boardView);
+        VBox centerBox = new VBox(topInfo, lblEngine, lblAnalysis, lblBook, lblTablebase, boardView);
         centerBox.setPadding(new Insets(10));
         setCenter(centerBox);
 
@@ -62,13 +89,35 @@ public class RootPane extends BorderPane {
 
     private void registerHandlers(){
         boardView.widthProperty().bind(widthProperty(). subtract(50));
-        boardView.heightProperty().bind(heightProperty().subtract(100));
+        boardView.heightProperty().bind(heightProperty().subtract(120));
         gameManager.getModelUi().addPropertyChangeListener(ModelUI.PROP_SOUND, evt -> {
             update();
         });
         gameManager.addPropertyChangeListener(ChessGameManager.PROP_CURRENT_PLAYER, evt -> {
             update();
         });
+        gameManager.addPropertyChangeListener(ChessGameManager.PROP_BOARD, evt -> {
+            update();
+        });
+        gameManager.addPropertyChangeListener(ChessGameManager.PROP_SEARCH_INFO, evt -> {
+            SearchInfo info = (SearchInfo) evt.getNewValue();
+            lblEngine.setText(String.format("Depth %d  %s  %,d nodes/s  %s", info.getDepth(),
+                    info.isMate() ? "mate " + info.getMateIn() : String.format("%+.2f", info.getScore() / 100.0),
+                    info.getNodesPerSecond(), info.getPvText()));
+        });
+
+        gameManager.addPropertyChangeListener(ChessGameManager.PROP_ANALYSIS, evt -> {
+            SearchInfo info = (SearchInfo) evt.getNewValue();
+            int sign = gameManager.isWhiteToMove() ? 1 : -1;
+            lblAnalysis.setText(String.format("Analysis: depth %d  %s  best %s", info.getDepth(),
+                    info.isMate() ? "mate " + info.getMateIn() : String.format("%+.2f", sign * info.getScore() / 100.0),
+                    Move.toString(info.getBestMove())));
+        });
+        gameManager.getModelUi().addPropertyChangeListener(ModelUI.PROP_LEARNING_MODE, evt -> {
+            if (!(Boolean) evt.getNewValue())
+                lblAnalysis.setText("");
+            update();
+        });
 
         btnSound.setOnAction(e -> {
             gameManager.getModelUi().toggleSound();
@@ -85,7 +134,20 @@ public class RootPane extends BorderPane {
         lblPlayerWhite.setText("White: " + gameManager.getWhiteName());
         lblPlayerBlack.setText("Black: " + gameManager.getBlackName());
         lblCurrentPlayer.setText("Current Player: " + gameManager.getCurrentPlayerName());
+        lblEvaluation.setText(String.format("Eval: %+.2f", gameManager.getEvaluation() / 100.0));
+        // o relógio só é atualizado a cada jogada
+        lblClock.setText(gameManager.hasClock() ? "Clock: " + formatClock(gameManager.getClockMillis(true))
+                + " / " + formatClock(gameManager.getClockMillis(false)) : "");
         btnSound.setText(gameManager.getModelUi().isSoundEnable() ? "Sound ON" : "Sound OFF");
+        String[] bookMoves = gameManager.getModelUi().isLearningMode() ? gameManager.getBookMoves() : new String[0];
+        lblBook.setText(bookMoves.length == 0 ? "" : "Book: " + String.join("  ", bookMoves));
+        String tablebaseResult = gameManager.getModelUi().isLearningMode() ? gameManager.getTablebaseResult() : null;
+        lblTablebase.setText(tablebaseResult == null ? "" : "Tablebase: " + tablebaseResult);
+
+    }
 
+    private static String formatClock(long millis) {
+        long seconds = Math.max(0, millis) / 1000;
+        return String.format("%d:%02d", seconds / 60, seconds % 60);
     }
 }
@@ -0,0 +1,381 @@
+package pt.isec.pa.chess.ui.uci;
+
+import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.data.Move;
+import pt.isec.pa.chess.model.data.MoveList;
+import pt.isec.pa.chess.model.engine.ComputerPlayer;
+import pt.isec.pa.chess.model.engine.ParallelSearch;
+import pt.isec.pa.chess.model.engine.SearchInfo;
+import pt.isec.pa.chess.model.engine.SearchLimits;
+import pt.isec.pa.chess.model.engine.TimeManager;
+import pt.isec.pa.chess.model.engine.TranspositionTable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Text interface that speaks the Universal Chess Interface (UCI), so the
+ * engine can be driven by tournament managers and scripts. It reads
+ * commands line by line and answers on the output stream; the searches
+ * run on a thread of their own, so stop, ponderhit and isready are
+ * answered while the engine thinks.
+ * Only the model and the engine are used, never JavaFX. The game and the
+ * transposition table are only created when a command needs them, so
+ * uciok does not wait for the engine's tables to be built.
+ */
+public class UciEngine {
+    private static final String NAME = "Chess PA";
+    private static final String AUTHOR = "ISEC PA";
+    private static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    private static final int MAX_HASH_MB = 1024;
+    private static final int MAX_THREADS = 64;
+
+    private final BufferedReader in;
+    private final PrintStream out;
+    private final ExecutorService searchThread = Executors.newSingleThreadExecutor(r -> newThread(r, "uci-search"));
+    private final ExecutorService helperPool = Executors.newCachedThreadPool(r -> newThread(r, "uci-search-helper"));
+    private ChessGame game;
+
+    private TranspositionTable table;
+    private int hashMb = ComputerPlayer.DEFAULT_HASH_MB;
+    private int threads = 1;
+
+    // pesquisa em curso; com "go infinite" ou "go ponder" o bestmove espera por stop ou ponderhit
+    private ParallelSearch current;
+    private Future<?> running;
+    private boolean holdBestMove;
+    private SearchInfo heldResult;
+
+    /**
+     * Creates the interface over a pair of streams (usually System.in and System.out).
+     *
+     * @param in Where the commands are read from.
+     * @param out Where the answers are written.
+     */
+    public UciEngine(InputStream in, PrintStream out) {
+        this.in = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        this.out = out;
+    }
+
+    private static Thread newThread(Runnable r, String name) {
+        Thread thread = new Thread(r, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Answers commands until quit or the end of the input. At the end of
+     * the input a search with limits is left to finish, so a script can
+     * pipe in "position ..." and "go depth 10" and read the answer; quit
+     * stops it at once.
+     *
+     * @return The exit status: 0.
+     * @throws IOException If the input cannot be read.
+     */
+    public int run() throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (!handle(line.trim())) {
+                stopSearch();
+                return 0;
+            }
+        }
+        boolean endless;
+        synchronized (this) {
+            endless = holdBestMove;
+        }
+        if (endless)
+            stopSearch();
+        else
+            awaitSearch();
+        return 0;
+    }
+
+    /**
+     * Runs one command.
+     *
+     * @param line The command line, without the line terminator.
+     * @return false after quit.
+     */
+    public boolean handle(String line) {
+        String[] tokens = line.split("\\s+");
+        switch (tokens[0]) {
+            case "uci" -> {
+                send("id name " + NAME);
+                send("id author " + AUTHOR);
+                send("option name Hash type spin default " + ComputerPlayer.DEFAULT_HASH_MB + " min 1 max " + MAX_HASH_MB);
+                send("option name Threads type spin default 1 min 1 max " + MAX_THREADS);
+                send("option name Ponder type check default false");
+                send("uciok");
+            }
+            case "isready" -> {
+                table();
+                send("readyok");
+            }
+            case "setoption" -> setOption(tokens);
+            case "ucinewgame" -> {
+                stopSearch();
+                table().clear();
+                game().importFen(START_FEN);
+            }
+            case "position" -> position(tokens);
+            case "go" -> go(tokens);
+            case "stop" -> {
+                releaseBestMove();
+                stopSearch();
+            }
+            case "ponderhit" -> ponderHit();
+            case "quit" -> {
+                return false;
+            }
+            case "" -> {
+            }
+            default -> send("info string comando desconhecido: " + tokens[0]);
+        }
+        return true;
+    }
+
+    private void setOption(String[] tokens) {
+        // setoption name <nome> value <valor>
+        String name = valueOf(tokens, "name", "value");
+        String value = valueOf(tokens, "value", null);
+        try {
+            if (name.equalsIgnoreCase("Hash")) {
+                int size = Math.max(1, Math.min(Integer.parseInt(value), MAX_HASH_MB));
+                if (size != hashMb) {
+                    stopSearch();
+                    hashMb = size;
+                    table = null;
+                }
+            } else if (name.equalsIgnoreCase("Threads")) {
+                threads = Math.max(1, Math.min(Integer.parseInt(value), MAX_THREADS));
+            } else if (!name.equalsIgnoreCase("Ponder")) {
+                send("info string opção desconhecida: " + name);
+            }
+        } catch (NumberFormatException | NullPointerException e) {
+            send("info string valor inválido para " + name);
+        }
+    }
+
+    // junta as palavras entre a palavra-chave e a seguinte (os nomes das opções podem ter espaços)
+    private static String valueOf(String[] tokens, String key, String next) {
+        StringBuilder sb = new StringBuilder();
+        boolean inside = false;
+        for (String token : tokens) {
+            if (inside && token.equals(next))
+                break;
+            if (inside)
+                sb.append(sb.length() > 0 ? " " : "").append(token);
+            else if (token.equals(key))
+                inside = true;
+        }
+        return inside ? sb.toString() : null;
+    }
+
+    private void position(String[] tokens) {
+        stopSearch();
+        int i = 1;
+        String fen = START_FEN;
+        if (i < tokens.length && tokens[i].equals("fen")) {
+            StringBuilder sb = new StringBuilder();
+            for (i = 2; i < tokens.length && !tokens[i].equals("moves"); i++) {
+                sb.append(tokens[i]).append(' ');
+            }
+            fen = sb.toString().trim();
+        } else if (i < tokens.length && tokens[i].equals("startpos")) {
+            i++;
+        }
+        if (!game().importFen(fen)) {
+            send("info string FEN inválido: " + fen);
+            game.importFen(START_FEN);
+            return;
+        }
+        if (i < tokens.length && tokens[i].equals("moves")) {
+            for (i++; i < tokens.length; i++) {
+                int move = parseMove(tokens[i]);
+                if (move == Move.NONE) {
+                    send("info string jogada inválida: " + tokens[i]);
+                    return;
+                }
+                game.makeMove(move);
+            }
+        }
+    }
+
+    private int parseMove(String text) {
+        MoveList moves = new MoveList();
+        game.generateLegalMoves(moves);
+        for (int i = 0; i < moves.size(); i++) {
+            if (Move.toString(moves.get(i)).equals(text))
+                return moves.get(i);
+        }
+        return Move.NONE;
+    }
+
+    private void go(String[] tokens) {
+        stopSearch();
+        boolean white = game().isWhiteToMove();
+        int depth = SearchLimits.MAX_DEPTH;
+        long nodes = Long.MAX_VALUE;
+        long moveTime = Long.MAX_VALUE;
+        long time = -1;
+        long increment = 0;
+        boolean ponder = false;
+        boolean infinite = false;
+        try {
+            for (int i = 1; i < tokens.length; i++) {
+                // só contam o relógio e o incremento do lado que joga
+                switch (tokens[i]) {
+                    case "depth" -> depth = Integer.parseInt(tokens[++i]);
+                    case "nodes" -> nodes = Long.parseLong(tokens[++i]);
+                    case "movetime" -> moveTime = Long.parseLong(tokens[++i]);
+                    case "wtime", "btime" -> {
+                        long value = Long.parseLong(tokens[++i]);
+                        if (tokens[i - 1].charAt(0) == (white ? 'w' : 'b'))
+                            time = value;
+                    }
+                    case "winc", "binc" -> {
+                        long value = Long.parseLong(tokens[++i]);
+                        if (tokens[i - 1].charAt(0) == (white ? 'w' : 'b'))
+                            increment = value;
+                    }
+                    case "ponder" -> ponder = true;
+                    case "infinite" -> infinite = true;
+                    default -> {
+                    }
+                }
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            send("info string parâmetros de go inválidos");
+        }
+        SearchLimits limits = time >= 0 && moveTime == Long.MAX_VALUE
+                ? SearchLimits.clock(new TimeManager(time, increment))
+                : new SearchLimits(depth, nodes, moveTime);
+
+        ParallelSearch search = new ParallelSearch(game, table(), threads, helperPool);
+        search.setPondering(ponder || infinite);
+        synchronized (this) {
+            current = search;
+            holdBestMove = ponder || infinite;
+            heldResult = null;
+        }
+        running = searchThread.submit(() -> {
+            SearchInfo result = search.search(limits, this::sendInfo);
+            synchronized (this) {
+                if (current != search)
+                    return;
+                if (holdBestMove) {
+                    heldResult = result; // o protocolo não deixa responder antes de stop ou ponderhit
+                    return;
+                }
+                current = null;
+            }
+            sendBestMove(result);
+        });
+    }
+
+    private void ponderHit() {
+        SearchInfo result;
+        synchronized (this) {
+            if (current == null)
+                return;
+            current.ponderHit();
+            holdBestMove = false;
+            result = heldResult;
+            heldResult = null;
+            if (result != null)
+                current = null;
+        }
+        if (result != null)
+            sendBestMove(result);
+    }
+
+    // depois de stop, o bestmove que estava à espera sai (ou sai quando a pesquisa parar)
+    private void releaseBestMove() {
+        SearchInfo result;
+        synchronized (this) {
+            holdBestMove = false;
+            result = heldResult;
+            heldResult = null;
+            if (result != null)
+                current = null;
+        }
+        if (result != null)
+            sendBestMove(result);
+    }
+
+    // pára a pesquisa em curso e espera que a thread dela acabe
+    private void stopSearch() {
+        ParallelSearch search;
+        synchronized (this) {
+            search = current;
+            holdBestMove = false;
+        }
+        if (search != null)
+            search.stop();
+        awaitSearch();
+    }
+
+    private void awaitSearch() {
+        if (running == null)
+            return;
+        try {
+            running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            send("info string erro na pesquisa: " + e.getCause());
+        }
+        running = null;
+        synchronized (this) {
+            current = null;
+            heldResult = null;
+        }
+    }
+
+    private ChessGame game() {
+        if (game == null) {
+            game = new ChessGame();
+            game.importFen(START_FEN);
+        }
+        return game;
+    }
+
+    private TranspositionTable table() {
+        if (table == null)
+            table = new TranspositionTable(hashMb);
+        return table;
+    }
+
+    private void sendInfo(SearchInfo info) {
+        send("info depth " + info.getDepth()
+                + (info.isMate() ? " score mate " + info.getMateIn() : " score cp " + info.getScore())
+                + " nodes " + info.getNodes()
+                + " nps " + info.getNodesPerSecond()
+                + " time " + info.getTimeMillis()
+                + " hashfull " + table.getFillPermille()
+                + " pv " + info.getPvText());
+    }
+
+    private void sendBestMove(SearchInfo result) {
+        int[] pv = result.getPv();
+        if (pv.length == 0) {
+            send("bestmove 0000");
+            return;
+        }
+        send("bestmove " + Move.toString(pv[0]) + (pv.length > 1 ? " ponder " + Move.toString(pv[1]) : ""));
+    }
+
+    private synchronized void send(String line) {
+        out.println(line);
+        out.flush();
+    }
+}
@@ -3,6 +3,8 @@ package pt.isec.pa.chess.utils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.ChessGameManager;
+import pt.isec.pa.chess.model.ChessGameSerialization;
 import pt.isec.pa.chess.model.GameState;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -56,4 +58,28 @@ class ChessGameTest {
         chessGame.move("h5","e8");
         assertEquals(GameState.CHECK,chessGame.getGameState());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testLoadSaveOfEarlierVersion () {
+        // guardado pela versão com o tabuleiro num HashMap e casas em texto
+        ChessGame loaded = ChessGameSerialization.load("teste_Defesa.dat");
+        assertNotNull(loaded);
+        assertEquals(31, loaded.getAllPiecesTextual().split(",").length);
+        assertEquals('P', loaded.getPieceSymbolAt("d5"));
+        assertFalse(loaded.isWhiteToMove());
+        assertEquals(ChessGame.WHITE_KINGSIDE | ChessGame.WHITE_QUEENSIDE
+                | ChessGame.BLACK_KINGSIDE | ChessGame.BLACK_QUEENSIDE, loaded.getCastlingRights());
+        assertTrue(loaded.move("e7", "e5"));
+        assertEquals("e6", loaded.getEnPassantTarget());
+    }
+
+    @Test
+    public void testFailedLoadKeepsTheGame () {
+        ChessGameManager manager = new ChessGameManager();
+        assertTrue(manager.move("e2", "e4"));
+        manager.loadGame("nao_existe.dat");
+        assertFalse(manager.isWhiteToMove());
+        assertTrue(manager.canUndo());
+        assertNotEquals(0, manager.getAllPiecesTextual().length());
+    }
+}
@@ -0,0 +1,137 @@
+package pt.isec.pa.chess.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.data.Move;
+import pt.isec.pa.chess.model.data.MoveList;
+import pt.isec.pa.chess.model.engine.OpeningBook;
+import pt.isec.pa.chess.model.engine.OpeningBookWriter;
+import pt.isec.pa.chess.model.engine.PolyglotKey;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpeningBookTest {
+    private static final String[] LINES = {
+            "e2e4 e7e5 g1f3 b8c6 f1c4 g8f6 e1g1",
+            "e2e4 e7e5 g1f3 b8c6 f1b5",
+            "e2e4 c7c5",
+            "d2d4 d7d5"
+    };
+
+    @TempDir
+    Path dir;
+
+    private OpeningBook writeBook() throws IOException {
+        OpeningBookWriter writer = new OpeningBookWriter();
+        for (String line : LINES) {
+            writer.addLine(line);
+        }
+        Path file = dir.resolve("book.bin");
+        writer.write(file);
+        return OpeningBook.open(file);
+    }
+
+    private static ChessGame play(String line) {
+        ChessGame game = new ChessGame("White", "Black");
+        MoveList moves = new MoveList();
+        for (String text : line.split(" ")) {
+            moves.clear();
+            game.generateLegalMoves(moves);
+            for (int i = 0; i < moves.size(); i++) {
+                if (Move.toString(moves.get(i)).equals(text)) {
+                    game.makeMove(moves.get(i));
+                    break;
+                }
+            }
+        }
+        return game;
+    }
+
+    @Test
+    public void testBookMovesAndWeights () throws IOException {
+        OpeningBook book = writeBook();
+        MoveList moves = new MoveList();
+        int[] weights = new int[8];
+
+        // e2e4 está em três linhas e d2d4 numa: o mais pesado vem primeiro
+        ChessGame game = new ChessGame("White", "Black");
+        assertEquals(2, book.probe(game, moves, weights));
+        assertEquals("e2e4", Move.toString(moves.get(0)));
+        assertEquals(3, weights[0]);
+        assertEquals("d2d4", Move.toString(moves.get(1)));
+        assertEquals(1, weights[1]);
+
+        // o roque é guardado como e1h1 e volta a ser o roque do jogo
+        game = play("e2e4 e7e5 g1f3 b8c6 f1c4 g8f6");
+        assertEquals(1, book.probe(game, moves, weights));
+        assertTrue(Move.isCastle(moves.get(0)));
+        assertEquals("e1g1", Move.toString(moves.get(0)));
+
+        assertEquals(0, book.probe(play("a2a3"), moves, weights));
+        assertEquals(Move.NONE, book.pickMove(play("a2a3"), new Random(1)));
+
+        int e4 = 0;
+        Random random = new Random(1);
+        for (int i = 0; i < 4000; i++) {
+            if (Move.toString(book.pickMove(new ChessGame("White", "Black"), random)).equals("e2e4"))
+                e4++;
+        }
+        assertTrue(e4 > 2800 && e4 < 3200, "e2e4 escolhida " + e4 + " vezes em 4000");
+    }
+
+    @Test
+    public void testPolyglotKeysMatchTheReferenceKeys () {
+        // chaves publicadas na especificação do formato Polyglot
+        assertEquals(0x463b96181691fc9cL, PolyglotKey.of(new ChessGame("White", "Black")));
+        assertEquals(0x823c9b50fd114196L, PolyglotKey.of(play("e2e4")));
+        assertEquals(0x0756b94461c50fb0L, PolyglotKey.of(play("e2e4 d7d5")));
+        assertEquals(0x662fafb965db29d4L, PolyglotKey.of(play("e2e4 d7d5 e4e5")));
+        assertEquals(0x22a48b5a8e47ff78L, PolyglotKey.of(play("e2e4 d7d5 e4e5 f7f5")));
+        assertEquals(0x652a607ca3f242c1L, PolyglotKey.of(play("e2e4 d7d5 e4e5 f7f5 e1e2")));
+        assertEquals(0x00fdd303c946bdd9L, PolyglotKey.of(play("e2e4 d7d5 e4e5 f7f5 e1e2 e8f7")));
+        assertEquals(0x3c8123ea7b067637L, PolyglotKey.of(play("a2a4 b7b5 h2h4 b5b4 c2c4")));
+        assertEquals(0x5c3f9b829b279560L, PolyglotKey.of(play("a2a4 b7b5 h2h4 b5b4 c2c4 b4c3 a1a3")));
+
+        // a mesma posição lida de um FEN tem a mesma chave
+        ChessGame game = new ChessGame("White", "Black", false);
+        assertTrue(game.importFen("rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3"));
+        assertEquals(0x22a48b5a8e47ff78L, PolyglotKey.of(game));
+    }
+
+    @Test
+    public void testProbeDoesNotAllocate () throws IOException {
+        OpeningBook book = writeBook();
+        ChessGame game = play("e2e4 e7e5");
+        MoveList moves = new MoveList();
+        int[] weights = new int[8];
+        Random random = new Random(1);
+        for (int i = 0; i < 20000; i++) {
+            book.probe(game, moves, weights);
+            book.pickMove(game, random);
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long id = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(id);
+        for (int i = 0; i < 20000; i++) {
+            book.probe(game, moves, weights);
+            book.pickMove(game, random);
+        }
+        long allocated = threads.getThreadAllocatedBytes(id) - before;
+        assertTrue(allocated < 4096, allocated + " bytes alocados em 40000 consultas");
+    }
+
+    @Test
+    public void testRejectsFileThatIsNotABook () throws IOException {
+        Path file = dir.resolve("not-a-book.bin");
+        Files.write(file, new byte[17]);
+        assertThrows(IOException.class, () -> OpeningBook.open(file));
+    }
+}
@@ -0,0 +1,60 @@
+package pt.isec.pa.chess.utils;
+
+import org.junit.jupiter.api.Test;
+import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.Perft;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PerftTest {
+
+    private static long perft(String fen, int depth) {
+        ChessGame game = new ChessGame();
+        assertTrue(game.importFen(fen));
+        return Perft.perft(game, depth);
+    }
+
+    @Test
+    public void testInitialPosition () {
+        ChessGame game = new ChessGame();
+        assertEquals(197281, Perft.perft(game, 4));
+        assertEquals("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", game.exportFen());
+    }
+
+    @Test
+    public void testKiwipete () {
+        assertEquals(97862, perft("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", 3));
+    }
+
+    @Test
+    public void testEnPassantAndPins () {
+        assertEquals(43238, perft("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", 4));
+    }
+
+    @Test
+    public void testPromotionsAndCastling () {
+        assertEquals(9467, perft("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", 3));
+        assertEquals(62379, perft("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", 3));
+    }
+
+    @Test
+    public void testParallelDivide () {
+        ChessGame game = new ChessGame();
+        String fen = game.exportFen();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        assertEquals(197281, Perft.perft(game, 4, pool));
+        assertEquals(20, Perft.divide(game, 3, pool).size());
+        assertEquals(fen, game.exportFen());
+        pool.shutdown();
+    }
+
+    @Test
+    public void testFenRoundTrip () {
+        ChessGame game = new ChessGame();
+        game.move("e2","e4");
+        assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1", game.exportFen());
+        assertFalse(game.importFen("not a fen"));
+    }
+}
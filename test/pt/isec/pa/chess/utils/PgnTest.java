@@ -0,0 +1,219 @@
+package pt.isec.pa.chess.utils;
+
+import org.junit.jupiter.api.Test;
+import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.ChessGameManager;
+import pt.isec.pa.chess.model.command.CommandManager;
+import pt.isec.pa.chess.model.command.ICommand;
+import pt.isec.pa.chess.model.command.MoveCommand;
+import pt.isec.pa.chess.model.data.Move;
+import pt.isec.pa.chess.model.data.MoveList;
+import pt.isec.pa.chess.model.data.PieceType;
+import pt.isec.pa.chess.model.data.Square;
+import pt.isec.pa.chess.model.pgn.PgnGame;
+import pt.isec.pa.chess.model.pgn.PgnReader;
+import pt.isec.pa.chess.model.pgn.PgnWriter;
+import pt.isec.pa.chess.model.pgn.San;
+import pt.isec.pa.chess.model.selfplay.GameFormat;
+import pt.isec.pa.chess.model.selfplay.GameRecord;
+import pt.isec.pa.chess.model.selfplay.SelfPlay;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PgnTest {
+
+    private static List<PgnGame> readAll(String text, int bufferSize) throws IOException {
+        List<PgnGame> games = new ArrayList<>();
+        try (PgnReader reader = new PgnReader(Channels.newChannel(
+                new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))), bufferSize)) {
+            for (PgnGame game = reader.next(); game != null; game = reader.next()) {
+                games.add(game);
+            }
+        }
+        return games;
+    }
+
+    private static List<GameRecord> selfPlay(int games) {
+        List<GameRecord> records = new ArrayList<>();
+        SelfPlay selfPlay = new SelfPlay("random", "random");
+        selfPlay.setGames(games);
+        selfPlay.setSeed(11);
+        selfPlay.setThreads(1);
+        selfPlay.setMaxPlies(150);
+        selfPlay.run(records::add);
+        return records;
+    }
+
+    @Test
+    public void testSanParsesWhatItFormats () {
+        San san = new San();
+        MoveList moves = new MoveList();
+        for (String fen : new String[]{"r3k2r/1P6/8/8/8/5N2/8/RN2K2R w KQkq - 0 1",
+                "4k3/8/8/R7/8/8/8/R3K3 w - - 0 1", "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3"}) {
+            ChessGame game = new ChessGame("White", "Black", false);
+            assertTrue(game.importFen(fen));
+            moves.clear();
+            game.generateLegalMoves(moves);
+            for (int i = 0; i < moves.size(); i++) {
+                assertEquals(moves.get(i), san.parse(game, san.format(game, moves.get(i))), fen);
+            }
+        }
+
+        ChessGame game = new ChessGame("White", "Black", false);
+        assertTrue(game.importFen("r3k2r/1P6/8/8/8/5N2/8/RN2K2R w KQkq - 0 1"));
+        assertEquals(PieceType.QUEEN, Move.promotion(san.parse(game, "b8")));
+        assertEquals(PieceType.KNIGHT, Move.promotion(san.parse(game, "bxa8n")));
+        assertTrue(Move.isCastle(san.parse(game, "0-0!?")));
+        assertEquals(Move.NONE, san.parse(game, "Nd2"));   // ambígua
+        assertEquals(Move.NONE, san.parse(game, "Qd1"));
+    }
+
+    @Test
+    public void testReaderSkipsCommentsVariationsAndAnnotations () throws IOException {
+        String text = """
+                % linha de escape
+                [Event "Open \\"A\\""]
+                [White "Ana Sá"]
+                [Black "Rui"]
+                [Result "1-0"]
+
+                1. e4 {abertura (do rei)} e5 (1... c5 2. Nf3 (2. c3) d6) 2. Nf3 $1 Nc6 ; comentário
+                3.Bb5 a6!? 4. Ba4 1-0
+                [Event "Sem resultado"]
+                1. d4 d5 2. c4
+                [Event "Erro"]
+                [SetUp "1"]
+                [FEN "4k3/1P6/8/8/8/8/8/4K3 w - - 0 1"]
+
+                1. b8=N Ke7 2. Kd2 Ke3 3. Kd3 *
+
+                [Event "Vazio"]
+                1/2-1/2
+                """;
+        for (int bufferSize : new int[]{16, PgnReader.DEFAULT_BUFFER_SIZE}) {
+            List<PgnGame> games = readAll(text, bufferSize);
+            assertEquals(4, games.size());
+
+            PgnGame first = games.get(0);
+            assertEquals("Open \"A\"", first.getTag("Event"));
+            assertEquals("Ana Sá", first.getTag("White"));
+            assertEquals("1-0", first.getResult());
+            assertEquals(7, first.getPlies());
+            assertNull(first.getError());
+            assertEquals("r1bqkbnr/1ppp1ppp/p1n5/4p3/B3P3/5N2/PPPP1PPP/RNBQK2R b KQkq - 1 4", first.toGame().exportFen());
+
+            assertEquals(PgnGame.UNKNOWN_RESULT, games.get(1).getResult());
+            assertEquals(3, games.get(1).getPlies());
+
+            PgnGame error = games.get(2);
+            assertEquals(3, error.getPlies());   // b8=N Ke7 Kd2, depois a jogada ilegal
+            assertEquals(PieceType.KNIGHT, Move.promotion(error.getMoves()[0]));
+            assertNotNull(error.getError());
+            assertTrue(error.getError().contains("Ke3"));
+
+            assertEquals(0, games.get(3).getPlies());
+            assertEquals("1/2-1/2", games.get(3).getResult());
+        }
+    }
+
+    @Test
+    public void testWriterAndReaderRoundTrip () throws IOException {
+        List<GameRecord> records = selfPlay(30);
+        StringBuilder text = new StringBuilder();
+        for (GameRecord record : records) {
+            text.append(GameFormat.PGN.format(record));
+        }
+        List<PgnGame> games = readAll(text.toString(), 16);
+        assertEquals(records.size(), games.size());
+        for (int i = 0; i < records.size(); i++) {
+            assertNull(games.get(i).getError());
+            assertArrayEquals(records.get(i).getMoves(), games.get(i).getMoves());
+            assertEquals(records.get(i).getResult(), games.get(i).getResult());
+            assertEquals(Integer.toString(records.get(i).getRound()), games.get(i).getTag("Round"));
+        }
+    }
+
+    @Test
+    public void testParallelReadFindsEveryGame () throws IOException {
+        Path file = Files.createTempFile("games", ".pgn");
+        try {
+            StringBuilder text = new StringBuilder();
+            for (GameRecord record : selfPlay(60)) {
+                text.append(GameFormat.PGN.format(record));
+            }
+            Files.writeString(file, text);
+
+            Map<String, int[]> single = new ConcurrentHashMap<>();
+            Map<String, int[]> parallel = new ConcurrentHashMap<>();
+            assertEquals(60, PgnReader.readAll(file, 1, game -> single.put(game.getTag("Round"), game.getMoves())));
+            assertEquals(60, PgnReader.readAll(file, 4, game -> parallel.put(game.getTag("Round"), game.getMoves())));
+            assertEquals(single.keySet(), parallel.keySet());
+            for (Map.Entry<String, int[]> entry : single.entrySet()) {
+                assertArrayEquals(entry.getValue(), parallel.get(entry.getKey()));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testHistoryIsWrittenWithThePromotionChosen () throws IOException {
+        String fen = "4k3/1P6/8/8/8/8/8/4K3 w - - 0 7";
+        ChessGame game = new ChessGame("White", "Black", false);
+        assertTrue(game.importFen(fen));
+        CommandManager commands = new CommandManager();
+        assertTrue(commands.invokeCommand(new MoveCommand(game, "b7", "b8")));
+        game.promotePawn(Square.fromString("b8"), 'R');
+        assertTrue(commands.invokeCommand(new MoveCommand(game, "e8", "d7")));
+        assertTrue(commands.undo());
+        assertTrue(commands.redo());
+
+        List<Integer> moves = new ArrayList<>();
+        for (ICommand command : commands.getHistory()) {
+            moves.add(((MoveCommand) command).getMove());
+        }
+        int[] played = moves.stream().mapToInt(Integer::intValue).toArray();
+        String text = PgnWriter.format(new PgnGame(Map.of("FEN", fen), played, "*", null));
+        assertTrue(text.contains("[SetUp \"1\"]"));
+        assertTrue(text.contains("7. b8=R+ Kd7 *"), text);
+
+        PgnGame read = readAll(text, 64).get(0);
+        assertArrayEquals(played, read.getMoves());
+        assertEquals(game.exportFen(), read.toGame().exportFen());
+    }
+
+    @Test
+    public void testManagerExportsAndImportsPgn () throws IOException {
+        Path file = Files.createTempFile("game", ".pgn");
+        try {
+            ChessGameManager manager = new ChessGameManager();
+            manager.newGame("Ana", "Rui");
+            assertTrue(manager.move("e2", "e4"));
+            assertTrue(manager.move("e7", "e5"));
+            assertTrue(manager.move("g1", "f3"));
+            assertTrue(manager.exportPgn(file.toString()));
+            assertTrue(Files.readString(file).contains("1. e4 e5 2. Nf3 *"));
+
+            manager.newGame("Outro", "Jogo");
+            assertFalse(manager.canUndo());
+            assertTrue(manager.importPgn(file.toString()));
+            assertEquals("Ana", manager.getWhiteName());
+            assertFalse(manager.isWhiteToMove());
+            assertTrue(manager.undo());
+            assertTrue(manager.isWhiteToMove());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package pt.isec.pa.chess.utils;
+
+import org.junit.jupiter.api.Test;
+import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.data.Move;
+import pt.isec.pa.chess.model.data.MoveList;
+import pt.isec.pa.chess.model.data.Square;
+import pt.isec.pa.chess.model.engine.AnalysisService;
+import pt.isec.pa.chess.model.engine.ComputerPlayer;
+import pt.isec.pa.chess.model.engine.MovePicker;
+import pt.isec.pa.chess.model.engine.ParallelSearch;
+import pt.isec.pa.chess.model.engine.PawnTable;
+import pt.isec.pa.chess.model.engine.Search;
+import pt.isec.pa.chess.model.engine.SearchInfo;
+import pt.isec.pa.chess.model.engine.SearchLimits;
+import pt.isec.pa.chess.model.engine.SearchOptions;
+import pt.isec.pa.chess.model.engine.See;
+import pt.isec.pa.chess.model.engine.TimeManager;
+import pt.isec.pa.chess.model.engine.TranspositionTable;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchTest {
+
+    private static SearchInfo search(String fen, SearchLimits limits) {
+        ChessGame game = new ChessGame();
+        assertTrue(game.importFen(fen));
+        return new Search(game).search(limits, null);
+    }
+
+    @Test
+    public void testFindsMateInOne () {
+        SearchInfo info = search("6k1/5ppp/8/8/8/8/5PPP/3R2K1 w - - 0 1", SearchLimits.depth(4));
+        assertEquals("d1d8", Move.toString(info.getBestMove()));
+        assertTrue(info.isMate());
+        assertEquals(1, info.getMateIn());
+    }
+
+    @Test
+    public void testWinsHangingQueen () {
+        SearchInfo info = search("4k3/8/8/3q4/8/2N5/8/4K3 w - - 0 1", SearchLimits.depth(3));
+        assertEquals("c3d5", Move.toString(info.getBestMove()));
+    }
+
+    @Test
+    public void testRespectsNodeLimit () {
+        SearchInfo info = search("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", SearchLimits.nodes(20000));
+        assertNotEquals(Move.NONE, info.getBestMove());
+        assertTrue(info.getNodes() <= 20000);
+    }
+
+    @Test
+    public void testMovePickerOrder () {
+        ChessGame game = new ChessGame();
+        assertTrue(game.importFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"));
+        MoveList legal = new MoveList();
+        game.generateLegalMoves(legal);
+        int ttMove = legal.find(Square.fromString("a2"), Square.fromString("a3"));
+
+        MovePicker picker = new MovePicker(game);
+        picker.init(ttMove, Move.NONE, Move.NONE, Move.NONE, null, true, false);
+        assertEquals(ttMove, picker.next());
+        int capture = picker.next();
+        assertTrue(Move.isCapture(capture));
+        assertEquals("e2a6", Move.toString(capture)); // BxB vem antes de DxC (f3f6) e das capturas de peões
+
+        int count = 2;
+        while (picker.next() != Move.NONE)
+            count++;
+        assertEquals(legal.size(), count);
+    }
+
+    @Test
+    public void testStaticExchange () {
+        ChessGame game = new ChessGame();
+        assertTrue(game.importFen("1k1r4/1pp4p/p7/4p3/8/P5P1/1PP4P/2K1R3 w - - 0 1"));
+        MoveList moves = new MoveList();
+        game.generateLegalMoves(moves);
+        assertEquals(100, See.evaluate(game, moves.find(Square.fromString("e1"), Square.fromString("e5"))));
+
+        // o cavalo ganha um peão mas é recapturado: perde 320 - 100
+        assertTrue(game.importFen("1k1r3q/1ppn3p/p4b2/4p3/8/P2N2P1/1PP1R1BP/2K1Q3 w - - 0 1"));
+        moves.clear();
+        game.generateLegalMoves(moves);
+        int move = moves.find(Square.fromString("d3"), Square.fromString("e5"));
+        assertEquals(-220, See.evaluate(game, move));
+        assertFalse(See.isSafe(game, move));
+        // com o buffer da pesquisa o resultado é o mesmo, mesmo com restos de outra troca
+        int[] gains = new int[See.GAINS];
+        Arrays.fill(gains, 12345);
+        assertEquals(-220, See.evaluate(game, move, gains));
+    }
+
+    @Test
+    public void testQuiescenceSeesRecapture () {
+        // à profundidade 1 a dama ganhava o peão; a busca de capturas vê o exd5
+        String fen = "4k3/8/4p3/3p4/8/8/8/3QK3 w - - 0 1";
+        SearchInfo info = search(fen, SearchLimits.depth(1));
+        assertNotEquals("d1d5", Move.toString(info.getBestMove()));
+
+        ChessGame game = new ChessGame();
+        assertTrue(game.importFen(fen));
+        Search search = new Search(game);
+        search.setOptions(new SearchOptions().setQuiescence(false));
+        assertEquals("d1d5", Move.toString(search.search(SearchLimits.depth(1), null).getBestMove()));
+    }
+
+    @Test
+    public void testIncrementalEvaluation () {
+        ChessGame game = new ChessGame();
+        assertEquals(0, game.getEvaluation()); // posição simétrica
+
+        // depois de cada jogada (e de a desfazer) as somas têm de ser as de um tabuleiro montado de novo
+        assertTrue(game.importFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"));
+        int before = game.getEvaluation();
+        MoveList moves = new MoveList();
+        game.generateLegalMoves(moves);
+        ChessGame fresh = new ChessGame();
+        for (int i = 0; i < moves.size(); i++) {
+            game.makeMove(moves.get(i));
+            assertTrue(fresh.importFen(game.exportFen()));
+            assertEquals(fresh.getBoard().getMidgameScore(), game.getBoard().getMidgameScore());
+            assertEquals(fresh.getBoard().getEndgameScore(), game.getBoard().getEndgameScore());
+            assertEquals(fresh.getBoard().getPhase(), game.getBoard().getPhase());
+            assertEquals(fresh.getBoard().getPawnKey(), game.getBoard().getPawnKey());
+            assertEquals(fresh.getEvaluation(), game.getEvaluation());
+            game.unmakeMove();
+        }
+        assertEquals(before, game.getEvaluation());
+    }
+
+    @Test
+    public void testPawnTable () {
+        ChessGame game = new ChessGame();
+        assertTrue(game.importFen("4k3/8/8/4P3/8/8/P7/4K3 w - - 0 1"));
+        PawnTable table = new PawnTable(1024);
+        PawnTable.Entry entry = table.probe(game.getBoard());
+        assertEquals(Square.bit(Square.fromString("a2")) | Square.bit(Square.fromString("e5")), entry.getPassed());
+        assertTrue(entry.getEndgame() > 0);
+        table.probe(game.getBoard());
+        assertEquals(0.5, table.getHitRate());
+
+        // a estrutura de peões muda pouco entre posições vizinhas
+        assertTrue(game.importFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"));
+        Search search = new Search(game);
+        search.search(SearchLimits.depth(5), null);
+        assertTrue(search.getPawnTable().getHitRate() > 0.9);
+    }
+
+    @Test
+    public void testPruningKeepsTactics () {
+        ChessGame game = new ChessGame();
+        assertTrue(game.importFen("r1bq2rk/pp3pbp/2p1p1pQ/7P/3P4/2PB1N2/PP3PPR/2KR4 w - - 0 1"));
+        long key = game.getPositionKey();
+        game.makeNullMove();
+        assertFalse(game.isWhiteToMove());
+        assertNotEquals(key, game.getPositionKey());
+        game.unmakeMove();
+        assertTrue(game.isWhiteToMove());
+        assertEquals(key, game.getPositionKey());
+
+        SearchOptions withoutPruning = new SearchOptions().setNullMove(false).setLateMoveReductions(false)
+                .setReverseFutility(false).setFutility(false);
+        assertEquals("h6h7", Move.toString(new Search(game).search(SearchLimits.depth(7), null).getBestMove()));
+        Search search = new Search(game);
+        search.setOptions(withoutPruning);
+        assertEquals("h6h7", Move.toString(search.search(SearchLimits.depth(7), null).getBestMove()));
+
+        assertTrue(game.importFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"));
+        long pruned = new Search(game).search(SearchLimits.depth(6), null).getNodes();
+        search = new Search(game);
+        search.setOptions(withoutPruning);
+        assertTrue(pruned < search.search(SearchLimits.depth(6), null).getNodes());
+    }
+
+    @Test
+    public void testAnalysisServiceCancels () throws InterruptedException {
+        ChessGame game = new ChessGame();
+        assertTrue(game.importFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"));
+        AnalysisService analysis = new AnalysisService(1);
+        CountDownLatch deepened = new CountDownLatch(4);
+        analysis.start(game, info -> deepened.countDown());
+        assertTrue(deepened.await(10, TimeUnit.SECONDS));
+
+        // a análise seguinte substitui a anterior, que deixa a thread livre logo a seguir
+        CountDownLatch started = new CountDownLatch(1);
+        game.move("e2", "a6");
+        analysis.start(game, info -> started.countDown());
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        analysis.cancel();
+        assertFalse(analysis.isAnalysing());
+        assertTrue(analysis.awaitIdle(10));
+    }
+
+    @Test
+    public void testTimeManager () {
+        TimeManager manager = new TimeManager(300_000, 3000);
+        assertTrue(manager.getOptimumMillis() > 3000 && manager.getOptimumMillis() < 30_000);
+        assertTrue(manager.getMaximumMillis() >= manager.getOptimumMillis());
+        assertTrue(new TimeManager(1000, 0).getMaximumMillis() < 1000);
+
+        // com a mesma melhor jogada em várias iterações seguidas o orçamento encolhe
+        long elapsed = manager.getOptimumMillis() / 2;
+        assertFalse(manager.shouldStop(elapsed, 1));
+        for (int i = 0; i < 4; i++) {
+            manager.shouldStop(0, 1);
+        }
+        assertTrue(manager.shouldStop(elapsed, 1));
+    }
+
+    @Test
+    public void testPonderHit () throws InterruptedException {
+        ChessGame game = new ChessGame();
+        MoveList moves = new MoveList();
+        game.generateLegalMoves(moves);
+        ComputerPlayer computer = new ComputerPlayer();
+        computer.setHashSize(1);
+
+        assertTrue(computer.startPondering(game, moves.find(Square.fromString("e2"), Square.fromString("e4")),
+                SearchLimits.time(50)));
+        Thread.sleep(150);
+        assertTrue(computer.isPondering());
+        assertFalse(computer.isThinking());
+
+        assertTrue(game.move("e2", "e4"));
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<SearchInfo> result = new AtomicReference<>();
+        assertTrue(computer.start(game, null, info -> {
+            result.set(info);
+            done.countDown();
+        }));
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertNotEquals(Move.NONE, result.get().getBestMove());
+        assertTrue(computer.getLastPonderMillis() >= 150);
+
+        // a pessoa jogou outra coisa: a pesquisa da posição esperada é deitada fora
+        moves.clear();
+        game.generateLegalMoves(moves);
+        assertTrue(computer.startPondering(game, moves.find(Square.fromString("e7"), Square.fromString("e5")),
+                SearchLimits.time(50)));
+        assertTrue(game.move("c7", "c5"));
+        assertFalse(computer.start(game, null, info -> {}));
+        assertEquals(0.5, computer.getPonderHitRate());
+        computer.cancel();
+    }
+
+    @Test
+    public void testParallelSearchFindsMate () {
+        ChessGame game = new ChessGame();
+        assertTrue(game.importFen("6k1/5ppp/8/8/8/8/5PPP/3R2K1 w - - 0 1"));
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        SearchInfo info = new ParallelSearch(game, new TranspositionTable(1), 4, pool).search(SearchLimits.depth(5), null);
+        pool.shutdown();
+        assertEquals("d1d8", Move.toString(info.getBestMove()));
+    }
+
+    @Test
+    public void testTranspositionTable () {
+        TranspositionTable table = new TranspositionTable(1);
+        long key = 0x123456789ABCDEFL;
+        assertEquals(0, table.probe(key));
+        table.store(key, Move.of(12, 28), -250, 7, TranspositionTable.BOUND_LOWER);
+        long entry = table.probe(key);
+        assertEquals(Move.of(12, 28), TranspositionTable.move(entry));
+        assertEquals(-250, TranspositionTable.score(entry));
+        assertEquals(7, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.BOUND_LOWER, TranspositionTable.bound(entry));
+        assertEquals(0, table.probe(key ^ 1L << 40)); // mesmo bucket, outra posição
+        assertEquals(1.0 / 3, table.getHitRate(), 1e-9);
+    }
+}
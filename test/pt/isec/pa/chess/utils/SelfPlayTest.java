@@ -0,0 +1,112 @@
+package pt.isec.pa.chess.utils;
+
+import org.junit.jupiter.api.Test;
+import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.ModelLog;
+import pt.isec.pa.chess.model.Winner;
+import pt.isec.pa.chess.model.data.MoveList;
+import pt.isec.pa.chess.model.pgn.San;
+import pt.isec.pa.chess.model.selfplay.GameFormat;
+import pt.isec.pa.chess.model.selfplay.GameRecord;
+import pt.isec.pa.chess.model.selfplay.SelfPlay;
+import pt.isec.pa.chess.model.selfplay.SelfPlayStats;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SelfPlayTest {
+
+    private static Map<Integer, GameRecord> run(SelfPlay selfPlay) {
+        Map<Integer, GameRecord> records = new ConcurrentHashMap<>();
+        selfPlay.run(record -> records.put(record.getRound(), record));
+        return records;
+    }
+
+    @Test
+    public void testGamesAreLegalAndRepeatable () {
+        int logs = ModelLog.getInstance().getLogs().size();
+        SelfPlay selfPlay = new SelfPlay("random", "greedy");
+        selfPlay.setGames(24);
+        selfPlay.setSeed(7);
+        selfPlay.setAlternateColours(true);
+        selfPlay.setThreads(3);
+        Map<Integer, GameRecord> parallel = run(selfPlay);
+        selfPlay.setThreads(1);
+        Map<Integer, GameRecord> single = run(selfPlay);
+
+        // os jogos não escrevem no log e não dependem do número de threads
+        assertEquals(logs, ModelLog.getInstance().getLogs().size());
+        assertEquals(24, parallel.size());
+        for (GameRecord record : parallel.values()) {
+            assertArrayEquals(single.get(record.getRound()).getMoves(), record.getMoves());
+            assertEquals(record.getRound() % 2 == 0 ? "greedy" : "random", record.getWhite());
+
+            ChessGame game = new ChessGame("White", "Black", false);
+            MoveList moves = new MoveList();
+            for (int move : record.getMoves()) {
+                moves.clear();
+                game.generateLegalMoves(moves);
+                assertTrue(moves.contains(move));
+                game.makeMove(move);
+            }
+            moves.clear();
+            game.generateLegalMoves(moves);
+            boolean mated = moves.isEmpty() && game.isInCheck();
+            assertEquals(mated, record.getTermination() == GameRecord.Termination.CHECKMATE);
+            assertEquals(mated ? (game.isWhiteToMove() ? Winner.BLACK : Winner.WHITE) : Winner.NONE, record.getWinner());
+        }
+    }
+
+    @Test
+    public void testSearchPlayerAndStats () {
+        SelfPlay selfPlay = new SelfPlay("search:depth=2", "random");
+        selfPlay.setGames(4);
+        selfPlay.setThreads(2);
+        selfPlay.setMaxPlies(60);
+        selfPlay.setRandomPlies(2);
+        SelfPlayStats stats = selfPlay.run(null);
+        assertEquals(4, stats.getGames());
+        assertEquals(4, stats.getWhiteWins() + stats.getBlackWins() + stats.getDraws());
+        assertEquals(0, stats.getBlackWins());
+        assertTrue(stats.getAveragePlies() > 0 && stats.getAveragePlies() <= 60);
+
+        assertThrows(IllegalArgumentException.class, () -> new SelfPlay("search:depth=x", "random"));
+        assertThrows(IllegalArgumentException.class, () -> new SelfPlay("random", "best"));
+    }
+
+    private static String allSan(String fen) {
+        ChessGame game = new ChessGame("White", "Black", false);
+        assertTrue(game.importFen(fen));
+        MoveList moves = new MoveList();
+        game.generateLegalMoves(moves);
+        San san = new San();
+        StringBuilder text = new StringBuilder(" ");
+        for (int i = 0; i < moves.size(); i++) {
+            text.append(san.format(game, moves.get(i))).append(' ');
+        }
+        assertEquals(fen, game.exportFen());
+        return text.toString();
+    }
+
+    @Test
+    public void testSanAndPgn () {
+        String text = allSan("r3k2r/1P6/8/8/8/5N2/8/RN2K2R w KQkq - 0 1");
+        for (String expected : new String[] {"O-O", "Nfd2", "Nbd2", "Ng1", "bxa8=Q+", "bxa8=N", "b8=R+", "Rxh8+"}) {
+            assertTrue(text.contains(" " + expected + " "), expected + " não está em" + text);
+        }
+        text = allSan("4k3/8/8/R7/8/8/8/R3K3 w - - 0 1");
+        for (String expected : new String[] {"R5a3", "R1a3", "Ra8+", "Rb1"}) {
+            assertTrue(text.contains(" " + expected + " "), expected + " não está em" + text);
+        }
+
+        GameRecord record = SelfPlay.play(1, "random", "random", 3, 40, 0);
+        String pgn = GameFormat.PGN.format(record);
+        assertTrue(pgn.startsWith("[Event \"Self-play\"]"));
+        assertTrue(pgn.contains("[Result \"" + record.getResult() + "\"]"));
+        assertTrue(pgn.contains("1. "));
+        assertTrue(pgn.trim().endsWith(record.getResult()));
+        assertTrue(GameFormat.CSV.format(record).startsWith("1,random,random,"));
+    }
+}
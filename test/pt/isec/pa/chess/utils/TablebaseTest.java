@@ -0,0 +1,157 @@
+package pt.isec.pa.chess.utils;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.data.MoveList;
+import pt.isec.pa.chess.model.engine.Search;
+import pt.isec.pa.chess.model.engine.SearchInfo;
+import pt.isec.pa.chess.model.engine.SearchLimits;
+import pt.isec.pa.chess.model.tablebase.Tablebase;
+import pt.isec.pa.chess.model.tablebase.TablebaseGenerator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TablebaseTest {
+    @TempDir
+    static Path dir;
+
+    private static Tablebase tablebase;
+
+    @BeforeAll
+    static void generate() throws IOException {
+        tablebase = new TablebaseGenerator(dir, 2).generate(3, null);
+    }
+
+    private static ChessGame game(String fen) {
+        ChessGame game = new ChessGame("White", "Black");
+        assertTrue(game.importFen(fen), fen);
+        return game;
+    }
+
+    private static int probe(String fen) {
+        return tablebase.probe(game(fen));
+    }
+
+    @Test
+    public void testKnownValues () {
+        assertEquals(5, tablebase.getTableCount());
+        assertEquals(-1, probe("k7/1Q6/1K6/8/8/8/8/8 b - - 0 1"));
+        assertEquals(1, probe("k7/8/1K6/8/8/8/8/6Q1 w - - 0 1"));
+        assertEquals(Tablebase.DRAW, probe("k7/8/1Q6/8/8/8/8/K7 b - - 0 1"));
+        assertEquals(Tablebase.DRAW, probe("k7/8/8/8/3B4/8/8/K7 w - - 0 1"));
+
+        // peão da torre com o rei adversário no canto empata; com o rei à frente do peão na sexta ganha
+        assertEquals(Tablebase.DRAW, probe("k7/8/8/8/8/8/P7/K7 w - - 0 1"));
+        assertTrue(Tablebase.isWin(probe("4k3/8/4K3/4P3/8/8/8/8 w - - 0 1")));
+        assertTrue(Tablebase.isLoss(probe("4k3/8/4K3/4P3/8/8/8/8 b - - 0 1")));
+
+        // as mesmas posições com as cores trocadas usam a mesma tabela
+        assertEquals(1, probe("6q1/8/8/8/8/1k6/8/K7 b - - 0 1"));
+        assertEquals(probe("4k3/8/4K3/4P3/8/8/8/8 w - - 0 1"), probe("8/8/8/8/4p3/4k3/8/4K3 b - - 0 1"));
+
+        assertEquals(Tablebase.UNKNOWN, probe("4k3/8/8/8/8/8/8/R3K3 w Q - 0 1"));
+        assertEquals(Tablebase.UNKNOWN, probe("4k3/8/8/8/8/8/2P5/RN2K3 w - - 0 1"));
+    }
+
+    @Test
+    public void testValuesAgreeWithTheirMoves () {
+        Random random = new Random(3);
+        String[] pieces = {"Q", "R", "P"};
+        int checked = 0;
+        for (int i = 0; i < 600; i++) {
+            char[] board = new char[64];
+            int[] squares = new int[3];
+            for (int p = 0; p < 3; p++) {
+                do {
+                    squares[p] = random.nextInt(64);
+                } while (board[squares[p]] != 0);
+                board[squares[p]] = p == 0 ? 'K' : p == 1 ? 'k' : pieces[i % 3].charAt(0);
+            }
+            if (board[squares[2]] == 'P' && (squares[2] < 8 || squares[2] >= 56))
+                continue;
+            StringBuilder fen = new StringBuilder();
+            for (int rank = 7; rank >= 0; rank--) {
+                int empty = 0;
+                for (int file = 0; file < 8; file++) {
+                    char c = board[rank * 8 + file];
+                    if (c == 0) {
+                        empty++;
+                        continue;
+                    }
+                    if (empty > 0)
+                        fen.append(empty);
+                    empty = 0;
+                    fen.append(c);
+                }
+                if (empty > 0)
+                    fen.append(empty);
+                if (rank > 0)
+                    fen.append('/');
+            }
+            boolean white = random.nextBoolean();
+            ChessGame game = new ChessGame("White", "Black");
+            if (!game.importFen(fen + (white ? " w - - 0 1" : " b - - 0 1")))
+                continue;
+            // o lado que não joga não pode estar em xeque
+            game.setWhiteToMove(!white);
+            boolean illegal = game.isInCheck();
+            game.setWhiteToMove(white);
+            if (illegal)
+                continue;
+
+            int value = tablebase.probe(game);
+            assertNotEquals(Tablebase.UNKNOWN, value, fen.toString());
+            assertEquals(fromMoves(game), value, fen.toString());
+            checked++;
+        }
+        assertTrue(checked > 300);
+    }
+
+    // o valor de uma posição a partir dos valores das posições depois de cada jogada
+    private static int fromMoves(ChessGame game) {
+        MoveList moves = new MoveList();
+        game.generateLegalMoves(moves);
+        if (moves.size() == 0)
+            return game.isInCheck() ? -1 : Tablebase.DRAW;
+        int fastestWin = Integer.MAX_VALUE;
+        int slowestLoss = -1;
+        boolean draw = false;
+        for (int i = 0; i < moves.size(); i++) {
+            game.makeMove(moves.get(i));
+            int child = tablebase.probe(game);
+            game.unmakeMove();
+            if (Tablebase.isLoss(child))
+                fastestWin = Math.min(fastestWin, Tablebase.movesToMate(child) + 1);
+            else if (Tablebase.isWin(child))
+                slowestLoss = Math.max(slowestLoss, Tablebase.movesToMate(child));
+            else
+                draw = true;
+        }
+        return fastestWin != Integer.MAX_VALUE ? fastestWin : draw ? Tablebase.DRAW : -(slowestLoss + 1);
+    }
+
+    @Test
+    public void testSearchFindsTheMateOfTheTable () {
+        String fen = "8/8/8/4k3/8/8/8/R3K3 w - - 0 1";
+        int value = probe(fen);
+        assertTrue(Tablebase.isWin(value) && value > 10);
+
+        Search search = new Search(game(fen));
+        search.setTablebase(tablebase);
+        SearchInfo info = search.search(SearchLimits.depth(3), null);
+        assertTrue(info.isMate());
+        assertEquals(value, info.getMateIn());
+        assertTrue(search.getTablebaseHits() > 0);
+
+        // depois da jogada, as pretas levam mate numa jogada a menos
+        ChessGame game = game(fen);
+        game.makeMove(info.getBestMove());
+        assertEquals(-value, tablebase.probe(game));
+    }
+}
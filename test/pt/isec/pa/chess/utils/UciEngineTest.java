@@ -0,0 +1,42 @@
+package pt.isec.pa.chess.utils;
+
+import org.junit.jupiter.api.Test;
+import pt.isec.pa.chess.ui.uci.UciEngine;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UciEngineTest {
+
+    private static String run(String commands) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8);
+        new UciEngine(new ByteArrayInputStream(commands.getBytes(StandardCharsets.UTF_8)), out).run();
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testHandshake () throws IOException {
+        String output = run("uci\nisready\nquit\n");
+        assertTrue(output.contains("id name "));
+        assertTrue(output.contains("uciok"));
+        assertTrue(output.contains("readyok"));
+    }
+
+    @Test
+    public void testFindsMateFromPosition () throws IOException {
+        // o bestmove de "go depth" sai quando a pesquisa acaba, antes do quit
+        String output = run("position fen 6k1/5ppp/8/8/8/8/5PPP/3R2K1 w - - 0 1\ngo depth 4\nisready\n");
+        assertTrue(output.contains("score mate 1"));
+        assertTrue(output.contains("bestmove d1d8"));
+
+        output = run("position startpos moves e2e4 e7e5 g1f3\ngo depth 3\n");
+        assertTrue(output.lines().anyMatch(line -> line.startsWith("bestmove ")));
+        assertFalse(output.contains("jogada inválida"));
+    }
+}